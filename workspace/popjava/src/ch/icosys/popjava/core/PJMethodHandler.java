@@ -1,35 +1,39 @@
 package ch.icosys.popjava.core;
 
-import java.lang.annotation.Annotation;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.security.cert.Certificate;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import ch.icosys.popjava.core.annotation.POPClass;
-import ch.icosys.popjava.core.annotation.POPParameter;
 import ch.icosys.popjava.core.base.MessageHeader;
 import ch.icosys.popjava.core.base.MethodInfo;
+import ch.icosys.popjava.core.base.POPClassDescriptor;
 import ch.icosys.popjava.core.base.POPErrorCode;
 import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.base.POPInputStream;
 import ch.icosys.popjava.core.base.POPObject;
 import ch.icosys.popjava.core.base.Semantic;
 import ch.icosys.popjava.core.baseobject.POPAccessPoint;
 import ch.icosys.popjava.core.broker.Broker;
 import ch.icosys.popjava.core.buffer.BufferFactory;
+import ch.icosys.popjava.core.buffer.MethodStub;
+import ch.icosys.popjava.core.buffer.MethodStubGenerator;
 import ch.icosys.popjava.core.buffer.POPBuffer;
 import ch.icosys.popjava.core.combox.Combox;
+import ch.icosys.popjava.core.combox.ComboxStream;
 import ch.icosys.popjava.core.interfacebase.Interface;
 import ch.icosys.popjava.core.system.POPSystem;
 import ch.icosys.popjava.core.util.ClassUtil;
 import ch.icosys.popjava.core.util.Configuration;
 import ch.icosys.popjava.core.util.LogWriter;
 import ch.icosys.popjava.core.util.MethodUtil;
-import ch.icosys.popjava.core.util.Util;
 import ch.icosys.popjava.core.util.ssl.SSLUtils;
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.ProxyObject;
@@ -47,10 +51,12 @@ public class PJMethodHandler extends Interface implements MethodHandler {
 
 	private final AtomicBoolean setup = new AtomicBoolean(false);
 
-	private final Map<Method, Annotation[][]> methodAnnotationCache = new HashMap<>();
-
 	private final Configuration conf = Configuration.getInstance();
 
+	private final int asyncBatchSize;
+
+	private final long asyncBatchDelay;
+
 	/**
 	 * Associate an POPObject with this handler
 	 * 
@@ -60,6 +66,15 @@ public class PJMethodHandler extends Interface implements MethodHandler {
 	public PJMethodHandler(Broker parentBroker, POPObject popObject) {
 		super(parentBroker);
 		popObjectInfo = popObject;
+
+		POPClass annotation = popObject.getClass().getAnnotation(POPClass.class);
+		if (annotation != null) {
+			asyncBatchSize = annotation.asyncBatchSize();
+			asyncBatchDelay = annotation.asyncBatchDelay();
+		} else {
+			asyncBatchSize = 1;
+			asyncBatchDelay = 0;
+		}
 	}
 
 	public void setSetup() {
@@ -112,10 +127,9 @@ public class PJMethodHandler extends Interface implements MethodHandler {
 					POPBuffer popBuffer = factory.createBuffer();
 					popBuffer.setHeader(messageHeader);
 
-					Annotation[][] annotations = constructor.getParameterAnnotations();
+					int[] flags = popObjectInfo.getClassDescriptor().getParameterFlags(constructor);
 					for (int index = 0; index < argvs.length; index++) {
-						if (Util.isParameterNotOfDirection(annotations[index], POPParameter.Direction.OUT)
-								&& Util.isParameterUsable(annotations[index])) {
+						if ((flags[index] & POPClassDescriptor.PARAMETER_IN) != 0) {
 							popBuffer.putValue(argvs[index], parameterTypes[index]);
 						}
 					}
@@ -125,9 +139,7 @@ public class PJMethodHandler extends Interface implements MethodHandler {
 					popResponse(responseBuffer, messageHeader.getRequestID());
 
 					for (int index = 0; index < parameterTypes.length; index++) {
-						if (Util.isParameterNotOfDirection(annotations[index], POPParameter.Direction.IN)
-								&& Util.isParameterUsable(annotations[index]) && !(argvs[index] instanceof POPObject
-										&& !Util.isParameterOfAnyDirection(annotations[index]))) {
+						if (POPClassDescriptor.isOutput(flags[index], argvs[index])) {
 							responseBuffer.deserializeReferenceObject(parameterTypes[index], argvs[index]);
 						}
 
@@ -230,41 +242,102 @@ public class PJMethodHandler extends Interface implements MethodHandler {
 		}
 		POPBuffer popBuffer = combox.getBufferFactory().createBuffer();
 		popBuffer.setHeader(messageHeader);
-		Class<?>[] parameterTypes = m.getParameterTypes();
+		POPClassDescriptor descriptor = popObjectInfo.getClassDescriptor();
+		int methodIndex = descriptor.indexOf(m);
+		Class<?>[] parameterTypes = methodIndex >= 0 ? descriptor.getParameterTypes(methodIndex)
+				: m.getParameterTypes();
+		int[] flags = methodIndex >= 0 ? descriptor.getParameterFlags(methodIndex) : descriptor.getParameterFlags(m);
+
+		// streams are sent after the call with their own identifier
+		List<POPInputStream> streams = null;
+		for (Object argument : argvs) {
+			if (argument instanceof POPInputStream) {
+				POPInputStream stream = (POPInputStream) argument;
+				stream.attach(ComboxStream.ofInterface(combox, getRequestID()));
+				if (streams == null) {
+					streams = new ArrayList<>();
+				}
+				streams.add(stream);
+			}
+		}
 
-		if (!methodAnnotationCache.containsKey(m)) {
-			methodAnnotationCache.put(m, m.getParameterAnnotations());
+		// simple methods are marshalled by their generated stub
+		MethodStub stub = MethodStubGenerator.getStub(m);
+		if (stub != null) {
+			stub.putArguments(popBuffer, argvs);
+		} else {
+			for (int index = 0; index < argvs.length; index++) {
+				if ((flags[index] & POPClassDescriptor.PARAMETER_IN) != 0) {
+					popBuffer.putValue(argvs[index], parameterTypes[index]);
+				}
+			}
 		}
 
-		Annotation[][] annotations = methodAnnotationCache.get(m);
+		// the response can arrive before the call is sent, wait for it beforehand
+		CompletableFuture<Object> response = null;
+		if ((methodSemantics & Semantic.SYNCHRONOUS) != 0 && ClassUtil.isFutureMethod(m)) {
+			final Class<?> valueType = ClassUtil.getFutureValueType(m);
+			response = popResponseAsync(messageHeader.getRequestID(), responseBuffer -> {
+				readOutputParameters(responseBuffer, parameterTypes, flags, argvs);
+				exitTemporaryArguments(argvs);
+				if (valueType == Void.class) {
+					return null;
+				}
+				return responseBuffer.getValue(valueType);
+			});
+		}
 
-		for (int index = 0; index < argvs.length; index++) {
-			if (Util.isParameterNotOfDirection(annotations[index], POPParameter.Direction.OUT)
-					&& Util.isParameterUsable(annotations[index])) {
-				popBuffer.putValue(argvs[index], parameterTypes[index]);
+		try {
+			if ((methodSemantics & Semantic.SYNCHRONOUS) != 0) {
+				popDispatch(popBuffer);
+			} else {
+				popDispatchBatched(popBuffer, asyncBatchSize, asyncBatchDelay);
 			}
+		} catch (RuntimeException e) {
+			if (response != null) {
+				cancelResponseAsync(messageHeader.getRequestID(), e);
+			}
+			throw e;
 		}
+		// the combox keeps its own copy of the message
+		popBuffer.release();
 
-		popDispatch(popBuffer);
-		if ((methodSemantics & Semantic.SYNCHRONOUS) != 0) {
+		IOException streamException = null;
+		if (streams != null) {
+			for (POPInputStream stream : streams) {
+				try {
+					stream.transmit();
+				} catch (IOException e) {
+					// the broker-side sees the failure too, still read its response
+					streamException = e;
+				}
+			}
+		}
+
+		if (response != null) {
+			// don't wait, the future is completed when the response arrives
+			return response;
+		} else if ((methodSemantics & Semantic.SYNCHRONOUS) != 0) {
 			POPBuffer responseBuffer = combox.getCombox().getBufferFactory().createBuffer();
 
 			popResponse(responseBuffer, messageHeader.getRequestID());
 
-			// Recover the data from the calling method. The called method can
-			// Modify the content of an array and it gets copied back in here
-			for (int index = 0; index < parameterTypes.length; index++) {
-				if (Util.isParameterNotOfDirection(annotations[index], POPParameter.Direction.IN)
-						&& Util.isParameterUsable(annotations[index]) && !(argvs[index] instanceof POPObject
-								&& !Util.isParameterOfAnyDirection(annotations[index]))) {
-					responseBuffer.deserializeReferenceObject(parameterTypes[index], argvs[index]);
+			if (stub != null) {
+				// stubs only exist for methods without output parameters
+				if (returnType != void.class) {
+					result = stub.getResult(responseBuffer);
+				}
+			} else {
+				readOutputParameters(responseBuffer, parameterTypes, flags, argvs);
+
+				// Get the return value in case the called method has one
+				if (returnType == POPInputStream.class) {
+					result = new POPInputStream(ComboxStream.ofInterface(combox, responseBuffer.getInt()));
+				} else if (returnType != Void.class && returnType != void.class) {
+					result = responseBuffer.getValue(returnType);
 				}
 			}
-
-			// Get the return value in case the called method has one
-			if (returnType != Void.class && returnType != void.class) {
-				result = responseBuffer.getValue(returnType);
-			}
+			responseBuffer.release();
 
 		} else {
 			// If the method is async and has a return type, return default
@@ -283,17 +356,38 @@ public class PJMethodHandler extends Interface implements MethodHandler {
 			}
 		}
 
+		exitTemporaryArguments(argvs);
+
+		if (streamException != null) {
+			throw new POPException(POPErrorCode.UNKNOWN_EXCEPTION, "Can't send stream: " + streamException.getMessage());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Recover the data from the calling method. The called method can modify the
+	 * content of an array and it gets copied back in here
+	 */
+	private void readOutputParameters(POPBuffer responseBuffer, Class<?>[] parameterTypes,
+			int[] flags, Object[] argvs) {
+		for (int index = 0; index < parameterTypes.length; index++) {
+			if (POPClassDescriptor.isOutput(flags[index], argvs[index])) {
+				responseBuffer.deserializeReferenceObject(parameterTypes[index], argvs[index]);
+			}
+		}
+	}
+
+	private void exitTemporaryArguments(Object[] argvs) {
 		for (Object argv : argvs) {
 			if (argv instanceof POPObject) {
 				POPObject object = (POPObject) argv;
-				LogWriter.writeDebugInfo("Closing POPObject again " + object.getClassName());
+				LogWriter.writeDebugInfo(() -> "Closing POPObject again " + object.getClassName());
 				if (object.isTemporary()) {
 					object.exit();
 				}
 			}
 		}
-
-		return result;
 	}
 
 	private void replacePOPObjectArguments(Object[] args) {
@@ -413,7 +507,7 @@ public class PJMethodHandler extends Interface implements MethodHandler {
 			return result;
 
 		} else if (methodName.equals("exit") && argvs.length == 0) {
-			LogWriter.writeDebugInfo("Close method handler through exit: " + popObjectInfo.getClassName());
+			LogWriter.writeDebugInfo(() -> "Close method handler through exit: " + popObjectInfo.getClassName());
 			canExcute[0] = true;
 			invokeExit();
 		} else {
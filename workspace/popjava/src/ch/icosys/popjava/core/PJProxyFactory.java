@@ -2,6 +2,8 @@ package ch.icosys.popjava.core;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ch.icosys.popjava.core.base.POPErrorCode;
 import ch.icosys.popjava.core.base.POPException;
@@ -11,6 +13,7 @@ import ch.icosys.popjava.core.baseobject.POPAccessPoint;
 import ch.icosys.popjava.core.broker.Broker;
 import ch.icosys.popjava.core.buffer.POPBuffer;
 import ch.icosys.popjava.core.combox.Combox;
+import ch.icosys.popjava.core.interfacebase.Interface;
 import ch.icosys.popjava.core.system.POPSystem;
 import ch.icosys.popjava.core.util.ClassUtil;
 import ch.icosys.popjava.core.util.LogWriter;
@@ -27,6 +30,11 @@ import javassist.util.proxy.ProxyObject;
  *
  */
 public class PJProxyFactory extends ProxyFactory {
+	/**
+	 * Proxy classes generated in the JVM, by target class
+	 */
+	private static final Map<Class<?>, Class<?>> proxyClasses = new ConcurrentHashMap<>();
+
 	/**
 	 * Target class to create a proxy
 	 */
@@ -53,6 +61,15 @@ public class PJProxyFactory extends ProxyFactory {
 		setFilter(methodFilter);
 	}
 
+	/**
+	 * The proxy class of the target class, it is generated once for the JVM
+	 * 
+	 * @return the proxy class
+	 */
+	public Class<?> getProxyClass() {
+		return proxyClasses.computeIfAbsent(targetClass, c -> createClass());
+	}
+
 	/**
 	 * Create a new object from the factory
 	 * 
@@ -119,18 +136,98 @@ public class PJProxyFactory extends ProxyFactory {
 	 *             a remote exception, look for cause
 	 */
 	public Object newPOPObject(Broker parentBroker, ObjectDescription od, Object... argvs) throws POPException {
+		return createPOPObject(parentBroker, od, null, argvs);
+	}
+
+	/**
+	 * Create a new object on a broker started beforehand by
+	 * {@link #startPOPObjects(Broker, int, ObjectDescription, Object...)}, its
+	 * constructor is called.
+	 * 
+	 * @param od
+	 *            : Object description with the resource requirements
+	 * @param started
+	 *            : access point of the started broker
+	 * @param argvs
+	 *            : arguments to pass trough the constructor of the specific object
+	 * @return the instance of the object
+	 * @throws POPException
+	 *             a remote exception, look for cause
+	 */
+	public Object newStartedPOPObject(Broker parentBroker, ObjectDescription od, POPAccessPoint started,
+			Object... argvs) throws POPException {
+		return createPOPObject(parentBroker, od, started, argvs);
+	}
+
+	/**
+	 * Start the brokers of many objects with a single request to the job
+	 * manager. Only objects allocated by the job manager can be started this way,
+	 * not those with an URL or running in the local JVM.
+	 * 
+	 * @param n
+	 *            : the number of objects
+	 * @param od
+	 *            : Object description with the resource requirements
+	 * @param argvs
+	 *            : arguments of the constructor, to find the annotations
+	 * @return the access points of the brokers, or null if the objects must be
+	 *         created one by one
+	 * @throws POPException
+	 *             if the job manager couldn't start the brokers
+	 */
+	public POPAccessPoint[] startPOPObjects(Broker parentBroker, int n, ObjectDescription od, Object... argvs)
+			throws POPException {
+		Constructor<?> constructor = findConstructor(argvs);
+		if (constructor == null) {
+			return null;
+		}
+
+		POPObject popObject;
+		try {
+			popObject = (POPObject) targetClass.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			LogWriter.writeExceptionLog(e);
+			return null;
+		}
+		popObject.loadPOPAnnotations(constructor, argvs);
+		ObjectDescription originalOd = popObject.getOd();
+		originalOd.merge(od);
+		String hostName = originalOd.getHostName();
+		if (originalOd.useLocalJVM() || hostName != null && !hostName.isEmpty()
+				|| originalOd.getRemoteAccessPoint() != null && !originalOd.getRemoteAccessPoint().isEmpty()) {
+			return null;
+		}
+
+		Interface allocator = new Interface(parentBroker);
+		allocator.setOd(originalOd);
+		POPAccessPoint[] started = new POPAccessPoint[n];
+		POPAccessPoint[] remoteJobManagers = new POPAccessPoint[n];
+		for (int i = 0; i < n; i++) {
+			started[i] = new POPAccessPoint();
+			remoteJobManagers[i] = new POPAccessPoint();
+		}
+		if (!allocator.allocateThroughJobmanager(popObject.getClassName(), started, remoteJobManagers)) {
+			return null;
+		}
+		return started;
+	}
+
+	private Constructor<?> findConstructor(Object... argvs) {
+		Class<?>[] parameterTypes = ClassUtil.getObjectTypes(argvs);
+		try {
+			return targetClass.getConstructor(parameterTypes);
+		} catch (NoSuchMethodException e) {
+			return findMatchingConstructor(targetClass, parameterTypes);
+		}
+	}
+
+	private Object createPOPObject(Broker parentBroker, ObjectDescription od, POPAccessPoint started,
+			Object... argvs) throws POPException {
 		try {
 			POPObject popObject = null;
 			// Check if object has a default constructor
 
-			Class<?>[] parameterTypes = ClassUtil.getObjectTypes(argvs);
-			Constructor<?> constructor;
-
-			try {
-				constructor = targetClass.getConstructor(parameterTypes);
-			} catch (NoSuchMethodException e) {
-				constructor = findMatchingConstructor(targetClass, parameterTypes);
-			}
+			Constructor<?> constructor = findConstructor(argvs);
 
 			if (constructor == null) {
 				System.out.println("No constructor found");
@@ -166,9 +263,10 @@ public class PJProxyFactory extends ProxyFactory {
 
 				PJMethodHandler methodHandler = new PJMethodHandler(parentBroker, popObject);
 				methodHandler.setOd(originalOd);
+				methodHandler.setStartedAccessPoint(started);
 				methodHandler.popConstructor(targetClass, argvs);
 				// this.setHandler(methodHandler);
-				Class<?> c = createClass();
+				Class<?> c = getProxyClass();
 				Object result = c.newInstance();
 				((ProxyObject) result).setHandler(methodHandler);
 
@@ -212,7 +310,7 @@ public class PJProxyFactory extends ProxyFactory {
 
 			methodHandler.bindObject(accessPoint);
 			// this.setHandler(methodHandler);
-			Class<?> c = this.createClass();
+			Class<?> c = getProxyClass();
 			Object result = c.newInstance();
 			((ProxyObject) result).setHandler(methodHandler);
 			return result;
@@ -240,7 +338,7 @@ public class PJProxyFactory extends ProxyFactory {
 			PJMethodHandler methodHandler = new PJMethodHandler(null, popObject);
 			methodHandler.setSetup();
 			// this.setHandler(methodHandler);
-			Class<?> c = this.createClass();
+			Class<?> c = getProxyClass();
 			result = (POPObject) c.newInstance();
 			((ProxyObject) result).setHandler(methodHandler);
 
@@ -2,10 +2,12 @@ package ch.icosys.popjava.core;
 
 import ch.icosys.popjava.core.base.POPObject;
 import ch.icosys.popjava.core.baseobject.POPTracking;
+import ch.icosys.popjava.core.baseobject.POPTrackingMethod;
 import ch.icosys.popjava.core.util.POPRemoteCaller;
 
 /**
- * Accounting API for POP Objects.
+ * Accounting API for POP Objects. The time spent by each method is available
+ * as latency histograms, see {@link POPTrackingMethod#getExecutionTime()}.
  * 
  * @author Davide Mazzoleni
  */
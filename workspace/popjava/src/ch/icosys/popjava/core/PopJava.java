@@ -1,8 +1,19 @@
 package ch.icosys.popjava.core;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import ch.icosys.popjava.core.base.POPCreationException;
+import ch.icosys.popjava.core.base.POPErrorCode;
 import ch.icosys.popjava.core.base.POPException;
 import ch.icosys.popjava.core.base.POPObject;
 import ch.icosys.popjava.core.baseobject.ObjectDescription;
@@ -28,6 +39,24 @@ import javassist.util.proxy.ProxyObject;
  */
 public class PopJava {
 
+	// objects of newActiveArray created at the same time, the others wait
+	private static final int MAX_CONCURRENT_CREATIONS = 16;
+
+	// creates the objects of newActiveArray concurrently
+	private static final ThreadPoolExecutor creators = new ThreadPoolExecutor(MAX_CONCURRENT_CREATIONS,
+			MAX_CONCURRENT_CREATIONS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "PopJava creation thread");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	// set on the threads of creators
+	private static final ThreadLocal<Boolean> creating = ThreadLocal.withInitial(() -> false);
+
+	static {
+		creators.allowCoreThreadTimeOut(true);
+	}
+
 	private PopJava() {
 	}
 
@@ -53,6 +82,97 @@ public class PopJava {
 		return (T) factoryProxy.newPOPObject(null, objectDescription, argvs);
 	}
 
+	/**
+	 * Create many parallel objects at once. The brokers of the objects allocated
+	 * by the job manager are started with a single request, then the objects are
+	 * constructed concurrently, so they start at the same time instead of one
+	 * after the other.
+	 * 
+	 * @param targetClass
+	 *            the parallel class to be created
+	 * @param n
+	 *            the number of objects
+	 * @param objectDescription
+	 *            the object description for the resource requirements, may be
+	 *            null
+	 * @param argvs
+	 *            arguments of the constructor of each object (may be empty)
+	 * @return the objects, once they are all created
+	 * @throws POPCreationException
+	 *             if some objects could not be created, with the others
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T[] newActiveArray(final Class<T> targetClass, int n, ObjectDescription objectDescription,
+			final Object... argvs) throws POPCreationException {
+		POPSystem.start();
+		final ObjectDescription od = objectDescription != null ? objectDescription : new ObjectDescription();
+		T[] objects = (T[]) Array.newInstance(targetClass, n);
+		Throwable[] failures = new Throwable[n];
+
+		POPAccessPoint[] started;
+		try {
+			started = new PJProxyFactory(targetClass).startPOPObjects(null, n, od, argvs);
+		} catch (POPException e) {
+			LogWriter.writeDebugInfo("[PopJava] The %d %s could not be started: %s", n, targetClass.getName(),
+					e.getMessage());
+			Arrays.fill(failures, e);
+			throw new POPCreationException(objects, failures, n);
+		}
+
+		List<Future<T>> creations = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			final POPAccessPoint accessPoint = started != null ? started[i] : null;
+			creations.add(submitCreation(() -> accessPoint != null
+					? (T) new PJProxyFactory(targetClass).newStartedPOPObject(null, od, accessPoint, argvs)
+					: newActive(targetClass, od, argvs)));
+		}
+
+		int failed = 0;
+		for (int i = 0; i < n; i++) {
+			try {
+				objects[i] = creations.get(i).get();
+				if (objects[i] == null) {
+					failures[i] = new POPException(POPErrorCode.POP_EXEC_FAIL, "Could not create " + targetClass);
+				}
+			} catch (ExecutionException e) {
+				failures[i] = e.getCause();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failures[i] = e;
+			}
+			if (failures[i] != null) {
+				failed++;
+			}
+		}
+
+		if (failed > 0) {
+			LogWriter.writeDebugInfo("[PopJava] %d of %d %s could not be created", failed, n, targetClass.getName());
+			throw new POPCreationException(objects, failures, failed);
+		}
+		return objects;
+	}
+
+	/**
+	 * Run a creation of {@link #newActiveArray(Class, int, ObjectDescription, Object...)}
+	 * with the creators, or right away when a constructor creates other objects
+	 * from one of their threads, which may all be waiting for it
+	 */
+	private static <T> Future<T> submitCreation(Callable<T> creation) {
+		if (creating.get()) {
+			FutureTask<T> task = new FutureTask<>(creation);
+			task.run();
+			return task;
+		}
+		return creators.submit(() -> {
+			creating.set(true);
+			try {
+				return creation.call();
+			} finally {
+				creating.set(false);
+			}
+		});
+	}
+
 	public static Object newActiveFromName(String targetClass, Object... argvs)
 			throws POPException, ClassNotFoundException {
 		return newActive(null, Class.forName(targetClass), argvs);
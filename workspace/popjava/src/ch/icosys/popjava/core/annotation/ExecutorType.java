@@ -0,0 +1,59 @@
+package ch.icosys.popjava.core.annotation;
+
+/**
+ * Enum that lists the execution models a broker can use to serve the requests
+ * of its parallel object
+ */
+public enum ExecutorType {
+
+	/**
+	 * Use what is set in the configuration
+	 */
+	Default(""),
+
+	/**
+	 * Fixed pool of platform threads
+	 */
+	Fixed("fixed"),
+
+	/**
+	 * Bounded work-stealing pool. A method waiting for another parallel object
+	 * lets the pool start a spare worker, other blocking code (I/O, locks) holds
+	 * its worker unless it goes through
+	 * {@link java.util.concurrent.ForkJoinPool#managedBlock}.
+	 */
+	ForkJoin("forkjoin"),
+
+	/**
+	 * One virtual thread per request, falls back to a fixed pool before Java 21
+	 */
+	Virtual("virtual");
+
+	private String name;
+
+	ExecutorType(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Find the type corresponding to a name, case is ignored
+	 *
+	 * @param name
+	 *            the name of the executor
+	 * @return the type or {@link #Default} if the name is unknown
+	 */
+	public static ExecutorType fromName(String name) {
+		if (name != null) {
+			for (ExecutorType type : values()) {
+				if (type.name.equalsIgnoreCase(name)) {
+					return type;
+				}
+			}
+		}
+		return Default;
+	}
+
+	public String toString() {
+		return name;
+	}
+}
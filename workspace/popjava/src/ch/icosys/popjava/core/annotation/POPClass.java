@@ -25,4 +25,28 @@ public @interface POPClass {
 	boolean isDistributable() default true;
 
 	boolean useAsyncConstructor() default true;
+
+	/**
+	 * The execution model used by the broker to serve the requests, can be
+	 * overridden by the object description.
+	 * 
+	 * @return the executor type
+	 */
+	ExecutorType executor() default ExecutorType.Default;
+
+	/**
+	 * Number of asynchronous calls the interface-side groups in a single write,
+	 * 1 sends each call immediately.
+	 * 
+	 * @return the maximum number of calls in a batch
+	 */
+	int asyncBatchSize() default 1;
+
+	/**
+	 * Time in microseconds after which an incomplete batch of asynchronous calls
+	 * is sent anyway.
+	 * 
+	 * @return the maximum delay of a call in a batch
+	 */
+	long asyncBatchDelay() default 1000;
 }
\ No newline at end of file
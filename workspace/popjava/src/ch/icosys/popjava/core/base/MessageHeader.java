@@ -12,6 +12,8 @@ public class MessageHeader {
 
 	public static final int EXCEPTION = 2;
 
+	public static final int STREAM = 3;
+
 	public static final int BIND_STATUS_CALL = 0;
 
 	public static final int ADD_REF_CALL = 1;
@@ -104,7 +106,7 @@ public class MessageHeader {
 
 	/**
 	 * Set the request type in the header message. Request type can be Request,
-	 * Response or Exception
+	 * Response, Exception or Stream
 	 * 
 	 * @param requestType
 	 *            type of the request
@@ -0,0 +1,360 @@
+package ch.icosys.popjava.core.base;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ch.icosys.popjava.core.annotation.POPAsyncConc;
+import ch.icosys.popjava.core.annotation.POPAsyncMutex;
+import ch.icosys.popjava.core.annotation.POPAsyncSeq;
+import ch.icosys.popjava.core.annotation.POPParameter;
+import ch.icosys.popjava.core.annotation.POPSyncConc;
+import ch.icosys.popjava.core.annotation.POPSyncMutex;
+import ch.icosys.popjava.core.annotation.POPSyncSeq;
+import ch.icosys.popjava.core.util.MethodUtil;
+import ch.icosys.popjava.core.util.Tuple;
+import ch.icosys.popjava.core.util.Util;
+
+/**
+ * Method and constructor identifiers of a parallel class with their semantics,
+ * computed by the first instance of the class and shared by the next ones with
+ * the same class identifier. The
+ * maps can not be modified, an instance defining its own methods works on a
+ * copy.
+ *
+ * The methods are also numbered, the arrays indexed by this number hold what
+ * the calls need: the semantics and the direction of each parameter. The number
+ * of a method is found from its identifiers without allocating.
+ */
+public final class POPClassDescriptor {
+
+	/** The parameter is sent with the request */
+	public static final int PARAMETER_IN = 1;
+
+	/** The parameter is sent back with the response */
+	public static final int PARAMETER_OUT = 2;
+
+	/** The parameter has an explicit {@link POPParameter} direction */
+	public static final int PARAMETER_DIRECTED = 4;
+
+	// by class and class identifier, an instance may set its own identifier
+	private static final Map<Tuple<Class<?>, Integer>, POPClassDescriptor> descriptors = new ConcurrentHashMap<>();
+
+	private final Map<MethodInfo, Integer> semantics;
+
+	private final Map<MethodInfo, Method> methodInfos;
+
+	private final Map<Method, MethodInfo> reverseMethodInfos;
+
+	private final Map<MethodInfo, Constructor<?>> constructorInfos;
+
+	private final Map<Constructor<?>, MethodInfo> reverseConstructorInfos;
+
+	// by method number
+	private final Method[] methods;
+
+	private final int[] classIds;
+
+	private final int[] methodIds;
+
+	private final int[] localSemantics;
+
+	private final Class<?>[][] parameterTypes;
+
+	private final int[][] parameterFlags;
+
+	// open addressing table of the method numbers + 1, by identifiers
+	private final int[] slots;
+
+	private final Map<Method, Integer> numbers = new HashMap<>();
+
+	private final Map<Constructor<?>, int[]> constructorParameterFlags = new HashMap<>();
+
+	POPClassDescriptor(Map<MethodInfo, Integer> semantics, Map<MethodInfo, Method> methodInfos,
+			Map<Method, MethodInfo> reverseMethodInfos, Map<MethodInfo, Constructor<?>> constructorInfos,
+			Map<Constructor<?>, MethodInfo> reverseConstructorInfos) {
+		this.semantics = Collections.unmodifiableMap(semantics);
+		this.methodInfos = Collections.unmodifiableMap(methodInfos);
+		this.reverseMethodInfos = Collections.unmodifiableMap(reverseMethodInfos);
+		this.constructorInfos = Collections.unmodifiableMap(constructorInfos);
+		this.reverseConstructorInfos = Collections.unmodifiableMap(reverseConstructorInfos);
+
+		int size = methodInfos.size();
+		methods = new Method[size];
+		classIds = new int[size];
+		methodIds = new int[size];
+		localSemantics = new int[size];
+		parameterTypes = new Class<?>[size][];
+		parameterFlags = new int[size][];
+		int capacity = Integer.highestOneBit(Math.max(1, size) * 2) * 2;
+		slots = new int[capacity];
+
+		int number = 0;
+		for (Map.Entry<MethodInfo, Method> entry : methodInfos.entrySet()) {
+			Method method = entry.getValue();
+			methods[number] = method;
+			classIds[number] = entry.getKey().getClassId();
+			methodIds[number] = entry.getKey().getMethodId();
+			localSemantics[number] = localSemantics(method);
+			parameterTypes[number] = method.getParameterTypes();
+			parameterFlags[number] = parameterFlags(method.getParameterAnnotations());
+
+			int slot = hash(classIds[number], methodIds[number]) & (capacity - 1);
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			slots[slot] = number + 1;
+			numbers.put(method, number);
+			number++;
+		}
+
+		for (Constructor<?> constructor : constructorInfos.values()) {
+			constructorParameterFlags.put(constructor, parameterFlags(constructor.getParameterAnnotations()));
+		}
+	}
+
+	/**
+	 * @param c
+	 *            a parallel class
+	 * @param classId
+	 *            the class identifier of the instance
+	 * @return the descriptor of the class or null if no instance computed it yet
+	 */
+	public static POPClassDescriptor get(Class<?> c, int classId) {
+		return descriptors.get(new Tuple<>(c, classId));
+	}
+
+	/**
+	 * Share the descriptor computed for a class, the first one is kept if two
+	 * instances computed it concurrently
+	 *
+	 * @param c
+	 *            the parallel class
+	 * @param classId
+	 *            the class identifier of the instance
+	 * @param descriptor
+	 *            its descriptor
+	 * @return the descriptor shared by the instances of the class
+	 */
+	static POPClassDescriptor publish(Class<?> c, int classId, POPClassDescriptor descriptor) {
+		POPClassDescriptor previous = descriptors.putIfAbsent(new Tuple<>(c, classId), descriptor);
+		return previous == null ? descriptor : previous;
+	}
+
+	/**
+	 * Find the number of a method from its identifiers
+	 *
+	 * @param classId
+	 *            the class identifier of the method
+	 * @param methodId
+	 *            the method identifier
+	 * @return the number of the method or -1 if it is not a method of the class
+	 */
+	public int indexOf(int classId, int methodId) {
+		int mask = slots.length - 1;
+		int slot = hash(classId, methodId) & mask;
+		int number;
+		while ((number = slots[slot]) != 0) {
+			if (classIds[number - 1] == classId && methodIds[number - 1] == methodId) {
+				return number - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param method
+	 *            a method
+	 * @return the number of the method or -1 if it is not a method of the class
+	 */
+	public int indexOf(Method method) {
+		Integer number = numbers.get(method);
+		return number == null ? -1 : number;
+	}
+
+	/**
+	 * @param index
+	 *            the number of a method
+	 * @return the method
+	 */
+	public Method getMethod(int index) {
+		return methods[index];
+	}
+
+	/**
+	 * The semantics given by the annotation of the method in this class, the ones
+	 * used by the broker running the object
+	 *
+	 * @param index
+	 *            the number of a method
+	 * @return the semantics or -1 if the method is not annotated in this class
+	 */
+	public int getLocalSemantics(int index) {
+		return localSemantics[index];
+	}
+
+	/**
+	 * @param index
+	 *            the number of a method
+	 * @return the types of the parameters of the method, they must not be modified
+	 */
+	public Class<?>[] getParameterTypes(int index) {
+		return parameterTypes[index];
+	}
+
+	/**
+	 * @param index
+	 *            the number of a method
+	 * @return the {@link #PARAMETER_IN} flags of each parameter of the method,
+	 *         they must not be modified
+	 */
+	public int[] getParameterFlags(int index) {
+		return parameterFlags[index];
+	}
+
+	/**
+	 * @param method
+	 *            a method
+	 * @return the {@link #PARAMETER_IN} flags of each parameter of the method,
+	 *         they must not be modified
+	 */
+	public int[] getParameterFlags(Method method) {
+		int index = indexOf(method);
+		if (index < 0) {
+			return parameterFlags(method.getParameterAnnotations());
+		}
+		return parameterFlags[index];
+	}
+
+	/**
+	 * @param constructor
+	 *            a constructor
+	 * @return the {@link #PARAMETER_IN} flags of each parameter of the
+	 *         constructor, they must not be modified
+	 */
+	public int[] getParameterFlags(Constructor<?> constructor) {
+		int[] flags = constructorParameterFlags.get(constructor);
+		if (flags == null) {
+			return parameterFlags(constructor.getParameterAnnotations());
+		}
+		return flags;
+	}
+
+	/**
+	 * Compute the direction flags of parameters
+	 *
+	 * @param annotations
+	 *            the annotations of the parameters
+	 * @return the flags of each parameter
+	 */
+	public static int[] parameterFlags(Annotation[][] annotations) {
+		int[] flags = new int[annotations.length];
+		for (int i = 0; i < annotations.length; i++) {
+			if (Util.isParameterUsable(annotations[i])) {
+				if (Util.isParameterNotOfDirection(annotations[i], POPParameter.Direction.OUT)) {
+					flags[i] |= PARAMETER_IN;
+				}
+				if (Util.isParameterNotOfDirection(annotations[i], POPParameter.Direction.IN)) {
+					flags[i] |= PARAMETER_OUT;
+				}
+			}
+			if (Util.isParameterOfAnyDirection(annotations[i])) {
+				flags[i] |= PARAMETER_DIRECTED;
+			}
+		}
+		return flags;
+	}
+
+	/**
+	 * A parameter is sent back unless it is a parallel object without explicit
+	 * direction
+	 *
+	 * @param flags
+	 *            the flags of the parameter
+	 * @param argument
+	 *            the value of the parameter
+	 * @return true if the parameter is sent with the response
+	 */
+	public static boolean isOutput(int flags, Object argument) {
+		return (flags & PARAMETER_OUT) != 0
+				&& !(argument instanceof POPObject && (flags & PARAMETER_DIRECTED) == 0);
+	}
+
+	/**
+	 * Compute the semantics given by the annotation of a method
+	 *
+	 * @param method
+	 *            a method
+	 * @return the semantics or -1 if the method is not annotated
+	 */
+	public static int localSemantics(Method method) {
+		Annotation[] annotations = method.getAnnotations();
+		int semantics;
+		boolean isLocalhost;
+
+		POPSyncConc syncConc;
+		POPSyncSeq syncSeq;
+		POPSyncMutex syncMutex;
+		POPAsyncConc asyncConc;
+		POPAsyncSeq asyncSeq;
+		POPAsyncMutex asyncMutex;
+
+		if ((syncConc = MethodUtil.getAnnotation(annotations, POPSyncConc.class)) != null) {
+			semantics = Semantic.SYNCHRONOUS | Semantic.CONCURRENT;
+			isLocalhost = syncConc.localhost();
+		} else if ((syncSeq = MethodUtil.getAnnotation(annotations, POPSyncSeq.class)) != null) {
+			semantics = Semantic.SYNCHRONOUS | Semantic.SEQUENCE;
+			isLocalhost = syncSeq.localhost();
+		} else if ((syncMutex = MethodUtil.getAnnotation(annotations, POPSyncMutex.class)) != null) {
+			semantics = Semantic.SYNCHRONOUS | Semantic.MUTEX;
+			isLocalhost = syncMutex.localhost();
+		} else if ((asyncConc = MethodUtil.getAnnotation(annotations, POPAsyncConc.class)) != null) {
+			semantics = Semantic.ASYNCHRONOUS | Semantic.CONCURRENT;
+			isLocalhost = asyncConc.localhost();
+		} else if ((asyncSeq = MethodUtil.getAnnotation(annotations, POPAsyncSeq.class)) != null) {
+			semantics = Semantic.ASYNCHRONOUS | Semantic.SEQUENCE;
+			isLocalhost = asyncSeq.localhost();
+		} else if ((asyncMutex = MethodUtil.getAnnotation(annotations, POPAsyncMutex.class)) != null) {
+			semantics = Semantic.ASYNCHRONOUS | Semantic.MUTEX;
+			isLocalhost = asyncMutex.localhost();
+		} else {
+			return -1;
+		}
+
+		// localhost only call
+		if (isLocalhost) {
+			semantics |= Semantic.LOCALHOST;
+		}
+		return semantics;
+	}
+
+	private static int hash(int classId, int methodId) {
+		int h = classId * 31 + methodId;
+		return h ^ (h >>> 16);
+	}
+
+	Map<MethodInfo, Integer> getSemantics() {
+		return semantics;
+	}
+
+	Map<MethodInfo, Method> getMethodInfos() {
+		return methodInfos;
+	}
+
+	Map<Method, MethodInfo> getReverseMethodInfos() {
+		return reverseMethodInfos;
+	}
+
+	Map<MethodInfo, Constructor<?>> getConstructorInfos() {
+		return constructorInfos;
+	}
+
+	Map<Constructor<?>, MethodInfo> getReverseConstructorInfos() {
+		return reverseConstructorInfos;
+	}
+}
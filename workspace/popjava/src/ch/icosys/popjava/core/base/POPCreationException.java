@@ -0,0 +1,46 @@
+package ch.icosys.popjava.core.base;
+
+/**
+ * Some of the objects of a creation in bulk could not be created, the others
+ * are available and still running.
+ */
+public class POPCreationException extends POPException {
+
+	private static final long serialVersionUID = -4181592431702394165L;
+
+	private final Object[] objects;
+
+	private final Throwable[] failures;
+
+	/**
+	 * Create the exception of a partial creation
+	 * 
+	 * @param objects
+	 *            the created objects, null where the creation failed
+	 * @param failures
+	 *            the cause of each failed creation, null where it succeeded
+	 * @param failed
+	 *            the number of failed creations
+	 */
+	public POPCreationException(Object[] objects, Throwable[] failures, int failed) {
+		super(POPErrorCode.POP_EXEC_FAIL, String.format("%d of %d objects could not be created", failed,
+				objects.length));
+		this.objects = objects;
+		this.failures = failures;
+	}
+
+	/**
+	 * @return the created objects, an array of the requested class with null
+	 *         where the creation failed
+	 */
+	public Object[] getObjects() {
+		return objects;
+	}
+
+	/**
+	 * @return the cause of each failed creation, null where it succeeded
+	 */
+	public Throwable[] getFailures() {
+		return failures;
+	}
+}
@@ -0,0 +1,129 @@
+package ch.icosys.popjava.core.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import ch.icosys.popjava.core.combox.ComboxStream;
+
+/**
+ * A stream of bytes given as parameter to a POP method or returned by it. The
+ * content is sent in chunks while the other side reads it, neither side keeps
+ * it whole in memory so its size is not limited.
+ *
+ * The side sending the data creates it around a local stream, the side
+ * receiving it reads it as any input stream and closes it when done. Only the
+ * input direction is supported for parameters.
+ */
+public class POPInputStream extends InputStream {
+
+	private final InputStream source;
+
+	private ComboxStream stream;
+
+	private byte[] chunk;
+
+	private int chunkPosition;
+
+	/**
+	 * Send the content of a local stream
+	 *
+	 * @param source
+	 *            the data to send, closed once sent
+	 */
+	public POPInputStream(InputStream source) {
+		this.source = source;
+	}
+
+	/**
+	 * Read a stream sent by the other side
+	 *
+	 * @param stream
+	 *            the receiving side of the stream
+	 */
+	public POPInputStream(ComboxStream stream) {
+		this.source = null;
+		this.stream = stream;
+	}
+
+	/**
+	 * Associate the sending side of the stream, before the identifier is written
+	 * in the message
+	 *
+	 * @param stream
+	 *            the sending side of the stream
+	 */
+	public void attach(ComboxStream stream) {
+		this.stream = stream;
+	}
+
+	/**
+	 * @return the identifier of the stream on the connection
+	 */
+	public int getStreamID() {
+		return stream.getStreamID();
+	}
+
+	/**
+	 * Send the local stream, once the message referencing it was sent
+	 *
+	 * @throws IOException
+	 *             if the local stream or the connection fails
+	 */
+	public void transmit() throws IOException {
+		stream.transmit(source);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextChunk()) {
+			return -1;
+		}
+		return chunk[chunkPosition++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!nextChunk()) {
+			return -1;
+		}
+		int read = Math.min(len, chunk.length - chunkPosition);
+		System.arraycopy(chunk, chunkPosition, b, off, read);
+		chunkPosition += read;
+		return read;
+	}
+
+	@Override
+	public int available() throws IOException {
+		if (source != null) {
+			return source.available();
+		}
+		return chunk == null ? 0 : chunk.length - chunkPosition;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (source != null) {
+			source.close();
+		} else {
+			chunk = null;
+			stream.close();
+		}
+	}
+
+	private boolean nextChunk() throws IOException {
+		if (source != null) {
+			throw new IOException("The stream is sent to another object, it can't be read locally");
+		}
+		while (chunk == null || chunkPosition == chunk.length) {
+			chunk = stream.nextChunk();
+			chunkPosition = 0;
+			if (chunk == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
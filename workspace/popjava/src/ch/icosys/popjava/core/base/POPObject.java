@@ -8,6 +8,7 @@ import java.security.InvalidParameterException;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -57,15 +58,20 @@ public class POPObject implements IPOPBase {
 
 	private String className = "";
 
-	private final ConcurrentHashMap<MethodInfo, Integer> semantics = new ConcurrentHashMap<>();
+	private Map<MethodInfo, Integer> semantics = new ConcurrentHashMap<>();
 
-	private final HashMap<MethodInfo, Method> methodInfos = new HashMap<>();
+	private Map<MethodInfo, Method> methodInfos = new HashMap<>();
 
-	private final HashMap<Method, MethodInfo> reverseMethodInfos = new HashMap<>();
+	private Map<Method, MethodInfo> reverseMethodInfos = new HashMap<>();
 
-	private final HashMap<MethodInfo, Constructor<?>> constructorInfos = new HashMap<>();
+	private Map<MethodInfo, Constructor<?>> constructorInfos = new HashMap<>();
 
-	private final HashMap<Constructor<?>, MethodInfo> reverseConstructorInfos = new HashMap<>();
+	private Map<Constructor<?>, MethodInfo> reverseConstructorInfos = new HashMap<>();
+
+	// the maps above are the ones of the descriptor until the object defines its own
+	private POPClassDescriptor descriptor;
+
+	private boolean sharedMethodInfo = false;
 
 	private boolean temporary = false;
 
@@ -73,6 +79,8 @@ public class POPObject implements IPOPBase {
 
 	private Broker broker = null;
 
+	private static final MethodInfo NO_METHOD_INFO = new MethodInfo(0, 0);
+
 	/**
 	 * Creates a new instance of POPObject
 	 */
@@ -237,8 +245,61 @@ public class POPObject implements IPOPBase {
 		}
 
 		Class<?> c = getRealClass();
-		initializeConstructorInfo(c);
-		initializeMethodInfo(c);
+		if (descriptor != null && !sharedMethodInfo) {
+			// the object defined its own methods, they are kept
+			initializeConstructorInfo(c);
+			initializeMethodInfo(c);
+			return;
+		}
+		descriptor = POPClassDescriptor.get(c, classId);
+		if (descriptor == null) {
+			initializeConstructorInfo(c);
+			initializeMethodInfo(c);
+			descriptor = POPClassDescriptor.publish(c, classId, new POPClassDescriptor(semantics, methodInfos,
+					reverseMethodInfos, constructorInfos, reverseConstructorInfos));
+		}
+		semantics = descriptor.getSemantics();
+		methodInfos = descriptor.getMethodInfos();
+		reverseMethodInfos = descriptor.getReverseMethodInfos();
+		constructorInfos = descriptor.getConstructorInfos();
+		reverseConstructorInfos = descriptor.getReverseConstructorInfos();
+		sharedMethodInfo = true;
+	}
+
+	/**
+	 * Copy the maps of the descriptor before the object modifies them
+	 */
+	private void ownMethodInfo() {
+		if (sharedMethodInfo) {
+			semantics = new ConcurrentHashMap<>(semantics);
+			methodInfos = new HashMap<>(methodInfos);
+			reverseMethodInfos = new HashMap<>(reverseMethodInfos);
+			constructorInfos = new HashMap<>(constructorInfos);
+			reverseConstructorInfos = new HashMap<>(reverseConstructorInfos);
+			sharedMethodInfo = false;
+		}
+	}
+
+	/**
+	 * @return the method identifiers and semantics shared by the instances of the
+	 *         class
+	 */
+	public POPClassDescriptor getClassDescriptor() {
+		return descriptor;
+	}
+
+	/**
+	 * Find the number of a method in the descriptor of the class
+	 * 
+	 * @param classId
+	 *            the class identifier of the method
+	 * @param methodId
+	 *            the method identifier
+	 * @return the number of the method, -1 if it is not in the descriptor or if
+	 *         the object defined its own methods
+	 */
+	public int getMethodIndex(int classId, int methodId) {
+		return sharedMethodInfo ? descriptor.indexOf(classId, methodId) : -1;
 	}
 
 	/**
@@ -406,7 +467,7 @@ public class POPObject implements IPOPBase {
 	 * @return The method found
 	 */
 	public MethodInfo getMethodInfo(Method method) {
-		return reverseMethodInfos.getOrDefault(method, new MethodInfo(0, 0));
+		return reverseMethodInfos.getOrDefault(method, NO_METHOD_INFO);
 	}
 
 	/**
@@ -464,6 +525,7 @@ public class POPObject implements IPOPBase {
 				if (m.getName().equals(methodName)) {
 					MethodInfo methodInfo = getMethodInfo(m);
 					if (methodInfo.getMethodId() > 0) {
+						ownMethodInfo();
 						if (semantics.containsKey(methodInfo)) {
 							semantics.replace(methodInfo, semantic);
 						} else {
@@ -494,6 +556,7 @@ public class POPObject implements IPOPBase {
 		Method method = c.getMethod(methodName, parameterTypes);
 		MethodInfo methodInfo = getMethodInfo(method);
 		if (methodInfo.getMethodId() > 0) {
+			ownMethodInfo();
 			if (semantics.containsKey(methodInfo)) {
 				semantics.replace(methodInfo, semantic);
 			} else {
@@ -513,6 +576,7 @@ public class POPObject implements IPOPBase {
 	 */
 	protected void initializeMethodInfo(Class<?> c) {
 		if (!definedMethodId) {
+			ownMethodInfo();
 			// to every all class until Object (excluded)
 			while (c != Object.class) {
 				// get the new declared methods (this include overrode ones)
@@ -607,6 +671,7 @@ public class POPObject implements IPOPBase {
 	 */
 	protected void initializeConstructorInfo(Class<?> c) {
 		if (!definedMethodId) {
+			ownMethodInfo();
 			// initializeMethodId
 			Constructor<?>[] allConstructors = c.getDeclaredConstructors();
 
@@ -650,6 +715,7 @@ public class POPObject implements IPOPBase {
 		try {
 			Method m = c.getMethod(methodName, paramTypes);
 			MethodInfo methodInfo = new MethodInfo(getClassId(), methodId);
+			ownMethodInfo();
 			methodInfos.put(methodInfo, m);
 
 			if (semantics.containsKey(methodInfo)) {
@@ -677,6 +743,7 @@ public class POPObject implements IPOPBase {
 		try {
 			Constructor<?> constructor = c.getConstructor(paramTypes);
 			MethodInfo info = new MethodInfo(getClassId(), constructorId);
+			ownMethodInfo();
 			constructorInfos.put(info, constructor);
 			semantics.put(info, Semantic.CONSTRUCTOR | Semantic.SYNCHRONOUS | Semantic.SEQUENCE);
 
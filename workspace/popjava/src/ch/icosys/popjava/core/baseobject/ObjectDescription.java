@@ -95,6 +95,8 @@ public class ObjectDescription implements IPOPBase {
 
 	protected boolean upnp = false;
 
+	protected String executor = "";
+
 	private final ConcurrentHashMap<String, String> attributes = new ConcurrentHashMap<>();
 
 	/**
@@ -157,6 +159,7 @@ public class ObjectDescription implements IPOPBase {
 		setNetwork(od.getNetwork());
 		setConnector(od.getConnector());
 		useLocalJVM = od.useLocalJVM();
+		executor = od.getExecutor();
 		searchHosts.addAll(od.searchHosts);
 	}
 
@@ -797,6 +800,20 @@ public class ObjectDescription implements IPOPBase {
 		return upnp;
 	}
 
+	/**
+	 * Set the execution model the broker should use to serve the requests
+	 * 
+	 * @param executor
+	 *            "fixed", "forkjoin", "virtual" or empty for the default
+	 */
+	public void setExecutor(String executor) {
+		this.executor = executor;
+	}
+
+	public String getExecutor() {
+		return executor;
+	}
+
 	/**
 	 * Check if the current object is empty
 	 * 
@@ -839,6 +856,7 @@ public class ObjectDescription implements IPOPBase {
 		String platform = buffer.getString();
 		String[] protocols = buffer.getArray(String[].class);
 		String encoding = buffer.getString();
+		String executor = buffer.getString();
 		this.setPower(tmpPowerReq, tmpPowerMin);
 		this.setMemory(tmpMemoryReq, tmpMemoryMin);
 		this.setBandwidth(tmpBandwidthReq, tmpBandwidthMin);
@@ -856,6 +874,7 @@ public class ObjectDescription implements IPOPBase {
 		this.setPlatform(platform);
 		this.setProtocols(protocols);
 		this.setEncoding(encoding);
+		this.setExecutor(executor);
 
 		// get searchHosts
 		int hostsNum = buffer.getInt();
@@ -904,6 +923,7 @@ public class ObjectDescription implements IPOPBase {
 		buffer.putString(platform);
 		buffer.putArray(protocols);
 		buffer.putString(encoding);
+		buffer.putString(executor);
 		// search hosts
 		buffer.putInt(searchHosts.size());
 		for (String searchHost : searchHosts) {
@@ -989,6 +1009,10 @@ public class ObjectDescription implements IPOPBase {
 		this.searchHosts.addAll(od.searchHosts);
 
 		this.upnp = this.upnp || od.upnp;
+
+		if (executor == null || executor.isEmpty()) {
+			executor = od.getExecutor();
+		}
 	}
 
 	/**
@@ -1,10 +1,12 @@
 package ch.icosys.popjava.core.baseobject;
 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import ch.icosys.popjava.core.base.MethodInfo;
 import ch.icosys.popjava.core.buffer.POPBuffer;
 import ch.icosys.popjava.core.dataswaper.IPOPBase;
 import ch.icosys.popjava.core.util.POPRemoteCaller;
@@ -19,7 +21,7 @@ public class POPTracking implements IPOPBase {
 
 	private POPRemoteCaller caller;
 
-	private final Map<String, POPTrackingMethod> calls;
+	private final Map<MethodInfo, POPTrackingMethod> calls;
 
 	public POPTracking() {
 		this(null);
@@ -27,7 +29,7 @@ public class POPTracking implements IPOPBase {
 
 	public POPTracking(POPRemoteCaller caller) {
 		this.caller = caller;
-		this.calls = new HashMap<>();
+		this.calls = new ConcurrentHashMap<>();
 	}
 
 	public POPRemoteCaller getCaller() {
@@ -35,25 +37,51 @@ public class POPTracking implements IPOPBase {
 	}
 
 	public List<POPTrackingMethod> getCalls() {
-		POPTrackingMethod[] data = calls.values().toArray(new POPTrackingMethod[calls.size()]);
-		return Arrays.asList(data);
+		return new ArrayList<>(calls.values());
 	}
 
-	public synchronized void track(String method, long time, int inputSize, int outputSize) {
-		POPTrackingMethod recorder = calls.get(method);
+	/**
+	 * Register a call to a method.
+	 * 
+	 * @param info
+	 *            the identifiers of the method
+	 * @param method
+	 *            the method, its name is only computed on the first call
+	 * @param queueNanos
+	 *            how long the request waited before being served
+	 * @param executionNanos
+	 *            how long the method took
+	 * @param serializationNanos
+	 *            how long reading the parameters and writing the response took, -1
+	 *            if it wasn't measured
+	 * @param inputSize
+	 *            the size of the request
+	 * @param outputSize
+	 *            the size of the response
+	 */
+	public void track(MethodInfo info, Method method, long queueNanos, long executionNanos, long serializationNanos,
+			int inputSize, int outputSize) {
+		POPTrackingMethod recorder = calls.get(info);
 		if (recorder == null) {
-			recorder = new POPTrackingMethod(method);
-			calls.put(method, recorder);
+			recorder = new POPTrackingMethod(method.toGenericString());
+			POPTrackingMethod previous = calls.putIfAbsent(info, recorder);
+			if (previous != null) {
+				recorder = previous;
+			}
 		}
-		recorder.increment(time, inputSize, outputSize);
+		recorder.increment(queueNanos, executionNanos, serializationNanos, inputSize, outputSize);
 	}
 
 	@Override
 	public boolean serialize(POPBuffer buffer) {
 		caller.serialize(buffer);
-		buffer.putInt(calls.size());
-		for (POPTrackingMethod call : calls.values()) {
-			call.serialize(buffer);
+		// the calls can grow while we write them
+		List<Map.Entry<MethodInfo, POPTrackingMethod>> snapshot = new ArrayList<>(calls.entrySet());
+		buffer.putInt(snapshot.size());
+		for (Map.Entry<MethodInfo, POPTrackingMethod> call : snapshot) {
+			buffer.putInt(call.getKey().getClassId());
+			buffer.putInt(call.getKey().getMethodId());
+			call.getValue().serialize(buffer);
 		}
 		return true;
 	}
@@ -63,9 +91,10 @@ public class POPTracking implements IPOPBase {
 		caller = (POPRemoteCaller) buffer.getValue(POPRemoteCaller.class);
 		int size = buffer.getInt();
 		for (int i = 0; i < size; i++) {
+			MethodInfo info = new MethodInfo(buffer.getInt(), buffer.getInt());
 			POPTrackingMethod method = new POPTrackingMethod();
 			method.deserialize(buffer);
-			calls.put(method.getMethod(), method);
+			calls.put(info, method);
 		}
 		return true;
 	}
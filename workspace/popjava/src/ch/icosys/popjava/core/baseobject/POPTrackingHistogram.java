@@ -0,0 +1,227 @@
+package ch.icosys.popjava.core.baseobject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.icosys.popjava.core.buffer.POPBuffer;
+import ch.icosys.popjava.core.dataswaper.IPOPBase;
+
+/**
+ * Distribution of durations in nanoseconds. The values are counted in buckets
+ * growing by powers of two, each power being split in {@value #SUB_BUCKETS}
+ * linear sub-buckets, so a percentile is known within about 6% whatever the
+ * magnitude. The sub-buckets of a power are only allocated once a value in its
+ * range is recorded, a method spans a few of them. Recording is lock-free.
+ */
+public class POPTrackingHistogram implements IPOPBase {
+
+	private static final int SUB_BUCKET_BITS = 4;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// longer durations, about 4.9 hours, are counted in the last bucket
+	private static final int MAX_BITS = 44;
+
+	private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+	private static final int RANGES = MAX_BITS - SUB_BUCKET_BITS + 1;
+
+	private static final int BUCKETS = RANGES * SUB_BUCKETS;
+
+	// the sub-buckets by power of two, null until a value is in the range
+	private final AtomicReferenceArray<AtomicLongArray> ranges = new AtomicReferenceArray<>(RANGES);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder total = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Register a duration, negative values are ignored.
+	 *
+	 * @param nanos
+	 *            the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			return;
+		}
+		int bucket = bucketOf(Math.min(nanos, MAX_VALUE));
+		range(bucket).incrementAndGet(bucket % SUB_BUCKETS);
+		count.increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	/**
+	 * Number of recorded durations.
+	 *
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Sum of the recorded durations.
+	 *
+	 * @return the total in nanoseconds
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * Longest recorded duration.
+	 *
+	 * @return the maximum in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Average of the recorded durations.
+	 *
+	 * @return the mean in nanoseconds, 0 if nothing was recorded
+	 */
+	public long getMean() {
+		long n = getCount();
+		return n == 0 ? 0 : getTotal() / n;
+	}
+
+	/**
+	 * The duration under which the given fraction of the values are.
+	 *
+	 * @param fraction
+	 *            between 0 and 1, 0.99 for the 99th percentile
+	 * @return the highest value of the matching bucket in nanoseconds, 0 if
+	 *         nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+		long[] snapshot = new long[BUCKETS];
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = get(i);
+			n += snapshot[i];
+		}
+		if (n == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(fraction, 0), 1) * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				// the last bucket also holds what is over its range
+				return i == BUCKETS - 1 ? getMax() : Math.min(highestValueOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * @return the median in nanoseconds
+	 */
+	public long getP50() {
+		return getPercentile(0.5);
+	}
+
+	/**
+	 * @return the 99th percentile in nanoseconds
+	 */
+	public long getP99() {
+		return getPercentile(0.99);
+	}
+
+	/**
+	 * @return the 99.9th percentile in nanoseconds
+	 */
+	public long getP999() {
+		return getPercentile(0.999);
+	}
+
+	private long get(int bucket) {
+		AtomicLongArray range = ranges.get(bucket / SUB_BUCKETS);
+		return range == null ? 0 : range.get(bucket % SUB_BUCKETS);
+	}
+
+	private AtomicLongArray range(int bucket) {
+		int index = bucket / SUB_BUCKETS;
+		AtomicLongArray range = ranges.get(index);
+		if (range == null) {
+			ranges.compareAndSet(index, null, new AtomicLongArray(SUB_BUCKETS));
+			range = ranges.get(index);
+		}
+		return range;
+	}
+
+	private static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	@Override
+	public boolean serialize(POPBuffer buffer) {
+		buffer.putLong(count.sum());
+		buffer.putLong(total.sum());
+		buffer.putLong(max.get());
+		int used = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			if (get(i) != 0) {
+				used++;
+			}
+		}
+		// only the buckets with values, but a concurrent record may fill a new one
+		int written = 0;
+		buffer.putInt(used);
+		for (int i = 0; i < BUCKETS && written < used; i++) {
+			long value = get(i);
+			if (value != 0) {
+				buffer.putInt(i);
+				buffer.putLong(value);
+				written++;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean deserialize(POPBuffer buffer) {
+		count.add(buffer.getLong());
+		total.add(buffer.getLong());
+		max.accumulate(buffer.getLong());
+		int used = buffer.getInt();
+		for (int i = 0; i < used; i++) {
+			int bucket = buffer.getInt();
+			range(bucket).set(bucket % SUB_BUCKETS, buffer.getLong());
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("p50: %d us, p99: %d us, p999: %d us, max: %d us", TimeUnit.NANOSECONDS.toMicros(getP50()),
+				TimeUnit.NANOSECONDS.toMicros(getP99()), TimeUnit.NANOSECONDS.toMicros(getP999()),
+				TimeUnit.NANOSECONDS.toMicros(getMax()));
+	}
+}
@@ -1,10 +1,15 @@
 package ch.icosys.popjava.core.baseobject;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 import ch.icosys.popjava.core.buffer.POPBuffer;
 import ch.icosys.popjava.core.dataswaper.IPOPBase;
 
 /**
- * This class keep track of the calls toward a specific method.
+ * This class keep track of the calls toward a specific method. The time spent
+ * waiting in the request queue, executing and (de)serializing the values is
+ * kept in separated histograms.
  * 
  * @author Davide Mazzoleni, Christophe Gisler
  */
@@ -12,13 +17,17 @@ public class POPTrackingMethod implements IPOPBase {
 
 	private String method;
 
-	private int calls;
+	private final LongAdder calls = new LongAdder();
+
+	private final LongAdder totalInputParamsSize = new LongAdder();
+
+	private final LongAdder totalOutputResultSize = new LongAdder();
 
-	private long totalTime;
+	private final POPTrackingHistogram queueTime = new POPTrackingHistogram();
 
-	private long totalInputParamsSize;
+	private final POPTrackingHistogram executionTime = new POPTrackingHistogram();
 
-	private long totalOutputResultSize;
+	private final POPTrackingHistogram serializationTime = new POPTrackingHistogram();
 
 	public POPTrackingMethod() {
 		this(null);
@@ -43,20 +52,32 @@ public class POPTrackingMethod implements IPOPBase {
 	 * @return total number of calls to the method
 	 */
 	public long getTotalCalls() {
-		return calls;
+		return calls.sum();
 	}
 
 	/**
 	 * Register a new method call.
 	 * 
-	 * @param time
-	 *            how much did it takes
+	 * @param queueNanos
+	 *            how long the request waited before being served
+	 * @param executionNanos
+	 *            how long the method took
+	 * @param serializationNanos
+	 *            how long reading the parameters and writing the response took, -1
+	 *            if it wasn't measured
+	 * @param inputParamsSize
+	 *            the size of the request
+	 * @param outputResultSize
+	 *            the size of the response
 	 */
-	public synchronized void increment(long time, int inputParamsSize, int outputResultSize) {
-		calls++;
-		totalTime += time;
-		totalInputParamsSize += inputParamsSize;
-		totalOutputResultSize += outputResultSize;
+	public void increment(long queueNanos, long executionNanos, long serializationNanos, int inputParamsSize,
+			int outputResultSize) {
+		calls.increment();
+		queueTime.record(queueNanos);
+		executionTime.record(executionNanos);
+		serializationTime.record(serializationNanos);
+		totalInputParamsSize.add(inputParamsSize);
+		totalOutputResultSize.add(outputResultSize);
 	}
 
 	/**
@@ -65,7 +86,35 @@ public class POPTrackingMethod implements IPOPBase {
 	 * @return total time used
 	 */
 	public long getTotalTime() {
-		return totalTime;
+		return TimeUnit.NANOSECONDS.toMillis(executionTime.getTotal());
+	}
+
+	/**
+	 * Time the requests waited in the queue of the broker before being served.
+	 * 
+	 * @return the queue time histogram in nanoseconds
+	 */
+	public POPTrackingHistogram getQueueTime() {
+		return queueTime;
+	}
+
+	/**
+	 * Time spent in the method.
+	 * 
+	 * @return the execution time histogram in nanoseconds
+	 */
+	public POPTrackingHistogram getExecutionTime() {
+		return executionTime;
+	}
+
+	/**
+	 * Time spent reading the parameters and writing the response, the methods
+	 * called by a generated stub do it while executing and are not counted here.
+	 * 
+	 * @return the serialization time histogram in nanoseconds
+	 */
+	public POPTrackingHistogram getSerializationTime() {
+		return serializationTime;
 	}
 
 	/**
@@ -74,7 +123,7 @@ public class POPTrackingMethod implements IPOPBase {
 	 * @return total size of the input parameters
 	 */
 	public long getTotalInputParamsSize() {
-		return totalInputParamsSize;
+		return totalInputParamsSize.sum();
 	}
 
 	/**
@@ -84,32 +133,38 @@ public class POPTrackingMethod implements IPOPBase {
 	 * @return total size of the output result object
 	 */
 	public long getTotalOutputResultSize() {
-		return totalOutputResultSize;
+		return totalOutputResultSize.sum();
 	}
 
 	@Override
 	public boolean serialize(POPBuffer buffer) {
 		buffer.putString(method);
-		buffer.putInt(calls);
-		buffer.putLong(totalTime);
-		buffer.putLong(totalInputParamsSize);
-		buffer.putLong(totalOutputResultSize);
+		buffer.putLong(calls.sum());
+		buffer.putLong(totalInputParamsSize.sum());
+		buffer.putLong(totalOutputResultSize.sum());
+		queueTime.serialize(buffer);
+		executionTime.serialize(buffer);
+		serializationTime.serialize(buffer);
 		return true;
 	}
 
 	@Override
 	public boolean deserialize(POPBuffer buffer) {
 		method = buffer.getString();
-		calls = buffer.getInt();
-		totalTime = buffer.getLong();
-		totalInputParamsSize = buffer.getLong();
-		totalOutputResultSize = buffer.getLong();
+		calls.add(buffer.getLong());
+		totalInputParamsSize.add(buffer.getLong());
+		totalOutputResultSize.add(buffer.getLong());
+		queueTime.deserialize(buffer);
+		executionTime.deserialize(buffer);
+		serializationTime.deserialize(buffer);
 		return true;
 	}
 
 	@Override
 	public String toString() {
-		return String.format("%s -> calls: %d, time: %d ms, input size: %d bytes, output size: %d bytes ", method,
-				calls, totalTime, totalInputParamsSize, totalOutputResultSize);
+		return String.format(
+				"%s -> calls: %d, time: %d ms, input size: %d bytes, output size: %d bytes, queue: [%s], execution: [%s], serialization: [%s]",
+				method, getTotalCalls(), getTotalTime(), getTotalInputParamsSize(), getTotalOutputResultSize(), queueTime,
+				executionTime, serializationTime);
 	}
 }
@@ -3,7 +3,6 @@ package ch.icosys.popjava.core.broker;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -15,29 +14,24 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Paths;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.icosys.popjava.core.PopJava;
-import ch.icosys.popjava.core.annotation.POPAsyncConc;
-import ch.icosys.popjava.core.annotation.POPAsyncMutex;
-import ch.icosys.popjava.core.annotation.POPAsyncSeq;
+import ch.icosys.popjava.core.annotation.ExecutorType;
 import ch.icosys.popjava.core.annotation.POPClass;
-import ch.icosys.popjava.core.annotation.POPParameter;
-import ch.icosys.popjava.core.annotation.POPSyncConc;
-import ch.icosys.popjava.core.annotation.POPSyncMutex;
-import ch.icosys.popjava.core.annotation.POPSyncSeq;
 import ch.icosys.popjava.core.base.MessageHeader;
 import ch.icosys.popjava.core.base.MethodInfo;
+import ch.icosys.popjava.core.base.POPClassDescriptor;
 import ch.icosys.popjava.core.base.POPErrorCode;
 import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.base.POPInputStream;
 import ch.icosys.popjava.core.base.POPObject;
 import ch.icosys.popjava.core.base.POPSystemErrorCode;
 import ch.icosys.popjava.core.base.Semantic;
@@ -47,17 +41,21 @@ import ch.icosys.popjava.core.baseobject.POPTracking;
 import ch.icosys.popjava.core.buffer.BufferFactory;
 import ch.icosys.popjava.core.buffer.BufferFactoryFinder;
 import ch.icosys.popjava.core.buffer.BufferXDR;
+import ch.icosys.popjava.core.buffer.MethodStub;
+import ch.icosys.popjava.core.buffer.MethodStubGenerator;
 import ch.icosys.popjava.core.buffer.POPBuffer;
 import ch.icosys.popjava.core.combox.Combox;
 import ch.icosys.popjava.core.combox.ComboxConnection;
+import ch.icosys.popjava.core.combox.ComboxStream;
 import ch.icosys.popjava.core.combox.ComboxFactory;
 import ch.icosys.popjava.core.combox.ComboxFactoryFinder;
 import ch.icosys.popjava.core.combox.ComboxServer;
 import ch.icosys.popjava.core.javaagent.POPJavaAgent;
 import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.BrokerPool;
+import ch.icosys.popjava.core.util.ClassUtil;
 import ch.icosys.popjava.core.util.Configuration;
 import ch.icosys.popjava.core.util.LogWriter;
-import ch.icosys.popjava.core.util.MethodUtil;
 import ch.icosys.popjava.core.util.POPRemoteCaller;
 import ch.icosys.popjava.core.util.RuntimeDirectoryThread;
 import ch.icosys.popjava.core.util.Util;
@@ -105,13 +103,23 @@ public final class Broker {
 
 	public static final String UPNP = "-upnp";
 
+	public static final String EXECUTOR_PREFIX = "-executor=";
+
+	public static final String POOL_PREFIX = "-pool=";
+
+	// class loaders of the code locations, shared by the objects of a container
+	private static final Map<String, URLClassLoader> codeLoaders = new ConcurrentHashMap<>();
+
+	// objects running in this container
+	private static final AtomicInteger hostedBrokers = new AtomicInteger();
+
 	// thread unique callers
 	private static final ThreadLocal<POPRemoteCaller> remoteCaller = new InheritableThreadLocal<>();
 
 	/**
 	 * Request queue shared by all comboxes of this broker
 	 */
-	private final RequestQueue requestQueue = new RequestQueue();
+	private final RequestScheduler requestQueue = createRequestScheduler();
 
 	private State state;
 
@@ -133,36 +141,12 @@ public final class Broker {
 
 	private boolean upnp;
 
-	private final Map<Method, Annotation[][]> methodParametersAnnotationCache = new HashMap<>();
-
-	private final Map<Method, Integer> methodSemanticsCache = new HashMap<>();
-
 	private final Map<POPRemoteCaller, POPTracking> callerTracking = new ConcurrentHashMap<>();
 
-	private final ExecutorService threadPoolSequential = Executors.newSingleThreadExecutor(new ThreadFactory() {
-		@Override
-		public Thread newThread(Runnable arg0) {
-			Thread thread = Executors.defaultThreadFactory().newThread(arg0);
-			thread.setName("Sequential request thread");
-			thread.setDaemon(true);
-			return thread;
-		}
-	});
-
-	private final ExecutorService threadPoolConcurrent = Executors
-			.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 50, new ThreadFactory() {
+	private RequestExecutor requestExecutor;
 
-				private int threadIndex = 0;
-
-				@Override
-				public Thread newThread(Runnable arg0) {
-					Thread thread = Executors.defaultThreadFactory().newThread(arg0);
-					thread.setName("Concurrent request thread " + (threadIndex++));
-					thread.setDaemon(true);
-					return thread;
-				}
-			});
-	// Executors.newCachedThreadPool());//
+	// hosted with other objects, the JVM must not exit with this broker
+	private boolean contained;
 
 	public Broker(POPObject object) {
 		this.popObject = object;
@@ -202,10 +186,15 @@ public final class Broker {
 			initParams.add(UPNP);
 		}
 
+		String executor = popObject.getOd().getExecutor();
+		if (executor != null && !executor.isEmpty()) {
+			initParams.add(EXECUTOR_PREFIX + executor);
+		}
+
 		initParams.add(NETWORK_UUID + popObject.getOd().getNetwork());
 
-		initialize(initParams);
 		popInfo = object;
+		initialize(initParams);
 
 		new Thread(new Runnable() {
 
@@ -229,12 +218,19 @@ public final class Broker {
 	 *            path of the real object to create with this broker
 	 * @param objectName
 	 *            Name of the object to create
+	 * @throws POPException
+	 *             if the code or the class of the object can't be loaded
 	 */
 	private Broker(String codelocation, String objectName) {
 
 		URLClassLoader urlClassLoader = null;
+		String location = codelocation;
 
 		if (codelocation != null && codelocation.length() > 0) {
+			urlClassLoader = codeLoaders.get(codelocation);
+		}
+
+		if (urlClassLoader == null && codelocation != null && codelocation.length() > 0) {
 			URL url = null;
 
 			if (codelocation.startsWith("http:")) {
@@ -253,32 +249,33 @@ public final class Broker {
 
 					tempJar.deleteOnExit();
 				} catch (IOException e) {
-					e.printStackTrace();
-					System.exit(0);
+					LogWriter.writeExceptionLog(e);
+					throw new POPException(POPErrorCode.OBJECT_EXECUTABLE_NOTFOUND,
+							"Couldn't download " + codelocation + ": " + e.getMessage());
 				}
 			}
 
 			try {
 				LogWriter.writeDebugInfo("[Broker] Local file '%s'", codelocation);
 				url = new File(codelocation).toURI().toURL();
-				POPJavaAgent.getInstance().addJar(codelocation);
 			} catch (MalformedURLException e) {
 				LogWriter.writeDebugInfo("[Broker] %s.MalformedURLException : %s", this.getClass().getName(),
 						e.getMessage());
-				System.exit(0);
-			} catch (NotFoundException e) {
-				e.printStackTrace();
-				System.exit(0);
+				throw new POPException(POPErrorCode.OBJECT_EXECUTABLE_NOTFOUND,
+						"Bad code location " + codelocation + ": " + e.getMessage());
 			}
 
-			if (url != null) {
-				LogWriter.writeDebugInfo("[Broker] url construct");
-
-				urlClassLoader = new URLClassLoader(new URL[] { url });
+			LogWriter.writeDebugInfo("[Broker] url construct");
+			urlClassLoader = new URLClassLoader(new URL[] { url });
+			try {
+				// only the classes of this location see the jar
+				POPJavaAgent.getInstance().addJar(urlClassLoader, codelocation);
+			} catch (NotFoundException e) {
+				LogWriter.writeExceptionLog(e);
+				throw new POPException(POPErrorCode.OBJECT_EXECUTABLE_NOTFOUND,
+						"Couldn't read " + codelocation + ": " + e.getMessage());
 			}
-		}
-
-		if (urlClassLoader != null) {
+			codeLoaders.put(location, urlClassLoader);
 			Util.urlClassloaders.add(urlClassLoader);
 		}
 
@@ -289,8 +286,9 @@ public final class Broker {
 			popInfo = (POPObject) targetClass.getConstructor().newInstance();
 		} catch (Exception e) {
 			LogWriter.writeDebugInfo("[Broker] %s ; Mesage: %s", e.getClass().getName(), e.getMessage());
-			e.printStackTrace();
-			System.exit(1);
+			LogWriter.writeExceptionLog(e);
+			throw new POPException(POPErrorCode.OBJECT_EXECUTABLE_NOTFOUND,
+					"Couldn't create " + objectName + ": " + e);
 		}
 	}
 
@@ -322,8 +320,8 @@ public final class Broker {
 				POPBuffer requestBuffer = request.getBuffer();
 				request.setBuffer(null); // This way the JVM can free the buffer
 				// memory
-				parameters = getParameters(request.getConnection().getCombox(), requestBuffer, parameterTypes,
-						constructor.getParameterAnnotations());
+				parameters = getParameters(request.getConnection(), requestBuffer, parameterTypes,
+						popInfo.getClassDescriptor().getParameterFlags(constructor));
 			} catch (POPException e) {
 				exception = e;
 			}
@@ -353,11 +351,9 @@ public final class Broker {
 				POPBuffer responseBuffer = request.getConnection().getCombox().getBufferFactory().createBuffer();
 				responseBuffer.setHeader(messageHeader);
 
-				Annotation[][] annotations = constructor.getParameterAnnotations();
+				int[] flags = popInfo.getClassDescriptor().getParameterFlags(constructor);
 				for (int index = 0; index < parameterTypes.length; index++) {
-					if (Util.isParameterNotOfDirection(annotations[index], POPParameter.Direction.IN)
-							&& Util.isParameterUsable(annotations[index]) && !(parameters[index] instanceof POPObject
-									&& !Util.isParameterOfAnyDirection(annotations[index]))) {
+					if (POPClassDescriptor.isOutput(flags[index], parameters[index])) {
 						try {
 							responseBuffer.serializeReferenceObject(parameterTypes[index], parameters[index]);
 						} catch (POPException e) {
@@ -383,22 +379,26 @@ public final class Broker {
 		if (exception != null) {
 			LogWriter.writeDebugInfo("[Broker] %s sendException: %s", this.getLogPrefix(), exception.getMessage());
 			sendException(request.getConnection(), exception, request.getRequestID());
-			System.exit(0);
+			exit(0);
 		}
 		return true;
 	}
 
-	private Object[] getParameters(Combox<?> sourceCombox, POPBuffer requestBuffer, Class<?>[] parameterTypes,
-			Annotation[][] annotations) throws POPException {
+	private Object[] getParameters(ComboxConnection<?> connection, POPBuffer requestBuffer,
+			Class<?>[] parameterTypes, int[] flags) throws POPException {
 		Object[] parameters;
 		parameters = new Object[parameterTypes.length];
 		int index = 0;
 		// Get parameters
 		for (index = 0; index < parameterTypes.length; index++) {
-			if (Util.isParameterNotOfDirection(annotations[index], POPParameter.Direction.OUT)
-					&& Util.isParameterUsable(annotations[index])) {
+			if ((flags[index] & POPClassDescriptor.PARAMETER_IN) != 0) {
 				try {
-					parameters[index] = requestBuffer.getValue(sourceCombox, parameterTypes[index]);
+					if (parameterTypes[index] == POPInputStream.class) {
+						parameters[index] = new POPInputStream(
+								ComboxStream.ofBroker(connection, requestBuffer.getInt()));
+					} else {
+						parameters[index] = requestBuffer.getValue(connection.getCombox(), parameterTypes[index]);
+					}
 				} catch (POPException e) {
 					e.printStackTrace();
 					throw new POPException(e.errorCode, e.errorMessage);
@@ -419,68 +419,30 @@ public final class Broker {
 	 *            The request to be queued
 	 */
 	public void finalizeRequest(Request request) {
-		try {
-			// skip if marked as constructor
-			if ((request.getSemantics() & Semantic.CONSTRUCTOR) != 0) {
-				return;
-			}
-
-			MethodInfo info = new MethodInfo(request.getClassId(), request.getMethodId());
-			Method method = popInfo.getMethodByInfo(info);
+		// skip if marked as constructor
+		if ((request.getSemantics() & Semantic.CONSTRUCTOR) != 0) {
+			return;
+		}
 
-			// use previously set semantics if possible
-			if (methodSemanticsCache.containsKey(method)) {
-				request.setSemantics(methodSemanticsCache.get(method));
+		int semantics;
+		int index = popInfo.getMethodIndex(request.getClassId(), request.getMethodId());
+		if (index >= 0) {
+			semantics = popInfo.getClassDescriptor().getLocalSemantics(index);
+		} else {
+			try {
+				MethodInfo info = new MethodInfo(request.getClassId(), request.getMethodId());
+				semantics = POPClassDescriptor.localSemantics(popInfo.getMethodByInfo(info));
+			} catch (NoSuchMethodException e) {
 				return;
 			}
+		}
 
-			Annotation[] annotations = method.getAnnotations();
-			int semantics = 0;
-			boolean isLocalhost = false;
-
-			POPSyncConc syncConc;
-			POPSyncSeq syncSeq;
-			POPSyncMutex syncMutex;
-			POPAsyncConc asyncConc;
-			POPAsyncSeq asyncSeq;
-			POPAsyncMutex asyncMutex;
-
-			// local semantics
-			if ((syncConc = MethodUtil.getAnnotation(annotations, POPSyncConc.class)) != null) {
-				semantics = Semantic.SYNCHRONOUS | Semantic.CONCURRENT;
-				isLocalhost = syncConc.localhost();
-			} else if ((syncSeq = MethodUtil.getAnnotation(annotations, POPSyncSeq.class)) != null) {
-				semantics = Semantic.SYNCHRONOUS | Semantic.SEQUENCE;
-				isLocalhost = syncSeq.localhost();
-			} else if ((syncMutex = MethodUtil.getAnnotation(annotations, POPSyncMutex.class)) != null) {
-				semantics = Semantic.SYNCHRONOUS | Semantic.MUTEX;
-				isLocalhost = syncMutex.localhost();
-			} else if ((asyncConc = MethodUtil.getAnnotation(annotations, POPAsyncConc.class)) != null) {
-				semantics = Semantic.ASYNCHRONOUS | Semantic.CONCURRENT;
-				isLocalhost = asyncConc.localhost();
-			} else if ((asyncSeq = MethodUtil.getAnnotation(annotations, POPAsyncSeq.class)) != null) {
-				semantics = Semantic.ASYNCHRONOUS | Semantic.SEQUENCE;
-				isLocalhost = asyncSeq.localhost();
-			} else if ((asyncMutex = MethodUtil.getAnnotation(annotations, POPAsyncMutex.class)) != null) {
-				semantics = Semantic.ASYNCHRONOUS | Semantic.MUTEX;
-				isLocalhost = asyncMutex.localhost();
-			} else {
-				// not a semantic match, we keep what we received
-				// XXX this happen when we get the annotation from a superclass
-				// FIXME get annotation from super class
-				semantics = request.getSemantics();
-			}
-
-			// localhost only call
-			if (isLocalhost) {
-				semantics |= Semantic.LOCALHOST;
-			}
-
+		// not a semantic match, we keep what we received
+		// XXX this happen when we get the annotation from a superclass
+		// FIXME get annotation from super class
+		if (semantics != -1) {
 			request.setSemantics(semantics);
-			methodSemanticsCache.put(method, semantics);
-		} catch (NoSuchMethodException e) {
 		}
-
 	}
 
 	/**
@@ -497,6 +459,7 @@ public final class Broker {
 		if (request.isSequential()) {
 			sequentialSemaphore.acquire();
 		}
+		final long queueTime = System.nanoTime() - request.getReceivedTime();
 
 		Object result = new Object();
 		POPException exception = null;
@@ -506,36 +469,47 @@ public final class Broker {
 		Object[] parameters = null;
 		int index = 0;
 
-		final MethodInfo info = new MethodInfo(request.getClassId(), request.getMethodId());
-		try {
-			method = popInfo.getMethodByInfo(info);
-			// System.out.println("((-)) " + info + " @ " +
-			// method.toGenericString());
-		} catch (NoSuchMethodException e) {
-			exception = POPException.createReflectMethodNotFoundException(popInfo.getClass().getName(),
-					request.getClassId(), request.getMethodId(), e.getMessage());
-			
-			popInfo.printMethodInfo();
-			System.out.println(accessPoint);
+		int[] parametersFlags = null;
+		int methodIndex = popInfo.getMethodIndex(request.getClassId(), request.getMethodId());
+		if (methodIndex >= 0) {
+			POPClassDescriptor descriptor = popInfo.getClassDescriptor();
+			method = descriptor.getMethod(methodIndex);
+			parameterTypes = descriptor.getParameterTypes(methodIndex);
+			parametersFlags = descriptor.getParameterFlags(methodIndex);
+		} else {
+			final MethodInfo info = new MethodInfo(request.getClassId(), request.getMethodId());
+			try {
+				method = popInfo.getMethodByInfo(info);
+				parameterTypes = method.getParameterTypes();
+				parametersFlags = POPClassDescriptor.parameterFlags(method.getParameterAnnotations());
+			} catch (NoSuchMethodException e) {
+				exception = POPException.createReflectMethodNotFoundException(popInfo.getClass().getName(),
+						request.getClassId(), request.getMethodId(), e.getMessage());
+
+				popInfo.printMethodInfo();
+				System.out.println(accessPoint);
+			}
 		}
 
-		if (method != null) {
-			// cache the method and parameters annotations since they take a
-			// while to generate
-			if (!methodParametersAnnotationCache.containsKey(method)) {
-				methodParametersAnnotationCache.put(method, method.getParameterAnnotations());
+		// simple methods are called by their generated stub, without reflection
+		MethodStub stub = method != null ? MethodStubGenerator.getStub(method) : null;
+		if (stub != null) {
+			invokeStub(request, method, stub, queueTime);
+
+			if (request.isSequential()) {
+				sequentialSemaphore.release();
 			}
+			return true;
 		}
 
-		Annotation[][] parametersAnnotations = methodParametersAnnotationCache.get(method);
-
 		// Get parameter if found the method
 		int inputSize = 0;
+		long serializationTime = 0;
 		if (exception == null && method != null) {
 
 			returnType = method.getReturnType();
-			parameterTypes = method.getParameterTypes();
 
+			final long readStart = System.nanoTime();
 			try {
 
 				POPBuffer requestBuffer = request.getBuffer();
@@ -543,24 +517,25 @@ public final class Broker {
 					inputSize = requestBuffer.size();
 				request.setBuffer(null);// This way the JVM can free the buffer
 				// content
-				parameters = getParameters(request.getConnection().getCombox(), requestBuffer, parameterTypes,
-						parametersAnnotations);
+				try {
+					parameters = getParameters(request.getConnection(), requestBuffer, parameterTypes,
+							parametersFlags);
+				} finally {
+					requestBuffer.release();
+				}
 			} catch (POPException e) {
 				exception = e;
 			}
+			serializationTime = System.nanoTime() - readStart;
 		}
 
 		normalizePOPParamameters(parameters);
 		// LogWriter.writeDebugInfo("Call method "+method.getName());
-		long trackingTime = 0;
-		POPRemoteCaller remote = null;
-		if(tracking) {
-			remote = request.getConnection().getRemoteCaller();
-		}
-		
+		long executionTime = 0;
+
 		// Invoke the method if success to get all parameter
 		if (exception == null && method != null) {
-			final long trackingStart = System.currentTimeMillis();
+			final long executionStart = System.nanoTime();
 			try {
 				method.setAccessible(true);
 				if (returnType != Void.class && returnType != void.class) {
@@ -568,6 +543,18 @@ public final class Broker {
 				} else {
 					method.invoke(popObject, parameters);
 				}
+
+				// the interface waits for the value, not the future
+				if (ClassUtil.isFutureMethod(method)) {
+					returnType = ClassUtil.getFutureValueType(method);
+					if (result != null) {
+						result = ((CompletableFuture<?>) result).get();
+					}
+				}
+			} catch (ExecutionException e) {
+				LogWriter.writeExceptionLog(e.getCause());
+				LogWriter.writeDebugInfo("[Broker] Future failed. Cause %s.", e.getCause().getMessage());
+				exception = POPException.createReflectException(method.getName(), e.getCause().getMessage());
 			} catch (InvocationTargetException e) {
 				e.printStackTrace();
 				LogWriter.writeExceptionLog(e);
@@ -581,17 +568,18 @@ public final class Broker {
 				exception = POPException.createReflectException(method.getName(), e.getMessage());
 
 			} finally {
-				if (tracking) {
-					trackingTime = System.currentTimeMillis() - trackingStart;
-				}
+				executionTime = System.nanoTime() - executionStart;
 			}
 		}
+		closeStreams(parameters);
 		// Prepare the response buffer if success to invoke method
 		int outputSize = 0;
+		boolean tracked = false;
 		if (exception == null && method != null && parameterTypes != null && parameters != null) {
 			// Send response
 			if (request.isSynchronous()) {
 
+				final long writeStart = System.nanoTime();
 				MessageHeader messageHeader = new MessageHeader();
 				messageHeader.setRequestID(request.getRequestID());
 				POPBuffer responseBuffer = request.getConnection().getCombox().getBufferFactory().createBuffer();
@@ -602,10 +590,7 @@ public final class Broker {
 					// If parameter is not a IN variable and
 					// The parameter is not a POPObject without any specified
 					// direction
-					if (Util.isParameterNotOfDirection(parametersAnnotations[index], POPParameter.Direction.IN)
-							&& Util.isParameterUsable(parametersAnnotations[index])
-							&& !(parameters[index] instanceof POPObject
-									&& !Util.isParameterOfAnyDirection(parametersAnnotations[index]))) {
+					if (POPClassDescriptor.isOutput(parametersFlags[index], parameters[index])) {
 						try {
 							responseBuffer.serializeReferenceObject(parameterTypes[index], parameters[index]);
 						} catch (POPException e) {
@@ -650,6 +635,11 @@ public final class Broker {
 								returnObject.getOd().setNetwork(request.getConnection().getNetworkUUID());
 							}
 
+							if (result instanceof POPInputStream) {
+								((POPInputStream) result).attach(ComboxStream.ofBroker(request.getConnection(),
+										ComboxStream.nextBrokerStreamID()));
+							}
+
 							responseBuffer.putValue(result, returnType);
 						} catch (POPException e) {
 							exception = e;
@@ -658,11 +648,19 @@ public final class Broker {
 				}
 				// Send response if success to put parameter to response buffer
 				if (exception == null) {
+					// tracked before answering, the caller may ask for it right after
 					if (tracking) {
 						outputSize = responseBuffer.size();
+						registerTracking(request, method, queueTime, executionTime,
+								serializationTime + System.nanoTime() - writeStart, inputSize, outputSize);
+						tracked = true;
 					}
 					sendResponse(request.getConnection(), responseBuffer);
+					if (result instanceof POPInputStream) {
+						transmitStream((POPInputStream) result);
+					}
 				}
+				responseBuffer.release();
 			}
 			// Remove reference, remove the connection to POPObject
 			for (index = 0; index < parameterTypes.length; index++) {
@@ -679,10 +677,10 @@ public final class Broker {
 			}
 		}
 
-		if (tracking && remote != null && method != null) {
-			registerTracking(remote, method.toGenericString(), trackingTime, inputSize, outputSize);
+		if (tracking && !tracked && method != null) {
+			registerTracking(request, method, queueTime, executionTime, serializationTime, inputSize, outputSize);
 		}
-			
+
 		// if have any error (cannot get the parameter, or cannot invoke method,
 		// or cannot put the output parameter,
 		// send it to the interface
@@ -700,6 +698,103 @@ public final class Broker {
 		return true;
 	}
 
+	/**
+	 * Read the parameters, call the method and send the response with a
+	 * generated stub
+	 * 
+	 * @param request
+	 *            the request to serve
+	 * @param method
+	 *            the method called by the request
+	 * @param stub
+	 *            the stub of the method
+	 * @param queueTime
+	 *            how long the request waited before being served
+	 */
+	private void invokeStub(Request request, Method method, MethodStub stub, long queueTime) {
+		POPBuffer requestBuffer = request.getBuffer();
+		request.setBuffer(null);
+		int inputSize = tracking ? requestBuffer.size() : 0;
+
+		POPBuffer responseBuffer = null;
+		if (request.isSynchronous()) {
+			MessageHeader messageHeader = new MessageHeader();
+			messageHeader.setRequestID(request.getRequestID());
+			responseBuffer = request.getConnection().getCombox().getBufferFactory().createBuffer();
+			responseBuffer.setHeader(messageHeader);
+		}
+
+		POPException exception = null;
+		final long executionStart = System.nanoTime();
+		try {
+			stub.invoke(popObject, requestBuffer, responseBuffer);
+		} catch (POPException e) {
+			// keeps its error code, e.g. a null String which can't be written
+			LogWriter.writeDebugInfo("[Broker] POPException calling %s: %s", method.getName(), e.getMessage());
+			exception = new POPException(e.errorCode, e.errorMessage);
+		} catch (Throwable e) {
+			Throwable cause = e;
+			if ((e instanceof InvocationTargetException || e instanceof ExecutionException) && e.getCause() != null) {
+				cause = e.getCause();
+			}
+			LogWriter.writeExceptionLog(cause);
+			LogWriter.writeDebugInfo("[Broker] Cannot execute. Cause %s.", cause.getMessage());
+			exception = POPException.createReflectException(method.getName(), cause.getMessage());
+		}
+		// the stub reads and writes the buffers, it's all counted as execution
+		long executionTime = System.nanoTime() - executionStart;
+		requestBuffer.release();
+
+		int outputSize = 0;
+		if (exception == null && responseBuffer != null && tracking) {
+			outputSize = responseBuffer.size();
+		}
+		// tracked before answering, the caller may ask for it right after
+		if (tracking) {
+			registerTracking(request, method, queueTime, executionTime, -1, inputSize, outputSize);
+		}
+
+		if (exception == null && responseBuffer != null) {
+			sendResponse(request.getConnection(), responseBuffer);
+		}
+		if (responseBuffer != null) {
+			responseBuffer.release();
+		}
+
+		if (exception != null) {
+			LogWriter.writeDebugInfo("[Broker] %s sendException: %s.", this.getLogPrefix(), exception.getMessage());
+			if (request.isSynchronous()) {
+				sendException(request.getConnection(), exception, request.getRequestID());
+			}
+		}
+	}
+
+	/**
+	 * Stop receiving the streamed parameters the method didn't read
+	 */
+	private void closeStreams(Object[] parameters) {
+		for (int i = 0; parameters != null && i < parameters.length; i++) {
+			if (parameters[i] instanceof POPInputStream) {
+				try {
+					((POPInputStream) parameters[i]).close();
+				} catch (IOException e) {
+					LogWriter.writeDebugInfo("[Broker] Can't close stream: %s", e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Send a returned stream, after the response referencing it
+	 */
+	private void transmitStream(POPInputStream stream) {
+		try {
+			stream.transmit();
+		} catch (IOException e) {
+			LogWriter.writeDebugInfo("[Broker] Can't send stream: %s", e.getMessage());
+		}
+	}
+
 	private void normalizePOPParamameters(Object[] parameters) {
 		for (int i = 0; parameters != null && i < parameters.length; i++) {
 			if (parameters[i] instanceof POPObject) {
@@ -799,9 +894,9 @@ public final class Broker {
 			};
 
 			if (request.isConcurrent()) {
-				threadPoolConcurrent.execute(popRequest);
+				requestExecutor.executeConcurrent(popRequest);
 			} else {
-				threadPoolSequential.execute(popRequest);
+				requestExecutor.executeSequential(popRequest);
 			}
 		}
 
@@ -894,7 +989,7 @@ public final class Broker {
 		case MessageHeader.KILL_ALL: {
 			// Kill call...
 			if (popInfo != null && popInfo.canKill()) {
-				System.exit(1);
+				exit(1);
 			}
 		}
 			break;
@@ -925,10 +1020,28 @@ public final class Broker {
 		setState(State.Exit);
 	}
 
+	/**
+	 * End the JVM, or only this broker if it is hosted in a container
+	 * 
+	 * @param status
+	 *            exit status of the JVM
+	 */
+	private void exit(int status) {
+		if (contained) {
+			kill();
+		} else {
+			System.exit(status);
+		}
+	}
+
 	/**
 	 * Close all create servers etc
 	 */
 	private void close() {
+		if (requestExecutor != null) {
+			requestExecutor.shutdown();
+		}
+
 		if (comboxServers == null) {
 			return;
 		}
@@ -970,7 +1083,7 @@ public final class Broker {
 	 */
 	public synchronized void onNewConnection() {
 		connectionCount++;
-		LogWriter.writeDebugInfo("[Broker] Open connection " + connectionCount);
+		LogWriter.writeDebugInfo(() -> "[Broker] Open connection " + connectionCount);
 	}
 
 	/**
@@ -979,7 +1092,7 @@ public final class Broker {
 	 */
 	public synchronized void onCloseConnection(String source) {
 		connectionCount--;
-		LogWriter.writeDebugInfo("[Broker] Close connection, left " + connectionCount + " " + source);
+		LogWriter.writeDebugInfo(() -> "[Broker] Close connection, left " + connectionCount + " " + source);
 		if (connectionCount <= 0) {
 			setState(State.Exit);
 		}
@@ -1055,6 +1168,8 @@ public final class Broker {
 	 * @return true if the initialization process succeed
 	 */
 	public boolean initialize(List<String> argvs) {
+		requestExecutor = createRequestExecutor(Util.removeStringFromList(argvs, EXECUTOR_PREFIX));
+
 		try {
 			accessPoint = new POPAccessPoint();
 
@@ -1092,7 +1207,7 @@ public final class Broker {
 
 			// If no protocol was specified, fall back to available protocols
 			if (liveServers.isEmpty()) {
-				for (ComboxFactory factory : ComboxFactoryFinder.getInstance().getAvailableFactories()) {
+				for (ComboxFactory factory : ComboxFactoryFinder.getInstance().getDefaultFactories()) {
 					AccessPoint ap = new AccessPoint(factory.getComboxName(), POPSystem.getHostIP().getAddress().getHostAddress(), 0);
 					accessPoint.addAccessPoint(ap);
 
@@ -1164,6 +1279,60 @@ public final class Broker {
 			}
 		});
 
+		// started in advance by a BrokerPool, the object arguments come later
+		if (argvs.length == 1 && argvs[0].startsWith(POOL_PREFIX)) {
+			argvs = BrokerPool.awaitArguments(argvs[0].substring(POOL_PREFIX.length()), Broker::host);
+			if (argvs == null) {
+				// the pool is gone, end with the hosted objects
+				synchronized (hostedBrokers) {
+					while (hostedBrokers.get() > 0) {
+						hostedBrokers.wait();
+					}
+				}
+				System.exit(0);
+				return;
+			}
+		}
+
+		start(argvs, false);
+	}
+
+	/**
+	 * Start an object in this container, next to the others
+	 * 
+	 * @param argvs
+	 *            arguments of the object, as given to {@link #main(String[])}
+	 */
+	private static void host(final String[] argvs) {
+		hostedBrokers.incrementAndGet();
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					start(argvs, true);
+				} catch (InterruptedException e) {
+					LogWriter.writeExceptionLog(e);
+				} finally {
+					synchronized (hostedBrokers) {
+						hostedBrokers.decrementAndGet();
+						hostedBrokers.notifyAll();
+					}
+				}
+			}
+		}, "Container broker thread").start();
+	}
+
+	/**
+	 * Create an object, call its constructor back and serve it until its end
+	 * 
+	 * @param argvs
+	 *            arguments of the program
+	 * @param contained
+	 *            hosted with other objects in this JVM
+	 * @throws InterruptedException
+	 *             if the any semaphore's operation fail
+	 */
+	private static void start(String[] argvs, boolean contained) throws InterruptedException {
 		ArrayList<String> argvList = new ArrayList<>(argvs.length);
 		LogWriter.writeDebugInfo("[Broker] Broker parameters");
 		
@@ -1196,105 +1365,139 @@ public final class Broker {
 		String objId = Util.generateUUID();
 		// create directories and setup their cleanup
 		RuntimeDirectoryThread runtimeCleanup = new RuntimeDirectoryThread(objId);
-		runtimeCleanup.addCleanupHook();
-		// change base dir
-		System.setProperty("user.dir", Paths.get(objId).toString());
-
-		if (actualObjectName != null && actualObjectName.length() > 0) {
-			objectName = actualObjectName;
-		}
-		String callbackString = Util.removeStringFromList(argvList, CALLBACK_PREFIX);
-		if (appservice != null && appservice.length() > 0) {
-			POPSystem.appServiceAccessPoint.setAccessString(appservice);
-		}
-		if (jobService != null && !jobService.isEmpty()) {
-			POPSystem.jobService.setAccessString(jobService);
+		// change base dir, shared by the objects of a container
+		if (!contained) {
+			runtimeCleanup.addCleanupHook();
+			System.setProperty("user.dir", Paths.get(objId).toString());
 		}
 
-		Combox<?> callback = null;
-		if (callbackString != null && callbackString.length() > 0) {
-			POPAccessPoint accessPoint = new POPAccessPoint(callbackString);
-			// use factory to determine which combox to use
-			ComboxFactoryFinder finder = ComboxFactoryFinder.getInstance();
-			for (int i = 0; i < accessPoint.size(); i++) {
-				// get protocol from accessPoint
-				String protocol = accessPoint.get(i).getProtocol();
-				ComboxFactory factory = finder.findFactory(protocol);
-
-				// skip to next protocol
-				if (factory == null) {
-					continue;
-				}
+		try {
+			if (actualObjectName != null && actualObjectName.length() > 0) {
+				objectName = actualObjectName;
+			}
+			String callbackString = Util.removeStringFromList(argvList, CALLBACK_PREFIX);
+			if (appservice != null && appservice.length() > 0) {
+				POPSystem.appServiceAccessPoint.setAccessString(appservice);
+			}
+			if (jobService != null && !jobService.isEmpty()) {
+				POPSystem.jobService.setAccessString(jobService);
+			}
 
-				// create callback
-				try {
-					callback = factory.createClientCombox(network);
+			Combox<?> callback = null;
+			if (callbackString != null && callbackString.length() > 0) {
+				POPAccessPoint accessPoint = new POPAccessPoint(callbackString);
+				// use factory to determine which combox to use
+				ComboxFactoryFinder finder = ComboxFactoryFinder.getInstance();
+				for (int i = 0; i < accessPoint.size(); i++) {
+					// get protocol from accessPoint
+					String protocol = accessPoint.get(i).getProtocol();
+					ComboxFactory factory = finder.findFactory(protocol);
+
+					// skip to next protocol
+					if (factory == null) {
+						continue;
+					}
 
-					if (callback.connectToServer(null, accessPoint, 0)) {
-						LogWriter.writeDebugInfo("[Broker] Connected to callback socket");
-					} else {
-						LogWriter.writeDebugInfo("[Broker] Error: fail to connect to callback:%s",
-								accessPoint.toString());
+					// create callback
+					try {
+						callback = factory.createClientCombox(network);
+
+						if (callback.connectToServer(null, accessPoint, 0)) {
+							LogWriter.writeDebugInfo("[Broker] Connected to callback socket");
+						} else {
+							LogWriter.writeDebugInfo("[Broker] Error: fail to connect to callback:%s",
+									accessPoint.toString());
+						}
+					} catch (IOException e) {
+						LogWriter.writeExceptionLog(e);
+						LogWriter.writeDebugInfo("[Broker] Failed to connect to callback socket");
+						continue;
 					}
-				} catch (IOException e) {
-					LogWriter.writeExceptionLog(e);
-					LogWriter.writeDebugInfo("[Broker] Failed to connect to callback socket");
-					continue;
+					break;
 				}
-				break;
 			}
-		}
 
-		if (callback == null) {
-			LogWriter.writeDebugInfo("[Broker] Error: callback is null");
-			System.exit(1);
-			return; //This line is only here to make the static code analyzer happy
-		}
+			if (callback == null) {
+				LogWriter.writeDebugInfo("[Broker] Error: callback is null");
+				if (!contained) {
+					System.exit(1);
+				}
+				return; //This line is only here to make the static code analyzer happy
+			}
 
-		Broker broker = null;
+			Broker broker = null;
 
-		try {
-			broker = new Broker(codelocation, objectName);
-		} catch (Exception e) {
-			LogWriter.writeExceptionLog(e);
-		}
+			try {
+				broker = new Broker(codelocation, objectName);
+			} catch (Exception e) {
+				LogWriter.writeExceptionLog(e);
+			}
 		
-		if(broker == null){
-		    LogWriter.writeDebugInfo("[Broker] Error: Broker is null");
-            System.exit(1);
-            return; //This line is only here to make the static code analyzer happy
-		}
+			if(broker == null){
+			    LogWriter.writeDebugInfo("[Broker] Error: Broker is null");
+				// the interface-side fails now instead of waiting for the object
+				sendStatus(callback, 1, new POPAccessPoint());
+				callback.close(0);
+			    if (!contained) {
+			        System.exit(1);
+			    }
+	            return; //This line is only here to make the static code analyzer happy
+			}
+			broker.contained = contained;
 		
-		int status = 0;
-		if (!broker.initialize(argvList)) {
-			status = 1;
+			int status = 0;
+			if (!broker.initialize(argvList)) {
+				status = 1;
+			}
+
+			// Send info back to callback
+			sendStatus(callback, status, broker.getAccessPoint());
+
+			LogWriter.writeDebugInfo("[Broker] Broker can be accessed at " + broker.getAccessPoint().toString());
+
+			// clean-up main method, help GC since treatRequests is an almost
+			// infinite loop
+			callback.close(0);
+			callback = null;
+			argvList = null;
+
+			if (status == 0) {
+				broker.treatRequests();
+				broker.close();
+			}
+
+			LogWriter.writeDebugInfo("[Broker] End broker life : " + objectName);
+		} finally {
+			// a container doesn't exit with its objects, each one cleans up when it ends
+			if (contained) {
+				try {
+					runtimeCleanup.cleanup();
+				} catch (IOException e) {
+					LogWriter.writeDebugInfo("[Broker] A problem occurred when cleaning up: %s", e.getMessage());
+				}
+			}
 		}
+	}
 
-		// Send info back to callback
+	/**
+	 * Tell the interface-side which created this object if it is ready
+	 * 
+	 * @param callback
+	 *            the connection to the interface-side
+	 * @param status
+	 *            0 if the object is ready
+	 * @param accessPoint
+	 *            where the object can be reached
+	 */
+	private static void sendStatus(Combox<?> callback, int status, POPAccessPoint accessPoint) {
 		MessageHeader messageHeader = new MessageHeader();
 		messageHeader.setRequestType(MessageHeader.REQUEST);
 		messageHeader.setConnectionID(0);
 		POPBuffer buffer = new BufferXDR();
 		buffer.setHeader(messageHeader);
 		buffer.putInt(status);
-		broker.getAccessPoint().serialize(buffer);
+		accessPoint.serialize(buffer);
 		callback.send(buffer);
-
-		LogWriter.writeDebugInfo("[Broker] Broker can be accessed at " + broker.getAccessPoint().toString());
-
-		// clean-up main method, help GC since treatRequests is an almost
-		// infinite loop
-		callback.close(0);
-		callback = null;
-		buffer = null;
-		argvList = null;
-
-		if (status == 0) {
-			broker.treatRequests();
-			broker.close();
-		}
-
-		LogWriter.writeDebugInfo("[Broker] End broker life : " + objectName);
 	}
 
 	/**
@@ -1349,33 +1552,96 @@ public final class Broker {
 	 * 
 	 * @return the global request queue
 	 */
-	public RequestQueue getRequestQueue() {
+	public RequestScheduler getRequestQueue() {
 		return requestQueue;
 	}
 
+	/**
+	 * The executor serving the requests of this broker, it reports the number of
+	 * waiting and running requests.
+	 * 
+	 * @return the request executor
+	 */
+	public RequestExecutor getRequestExecutor() {
+		return requestExecutor;
+	}
+
+	/**
+	 * Create the request executor, the type is taken from the object description
+	 * if one was given, then from the {@link POPClass} annotation and finally
+	 * from the configuration.
+	 * 
+	 * @param executor
+	 *            the executor asked in the object description, may be null
+	 * @return a new request executor
+	 */
+	private RequestExecutor createRequestExecutor(String executor) {
+		Configuration conf = Configuration.getInstance();
+		ExecutorType type = ExecutorType.fromName(executor);
+		if (type == ExecutorType.Default && popInfo != null) {
+			POPClass annotation = popInfo.getClass().getAnnotation(POPClass.class);
+			if (annotation != null) {
+				type = annotation.executor();
+			}
+		}
+		if (type == ExecutorType.Default) {
+			type = ExecutorType.fromName(conf.getBrokerExecutor());
+		}
+		return new RequestExecutor(type, conf.getBrokerExecutorThreads());
+	}
+
+	/**
+	 * Create the request scheduler selected in the configuration, the
+	 * {@link RequestQueue} is used by default.
+	 * 
+	 * @return a new request scheduler
+	 */
+	private static RequestScheduler createRequestScheduler() {
+		String scheduler = Configuration.getInstance().getRequestScheduler();
+		if (LockFreeRequestScheduler.NAME.equalsIgnoreCase(scheduler)) {
+			return new LockFreeRequestScheduler();
+		}
+		return new RequestQueue();
+	}
+
 	/**
 	 * Register a tracking event in the broker.
 	 * 
-	 * @param caller
-	 *            Who called the method.
+	 * @param request
+	 *            The request served, it knows the caller.
 	 * @param method
 	 *            The method called.
-	 * @param time
-	 *            How much time did the execution take
+	 * @param queueTime
+	 *            How long did the request wait before being served, in
+	 *            nanoseconds
+	 * @param executionTime
+	 *            How much time did the execution take, in nanoseconds
+	 * @param serializationTime
+	 *            How much time did reading the parameters and writing the result
+	 *            take, in nanoseconds, -1 if it's part of the execution
 	 * @param inputSize
 	 *            The size of the buffer containing the input parameters
 	 * @param outputSize
 	 *            The size of the buffer containing the method result (if any, else
 	 *            0)
 	 */
-	private synchronized void registerTracking(POPRemoteCaller caller, String method, long time, int inputSize, int outputSize) {
+	private void registerTracking(Request request, Method method, long queueTime, long executionTime,
+			long serializationTime, int inputSize, int outputSize) {
+		POPRemoteCaller caller = request.getConnection().getRemoteCaller();
+		if (caller == null) {
+			return;
+		}
 		POPTracking userTracking = callerTracking.get(caller);
 		// create if it's the first time we see this caller
 		if (userTracking == null) {
 			userTracking = new POPTracking(caller);
-			callerTracking.put(caller, userTracking);
+			POPTracking previous = callerTracking.putIfAbsent(caller, userTracking);
+			if (previous != null) {
+				userTracking = previous;
+			}
 		}
-		userTracking.track(method, time, inputSize, outputSize);
+		userTracking.track(new MethodInfo(request.getClassId(), request.getMethodId()), method, queueTime,
+				executionTime, serializationTime, inputSize, outputSize);
 	}
 
 	/**
@@ -0,0 +1,244 @@
+package ch.icosys.popjava.core.broker;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Request scheduler which does not serialize producers and consumer on a single
+ * lock. The combox threads append requests to a lock-free inbox, the broker
+ * main loop, which is the only consumer, dispatches them in a concurrent lane
+ * and in an ordered sequential lane. A mutex request acts as a barrier: the
+ * inbox is not drained past it until it has been served, this keeps the same
+ * ordering as {@link RequestQueue}.
+ *
+ * Only one thread may call {@link #pick(int, TimeUnit)}.
+ */
+public class LockFreeRequestScheduler implements RequestScheduler {
+
+	/**
+	 * Name of this scheduler in the configuration
+	 */
+	public static final String NAME = "lockfree";
+
+	/**
+	 * Requests not yet dispatched in a lane, in arrival order
+	 */
+	private final ConcurrentLinkedQueue<Request> inbox = new ConcurrentLinkedQueue<>();
+
+	// lanes, only accessed by the consumer thread
+	private final ArrayDeque<Request> concurrentLane = new ArrayDeque<>();
+
+	private final ArrayDeque<Request> sequentialLane = new ArrayDeque<>();
+
+	private Request mutexRequest = null;
+
+	private boolean nextRequestIsConc = false;
+
+	// state shared with the threads serving the requests
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicInteger servingConcurrent = new AtomicInteger();
+
+	private volatile boolean servingSequential = false;
+
+	private volatile boolean servingMutex = false;
+
+	private volatile boolean clearRequested = false;
+
+	private volatile Thread consumer = null;
+
+	// back pressure, only used when the scheduler is full
+	private final Object capacityMonitor = new Object();
+
+	private final AtomicInteger blockedProducers = new AtomicInteger();
+
+	private volatile int maxQueue = RequestQueue.DEFAULT_REQUEST_QUEUE_SIZE;
+
+	/**
+	 * Creates a new instance of LockFreeRequestScheduler
+	 */
+	public LockFreeRequestScheduler() {
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public int getMaxQueue() {
+		return maxQueue;
+	}
+
+	@Override
+	public void setMaxQueue(int maxQueue) {
+		this.maxQueue = maxQueue;
+		signalCapacity();
+	}
+
+	@Override
+	public boolean add(Request request) {
+		if (request.isMutex()) {
+			size.incrementAndGet();
+		} else {
+			reserveCapacity();
+		}
+		inbox.add(request);
+		wakeConsumer();
+		return true;
+	}
+
+	@Override
+	public Request pick(int time, TimeUnit timeUnit) {
+		consumer = Thread.currentThread();
+		long deadline = System.nanoTime() + timeUnit.toNanos(time);
+		Request pickedRequest;
+		while ((pickedRequest = tryPick()) == null) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return null;
+			}
+			LockSupport.parkNanos(this, remaining);
+			// keep the interrupt for the caller
+			if (Thread.currentThread().isInterrupted()) {
+				return null;
+			}
+		}
+		pickedRequest.setStatus(Request.SERVING);
+		return pickedRequest;
+	}
+
+	@Override
+	public boolean remove(Request request) {
+		if (request.isMutex()) {
+			servingMutex = false;
+		} else if (request.isConcurrent()) {
+			servingConcurrent.decrementAndGet();
+		} else {
+			servingSequential = false;
+		}
+		size.decrementAndGet();
+		signalCapacity();
+		wakeConsumer();
+		return true;
+	}
+
+	@Override
+	public boolean clear() {
+		// the requests being served are counted until they are removed
+		while (inbox.poll() != null) {
+			size.decrementAndGet();
+		}
+		clearRequested = true;
+		signalCapacity();
+		wakeConsumer();
+		return true;
+	}
+
+	/**
+	 * Dispatch the inbox in the lanes and select the next request to serve. Must
+	 * only be called by the consumer.
+	 *
+	 * @return the next request or null if none can be served now
+	 */
+	private Request tryPick() {
+		if (clearRequested) {
+			clearRequested = false;
+			int dropped = concurrentLane.size() + sequentialLane.size() + (mutexRequest != null ? 1 : 0);
+			concurrentLane.clear();
+			sequentialLane.clear();
+			mutexRequest = null;
+			if (dropped > 0) {
+				size.addAndGet(-dropped);
+				signalCapacity();
+			}
+		}
+
+		// dispatch new requests up to the next mutex barrier
+		Request request;
+		while (mutexRequest == null && !servingMutex && (request = inbox.poll()) != null) {
+			if (request.isMutex()) {
+				mutexRequest = request;
+			} else if (request.isConcurrent()) {
+				concurrentLane.add(request);
+			} else {
+				sequentialLane.add(request);
+			}
+		}
+
+		boolean canPickSequential = !servingSequential && !sequentialLane.isEmpty();
+		if (canPickSequential && (concurrentLane.isEmpty() || !nextRequestIsConc)) {
+			nextRequestIsConc = true;
+			servingSequential = true;
+			return sequentialLane.poll();
+		}
+		if (!concurrentLane.isEmpty()) {
+			nextRequestIsConc = false;
+			servingConcurrent.incrementAndGet();
+			return concurrentLane.poll();
+		}
+		// the mutex is served once everything received before it is done
+		if (mutexRequest != null && sequentialLane.isEmpty() && !servingSequential && servingConcurrent.get() == 0) {
+			Request picked = mutexRequest;
+			mutexRequest = null;
+			servingMutex = true;
+			return picked;
+		}
+		return null;
+	}
+
+	private void wakeConsumer() {
+		Thread thread = consumer;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Take a place in the scheduler, waiting for one if it is full. Checking and
+	 * taking the place is a single CAS so concurrent producers can't go over the
+	 * capacity.
+	 */
+	private void reserveCapacity() {
+		for (;;) {
+			int current = size.get();
+			if (current < maxQueue) {
+				if (size.compareAndSet(current, current + 1)) {
+					return;
+				}
+			} else if (!awaitCapacity()) {
+				// interrupted, the request is still accepted
+				size.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	private boolean awaitCapacity() {
+		blockedProducers.incrementAndGet();
+		try {
+			synchronized (capacityMonitor) {
+				while (size.get() >= maxQueue) {
+					capacityMonitor.wait();
+				}
+			}
+			return true;
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			blockedProducers.decrementAndGet();
+		}
+	}
+
+	private void signalCapacity() {
+		if (blockedProducers.get() > 0) {
+			synchronized (capacityMonitor) {
+				capacityMonitor.notifyAll();
+			}
+		}
+	}
+}
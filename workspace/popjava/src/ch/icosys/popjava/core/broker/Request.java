@@ -39,11 +39,33 @@ public class Request {
 
 	protected POPRemoteCaller remoteCaller;
 
+	protected long receivedTime;
+
 	/**
 	 * Creating a new pending request
 	 */
 	public Request() {
 		status = PENDING;
+		receivedTime = System.nanoTime();
+	}
+
+	/**
+	 * Set when the request was received, once its message was read
+	 * 
+	 * @param receivedTime
+	 *            the reception time in {@link System#nanoTime()} time
+	 */
+	public void setReceivedTime(long receivedTime) {
+		this.receivedTime = receivedTime;
+	}
+
+	/**
+	 * When the request was received, in {@link System#nanoTime()} time
+	 * 
+	 * @return the reception time in nanoseconds
+	 */
+	public long getReceivedTime() {
+		return receivedTime;
 	}
 
 	/**
@@ -269,7 +291,7 @@ public class Request {
 		return (getSemantics() & Semantic.LOCALHOST) != 0;
 	}
 
-	public RequestQueue getRequestQueue() {
+	public RequestScheduler getRequestQueue() {
 		return this.receivedCombox.getRequestQueue();
 	}
 }
@@ -0,0 +1,207 @@
+package ch.icosys.popjava.core.broker;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.icosys.popjava.core.annotation.ExecutorType;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * Execution model of a broker. Concurrent requests are served by a pool chosen
+ * with {@link ExecutorType}, sequential requests by a single thread. The number
+ * of waiting and running requests is tracked to report the broker load.
+ */
+public final class RequestExecutor {
+
+	/**
+	 * Number of threads per core of the concurrent pool when none is specified,
+	 * requests often block on remote calls so the pools are kept large
+	 */
+	public static final int DEFAULT_THREADS_PER_CORE = 50;
+
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+	private final ExecutorType type;
+
+	private final ExecutorService threadPoolConcurrent;
+
+	private final ExecutorService threadPoolSequential;
+
+	private final AtomicInteger queuedRequests = new AtomicInteger();
+
+	private final AtomicInteger activeWorkers = new AtomicInteger();
+
+	/**
+	 * Create the executors of a broker
+	 *
+	 * @param type
+	 *            the type of pool serving the concurrent requests,
+	 *            {@link ExecutorType#Default} is a fixed pool
+	 * @param threads
+	 *            maximum number of threads of the concurrent pool, 0 or less
+	 *            use the default of the type, ignored for virtual threads
+	 */
+	public RequestExecutor(ExecutorType type, int threads) {
+		int poolSize = threads > 0 ? threads
+				: Runtime.getRuntime().availableProcessors() * DEFAULT_THREADS_PER_CORE;
+
+		if (type == ExecutorType.Virtual && NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+			LogWriter.writeDebugInfo("[RequestExecutor] Virtual threads are not available, using a fixed pool");
+			type = ExecutorType.Fixed;
+		}
+
+		switch (type) {
+		case Virtual:
+			threadPoolConcurrent = newVirtualThreadExecutor();
+			break;
+		case ForkJoin:
+			threadPoolConcurrent = new ForkJoinPool(poolSize,
+					new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+						@Override
+						public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+							ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+									.newThread(pool);
+							thread.setName("Concurrent request thread " + thread.getPoolIndex());
+							thread.setDaemon(true);
+							return thread;
+						}
+					}, null, true);
+			break;
+		default:
+			type = ExecutorType.Fixed;
+			threadPoolConcurrent = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+
+				private int threadIndex = 0;
+
+				@Override
+				public Thread newThread(Runnable arg0) {
+					Thread thread = Executors.defaultThreadFactory().newThread(arg0);
+					thread.setName("Concurrent request thread " + (threadIndex++));
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			break;
+		}
+		this.type = type;
+
+		threadPoolSequential = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable arg0) {
+				Thread thread = Executors.defaultThreadFactory().newThread(arg0);
+				thread.setName("Sequential request thread");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Serve a concurrent request
+	 *
+	 * @param request
+	 *            the request to run
+	 */
+	public void executeConcurrent(Runnable request) {
+		threadPoolConcurrent.execute(track(request));
+	}
+
+	/**
+	 * Serve a sequential request
+	 *
+	 * @param request
+	 *            the request to run
+	 */
+	public void executeSequential(Runnable request) {
+		threadPoolSequential.execute(track(request));
+	}
+
+	/**
+	 * The type of executor actually serving the concurrent requests, it can differ
+	 * from the one asked if it was not available
+	 *
+	 * @return the type of the concurrent pool
+	 */
+	public ExecutorType getType() {
+		return type;
+	}
+
+	/**
+	 * Number of requests given to the executor and waiting for a thread
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return queuedRequests.get();
+	}
+
+	/**
+	 * Number of requests currently being served
+	 *
+	 * @return the active workers
+	 */
+	public int getActiveWorkers() {
+		return activeWorkers.get();
+	}
+
+	/**
+	 * Stop accepting new requests
+	 */
+	public void shutdown() {
+		threadPoolConcurrent.shutdown();
+		threadPoolSequential.shutdown();
+	}
+
+	/**
+	 * Are virtual threads supported by this JVM
+	 *
+	 * @return true on Java 21 and newer
+	 */
+	public static boolean isVirtualThreadAvailable() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	private Runnable track(final Runnable request) {
+		queuedRequests.incrementAndGet();
+		return new Runnable() {
+			@Override
+			public void run() {
+				queuedRequests.decrementAndGet();
+				activeWorkers.incrementAndGet();
+				try {
+					request.run();
+				} finally {
+					activeWorkers.decrementAndGet();
+				}
+			}
+		};
+	}
+
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+		} catch (Exception e) {
+			throw new IllegalStateException("Can't create the virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor only exists since Java 21, we look
+	 * it up to stay compatible with older JVMs.
+	 */
+	private static Method findVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			// preview API on Java 19 and 20, throws when previews are disabled
+			((ExecutorService) method.invoke(null)).shutdown();
+			return method;
+		} catch (Exception | LinkageError e) {
+			return null;
+		}
+	}
+}
@@ -14,7 +14,7 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  */
 
-public class RequestQueue {
+public class RequestQueue implements RequestScheduler {
 
 	private final Lock lock = new ReentrantLock();
 
@@ -48,6 +48,7 @@ public class RequestQueue {
 	 * 
 	 * @return number of requests
 	 */
+	@Override
 	public synchronized int size() {
 		return concurrentRequests.size() + sequentialRequests.size() + (mutexRequest == null ? 0 : 1) + waitingRequests.size();
 	}
@@ -57,6 +58,7 @@ public class RequestQueue {
 	 * 
 	 * @return max requests number in the queue
 	 */
+	@Override
 	public synchronized int getMaxQueue() {
 		return maxQueue;
 	}
@@ -67,6 +69,7 @@ public class RequestQueue {
 	 * @param maxQueue
 	 *            Maximum number of requests
 	 */
+	@Override
 	public synchronized void setMaxQueue(int maxQueue) {
 		this.maxQueue = maxQueue;
 	}
@@ -78,6 +81,7 @@ public class RequestQueue {
 	 *            Request to add
 	 * @return true if the request is added correctly
 	 */
+	@Override
 	public boolean add(Request request) {
 		/*LogWriter.writeDebugInfo(hashCode() + " Add request, there are already " + size() + " requests, " 
 		 										+ request.getClassId() + " " + request.getMethodId());*/
@@ -127,6 +131,7 @@ public class RequestQueue {
 	 *            Unit of time
 	 * @return Request picked in the queue
 	 */
+	@Override
 	public Request pick(int time, TimeUnit timeUnit) {
 		Request pickedRequest = null;
 		lock.lock();
@@ -163,6 +168,7 @@ public class RequestQueue {
 	 *            Request to be removed
 	 * @return true if the request is correctly removed
 	 */
+	@Override
 	public boolean remove(Request request) {
 		lock.lock();
 		try {
@@ -258,6 +264,7 @@ public class RequestQueue {
 	 * 
 	 * @return true if the queue if correctly cleared
 	 */
+	@Override
 	public synchronized boolean clear() {
 		nextRequestToPick = null;
 		mutexRequest = null;
@@ -0,0 +1,76 @@
+package ch.icosys.popjava.core.broker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request scheduler is used in the broker-side to order the requests received
+ * from the interfaces before they are served. Implementations must respect the
+ * POP semantics: concurrent requests can be served in parallel, sequential
+ * requests are served one at a time in their arrival order and a mutex request
+ * is only served when every request received before it is done, while every
+ * request received after it waits for its completion.
+ *
+ * @see RequestQueue
+ * @see LockFreeRequestScheduler
+ */
+public interface RequestScheduler {
+
+	/**
+	 * Give the actual number of requests in the scheduler
+	 *
+	 * @return number of requests
+	 */
+	int size();
+
+	/**
+	 * Return the maximum number of requests in the scheduler
+	 *
+	 * @return max requests number in the scheduler
+	 */
+	int getMaxQueue();
+
+	/**
+	 * Set the maximum number of requests in the scheduler
+	 *
+	 * @param maxQueue
+	 *            Maximum number of requests
+	 */
+	void setMaxQueue(int maxQueue);
+
+	/**
+	 * Put a new request in the scheduler, may block if the scheduler is full
+	 *
+	 * @param request
+	 *            Request to add
+	 * @return true if the request is added correctly
+	 */
+	boolean add(Request request);
+
+	/**
+	 * Pick the next request that can be served. If there is no request to pick,
+	 * this method waits the time passed in parameters
+	 *
+	 * @param time
+	 *            Time to wait
+	 * @param timeUnit
+	 *            Unit of time
+	 * @return Request picked or null if none was available in time
+	 */
+	Request pick(int time, TimeUnit timeUnit);
+
+	/**
+	 * Remove a served request from the scheduler
+	 *
+	 * @param request
+	 *            Request to be removed
+	 * @return true if the request is correctly removed
+	 */
+	boolean remove(Request request);
+
+	/**
+	 * Clear the scheduler
+	 *
+	 * @return true if the scheduler is correctly cleared
+	 */
+	boolean clear();
+}
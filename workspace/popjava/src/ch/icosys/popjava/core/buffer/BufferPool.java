@@ -0,0 +1,246 @@
+package ch.icosys.popjava.core.buffer;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * Arrays backing the message buffers, kept for reuse once a buffer is
+ * released with {@link POPBuffer#release()}. The arrays are grouped by size
+ * classes, powers of two from {@link BufferRaw#BUFFER_LENGTH}. Each thread
+ * keeps a few small arrays for itself, the others are shared.
+ *
+ * A buffer which is never released is simply collected, the pool only misses
+ * the opportunity to reuse its array.
+ */
+public final class BufferPool {
+
+	private static final int SIZE_CLASSES = 11;
+
+	private static final int THREAD_CACHED_CLASSES = 2;
+
+	private static final int THREAD_CACHE_SIZE = 4;
+
+	private static BufferPool instance;
+
+	private final Queue<byte[]>[] shared;
+
+	private final ThreadLocal<ArrayDeque<byte[]>[]> threadCache;
+
+	private final boolean leakDetection;
+
+	private final ReferenceQueue<POPBuffer> collected = new ReferenceQueue<>();
+
+	private final Map<Reference<POPBuffer>, Throwable> tracked = new ConcurrentHashMap<>();
+
+	private final LongAdder allocations = new LongAdder();
+
+	private final LongAdder allocatedBytes = new LongAdder();
+
+	private final LongAdder reuses = new LongAdder();
+
+	private final LongAdder releases = new LongAdder();
+
+	/**
+	 * Create a pool
+	 *
+	 * @param poolSize
+	 *            the number of shared arrays of the smallest size, half as many
+	 *            are kept for each bigger size, 0 disables the reuse
+	 * @param leakDetection
+	 *            remember where each buffer was created and log the ones
+	 *            collected without being released
+	 */
+	public BufferPool(int poolSize, boolean leakDetection) {
+		this.leakDetection = leakDetection;
+		@SuppressWarnings("unchecked")
+		Queue<byte[]>[] queues = (Queue<byte[]>[]) new Queue<?>[SIZE_CLASSES];
+		shared = queues;
+		for (int i = 0; i < SIZE_CLASSES; i++) {
+			int capacity = poolSize >> i;
+			shared[i] = capacity > 0 ? new ArrayBlockingQueue<>(capacity) : null;
+		}
+		if (poolSize > 0) {
+			threadCache = ThreadLocal.withInitial(() -> {
+				@SuppressWarnings("unchecked")
+				ArrayDeque<byte[]>[] cache = (ArrayDeque<byte[]>[]) new ArrayDeque<?>[THREAD_CACHED_CLASSES];
+				for (int i = 0; i < cache.length; i++) {
+					cache[i] = new ArrayDeque<>(THREAD_CACHE_SIZE);
+				}
+				return cache;
+			});
+		} else {
+			threadCache = null;
+		}
+	}
+
+	/**
+	 * @return the pool of the JVM
+	 */
+	public static synchronized BufferPool getInstance() {
+		if (instance == null) {
+			Configuration conf = Configuration.getInstance();
+			instance = new BufferPool(conf.getBufferPoolSize(), conf.isBufferPoolLeakDetection());
+		}
+		return instance;
+	}
+
+	/**
+	 * Get an array of at least the given size
+	 *
+	 * @param minCapacity
+	 *            the size needed
+	 * @return a free array, its content is undefined
+	 */
+	public byte[] acquire(int minCapacity) {
+		if (leakDetection) {
+			reportLeaks();
+		}
+
+		int sizeClass = sizeClass(minCapacity);
+		if (sizeClass < 0) {
+			return allocate(minCapacity);
+		}
+
+		byte[] array = null;
+		if (threadCache != null && sizeClass < THREAD_CACHED_CLASSES) {
+			array = threadCache.get()[sizeClass].poll();
+		}
+		if (array == null && shared[sizeClass] != null) {
+			array = shared[sizeClass].poll();
+		}
+		if (array == null) {
+			return allocate(BufferRaw.BUFFER_LENGTH << sizeClass);
+		}
+
+		reuses.increment();
+		return array;
+	}
+
+	/**
+	 * Give back an array, nothing may use it anymore
+	 *
+	 * @param array
+	 *            an array given by {@link #acquire(int)}
+	 */
+	public void release(byte[] array) {
+		int sizeClass = sizeClass(array.length);
+		if (sizeClass < 0 || array.length != BufferRaw.BUFFER_LENGTH << sizeClass) {
+			return;
+		}
+
+		releases.increment();
+		if (threadCache != null && sizeClass < THREAD_CACHED_CLASSES) {
+			ArrayDeque<byte[]> cache = threadCache.get()[sizeClass];
+			if (cache.size() < THREAD_CACHE_SIZE) {
+				cache.push(array);
+				return;
+			}
+		}
+		if (shared[sizeClass] != null) {
+			shared[sizeClass].offer(array);
+		}
+	}
+
+	/**
+	 * Start watching a buffer for leaks, if enabled
+	 *
+	 * @param buffer
+	 *            a new buffer
+	 * @return the handle to give back to {@link #untrack(Object)} on release, null
+	 *         if the leaks are not tracked
+	 */
+	public Object track(POPBuffer buffer) {
+		if (!leakDetection) {
+			return null;
+		}
+		PhantomReference<POPBuffer> reference = new PhantomReference<>(buffer, collected);
+		tracked.put(reference, new Throwable("Buffer created here"));
+		return reference;
+	}
+
+	/**
+	 * The buffer was released correctly
+	 *
+	 * @param handle
+	 *            the value returned by {@link #track(POPBuffer)}
+	 */
+	public void untrack(Object handle) {
+		if (handle != null) {
+			tracked.remove(handle);
+		}
+	}
+
+	/**
+	 * @return the number of arrays which had to be allocated
+	 */
+	public long getAllocations() {
+		return allocations.sum();
+	}
+
+	/**
+	 * @return the total size of the arrays which had to be allocated
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes.sum();
+	}
+
+	/**
+	 * @return the number of arrays given by the pool instead of allocated
+	 */
+	public long getReuses() {
+		return reuses.sum();
+	}
+
+	/**
+	 * @return the number of arrays given back to the pool
+	 */
+	public long getReleases() {
+		return releases.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BufferPool[allocations=%d, allocatedBytes=%d, reuses=%d, releases=%d]",
+				getAllocations(), getAllocatedBytes(), getReuses(), getReleases());
+	}
+
+	private byte[] allocate(int capacity) {
+		allocations.increment();
+		allocatedBytes.add(capacity);
+		return new byte[capacity];
+	}
+
+	private void reportLeaks() {
+		Reference<? extends POPBuffer> reference;
+		while ((reference = collected.poll()) != null) {
+			Throwable creation = tracked.remove(reference);
+			if (creation != null) {
+				LogWriter.writeDebugInfo("[BufferPool] A buffer was collected without being released");
+				LogWriter.writeExceptionLog(creation);
+			}
+		}
+	}
+
+	/**
+	 * @return the smallest size class holding the given size, -1 if too big to
+	 *         be pooled
+	 */
+	private static int sizeClass(int capacity) {
+		for (int i = 0; i < SIZE_CLASSES; i++) {
+			if (capacity <= BufferRaw.BUFFER_LENGTH << i) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
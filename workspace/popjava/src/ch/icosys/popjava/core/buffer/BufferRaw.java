@@ -1,5 +1,8 @@
 package ch.icosys.popjava.core.buffer;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.DoubleBuffer;
@@ -8,8 +11,11 @@ import java.nio.IntBuffer;
 import java.nio.LongBuffer;
 import java.nio.ShortBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import ch.icosys.popjava.core.base.MessageHeader;
+import ch.icosys.popjava.core.util.Configuration;
 import ch.icosys.popjava.core.util.LogWriter;
 
 /**
@@ -22,11 +28,24 @@ public class BufferRaw extends POPBuffer {
 	 */
 	public static final int BUFFER_LENGTH = 16384;
 
+	/**
+	 * Size of the chunks used to encode the bulk arrays while sending them
+	 */
+	private static final int BULK_CHUNK_LENGTH = BUFFER_LENGTH << 2;
+
 	/**
 	 * Byte buffer to store data
 	 */
 	protected ByteBuffer buffer;
 
+	// leak detection handle of the pool
+	private final Object poolHandle;
+
+	// big arrays not copied in the buffer, written in place when sending
+	private List<BulkArray> bulkArrays;
+
+	private int bulkBytes;
+
 	/**
 	 * Default constructor
 	 */
@@ -42,7 +61,9 @@ public class BufferRaw extends POPBuffer {
 	 */
 	public BufferRaw(MessageHeader messageHeader) {
 		super(messageHeader);
-		buffer = ByteBuffer.allocate(BUFFER_LENGTH);
+		BufferPool pool = BufferPool.getInstance();
+		buffer = ByteBuffer.wrap(pool.acquire(BUFFER_LENGTH));
+		poolHandle = pool.track(this);
 		buffer.order(ByteOrder.LITTLE_ENDIAN);
 		buffer.position(MessageHeader.HEADER_LENGTH);
 		size = MessageHeader.HEADER_LENGTH;
@@ -50,11 +71,76 @@ public class BufferRaw extends POPBuffer {
 
 	@Override
 	public byte[] array() {
+		flatten();
 		return buffer.array();
 	}
 
+	@Override
+	public int size() {
+		return size + bulkBytes;
+	}
+
+	@Override
+	public void writeTo(OutputStream output) throws IOException {
+		if (bulkArrays == null) {
+			output.write(buffer.array(), 0, size);
+			return;
+		}
+
+		BufferPool pool = BufferPool.getInstance();
+		byte[] chunkArray = pool.acquire(BULK_CHUNK_LENGTH);
+		ByteBuffer chunk = ByteBuffer.wrap(chunkArray);
+		chunk.order(buffer.order());
+		try {
+			byte[] source = buffer.array();
+			int from = 0;
+			for (BulkArray bulk : bulkArrays) {
+				output.write(source, from, bulk.offset - from);
+				bulk.writeTo(output, chunk);
+				from = bulk.offset;
+			}
+			output.write(source, from, size - from);
+		} finally {
+			pool.release(chunkArray);
+		}
+	}
+
+	@Override
+	public void receive(byte[] message) {
+		if (!isBulk(message.length)) {
+			super.receive(message);
+			return;
+		}
+
+		adopt(message, message.length);
+	}
+
+	@Override
+	public void receive(byte[] message, int length) {
+		if (!isBulk(length)) {
+			super.receive(message, length);
+			return;
+		}
+
+		adopt(message, length);
+	}
+
+	/**
+	 * Decode the message where it was read
+	 */
+	private void adopt(byte[] message, int length) {
+		clearBulk();
+		ByteBuffer received = ByteBuffer.wrap(message);
+		received.order(buffer.order());
+		BufferPool.getInstance().release(buffer.array());
+		buffer = received;
+		size = length;
+		extractHeader();
+	}
+
 	@Override
 	public MessageHeader extractHeader() {
+		flatten();
 		messageHeader = new MessageHeader();
 
 		if (buffer.limit() >= MessageHeader.HEADER_LENGTH) {
@@ -235,10 +321,16 @@ public class BufferRaw extends POPBuffer {
 		if ((len % 4) != 0) {
 			len = len + 4 - len % 4;
 		}
-		resize(len);
-		buffer.put(data);
-		if ((data.length % 4) != 0) {
-			position(position() + 4 - data.length % 4);
+		if (isBulk(data.length)) {
+			addBulk(data, data.length);
+			resize(len - data.length);
+		} else {
+			resize(len);
+			buffer.put(data);
+		}
+		// pooled arrays are not zeroed
+		for (int i = data.length; i < len; i++) {
+			buffer.put((byte) 0);
 		}
 	}
 
@@ -355,6 +447,7 @@ public class BufferRaw extends POPBuffer {
 
 	@Override
 	public void reset() {
+		clearBulk();
 		buffer.clear();
 		size = MessageHeader.HEADER_LENGTH;
 		for (int i = 0; i < size; i++) {
@@ -363,8 +456,20 @@ public class BufferRaw extends POPBuffer {
 		// position(size);
 	}
 
+	@Override
+	public void release() {
+		clearBulk();
+		if (buffer != null) {
+			BufferPool pool = BufferPool.getInstance();
+			pool.untrack(poolHandle);
+			pool.release(buffer.array());
+			buffer = null;
+		}
+	}
+
 	@Override
 	public void resetToReceive() {
+		clearBulk();
 		buffer.clear();
 		size = 0;
 		position(size);
@@ -431,6 +536,7 @@ public class BufferRaw extends POPBuffer {
 	 *            index to set the pointer
 	 */
 	public void position(int index) {
+		flatten();
 		if (index > size) {
 			size = index;
 		}
@@ -446,10 +552,66 @@ public class BufferRaw extends POPBuffer {
 		return buffer.limit();
 	}
 
+	private static boolean isBulk(int length) {
+		int threshold = Configuration.getInstance().getBulkTransferThreshold();
+		return threshold > 0 && length >= threshold;
+	}
+
+	/**
+	 * Keep a reference to an array instead of copying it, the array must not
+	 * change until the message is sent
+	 */
+	private void addBulk(Object array, int length) {
+		if (bulkArrays == null) {
+			bulkArrays = new ArrayList<>();
+		}
+		bulkArrays.add(new BulkArray(buffer.position(), array, length));
+		bulkBytes += length;
+	}
+
+	private void clearBulk() {
+		bulkArrays = null;
+		bulkBytes = 0;
+	}
+
+	/**
+	 * Copy the bulk arrays in the buffer, needed before reading the content
+	 */
+	private void flatten() {
+		if (bulkArrays == null) {
+			return;
+		}
+
+		BufferPool pool = BufferPool.getInstance();
+		ByteBuffer flat = ByteBuffer.wrap(pool.acquire(size + bulkBytes));
+		flat.order(buffer.order());
+		byte[] source = buffer.array();
+		int position = buffer.position();
+		int newPosition = position;
+		int from = 0;
+		for (BulkArray bulk : bulkArrays) {
+			flat.put(source, from, bulk.offset - from);
+			bulk.put(flat, 0, bulk.count);
+			from = bulk.offset;
+			if (bulk.offset <= position) {
+				newPosition += bulk.length;
+			}
+		}
+		flat.put(source, from, size - from);
+		flat.position(newPosition);
+
+		pool.release(source);
+		buffer = flat;
+		size += bulkBytes;
+		clearBulk();
+	}
+
 	private void resizeBuffer(int newCapacity) {
-		ByteBuffer tempBuffer = ByteBuffer.allocate(newCapacity);
+		BufferPool pool = BufferPool.getInstance();
+		ByteBuffer tempBuffer = ByteBuffer.wrap(pool.acquire(newCapacity));
 		tempBuffer.order(buffer.order());
 		tempBuffer.put(buffer.array(), 0, buffer.position());
+		pool.release(buffer.array());
 		buffer = tempBuffer;
 	}
 
@@ -508,10 +670,15 @@ public class BufferRaw extends POPBuffer {
 		}
 		putInt(arrayLength);
 		if (arrayLength > 0) {
-			resize(arrayLength * Double.BYTES);
-			DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
-			doubleBuffer.put(value);
-			position(position() + arrayLength * Double.BYTES);
+			int length = arrayLength * Double.BYTES;
+			if (isBulk(length)) {
+				addBulk(value, length);
+			} else {
+				resize(length);
+				DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
+				doubleBuffer.put(value);
+				buffer.position(buffer.position() + length);
+			}
 		}
 	}
 
@@ -525,10 +692,15 @@ public class BufferRaw extends POPBuffer {
 		putInt(arrayLength);
 
 		if (arrayLength > 0) {
-			resize(arrayLength * Byte.BYTES);
-			FloatBuffer floatBuffer = buffer.asFloatBuffer();
-			floatBuffer.put(value);
-			position(position() + arrayLength * Float.BYTES);
+			int length = arrayLength * Float.BYTES;
+			if (isBulk(length)) {
+				addBulk(value, length);
+			} else {
+				resize(length);
+				FloatBuffer floatBuffer = buffer.asFloatBuffer();
+				floatBuffer.put(value);
+				buffer.position(buffer.position() + length);
+			}
 		}
 	}
 
@@ -543,11 +715,15 @@ public class BufferRaw extends POPBuffer {
 		putInt(arrayLength);
 
 		if (arrayLength > 0) {
-			resize(arrayLength * Integer.BYTES);
-			IntBuffer intBuffer = buffer.asIntBuffer();
-			intBuffer.put(value);
-
-			position(position() + arrayLength * Integer.BYTES);
+			int length = arrayLength * Integer.BYTES;
+			if (isBulk(length)) {
+				addBulk(value, length);
+			} else {
+				resize(length);
+				IntBuffer intBuffer = buffer.asIntBuffer();
+				intBuffer.put(value);
+				buffer.position(buffer.position() + length);
+			}
 		}
 	}
 
@@ -561,10 +737,15 @@ public class BufferRaw extends POPBuffer {
 		putInt(arrayLength);
 
 		if (arrayLength > 0) {
-			resize(arrayLength * Long.BYTES);
-			LongBuffer longBuffer = buffer.asLongBuffer();
-			longBuffer.put(value);
-			position(position() + arrayLength * Long.BYTES);
+			int length = arrayLength * Long.BYTES;
+			if (isBulk(length)) {
+				addBulk(value, length);
+			} else {
+				resize(length);
+				LongBuffer longBuffer = buffer.asLongBuffer();
+				longBuffer.put(value);
+				buffer.position(buffer.position() + length);
+			}
 		}
 	}
 
@@ -690,10 +871,15 @@ public class BufferRaw extends POPBuffer {
 
 		putInt(arrayLength);
 		if (arrayLength > 0) {
-			resize(arrayLength * Short.BYTES);
-			ShortBuffer shortBuffer = buffer.asShortBuffer();
-			shortBuffer.put(value);
-			position(position() + arrayLength * Short.BYTES);
+			int length = arrayLength * Short.BYTES;
+			if (isBulk(length)) {
+				addBulk(value, length);
+			} else {
+				resize(length);
+				ShortBuffer shortBuffer = buffer.asShortBuffer();
+				shortBuffer.put(value);
+				buffer.position(buffer.position() + length);
+			}
 		}
 
 	}
@@ -709,4 +895,67 @@ public class BufferRaw extends POPBuffer {
 		String arrayAsString = new String(value);
 		putString(arrayAsString);
 	}
+
+	/**
+	 * An array written at a position of the message
+	 */
+	private static final class BulkArray {
+
+		private final int offset;
+
+		private final Object array;
+
+		private final int length;
+
+		private final int count;
+
+		private final int elementSize;
+
+		private BulkArray(int offset, Object array, int length) {
+			this.offset = offset;
+			this.array = array;
+			this.length = length;
+			this.count = Array.getLength(array);
+			this.elementSize = length / count;
+		}
+
+		/**
+		 * Encode some elements in the target buffer
+		 */
+		private void put(ByteBuffer target, int from, int elements) {
+			if (array instanceof byte[]) {
+				target.put((byte[]) array, from, elements);
+				return;
+			}
+			if (array instanceof double[]) {
+				target.asDoubleBuffer().put((double[]) array, from, elements);
+			} else if (array instanceof float[]) {
+				target.asFloatBuffer().put((float[]) array, from, elements);
+			} else if (array instanceof int[]) {
+				target.asIntBuffer().put((int[]) array, from, elements);
+			} else if (array instanceof long[]) {
+				target.asLongBuffer().put((long[]) array, from, elements);
+			} else {
+				target.asShortBuffer().put((short[]) array, from, elements);
+			}
+			target.position(target.position() + elements * elementSize);
+		}
+
+		/**
+		 * Write the array to a stream through a small chunk
+		 */
+		private void writeTo(OutputStream output, ByteBuffer chunk) throws IOException {
+			if (array instanceof byte[]) {
+				output.write((byte[]) array);
+				return;
+			}
+			int chunkElements = chunk.capacity() / elementSize;
+			for (int from = 0; from < count; from += chunkElements) {
+				int elements = Math.min(chunkElements, count - from);
+				chunk.clear();
+				put(chunk, from, elements);
+				output.write(chunk.array(), 0, elements * elementSize);
+			}
+		}
+	}
 }
@@ -0,0 +1,49 @@
+package ch.icosys.popjava.core.buffer;
+
+import ch.icosys.popjava.core.base.POPException;
+
+/**
+ * Marshalling and dispatch of a single POP method without reflection. The
+ * implementations are generated by {@link MethodStubGenerator} with the typed
+ * buffer calls of the method and a direct call to the target.
+ */
+public interface MethodStub {
+
+	/**
+	 * Write the arguments of a call, interface-side
+	 *
+	 * @param buffer
+	 *            the request
+	 * @param arguments
+	 *            the arguments of the call
+	 * @throws POPException
+	 *             if an argument can't be written
+	 */
+	void putArguments(POPBuffer buffer, Object[] arguments) throws POPException;
+
+	/**
+	 * Read the value returned by a call, interface-side
+	 *
+	 * @param buffer
+	 *            the response
+	 * @return the returned value, null for void methods
+	 * @throws POPException
+	 *             if the value can't be read
+	 */
+	Object getResult(POPBuffer buffer) throws POPException;
+
+	/**
+	 * Read the arguments, call the method and write the returned value,
+	 * broker-side
+	 *
+	 * @param target
+	 *            the object on which the method is called
+	 * @param request
+	 *            the request holding the arguments
+	 * @param response
+	 *            the response to fill, null if the call has no response
+	 * @throws Throwable
+	 *             anything thrown by the method
+	 */
+	void invoke(Object target, POPBuffer request, POPBuffer response) throws Throwable;
+}
@@ -0,0 +1,239 @@
+package ch.icosys.popjava.core.buffer;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.icosys.popjava.core.annotation.POPParameter;
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.util.LogWriter;
+import ch.icosys.popjava.core.util.Util;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+/**
+ * Generate the {@link MethodStub} of the POP methods. Only the methods whose
+ * parameters are primitives or strings and which return nothing, a primitive, a
+ * string or an array of primitives get a stub, the others keep using
+ * reflection.
+ */
+public final class MethodStubGenerator {
+
+	private static final String STUB_PREFIX = MethodStubGenerator.class.getPackage().getName() + ".stub.Stub";
+
+	private static final Object NO_STUB = new Object();
+
+	private static final Map<Method, Object> stubs = new ConcurrentHashMap<>();
+
+	private static final AtomicInteger stubCount = new AtomicInteger();
+
+	private static final Map<Class<?>, String[]> primitives = new HashMap<>();
+
+	static {
+		// getter, putter, wrapper, unwrapper
+		primitives.put(byte.class, new String[] { "get", "put", "java.lang.Byte", "byteValue" });
+		primitives.put(boolean.class, new String[] { "getBoolean", "putBoolean", "java.lang.Boolean", "booleanValue" });
+		primitives.put(char.class, new String[] { "getChar", "putChar", "java.lang.Character", "charValue" });
+		primitives.put(short.class, new String[] { "getShort", "putShort", "java.lang.Short", "shortValue" });
+		primitives.put(int.class, new String[] { "getInt", "putInt", "java.lang.Integer", "intValue" });
+		primitives.put(long.class, new String[] { "getLong", "putLong", "java.lang.Long", "longValue" });
+		primitives.put(float.class, new String[] { "getFloat", "putFloat", "java.lang.Float", "floatValue" });
+		primitives.put(double.class, new String[] { "getDouble", "putDouble", "java.lang.Double", "doubleValue" });
+	}
+
+	private MethodStubGenerator() {
+	}
+
+	/**
+	 * Get the stub of a method, it is generated on first use
+	 *
+	 * @param method
+	 *            a POP method
+	 * @return the stub or null if the method must be called with reflection
+	 */
+	public static MethodStub getStub(Method method) {
+		Object stub = stubs.computeIfAbsent(method, m -> {
+			MethodStub generated = isSupported(m) ? generate(m) : null;
+			return generated != null ? generated : NO_STUB;
+		});
+		return stub != NO_STUB ? (MethodStub) stub : null;
+	}
+
+	/**
+	 * Write a string as {@link POPBuffer#putValue(Object, Class)} does, used by
+	 * the generated stubs
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param value
+	 *            the string to write
+	 * @throws POPException
+	 *             if the string is null
+	 */
+	public static void putString(POPBuffer buffer, String value) throws POPException {
+		if (value == null) {
+			throw POPException.throwNullObjectNotAllowException();
+		}
+		buffer.putString(value);
+	}
+
+	private static boolean isSupported(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+				|| !Modifier.isPublic(method.getDeclaringClass().getModifiers())
+				|| method.getDeclaringClass().getClassLoader() == null) {
+			return false;
+		}
+
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		Annotation[][] annotations = method.getParameterAnnotations();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (!isSimple(parameterTypes[i])
+					|| !Util.isParameterNotOfDirection(annotations[i], POPParameter.Direction.OUT)
+					|| !Util.isParameterUsable(annotations[i])) {
+				return false;
+			}
+		}
+
+		Class<?> returnType = method.getReturnType();
+		return returnType == void.class || isSimple(returnType)
+				|| returnType.isArray() && returnType.getComponentType().isPrimitive();
+	}
+
+	private static boolean isSimple(Class<?> type) {
+		return type == String.class || primitives.containsKey(type);
+	}
+
+	private static MethodStub generate(Method method) {
+		try {
+			Class<?> target = method.getDeclaringClass();
+			ClassPool pool = new ClassPool(true);
+			pool.appendClassPath(new LoaderClassPath(target.getClassLoader()));
+			pool.appendClassPath(new LoaderClassPath(MethodStubGenerator.class.getClassLoader()));
+
+			String name = STUB_PREFIX + stubCount.incrementAndGet();
+			CtClass stub = pool.makeClass(name);
+			stub.addInterface(pool.get(MethodStub.class.getName()));
+			stub.addMethod(CtNewMethod.make(putArgumentsSource(method), stub));
+			stub.addMethod(CtNewMethod.make(getResultSource(method), stub));
+			stub.addMethod(CtNewMethod.make(invokeSource(method), stub));
+
+			byte[] bytecode = stub.toBytecode();
+			stub.detach();
+
+			Class<?> stubClass = new StubLoader(target.getClassLoader()).define(name, bytecode);
+			return (MethodStub) stubClass.getConstructor().newInstance();
+		} catch (Exception | LinkageError e) {
+			LogWriter.writeDebugInfo("[MethodStubGenerator] Can't generate stub for %s: %s", method.toGenericString(),
+					e.getMessage());
+			return null;
+		}
+	}
+
+	private static String putArgumentsSource(Method method) {
+		StringBuilder source = new StringBuilder();
+		source.append("public void putArguments(").append(POPBuffer.class.getName())
+				.append(" buffer, Object[] arguments) {");
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			Class<?> type = parameterTypes[i];
+			if (type == String.class) {
+				source.append(write(type, "buffer", "(java.lang.String) arguments[" + i + "]"));
+			} else {
+				String[] primitive = primitives.get(type);
+				source.append(write(type, "buffer",
+						"((" + primitive[2] + ") arguments[" + i + "])." + primitive[3] + "()"));
+			}
+		}
+		return source.append("}").toString();
+	}
+
+	private static String getResultSource(Method method) {
+		StringBuilder source = new StringBuilder();
+		source.append("public Object getResult(").append(POPBuffer.class.getName()).append(" buffer) {");
+		Class<?> type = method.getReturnType();
+		if (type == void.class) {
+			source.append("return null;");
+		} else if (primitives.containsKey(type)) {
+			source.append("return ").append(primitives.get(type)[2]).append(".valueOf(").append(read(type, "buffer"))
+					.append(");");
+		} else {
+			source.append("return ").append(read(type, "buffer")).append(";");
+		}
+		return source.append("}").toString();
+	}
+
+	private static String invokeSource(Method method) {
+		String buffer = POPBuffer.class.getName();
+		StringBuilder source = new StringBuilder();
+		source.append("public void invoke(Object target, ").append(buffer).append(" request, ").append(buffer)
+				.append(" response) throws Throwable {");
+
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		StringBuilder call = new StringBuilder();
+		call.append("((").append(method.getDeclaringClass().getName()).append(") target).")
+				.append(method.getName()).append("(");
+		for (int i = 0; i < parameterTypes.length; i++) {
+			// read in order, the arguments are evaluated left to right anyway
+			source.append(typeName(parameterTypes[i])).append(" p").append(i).append(" = ")
+					.append(read(parameterTypes[i], "request")).append(";");
+			call.append(i > 0 ? ", " : "").append("p").append(i);
+		}
+		call.append(")");
+
+		Class<?> returnType = method.getReturnType();
+		if (returnType == void.class) {
+			source.append(call).append(";");
+		} else {
+			source.append(typeName(returnType)).append(" result = ").append(call).append(";");
+			source.append("if (response != null) {").append(write(returnType, "response", "result")).append("}");
+		}
+		return source.append("}").toString();
+	}
+
+	private static String read(Class<?> type, String buffer) {
+		if (type == String.class) {
+			return buffer + ".getString()";
+		}
+		if (type.isArray()) {
+			return "(" + typeName(type) + ") " + buffer + ".getArray(" + typeName(type) + ".class)";
+		}
+		return buffer + "." + primitives.get(type)[0] + "()";
+	}
+
+	private static String write(Class<?> type, String buffer, String value) {
+		if (type == String.class) {
+			return MethodStubGenerator.class.getName() + ".putString(" + buffer + ", " + value + ");";
+		}
+		if (type.isArray()) {
+			return buffer + ".putArray(" + value + ");";
+		}
+		return buffer + "." + primitives.get(type)[1] + "(" + value + ");";
+	}
+
+	private static String typeName(Class<?> type) {
+		if (type.isArray()) {
+			return type.getComponentType().getName() + "[]";
+		}
+		return type.getName();
+	}
+
+	/**
+	 * Loads the stubs next to the classes they call
+	 */
+	private static final class StubLoader extends ClassLoader {
+
+		private StubLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		private Class<?> define(String name, byte[] bytecode) {
+			return defineClass(name, bytecode, 0, bytecode.length);
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
@@ -16,11 +17,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import ch.icosys.popjava.core.PopJava;
 import ch.icosys.popjava.core.base.MessageHeader;
 import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.base.POPInputStream;
 import ch.icosys.popjava.core.base.POPObject;
 import ch.icosys.popjava.core.base.POPSystemErrorCode;
 import ch.icosys.popjava.core.combox.Combox;
 import ch.icosys.popjava.core.dataswaper.IPOPBase;
 import ch.icosys.popjava.core.dataswaper.IPOPBaseInput;
+import ch.icosys.popjava.core.util.Configuration;
 import ch.icosys.popjava.core.util.LogWriter;
 
 /**
@@ -81,6 +84,14 @@ public abstract class POPBuffer {
 	 */
 	public abstract void reset();
 
+	/**
+	 * Give the memory of the buffer back for reuse, the buffer must not be used
+	 * anymore. Releasing is optional, a buffer never released is collected as
+	 * usual.
+	 */
+	public void release() {
+	}
+
 	/**
 	 * Insert a byte in the buffer
 	 * 
@@ -423,6 +434,48 @@ public abstract class POPBuffer {
 	 */
 	public abstract void resetToReceive();
 
+	/**
+	 * Replace the content of the buffer with a received message and extract its
+	 * header. The buffer may keep the array instead of copying it.
+	 * 
+	 * @param message
+	 *            the whole message, header included
+	 */
+	public void receive(byte[] message) {
+		resetToReceive();
+		put(message, 0, message.length);
+		extractHeader();
+	}
+
+	/**
+	 * Receive a message read in an array of the {@link BufferPool}, the array is
+	 * given to the buffer which keeps it or gives it back to the pool
+	 * 
+	 * @param message
+	 *            the array holding the message, header included
+	 * @param length
+	 *            the length of the message in the array
+	 */
+	public void receive(byte[] message, int length) {
+		resetToReceive();
+		put(message, 0, length);
+		extractHeader();
+		BufferPool.getInstance().release(message);
+	}
+
+	/**
+	 * Write the packed message to a stream, the same bytes as the first
+	 * {@link #size()} bytes of {@link #array()}
+	 * 
+	 * @param output
+	 *            the stream
+	 * @throws IOException
+	 *             if the stream fails
+	 */
+	public void writeTo(OutputStream output) throws IOException {
+		output.write(array(), 0, size());
+	}
+
 	/**
 	 * Pack the message header into the buffer
 	 * 
@@ -551,6 +604,9 @@ public abstract class POPBuffer {
 			return Enum.valueOf(t, name);
 		} else if (Serializable.class.isAssignableFrom(c)) {
 			int length = getInt();
+			if (length == SchemaSerializer.SCHEMA_MARKER) {
+				return SchemaSerializer.read(this, c);
+			}
 
 			byte[] objectContent = getByteArray(length);
 
@@ -605,6 +661,9 @@ public abstract class POPBuffer {
 			putShort((Short) o);
 		} else if (c.isArray()) {
 			putArray(o);
+		} else if (POPInputStream.class.isAssignableFrom(c)) {
+			// the content follows in its own messages
+			putInt(((POPInputStream) o).getStreamID());
 		} else if (IPOPBaseInput.class.isAssignableFrom(c)) {
 			try {
 				IPOPBaseInput temp = (IPOPBaseInput) o;
@@ -623,6 +682,9 @@ public abstract class POPBuffer {
 			}
 		} else if (c.isEnum()) {
 			putString(((Enum) o).name());
+		} else if (Serializable.class.isAssignableFrom(c) && Configuration.getInstance().isSchemaSerialization()
+				&& SchemaSerializer.hasSchema(o.getClass())) {
+			SchemaSerializer.write(this, o, c);
 		} else if (Serializable.class.isAssignableFrom(c)) {
 			try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
 				try (ObjectOutput out = new ObjectOutputStream(bos)) {
@@ -0,0 +1,510 @@
+package ch.icosys.popjava.core.buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.dataswaper.IPOPBase;
+import ch.icosys.popjava.core.dataswaper.IPOPBaseInput;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * Encoding of {@link Serializable} objects with the typed calls of the buffer
+ * instead of Java serialization. The fields of each class are found once and
+ * read and written through method handles, only their values are sent.
+ *
+ * A class gets a schema when it is loaded by an application class loader and
+ * does not customize its serialization (writeObject, readObject, writeReplace,
+ * readResolve, Externalizable). The fields declared by its serializable super
+ * classes are included, static and transient ones are skipped as Java
+ * serialization does. The objects are created as Java serialization does, only
+ * the constructor without parameters of the first super class which is not
+ * serializable is called. If the JVM doesn't allow it, the class itself needs a
+ * constructor without parameters.
+ *
+ * Fields holding other objects keep the shared references and cycles between
+ * the objects encoded with a schema. Objects without schema are sent with Java
+ * serialization where they appear.
+ *
+ * The first object of each class in a value is sent with a fingerprint of the
+ * fields of the class and its serialVersionUID, the reader fails if its own
+ * version of the class differs.
+ */
+public final class SchemaSerializer {
+
+	/**
+	 * Written instead of the length of a Java serialized object
+	 */
+	public static final int SCHEMA_MARKER = -2;
+
+	private static final int NULL = 0;
+
+	private static final int DECLARED_CLASS = 1;
+
+	private static final int OTHER_CLASS = 2;
+
+	private static final int JAVA_SERIALIZATION = 3;
+
+	private static final int REFERENCE = 4;
+
+	private static final Object NO_SCHEMA = new Object();
+
+	private static final Map<Class<?>, Object> schemas = new ConcurrentHashMap<>();
+
+	private static final Set<String> customizations = new HashSet<>(
+			Arrays.asList("writeObject", "readObject", "readObjectNoData", "writeReplace", "readResolve"));
+
+	// creates the constructors used by Java serialization, null if not available
+	private static final Object reflectionFactory;
+
+	private static final Method newConstructorForSerialization;
+
+	static {
+		Object factory = null;
+		Method newConstructor = null;
+		try {
+			Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+			factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+			newConstructor = factoryClass.getMethod("newConstructorForSerialization", Class.class,
+					Constructor.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LogWriter.writeDebugInfo("[SchemaSerializer] Classes need a constructor without parameters: %s",
+					e.toString());
+			factory = null;
+			newConstructor = null;
+		}
+		reflectionFactory = factory;
+		newConstructorForSerialization = newConstructor;
+	}
+
+	private final Class<?> type;
+
+	private final Constructor<?> constructor;
+
+	private final long fingerprint;
+
+	private final FieldCodec[] fields;
+
+	private SchemaSerializer(Class<?> type, Constructor<?> constructor, long fingerprint, FieldCodec[] fields) {
+		this.type = type;
+		this.constructor = constructor;
+		this.fingerprint = fingerprint;
+		this.fields = fields;
+	}
+
+	/**
+	 * Check if the objects of a class can be encoded with a schema, the schema
+	 * is built on first use
+	 *
+	 * @param c
+	 *            the class of the object
+	 * @return true if the class has a schema
+	 */
+	public static boolean hasSchema(Class<?> c) {
+		return getSchema(c) != null;
+	}
+
+	/**
+	 * Write an object with its schema, {@link #hasSchema(Class)} must be true for
+	 * its class
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param value
+	 *            the object
+	 * @param declared
+	 *            the type expected by the reader
+	 * @throws POPException
+	 *             if a field can't be written
+	 */
+	public static void write(POPBuffer buffer, Object value, Class<?> declared) throws POPException {
+		buffer.putInt(SCHEMA_MARKER);
+		new Writer(buffer).writeObject(value, declared);
+	}
+
+	/**
+	 * Read an object written by {@link #write(POPBuffer, Object, Class)}, after
+	 * the marker
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param declared
+	 *            the expected type
+	 * @return the object
+	 * @throws POPException
+	 *             if the object can't be read
+	 */
+	public static Object read(POPBuffer buffer, Class<?> declared) throws POPException {
+		return new Reader(buffer).readObject(declared);
+	}
+
+	private static SchemaSerializer getSchema(Class<?> c) {
+		Object schema = schemas.get(c);
+		if (schema == null) {
+			SchemaSerializer built = build(c);
+			schema = built != null ? built : NO_SCHEMA;
+			schemas.putIfAbsent(c, schema);
+		}
+		return schema != NO_SCHEMA ? (SchemaSerializer) schema : null;
+	}
+
+	private static SchemaSerializer build(Class<?> c) {
+		if (!Serializable.class.isAssignableFrom(c) || Externalizable.class.isAssignableFrom(c)
+				|| IPOPBase.class.isAssignableFrom(c) || IPOPBaseInput.class.isAssignableFrom(c) || c.isArray()
+				|| c.isEnum() || c.isInterface() || Modifier.isAbstract(c.getModifiers())
+				|| c.getClassLoader() == null) {
+			return null;
+		}
+
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			Constructor<?> constructor = serializationConstructor(c);
+			constructor.setAccessible(true);
+
+			List<Field> layout = new ArrayList<>();
+			List<FieldCodec> fields = new ArrayList<>();
+			for (Class<?> current = c; current != null
+					&& Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+				for (Method method : current.getDeclaredMethods()) {
+					if (customizations.contains(method.getName())) {
+						return null;
+					}
+				}
+				for (Field field : current.getDeclaredFields()) {
+					if (field.getName().equals("serialPersistentFields")) {
+						return null;
+					}
+					int modifiers = field.getModifiers();
+					if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+						continue;
+					}
+					field.setAccessible(true);
+					layout.add(field);
+					fields.add(new FieldCodec(field, lookup.unreflectGetter(field), lookup.unreflectSetter(field)));
+				}
+			}
+			return new SchemaSerializer(c, constructor, fingerprint(c, layout), fields.toArray(new FieldCodec[0]));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LogWriter.writeDebugInfo("[SchemaSerializer] %s uses Java serialization: %s", c.getName(), e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * The constructor Java serialization would use, the one without parameters
+	 * of the first super class which is not serializable
+	 */
+	private static Constructor<?> serializationConstructor(Class<?> c)
+			throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+		if (reflectionFactory == null) {
+			return c.getDeclaredConstructor();
+		}
+
+		Class<?> base = c;
+		while (Serializable.class.isAssignableFrom(base)) {
+			base = base.getSuperclass();
+		}
+		Constructor<?> baseConstructor = base.getDeclaredConstructor();
+		if (Modifier.isPrivate(baseConstructor.getModifiers())) {
+			throw new NoSuchMethodException(base.getName() + " has a private constructor");
+		}
+		return (Constructor<?>) newConstructorForSerialization.invoke(reflectionFactory, c, baseConstructor);
+	}
+
+	/**
+	 * Hash of the fields of a class in their order of encoding
+	 */
+	private static long fingerprint(Class<?> c, List<Field> fields) {
+		StringBuilder layout = new StringBuilder(c.getName());
+		layout.append('#').append(ObjectStreamClass.lookup(c).getSerialVersionUID());
+		for (Field field : fields) {
+			layout.append(';').append(field.getDeclaringClass().getName()).append('.').append(field.getName())
+					.append(':').append(field.getType().getName());
+		}
+
+		// 64 bits FNV-1a
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < layout.length(); i++) {
+			hash ^= layout.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static boolean isSimple(Class<?> c) {
+		return c == String.class || c.isEnum() || c.isArray() && c.getComponentType().isPrimitive()
+				|| c == Integer.class || c == Long.class || c == Double.class || c == Float.class
+				|| c == Short.class || c == Byte.class || c == Character.class || c == Boolean.class;
+	}
+
+	/**
+	 * Accessors of a field and the way its value is written
+	 */
+	private static final class FieldCodec {
+
+		private final Class<?> type;
+
+		private final MethodHandle getter;
+
+		private final MethodHandle setter;
+
+		private FieldCodec(Field field, MethodHandle getter, MethodHandle setter) {
+			this.type = field.getType();
+			Class<?> handleType = type.isPrimitive() ? type : Object.class;
+			this.getter = getter.asType(MethodType.methodType(handleType, Object.class));
+			this.setter = setter.asType(MethodType.methodType(void.class, Object.class, handleType));
+		}
+
+		private void write(Writer writer, Object target) throws Throwable {
+			POPBuffer buffer = writer.buffer;
+			if (type == int.class) {
+				buffer.putInt((int) getter.invokeExact(target));
+			} else if (type == long.class) {
+				buffer.putLong((long) getter.invokeExact(target));
+			} else if (type == double.class) {
+				buffer.putDouble((double) getter.invokeExact(target));
+			} else if (type == float.class) {
+				buffer.putFloat((float) getter.invokeExact(target));
+			} else if (type == boolean.class) {
+				buffer.putBoolean((boolean) getter.invokeExact(target));
+			} else if (type == short.class) {
+				buffer.putShort((short) getter.invokeExact(target));
+			} else if (type == char.class) {
+				buffer.putChar((char) getter.invokeExact(target));
+			} else if (type == byte.class) {
+				// the single byte calls of the buffers are not aligned
+				buffer.putInt((byte) getter.invokeExact(target));
+			} else {
+				writer.writeObject((Object) getter.invokeExact(target), type);
+			}
+		}
+
+		private void read(Reader reader, Object target) throws Throwable {
+			POPBuffer buffer = reader.buffer;
+			if (type == int.class) {
+				setter.invokeExact(target, buffer.getInt());
+			} else if (type == long.class) {
+				setter.invokeExact(target, buffer.getLong());
+			} else if (type == double.class) {
+				setter.invokeExact(target, buffer.getDouble());
+			} else if (type == float.class) {
+				setter.invokeExact(target, buffer.getFloat());
+			} else if (type == boolean.class) {
+				setter.invokeExact(target, buffer.getBoolean());
+			} else if (type == short.class) {
+				setter.invokeExact(target, buffer.getShort());
+			} else if (type == char.class) {
+				setter.invokeExact(target, buffer.getChar());
+			} else if (type == byte.class) {
+				setter.invokeExact(target, (byte) buffer.getInt());
+			} else {
+				setter.invokeExact(target, reader.readObject(type));
+			}
+		}
+	}
+
+	/**
+	 * State of the encoding of one value
+	 */
+	private static final class Writer {
+
+		private final POPBuffer buffer;
+
+		// objects already written, by their order of appearance
+		private Map<Object, Integer> written;
+
+		// classes whose fingerprint was already written
+		private Set<Class<?>> described;
+
+		private Writer(POPBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private void writeObject(Object value, Class<?> declared) throws POPException {
+			if (value == null) {
+				buffer.putInt(NULL);
+				return;
+			}
+
+			Class<?> c = value.getClass();
+			if (isSimple(declared) && c == declared) {
+				buffer.putInt(DECLARED_CLASS);
+				buffer.putValue(value, c);
+				return;
+			}
+
+			SchemaSerializer schema = getSchema(c);
+			if (schema == null) {
+				buffer.putInt(JAVA_SERIALIZATION);
+				writeJava(value);
+				return;
+			}
+
+			if (written == null) {
+				written = new IdentityHashMap<>();
+			}
+			Integer reference = written.get(value);
+			if (reference != null) {
+				buffer.putInt(REFERENCE);
+				buffer.putInt(reference);
+				return;
+			}
+			written.put(value, written.size());
+
+			if (c == declared) {
+				buffer.putInt(DECLARED_CLASS);
+			} else {
+				buffer.putInt(OTHER_CLASS);
+				buffer.putString(c.getName());
+			}
+			if (described == null) {
+				described = new HashSet<>();
+			}
+			if (described.add(c)) {
+				buffer.putLong(schema.fingerprint);
+			}
+			for (FieldCodec field : schema.fields) {
+				try {
+					field.write(this, value);
+				} catch (POPException e) {
+					throw e;
+				} catch (Throwable e) {
+					throw POPException.createReflectException(c.getName(), e.getMessage());
+				}
+			}
+		}
+
+		private void writeJava(Object value) throws POPException {
+			try (ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
+				try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+					out.writeObject(value);
+				}
+				buffer.putByteArray(bytes.toByteArray());
+			} catch (IOException e) {
+				LogWriter.writeExceptionLog(e);
+				POPException.throwReflectSerializeException(value.getClass().getName(), e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * State of the decoding of one value
+	 */
+	private static final class Reader {
+
+		private final POPBuffer buffer;
+
+		// objects already read, by their order of appearance
+		private List<Object> read;
+
+		// classes whose fingerprint was already checked
+		private Set<Class<?>> described;
+
+		private Reader(POPBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private Object readObject(Class<?> declared) throws POPException {
+			int tag = buffer.getInt();
+			switch (tag) {
+			case NULL:
+				return null;
+			case REFERENCE:
+				return read.get(buffer.getInt());
+			case JAVA_SERIALIZATION:
+				return readJava(declared);
+			case DECLARED_CLASS:
+				if (isSimple(declared)) {
+					return buffer.getValue(declared);
+				}
+				return readFields(declared);
+			case OTHER_CLASS:
+				return readFields(loadClass(buffer.getString(), declared));
+			default:
+				POPException.throwReflectSerializeException(declared.getName(), "Unknown schema tag " + tag);
+				return null;
+			}
+		}
+
+		private Object readFields(Class<?> c) throws POPException {
+			SchemaSerializer schema = getSchema(c);
+			if (schema == null) {
+				POPException.throwReflectSerializeException(c.getName(), "The class has no schema");
+			}
+
+			if (described == null) {
+				described = new HashSet<>();
+			}
+			if (described.add(c) && buffer.getLong() != schema.fingerprint) {
+				POPException.throwReflectSerializeException(c.getName(),
+						"The class differs from the one of the sender, check their fields and serialVersionUID");
+			}
+
+			try {
+				Object value = schema.constructor.newInstance();
+				if (read == null) {
+					read = new ArrayList<>();
+				}
+				read.add(value);
+				for (FieldCodec field : schema.fields) {
+					field.read(this, value);
+				}
+				return value;
+			} catch (POPException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw POPException.createReflectException(schema.type.getName(), e.getMessage());
+			}
+		}
+
+		private Class<?> loadClass(String name, Class<?> declared) throws POPException {
+			try {
+				ClassLoader loader = declared.getClassLoader();
+				if (loader == null) {
+					loader = Thread.currentThread().getContextClassLoader();
+				}
+				Class<?> c = Class.forName(name, false, loader);
+				if (!declared.isAssignableFrom(c)) {
+					POPException.throwReflectSerializeException(name, "Not a " + declared.getName());
+				}
+				return c;
+			} catch (ClassNotFoundException e) {
+				POPException.throwReflectSerializeException(name, e.getMessage());
+				return null;
+			}
+		}
+
+		private Object readJava(Class<?> declared) throws POPException {
+			byte[] content = buffer.getByteArray(buffer.getInt());
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(content))) {
+				return in.readObject();
+			} catch (IOException | ClassNotFoundException e) {
+				LogWriter.writeExceptionLog(e);
+				POPException.throwReflectSerializeException(declared.getName(), e.getMessage());
+				return null;
+			}
+		}
+	}
+}
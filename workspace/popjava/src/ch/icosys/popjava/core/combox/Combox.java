@@ -2,6 +2,10 @@ package ch.icosys.popjava.core.combox;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
 
 import ch.icosys.popjava.core.base.MessageHeader;
 import ch.icosys.popjava.core.baseobject.POPAccessPoint;
@@ -22,10 +26,6 @@ import ch.icosys.popjava.core.util.POPRemoteCaller;
  */
 public abstract class Combox<T> {
 
-	private static final boolean KEEP_ALIVE = true;
-
-	private static final int KEEP_ALIVE_INTERVAL = 30000;
-
 	protected static final int SEND_REMOTE_AP = 1;
 
 	protected static final int OPEN_BIDIRECTIONAL = 2;
@@ -34,6 +34,15 @@ public abstract class Combox<T> {
 
 	protected static final int PING = 4;
 
+	private static final AtomicInteger comboxMessageThreads = new AtomicInteger();
+
+	// handle the messages for the combox itself, they can block while answering
+	private static final ExecutorService comboxMessageHandlers = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Combox messages " + comboxMessageThreads.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	protected int timeOut = 0;
 
 	protected POPAccessPoint accessPoint;
@@ -53,13 +62,24 @@ public abstract class Combox<T> {
 	private Broker broker = null; // Broken to be used when making this combox
 	// bidirectional
 
-	private Set<Integer> openConnections = new HashSet<Integer>();
+	// guarded by itself
+	private final Set<Integer> openConnections = new HashSet<Integer>();
+
+	// guarded by openConnections, sub-connections being opened
+	private int pendingConnections = 0;
 
 	private int connectionCounter = 10;
 
-	private Thread keepAliveThread;
+	// accepted by a server
+	private boolean server = false;
+
+	// for the keep alive
+	private volatile long lastReceived = System.currentTimeMillis();
+
+	private volatile long lastSent = System.currentTimeMillis();
 
-	private long lastCommunication = 0;
+	// the other side sent a ping, so it keeps the connection alive
+	private volatile boolean pinged = false;
 
 	/**
 	 * This is used by ServerCombox (server). Create a new combox from a server.
@@ -84,15 +104,26 @@ public abstract class Combox<T> {
 	}
 
 	protected int registerNewConnection() {
-		int id;
+		synchronized (openConnections) {
+			int id;
 
-		do {
-			id = connectionCounter++;
-		} while (openConnections.contains(id));
+			do {
+				id = connectionCounter++;
+			} while (openConnections.contains(id));
 
-		openConnections.add(id);
+			openConnections.add(id);
 
-		return id;
+			return id;
+		}
+	}
+
+	/**
+	 * @return the number of sub-connections open on this combox
+	 */
+	public int getConnectionCount() {
+		synchronized (openConnections) {
+			return openConnections.size();
+		}
 	}
 
 	/**
@@ -115,6 +146,10 @@ public abstract class Combox<T> {
 		if(!connectToServer()) {
 			return false;
 		}
+		// the first sub-connection of a client
+		synchronized (openConnections) {
+			openConnections.add(1);
+		}
 		
 		if(!sendNetworkName()) {
 			return false;
@@ -128,7 +163,7 @@ public abstract class Combox<T> {
 			return false;
 		}
 		
-		if(!startKeepAlive()) {
+		if(!startKeepAlive(false)) {
 			return false;
 		}
 				
@@ -150,6 +185,10 @@ public abstract class Combox<T> {
 		if(!serverAccept()) {
 			return false;
 		}
+		// the first sub-connection of a server
+		synchronized (openConnections) {
+			openConnections.add(1);
+		}
 		
 		if(!receiveNetworkName()) {
 			return false;
@@ -163,42 +202,50 @@ public abstract class Combox<T> {
 			return false;
 		}
 		
-		if(!startKeepAlive()) {
+		if(!startKeepAlive(true)) {
 			return false;
 		}
 		
 		return true;
 	}
 
-	private boolean startKeepAlive() {
-		if (KEEP_ALIVE) {
-			keepAliveThread = new Thread(new Runnable() {
+	private boolean startKeepAlive(boolean server) {
+		this.server = server;
+		ComboxKeepAlive.getInstance().register(this);
+		return true;
+	}
 
-				@Override
-				public void run() {
-					while (!Thread.currentThread().isInterrupted()) {
-						try {
-							Thread.sleep(KEEP_ALIVE_INTERVAL);
-						} catch (InterruptedException e) {
-							break;
-						}
+	/**
+	 * Send a ping to the other side
+	 * 
+	 * @return false if the connection is broken
+	 */
+	boolean ping() {
+		return send(createServicePacket(PING)) >= 0;
+	}
 
-						if (System.currentTimeMillis() - lastCommunication > KEEP_ALIVE_INTERVAL) {
-							POPBuffer buffer = createServicePacket(PING);
-							if(send(buffer) < 0) {
-								break;
-							}
-						}
+	/**
+	 * @return true if the combox was accepted by a server, false if it connected
+	 *         to one
+	 */
+	boolean isServer() {
+		return server;
+	}
 
-					}
-				}
-			}, "Keep alive thread");
+	long getLastReceived() {
+		return lastReceived;
+	}
 
-			keepAliveThread.setDaemon(true);
-			keepAliveThread.start();
-		}
+	/**
+	 * @return true if the other side sent a ping, clients not doing so, like
+	 *         POP-C++ ones, can stay idle
+	 */
+	boolean isPinged() {
+		return pinged;
+	}
 
-		return true;
+	long getLastSent() {
+		return lastSent;
 	}
 
 	/**
@@ -286,6 +333,28 @@ public abstract class Combox<T> {
 	 */
 	public abstract int send(POPBuffer buffer);
 
+	/**
+	 * Send the buffer to the other side, the combox may keep it with the
+	 * following messages until {@link #flush()} or the next
+	 * {@link #send(POPBuffer)}
+	 * 
+	 * @param buffer
+	 *            The buffer to send
+	 * @return Number of byte sent
+	 */
+	public int sendBatched(POPBuffer buffer) {
+		return send(buffer);
+	}
+
+	/**
+	 * Send the messages kept by {@link #sendBatched(POPBuffer)}
+	 * 
+	 * @return true if everything was sent
+	 */
+	public boolean flush() {
+		return true;
+	}
+
 	/**
 	 * Receive buffer from the other side
 	 * 
@@ -297,6 +366,20 @@ public abstract class Combox<T> {
 	 */
 	public abstract int receive(POPBuffer buffer, int requestId, int connectionID);
 
+	/**
+	 * Receive the response of any of the given requests, whichever arrives
+	 * first. A combox which can't tell its messages apart returns the next one.
+	 * 
+	 * @param buffer
+	 *            Buffer to receive
+	 * @param requests
+	 *            accept the IDs of the expected requests
+	 * @return Number of byte received
+	 */
+	public int receive(POPBuffer buffer, IntPredicate requests, int connectionID) {
+		return receive(buffer, -1, connectionID);
+	}
+
 	/**
 	 * Close the connection
 	 */
@@ -310,22 +393,30 @@ public abstract class Combox<T> {
 	protected void close(int connectionID, boolean informPartner) {
 		// System.out.println("Closing connection "+connectionID +" "+this);
 
-		if (connectionID == 0 || connectionID == 1) {
-			openConnections.remove(0);
-			openConnections.remove(1);
-		} else {
-			openConnections.remove(connectionID);
-		}
-
-		if (openConnections.size() == 0) {
-
-			if (keepAliveThread != null) {
-				keepAliveThread.interrupt();
-				keepAliveThread = null;
+		boolean last;
+		synchronized (openConnections) {
+			if (connectionID == 0 || connectionID == 1) {
+				openConnections.remove(0);
+				openConnections.remove(1);
+			} else {
+				openConnections.remove(connectionID);
 			}
+			last = openConnections.isEmpty() && pendingConnections == 0;
+		}
 
+		if (last) {
+			ComboxKeepAlive.getInstance().unregister(this);
 			closeInternal();
-		} else if (informPartner) {
+			return;
+		}
+
+		if (connectionID == 0 || connectionID == 1) {
+			connectionClosed(0);
+			connectionClosed(1);
+		} else {
+			connectionClosed(connectionID);
+		}
+		if (informPartner) {
 			POPBuffer buffer = createServicePacket(CLOSE_SUBCONNECTION);
 
 			buffer.putInt(connectionID);
@@ -337,6 +428,16 @@ public abstract class Combox<T> {
 
 	protected abstract void closeInternal();
 
+	/**
+	 * A sub-connection was closed while the combox stays open, the messages kept
+	 * for it can be dropped
+	 * 
+	 * @param connectionID
+	 *            the closed sub-connection
+	 */
+	protected void connectionClosed(int connectionID) {
+	}
+
 	/**
 	 * Associate a buffer factory to the combox
 	 * 
@@ -438,7 +539,9 @@ public abstract class Combox<T> {
 			;
 			// System.out.println("Combox accepted bidirectional on connection
 			// "+connectionID+" "+this);
-			openConnections.add(connectionID);
+			synchronized (openConnections) {
+				openConnections.add(connectionID);
+			}
 
 			return connectionID;
 		}
@@ -446,11 +549,43 @@ public abstract class Combox<T> {
 		return -1;
 	}
 
+	/**
+	 * Open another sub-connection to the broker on the other side of a client
+	 * combox, the combox stays open while it is being opened.
+	 * 
+	 * @param broker
+	 *            the broker of the caller, may be null
+	 * @return the new connection ID or -1 if the combox is closed
+	 */
+	public int openConnection(Broker broker) {
+		synchronized (openConnections) {
+			if (openConnections.isEmpty()) {
+				return -1;
+			}
+			pendingConnections++;
+		}
+		int connectionID = -1;
+		try {
+			connectionID = makeBidirectional(broker);
+			return connectionID;
+		} finally {
+			boolean last;
+			synchronized (openConnections) {
+				pendingConnections--;
+				last = openConnections.isEmpty() && pendingConnections == 0;
+			}
+			// the other connections were closed meanwhile
+			if (last && connectionID <= 0) {
+				closeInternal();
+			}
+		}
+	}
+
 	protected boolean bindToBroker(int connectionID) {
 		// System.out.println("Rebind combox to broker using connection ID
 		// "+connectionID+" "+this);
 		if (broker != null) {
-			ComboxAcceptSocket.serveConnection(broker, broker.getRequestQueue(), this, connectionID);
+			serveConnection(broker, connectionID);
 			broker.onNewConnection();
 			return true;
 		}
@@ -458,6 +593,35 @@ public abstract class Combox<T> {
 		return false; // TODO: Throw exception?
 	}
 
+	/**
+	 * Let the broker serve the requests arriving on a connection, by default a
+	 * thread is dedicated to receive them.
+	 * 
+	 * @param broker
+	 *            The broker serving the requests
+	 * @param connectionID
+	 *            The connection on which the requests arrive
+	 */
+	protected void serveConnection(Broker broker, int connectionID) {
+		ComboxAcceptSocket.serveConnection(broker, broker.getRequestQueue(), this, connectionID);
+	}
+
+	/**
+	 * Handle a message for the combox itself without blocking the thread reading
+	 * the connection
+	 * 
+	 * @param tempBuffer
+	 *            the received message
+	 */
+	protected void dispatchComboxMessages(POPBuffer tempBuffer) {
+		// a ping only keeps the connection alive, it was registered when received
+		if (tempBuffer.getHeader().getMethodId() == PING) {
+			pinged = true;
+			return;
+		}
+		comboxMessageHandlers.execute(() -> handleComboxMessages(tempBuffer));
+	}
+
 	protected void handleComboxMessages(POPBuffer tempBuffer) {
 		switch (tempBuffer.getHeader().getMethodId()) {
 		case OPEN_BIDIRECTIONAL: {// Handle the opening of a bidirectional
@@ -492,7 +656,7 @@ public abstract class Combox<T> {
 		}
 			break;
 		case PING: {
-
+			pinged = true;
 		}
 			break;
 		default:
@@ -501,7 +665,17 @@ public abstract class Combox<T> {
 		}
 	}
 
-	protected synchronized void registerCommunication() {
-		lastCommunication = System.currentTimeMillis();
+	/**
+	 * Called when a packet is received
+	 */
+	protected void registerCommunication() {
+		lastReceived = System.currentTimeMillis();
+	}
+
+	/**
+	 * Called when a packet is sent
+	 */
+	protected void registerSend() {
+		lastSent = System.currentTimeMillis();
 	}
 }
@@ -1,5 +1,7 @@
 package ch.icosys.popjava.core.combox;
 
+import java.util.function.IntPredicate;
+
 import ch.icosys.popjava.core.baseobject.POPAccessPoint;
 import ch.icosys.popjava.core.buffer.BufferFactory;
 import ch.icosys.popjava.core.buffer.POPBuffer;
@@ -29,11 +31,28 @@ public class ComboxConnection<T> {
 		return combox.send(buffer);
 	}
 
+	public int sendBatched(POPBuffer buffer) {
+		throwIfClosed();
+
+		buffer.getHeader().setConnectionID(connectionID);
+		return combox.sendBatched(buffer);
+	}
+
+	public boolean flush() {
+		throwIfClosed();
+		return combox.flush();
+	}
+
 	public int receive(POPBuffer buffer, int requestId) {
 		throwIfClosed();
 		return combox.receive(buffer, requestId, connectionID);
 	}
 
+	public int receive(POPBuffer buffer, IntPredicate requests) {
+		throwIfClosed();
+		return combox.receive(buffer, requests, connectionID);
+	}
+
 	public String getNetworkUUID() {
 		throwIfClosed();
 		return combox.getNetworkUUID();
@@ -0,0 +1,437 @@
+package ch.icosys.popjava.core.combox;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Dispatch the messages of a combox to the threads waiting for them. A combox
+ * is shared by multiple sub-connections and concurrent calls, each waiting
+ * thread parks until a message with its connection and request ID arrives.
+ *
+ * Without a dedicated reader, one of the waiting threads reads the connection
+ * for everybody and hands the reader role to another waiting thread once it got
+ * its own message.
+ *
+ * The messages nobody waits for yet are kept until their sub-connection is
+ * closed. Once {@link #MAX_PENDING_FRAMES} are kept the connection is not read
+ * further until some are taken, like a socket nobody reads: no message is lost.
+ */
+public final class ComboxDemultiplexer {
+
+	/**
+	 * Number of messages kept for threads which are not waiting yet, past it the
+	 * connection is not read
+	 */
+	public static final int MAX_PENDING_FRAMES = 1024;
+
+	/**
+	 * Read the messages of a connection
+	 */
+	public interface FrameReader {
+
+		/**
+		 * Block until a whole message is read
+		 *
+		 * @return the message or null if the connection reached its end
+		 * @throws IOException
+		 *             if the connection is broken
+		 */
+		Frame readFrame() throws IOException;
+	}
+
+	private final FrameReader reader;
+
+	// called once the kept messages went down after a full offer
+	private final Runnable drained;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// the reader waits on it while the kept messages are full
+	private final Condition notFull = lock.newCondition();
+
+	private final List<Frame> pending = new LinkedList<>();
+
+	private final List<Waiter> waiters = new LinkedList<>();
+
+	private boolean reading;
+
+	private boolean closed = false;
+
+	// an offer found the kept messages full, drained was not called yet
+	private boolean full = false;
+
+	/**
+	 * Demultiplexer fed by one of its waiting threads
+	 *
+	 * @param reader
+	 *            how to read the connection
+	 */
+	public ComboxDemultiplexer(FrameReader reader) {
+		this.reader = reader;
+		this.drained = null;
+		this.reading = false;
+	}
+
+	/**
+	 * Demultiplexer fed externally with {@link #offer(Frame)}, the waiting threads
+	 * never read
+	 *
+	 * @param drained
+	 *            called once the connection can be read again after an offer
+	 *            returned false
+	 */
+	public ComboxDemultiplexer(Runnable drained) {
+		this.reader = null;
+		this.drained = drained;
+		this.reading = true;
+	}
+
+	/**
+	 * Wait for a message
+	 *
+	 * @param connectionID
+	 *            the sub-connection of the message
+	 * @param requestId
+	 *            the request the message answers, -1 to accept any request
+	 * @return the message or null if the combox is closed
+	 * @throws IOException
+	 *             if the connection broke while this thread was reading it
+	 */
+	public Frame receive(int connectionID, int requestId) throws IOException {
+		return receive(connectionID, id -> requestId == -1 || id == requestId);
+	}
+
+	/**
+	 * Wait for the message of any of the given requests, they are tested again
+	 * for each received message
+	 *
+	 * @param connectionID
+	 *            the sub-connection of the message
+	 * @param requests
+	 *            accept the request IDs of the expected messages
+	 * @return the message or null if the combox is closed
+	 * @throws IOException
+	 *             if the connection broke while this thread was reading it
+	 */
+	public Frame receive(int connectionID, IntPredicate requests) throws IOException {
+		Waiter self = null;
+		lock.lock();
+		try {
+			while (true) {
+				if (self != null && self.frame != null) {
+					wakeNextReader();
+					return self.frame;
+				}
+				Frame frame = removePending(connectionID, requests);
+				if (frame != null) {
+					if (self != null) {
+						waiters.remove(self);
+					}
+					wakeNextReader();
+					return frame;
+				}
+				if (closed) {
+					if (self != null) {
+						waiters.remove(self);
+					}
+					return null;
+				}
+				if (!reading) {
+					reading = true;
+					if (self != null) {
+						waiters.remove(self);
+					}
+					break;
+				}
+				if (self == null) {
+					self = new Waiter(connectionID, requests, lock.newCondition());
+					waiters.add(self);
+					// a reader waiting for room may hold the message of this thread
+					notFull.signalAll();
+				}
+				self.condition.awaitUninterruptibly();
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		// this thread is now the reader
+		try {
+			while (true) {
+				Frame frame = reader.readFrame();
+				if (frame == null) {
+					close();
+					return null;
+				}
+				if (frame.matches(connectionID, requests)) {
+					return frame;
+				}
+				deliver(frame);
+			}
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		} finally {
+			releaseReader();
+		}
+	}
+
+	/**
+	 * Give a message to the thread waiting for it, or keep it until one asks. If
+	 * {@link #MAX_PENDING_FRAMES} messages are already kept, wait until one is
+	 * taken or the combox is closed.
+	 *
+	 * @param frame
+	 *            the received message
+	 */
+	public void deliver(Frame frame) {
+		lock.lock();
+		try {
+			while (!handOver(frame) && !closed) {
+				if (pending.size() < MAX_PENDING_FRAMES) {
+					pending.add(frame);
+					return;
+				}
+				notFull.awaitUninterruptibly();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Give a message to the thread waiting for it, or keep it until one asks,
+	 * without waiting. The message is always kept.
+	 *
+	 * @param frame
+	 *            the received message
+	 * @return false if {@link #MAX_PENDING_FRAMES} messages are kept, the
+	 *         connection should not be read until the drained callback is called
+	 */
+	public boolean offer(Frame frame) {
+		lock.lock();
+		try {
+			if (handOver(frame)) {
+				return true;
+			}
+			pending.add(frame);
+			if (pending.size() >= MAX_PENDING_FRAMES) {
+				full = true;
+				return false;
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return true if an offer found the kept messages full and they were not
+	 *         taken since
+	 */
+	public boolean isFull() {
+		lock.lock();
+		try {
+			return full;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Forget the kept messages of a sub-connection which was closed
+	 *
+	 * @param connectionID
+	 *            the closed sub-connection
+	 */
+	public void discard(int connectionID) {
+		lock.lock();
+		try {
+			if (pending.removeIf(frame -> frame.connectionID == connectionID)) {
+				taken();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of messages kept for threads which are not waiting yet
+	 */
+	public int getPendingCount() {
+		lock.lock();
+		try {
+			return pending.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wake every waiting thread, they will receive nothing
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			for (Waiter waiter : waiters) {
+				waiter.condition.signal();
+			}
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void releaseReader() {
+		lock.lock();
+		try {
+			reading = false;
+			wakeNextReader();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Someone else has to read for the remaining waiters, must hold the lock
+	 */
+	private void wakeNextReader() {
+		if (!reading && !waiters.isEmpty()) {
+			waiters.get(0).condition.signal();
+		}
+	}
+
+	/**
+	 * Give a message to the thread waiting for it, must hold the lock
+	 *
+	 * @return false if nobody waits for it
+	 */
+	private boolean handOver(Frame frame) {
+		Iterator<Waiter> iterator = waiters.iterator();
+		while (iterator.hasNext()) {
+			Waiter waiter = iterator.next();
+			if (frame.matches(waiter.connectionID, waiter.requests)) {
+				iterator.remove();
+				waiter.frame = frame;
+				waiter.condition.signal();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Frame removePending(int connectionID, IntPredicate requests) {
+		Iterator<Frame> iterator = pending.iterator();
+		while (iterator.hasNext()) {
+			Frame frame = iterator.next();
+			if (frame.matches(connectionID, requests)) {
+				iterator.remove();
+				taken();
+				return frame;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Kept messages were taken, the connection may be read again, must hold the
+	 * lock
+	 */
+	private void taken() {
+		notFull.signalAll();
+		if (full && pending.size() <= MAX_PENDING_FRAMES / 2) {
+			full = false;
+			if (drained != null) {
+				drained.run();
+			}
+		}
+	}
+
+	/**
+	 * A whole message as received from the connection
+	 */
+	public static final class Frame {
+
+		private final int connectionID;
+
+		private final int requestID;
+
+		private final byte[] data;
+
+		private final int length;
+
+		/**
+		 * @param connectionID
+		 *            the sub-connection of the message
+		 * @param requestID
+		 *            the request ID of the message
+		 * @param data
+		 *            the message, header included
+		 */
+		public Frame(int connectionID, int requestID, byte[] data) {
+			this(connectionID, requestID, data, data.length);
+		}
+
+		/**
+		 * @param connectionID
+		 *            the sub-connection of the message
+		 * @param requestID
+		 *            the request ID of the message
+		 * @param data
+		 *            an array starting with the message, header included
+		 * @param length
+		 *            the length of the message
+		 */
+		public Frame(int connectionID, int requestID, byte[] data, int length) {
+			this.connectionID = connectionID;
+			this.requestID = requestID;
+			this.data = data;
+			this.length = length;
+		}
+
+		public int getConnectionID() {
+			return connectionID;
+		}
+
+		public int getRequestID() {
+			return requestID;
+		}
+
+		public byte[] getData() {
+			return data;
+		}
+
+		public int getLength() {
+			return length;
+		}
+
+		// A requestID of -1 (client or server) indicates that the
+		// requestID should be ignored
+		private boolean matches(int connectionID, IntPredicate requests) {
+			return this.connectionID == connectionID && (this.requestID == -1 || requests.test(this.requestID));
+		}
+	}
+
+	private static final class Waiter {
+
+		private final int connectionID;
+
+		private final IntPredicate requests;
+
+		private final Condition condition;
+
+		private Frame frame;
+
+		private Waiter(int connectionID, IntPredicate requests, Condition condition) {
+			this.connectionID = connectionID;
+			this.requests = requests;
+			this.condition = condition;
+		}
+	}
+}
@@ -100,4 +100,14 @@ public abstract class ComboxFactory {
 		return (conf.getProtocolsWhitelist().isEmpty() || conf.getProtocolsWhitelist().contains(getComboxName()))
 				&& !conf.getProtocolsBlacklist().contains(getComboxName());
 	}
+
+	/**
+	 * Check if this combox is opened when an object doesn't ask for specific
+	 * protocols. The others are only used when they are named.
+	 * 
+	 * @return true if it's used by default
+	 */
+	public boolean isDefault() {
+		return true;
+	}
 }
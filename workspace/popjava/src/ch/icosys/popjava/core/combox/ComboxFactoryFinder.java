@@ -8,8 +8,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,6 +24,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import ch.icosys.popjava.core.combox.socket.nio.ComboxNioSocketFactory;
 import ch.icosys.popjava.core.combox.socket.raw.ComboxSocketFactory;
 import ch.icosys.popjava.core.combox.socket.ssl.ComboxSecureSocketFactory;
 import ch.icosys.popjava.core.system.POPJavaConfiguration;
@@ -36,7 +37,7 @@ import ch.icosys.popjava.core.util.LogWriter;
  */
 
 public class ComboxFactoryFinder {
-	private final Map<String, ComboxFactory> comboxFactoryList = new HashMap<>();
+	private final Map<String, ComboxFactory> comboxFactoryList = new LinkedHashMap<>();
 
 	private URLClassLoader urlClassLoader = null;
 
@@ -57,9 +58,13 @@ public class ComboxFactoryFinder {
 		// Load default combox factory
 		ComboxSocketFactory comboxSocketFactory = new ComboxSocketFactory();
 		ComboxSecureSocketFactory comboxSecureSocketFactory = new ComboxSecureSocketFactory();
+		ComboxNioSocketFactory comboxNioSocketFactory = new ComboxNioSocketFactory();
 
+		// keep the registration order, the first available protocol is the one
+		// clients use by default
 		comboxFactoryList.put(comboxSocketFactory.getComboxName(), comboxSocketFactory);
 		comboxFactoryList.put(comboxSecureSocketFactory.getComboxName(), comboxSecureSocketFactory);
+		comboxFactoryList.put(comboxNioSocketFactory.getComboxName(), comboxNioSocketFactory);
 
 		String pluginLocation = POPJavaConfiguration.getPopPluginLocation();
 		if (pluginLocation.length() > 0) {
@@ -201,6 +206,21 @@ public class ComboxFactoryFinder {
 		return factories.toArray(new ComboxFactory[factories.size()]);
 	}
 
+	/**
+	 * Get the available factories used when no protocol is specified
+	 * 
+	 * @return An array containing the available default factories
+	 */
+	public ComboxFactory[] getDefaultFactories() {
+		List<ComboxFactory> factories = new ArrayList<>();
+		for (ComboxFactory factory : comboxFactoryList.values()) {
+			if (factory.isAvailable() && factory.isDefault()) {
+				factories.add(factory);
+			}
+		}
+		return factories.toArray(new ComboxFactory[factories.size()]);
+	}
+
 	/**
 	 * Get the factory at the specified index
 	 * 
@@ -0,0 +1,125 @@
+package ch.icosys.popjava.core.combox;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * Keeps the comboxes of the JVM alive with a single thread, which looks at all
+ * of them every second.
+ *
+ * A client combox which did not send anything for
+ * {@link Configuration#getComboxKeepAliveInterval()} sends a ping. A server
+ * combox which did not receive anything for
+ * {@link Configuration#getComboxKeepAliveTimeout()} is closed, its client is
+ * considered dead since it would have sent a ping. Only the server comboxes
+ * whose client already sent a ping can expire, the others may be idle clients
+ * which never ping, like POP-C++ ones.
+ */
+public final class ComboxKeepAlive {
+
+	private static final long TICK = 1000;
+
+	private static final ComboxKeepAlive instance = new ComboxKeepAlive();
+
+	private final Configuration conf = Configuration.getInstance();
+
+	private final Set<Combox<?>> comboxes = ConcurrentHashMap.newKeySet();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Combox keep alive");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// sends the pings, a dead peer can block them
+	private final ExecutorService pingers = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Combox keep alive ping");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final LongAdder pings = new LongAdder();
+
+	private final LongAdder expired = new LongAdder();
+
+	private ComboxKeepAlive() {
+		scheduler.scheduleWithFixedDelay(this::check, TICK, TICK, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return the keep alive of the JVM
+	 */
+	public static ComboxKeepAlive getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @return the number of comboxes kept alive
+	 */
+	public int getComboxCount() {
+		return comboxes.size();
+	}
+
+	/**
+	 * @return the number of pings sent
+	 */
+	public long getPings() {
+		return pings.sum();
+	}
+
+	/**
+	 * @return the number of server comboxes closed because their client was dead
+	 */
+	public long getExpired() {
+		return expired.sum();
+	}
+
+	void register(Combox<?> combox) {
+		comboxes.add(combox);
+	}
+
+	void unregister(Combox<?> combox) {
+		comboxes.remove(combox);
+	}
+
+	private void check() {
+		try {
+			long now = System.currentTimeMillis();
+			int interval = conf.getComboxKeepAliveInterval();
+			int timeout = conf.getComboxKeepAliveTimeout();
+			for (Combox<?> combox : comboxes) {
+				if (combox.getConnectionCount() == 0) {
+					comboxes.remove(combox);
+				} else if (combox.isServer()) {
+					if (timeout > 0 && combox.isPinged() && now - combox.getLastReceived() > timeout) {
+						LogWriter.writeDebugInfo("[ComboxKeepAlive] No news from %s for %d ms, closing",
+								combox.getAccessPoint(), now - combox.getLastReceived());
+						comboxes.remove(combox);
+						expired.increment();
+						combox.closeInternal();
+					}
+				} else if (interval > 0 && now - combox.getLastSent() >= interval) {
+					// counts as sent, the ping is not sent twice
+					combox.registerSend();
+					pings.increment();
+					pingers.execute(() -> {
+						if (!combox.ping()) {
+							comboxes.remove(combox);
+						}
+					});
+				}
+			}
+		} catch (RuntimeException e) {
+			// keep the scheduler running
+			LogWriter.writeExceptionLog(e);
+		}
+	}
+}
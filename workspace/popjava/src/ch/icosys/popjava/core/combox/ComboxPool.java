@@ -0,0 +1,195 @@
+package ch.icosys.popjava.core.combox;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.broker.Broker;
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * Client comboxes of the JVM, shared by the interfaces connecting to the same
+ * access point. The first interface connects the combox, the next ones open a
+ * sub-connection on it, up to {@link Configuration#getComboxSharedConnections()}
+ * per combox before a new combox is connected. Sharing is off by default, the
+ * sub-connections of a combox are read in order and one whose receiver does not
+ * keep up delays the others.
+ *
+ * Each interface closes its own sub-connection, the combox is closed with the
+ * last one. The broker on the other side counts every sub-connection as a
+ * connection, the lifetime of the objects does not change.
+ */
+public final class ComboxPool {
+
+	private static final ComboxPool instance = new ComboxPool();
+
+	private final Configuration conf = Configuration.getInstance();
+
+	// guarded by this
+	private final Map<Key, List<Combox<?>>> comboxes = new HashMap<>();
+
+	private final LongAdder connects = new LongAdder();
+
+	private final LongAdder shares = new LongAdder();
+
+	private ComboxPool() {
+	}
+
+	/**
+	 * @return the comboxes of the JVM
+	 */
+	public static ComboxPool getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Open a connection to an access point, on a combox already connected to it
+	 * if possible
+	 *
+	 * @param factory
+	 *            the factory of the protocol to use
+	 * @param networkUUID
+	 *            the network of the connection
+	 * @param broker
+	 *            the broker of the caller, may be null
+	 * @param accessPoint
+	 *            the access point to connect to
+	 * @param timeout
+	 *            the connection timeout
+	 * @return the connection or null if no combox could connect
+	 * @throws IOException
+	 *             if the combox could not be created
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ComboxConnection<?> connect(ComboxFactory factory, String networkUUID, Broker broker,
+			POPAccessPoint accessPoint, int timeout) throws IOException {
+		int limit = conf.getComboxSharedConnections();
+		Key key = new Key(factory.getComboxName(), networkUUID, broker, accessPoint.toString());
+
+		// open a sub-connection on a connected combox
+		Combox<?> shared;
+		while (limit > 1 && (shared = find(key, limit)) != null) {
+			int connectionID = shared.openConnection(broker);
+			if (connectionID > 0) {
+				shares.increment();
+				return new ComboxConnection(shared, connectionID);
+			}
+			LogWriter.writeDebugInfo("[ComboxPool] Shared combox to %s is broken", accessPoint);
+			remove(key, shared);
+		}
+
+		Combox<?> combox = factory.createClientCombox(networkUUID);
+		if (!combox.connectToServer(broker, accessPoint, timeout)) {
+			return null;
+		}
+		connects.increment();
+		if (limit > 1) {
+			synchronized (this) {
+				List<Combox<?>> list = comboxes.get(key);
+				if (list == null) {
+					list = new ArrayList<>();
+					comboxes.put(key, list);
+				}
+				list.add(combox);
+			}
+		}
+		return new ComboxConnection(combox, 1);
+	}
+
+	/**
+	 * @return the number of comboxes connected
+	 */
+	public long getConnects() {
+		return connects.sum();
+	}
+
+	/**
+	 * @return the number of connections opened on an already connected combox
+	 */
+	public long getShares() {
+		return shares.sum();
+	}
+
+	/**
+	 * Find the least used combox of the key, the closed ones are forgotten
+	 */
+	private synchronized Combox<?> find(Key key, int limit) {
+		List<Combox<?>> list = comboxes.get(key);
+		if (list == null) {
+			return null;
+		}
+		Combox<?> best = null;
+		int bestCount = limit;
+		for (Iterator<Combox<?>> iterator = list.iterator(); iterator.hasNext();) {
+			Combox<?> combox = iterator.next();
+			int count = combox.getConnectionCount();
+			if (count == 0) {
+				iterator.remove();
+			} else if (count < bestCount) {
+				best = combox;
+				bestCount = count;
+			}
+		}
+		if (list.isEmpty()) {
+			comboxes.remove(key);
+		}
+		return best;
+	}
+
+	private synchronized void remove(Key key, Combox<?> combox) {
+		List<Combox<?>> list = comboxes.get(key);
+		if (list != null) {
+			list.remove(combox);
+			if (list.isEmpty()) {
+				comboxes.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Comboxes can be shared by the interfaces of the same broker using the same
+	 * protocol and network to the same access point
+	 */
+	private static final class Key {
+
+		private final String protocol;
+
+		private final String networkUUID;
+
+		private final Broker broker;
+
+		private final String accessPoint;
+
+		private Key(String protocol, String networkUUID, Broker broker, String accessPoint) {
+			this.protocol = protocol;
+			this.networkUUID = networkUUID;
+			this.broker = broker;
+			this.accessPoint = accessPoint;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(protocol, networkUUID, System.identityHashCode(broker), accessPoint);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return broker == other.broker && Objects.equals(protocol, other.protocol)
+					&& Objects.equals(networkUUID, other.networkUUID) && Objects.equals(accessPoint, other.accessPoint);
+		}
+	}
+}
@@ -3,7 +3,7 @@ package ch.icosys.popjava.core.combox;
 import ch.icosys.popjava.core.base.MessageHeader;
 import ch.icosys.popjava.core.broker.Broker;
 import ch.icosys.popjava.core.broker.Request;
-import ch.icosys.popjava.core.broker.RequestQueue;
+import ch.icosys.popjava.core.broker.RequestScheduler;
 import ch.icosys.popjava.core.buffer.BufferFactory;
 import ch.icosys.popjava.core.buffer.BufferFactoryFinder;
 import ch.icosys.popjava.core.buffer.POPBuffer;
@@ -24,7 +24,7 @@ public final class ComboxReceiveRequest implements Runnable {
 
 	protected ComboxConnection combox;
 
-	protected final RequestQueue requestQueue;
+	protected final RequestScheduler requestQueue;
 
 	protected final Broker broker;
 
@@ -40,7 +40,7 @@ public final class ComboxReceiveRequest implements Runnable {
 	 * @param combox
 	 *            The associated combox
 	 */
-	public ComboxReceiveRequest(Broker broker, RequestQueue requestQueue, ComboxConnection combox) {
+	public ComboxReceiveRequest(Broker broker, RequestScheduler requestQueue, ComboxConnection combox) {
 		this.broker = broker;
 		this.requestQueue = requestQueue;
 		this.combox = combox;
@@ -61,14 +61,7 @@ public final class ComboxReceiveRequest implements Runnable {
 					break;
 				}
 
-				// add request to fifo list
-				if (broker != null && !broker.popCall(popRequest)) {
-					// replace buffer sent information using local annotation
-					// (if possible)
-					broker.finalizeRequest(popRequest);
-
-					requestQueue.add(popRequest);
-				}
+				dispatchRequest(popRequest);
 			} catch (Exception e) {
 				LogWriter.writeExceptionLog(e);
 				setStatus(EXIT);
@@ -78,6 +71,44 @@ public final class ComboxReceiveRequest implements Runnable {
 		close();
 	}
 
+	/**
+	 * Serve a message which was already received by the combox. Used by the
+	 * comboxes reading their connections with a selector instead of a thread.
+	 * 
+	 * @param buffer
+	 *            The received message
+	 */
+	public void serveRequest(POPBuffer buffer) {
+		Request popRequest = new Request();
+		popRequest.setRemoteCaller(combox.getRemoteCaller());
+		setupRequest(popRequest, buffer);
+		dispatchRequest(popRequest);
+	}
+
+	/**
+	 * Give the request to the broker, internal calls are served directly while
+	 * the others are queued.
+	 * 
+	 * @param popRequest
+	 *            The request to serve
+	 */
+	private void dispatchRequest(Request popRequest) {
+		// content of a streamed parameter, not a call
+		if (popRequest.getBuffer().getHeader().getRequestType() == MessageHeader.STREAM) {
+			ComboxStream.deliver(combox, popRequest.getBuffer());
+			return;
+		}
+
+		// add request to fifo list
+		if (broker != null && !broker.popCall(popRequest)) {
+			// replace buffer sent information using local annotation
+			// (if possible)
+			broker.finalizeRequest(popRequest);
+
+			requestQueue.add(popRequest);
+		}
+	}
+
 	/**
 	 * Get request from the buffer
 	 * 
@@ -90,26 +121,33 @@ public final class ComboxReceiveRequest implements Runnable {
 		int receivedLength = combox.receive(buffer, -1);
 
 		if (receivedLength > 0) {
-			request.setBroker(broker);
-			MessageHeader messageHeader = buffer.extractHeader();
-			request.setClassId(messageHeader.getClassId());
-			request.setMethodId(messageHeader.getMethodId());
-			request.setSemantics(messageHeader.getSemantics());
-			request.setRequestID(messageHeader.getRequestID());
-			request.setBuffer(buffer);
-			request.setReceiveCombox(this);
-			request.setCombox(combox);
+			setupRequest(request, buffer);
 			return true;
 		}
 
 		return false;
 	}
 
+	private void setupRequest(Request request, POPBuffer buffer) {
+		// the queue time starts now, not while waiting for the client
+		request.setReceivedTime(System.nanoTime());
+		request.setBroker(broker);
+		MessageHeader messageHeader = buffer.extractHeader();
+		request.setClassId(messageHeader.getClassId());
+		request.setMethodId(messageHeader.getMethodId());
+		request.setSemantics(messageHeader.getSemantics());
+		request.setRequestID(messageHeader.getRequestID());
+		request.setBuffer(buffer);
+		request.setReceiveCombox(this);
+		request.setCombox(combox);
+	}
+
 	/**
 	 * Close the current connection
 	 */
 	public void close() {
 		if (combox != null) {
+			ComboxStream.connectionClosed(combox);
 			broker.onCloseConnection(hashCode() + " " + combox);
 			combox.close();
 			combox = null;
@@ -152,7 +190,7 @@ public final class ComboxReceiveRequest implements Runnable {
 	 * 
 	 * @return the global queue
 	 */
-	public RequestQueue getRequestQueue() {
+	public RequestScheduler getRequestQueue() {
 		return requestQueue;
 	}
 
@@ -2,7 +2,7 @@ package ch.icosys.popjava.core.combox;
 
 import ch.icosys.popjava.core.baseobject.AccessPoint;
 import ch.icosys.popjava.core.broker.Broker;
-import ch.icosys.popjava.core.broker.RequestQueue;
+import ch.icosys.popjava.core.broker.RequestScheduler;
 
 /**
  * This class represent the server side of a socket connection
@@ -44,7 +44,7 @@ public abstract class ComboxServer {
 	 * 
 	 * @return The associated request queue
 	 */
-	public RequestQueue getRequestQueue() {
+	public RequestScheduler getRequestQueue() {
 		return broker.getRequestQueue();
 	}
 
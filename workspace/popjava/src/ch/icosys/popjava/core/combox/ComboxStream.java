@@ -0,0 +1,349 @@
+package ch.icosys.popjava.core.combox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.icosys.popjava.core.base.MessageHeader;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+import ch.icosys.popjava.core.util.Configuration;
+
+/**
+ * One side of a stream of bytes sent in chunks over a connection, next to the
+ * calls. The messages of a stream have the {@link MessageHeader#STREAM} type
+ * and the stream identifier as request identifier.
+ *
+ * The sender sends at most {@link Configuration#getStreamWindow()} chunks
+ * ahead, the receiver gives a credit back for each chunk read. The sender
+ * finishes with an end message, the receiver with a close message, which it
+ * also uses to stop the sender early. No message of the stream is sent after
+ * these two.
+ *
+ * On the interface-side the messages are received from the connection with
+ * their identifier. On the broker-side they are given by the thread receiving
+ * the requests with {@link #deliver(ComboxConnection, POPBuffer)}, and the
+ * stream fails when the interface doesn't answer within
+ * {@link Configuration#getStreamTimeout()}.
+ */
+public final class ComboxStream {
+
+	private static final int DATA = 0;
+
+	private static final int END = 1;
+
+	private static final int ABORT = 2;
+
+	private static final int CREDIT = 3;
+
+	private static final int CLOSE = 4;
+
+	private static final Object CONNECTION_CLOSED = new Object();
+
+	// broker-side messages waiting for their stream, by connection
+	private static final Map<ComboxConnection<?>, Map<Integer, BlockingQueue<Object>>> brokerStreams = new ConcurrentHashMap<>();
+
+	// interface identifiers are positive, -1 is the wildcard
+	private static final AtomicInteger brokerStreamID = new AtomicInteger(-1);
+
+	private final ComboxConnection<?> connection;
+
+	private final int streamID;
+
+	private final BlockingQueue<Object> queue;
+
+	private boolean finished = false;
+
+	private ComboxStream(ComboxConnection<?> connection, int streamID, BlockingQueue<Object> queue) {
+		this.connection = connection;
+		this.streamID = streamID;
+		this.queue = queue;
+	}
+
+	/**
+	 * A stream of the interface-side
+	 *
+	 * @param connection
+	 *            the connection to the broker
+	 * @param streamID
+	 *            a request identifier of the interface, or the identifier sent
+	 *            by the broker
+	 * @return the stream
+	 */
+	public static ComboxStream ofInterface(ComboxConnection<?> connection, int streamID) {
+		return new ComboxStream(connection, streamID, null);
+	}
+
+	/**
+	 * A stream of the broker-side
+	 *
+	 * @param connection
+	 *            the connection with the interface
+	 * @param streamID
+	 *            the identifier sent by the interface, or
+	 *            {@link #nextBrokerStreamID()}
+	 * @return the stream
+	 */
+	public static ComboxStream ofBroker(ComboxConnection<?> connection, int streamID) {
+		return new ComboxStream(connection, streamID, brokerQueue(connection, streamID));
+	}
+
+	/**
+	 * @return a new identifier for a stream opened by a broker
+	 */
+	public static int nextBrokerStreamID() {
+		return brokerStreamID.decrementAndGet();
+	}
+
+	/**
+	 * Give a message received by a broker to its stream
+	 *
+	 * @param connection
+	 *            the connection the message came from
+	 * @param buffer
+	 *            the message, its header already extracted
+	 */
+	public static void deliver(ComboxConnection<?> connection, POPBuffer buffer) {
+		int streamID = buffer.getHeader().getRequestID();
+		BlockingQueue<Object> queue;
+		if (streamID < -1) {
+			// opened by the broker before sending it, unknown once it finished
+			Map<Integer, BlockingQueue<Object>> streams = brokerStreams.get(connection);
+			queue = streams == null ? null : streams.get(streamID);
+		} else {
+			// the call using the stream may not be served yet
+			queue = brokerQueue(connection, streamID);
+		}
+		if (queue == null) {
+			buffer.release();
+			return;
+		}
+		queue.add(buffer);
+	}
+
+	/**
+	 * The broker stopped receiving from a connection, its streams fail
+	 *
+	 * @param connection
+	 *            the closed connection
+	 */
+	public static void connectionClosed(ComboxConnection<?> connection) {
+		Map<Integer, BlockingQueue<Object>> streams = brokerStreams.remove(connection);
+		if (streams != null) {
+			for (BlockingQueue<Object> queue : streams.values()) {
+				queue.add(CONNECTION_CLOSED);
+			}
+		}
+	}
+
+	private static BlockingQueue<Object> brokerQueue(ComboxConnection<?> connection, int streamID) {
+		return brokerStreams.computeIfAbsent(connection, c -> new ConcurrentHashMap<>()).computeIfAbsent(streamID,
+				id -> new LinkedBlockingQueue<>());
+	}
+
+	/**
+	 * @return the identifier of the stream
+	 */
+	public int getStreamID() {
+		return streamID;
+	}
+
+	/**
+	 * Send the content of a local stream, returns once the receiver read or
+	 * closed the stream. The local stream is closed.
+	 *
+	 * @param source
+	 *            the data to send
+	 * @throws IOException
+	 *             if the source or the connection fails
+	 */
+	public void transmit(InputStream source) throws IOException {
+		Configuration conf = Configuration.getInstance();
+		byte[] chunk = new byte[conf.getStreamChunkSize()];
+		int credits = Math.max(1, conf.getStreamWindow());
+		boolean closed = false;
+		int last = END;
+		try {
+			while (true) {
+				while (credits == 0 && !closed) {
+					POPBuffer message = receive();
+					int kind = message.getInt();
+					if (kind == CREDIT) {
+						credits += message.getInt();
+					} else if (kind == CLOSE) {
+						closed = true;
+					}
+					message.release();
+				}
+				if (closed) {
+					break;
+				}
+
+				int length = readChunk(source, chunk);
+				if (length <= 0) {
+					break;
+				}
+				POPBuffer message = createMessage(DATA);
+				message.putByteArray(length == chunk.length ? chunk : Arrays.copyOf(chunk, length));
+				send(message);
+				credits--;
+			}
+		} catch (IOException e) {
+			// the source failed, the receiver must know the data is incomplete
+			last = ABORT;
+			throw e;
+		} finally {
+			try {
+				if (!finished) {
+					send(createMessage(last));
+					while (!closed) {
+						POPBuffer message = receive();
+						closed = message.getInt() == CLOSE;
+						message.release();
+					}
+				}
+			} finally {
+				finished = true;
+				source.close();
+				unregister();
+			}
+		}
+	}
+
+	/**
+	 * Receive the next chunk of the stream, a credit is given back to the
+	 * sender
+	 *
+	 * @return the chunk or null at the end of the stream
+	 * @throws IOException
+	 *             if the sender failed or the connection was closed
+	 */
+	public byte[] nextChunk() throws IOException {
+		if (finished) {
+			return null;
+		}
+
+		POPBuffer message = receive();
+		int kind = message.getInt();
+		if (kind == DATA) {
+			byte[] chunk = message.getByteArray(message.getInt());
+			message.release();
+			POPBuffer credit = createMessage(CREDIT);
+			credit.putInt(1);
+			send(credit);
+			return chunk;
+		}
+
+		message.release();
+		finished = true;
+		unregister();
+		send(createMessage(CLOSE));
+		if (kind == ABORT) {
+			throw new IOException("The sender of the stream failed");
+		}
+		return null;
+	}
+
+	/**
+	 * Stop receiving, the remaining chunks are ignored
+	 *
+	 * @throws IOException
+	 *             if the connection was closed
+	 */
+	public void close() throws IOException {
+		if (finished) {
+			return;
+		}
+
+		try {
+			send(createMessage(CLOSE));
+			int kind;
+			do {
+				POPBuffer message = receive();
+				kind = message.getInt();
+				message.release();
+			} while (kind != END && kind != ABORT);
+		} finally {
+			finished = true;
+			unregister();
+		}
+	}
+
+	private POPBuffer createMessage(int kind) {
+		MessageHeader header = new MessageHeader();
+		header.setRequestType(MessageHeader.STREAM);
+		header.setRequestID(streamID);
+		POPBuffer buffer = connection.getBufferFactory().createBuffer();
+		buffer.setHeader(header);
+		buffer.putInt(kind);
+		return buffer;
+	}
+
+	private void send(POPBuffer message) throws IOException {
+		int sent = connection.send(message);
+		message.release();
+		if (sent < 0) {
+			connectionFailed();
+		}
+	}
+
+	private POPBuffer receive() throws IOException {
+		if (queue == null) {
+			POPBuffer buffer = connection.getBufferFactory().createBuffer();
+			if (connection.receive(buffer, streamID) <= 0) {
+				connectionFailed();
+			}
+			return buffer;
+		}
+
+		Object message;
+		int timeout = Configuration.getInstance().getStreamTimeout();
+		try {
+			message = timeout > 0 ? queue.poll(timeout, TimeUnit.MILLISECONDS) : queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the stream", e);
+		}
+		if (message == null) {
+			finished = true;
+			unregister();
+			throw new IOException("No answer from the other side of the stream in " + timeout + " ms");
+		}
+		if (message == CONNECTION_CLOSED) {
+			connectionFailed();
+		}
+		return (POPBuffer) message;
+	}
+
+	private void connectionFailed() throws IOException {
+		finished = true;
+		unregister();
+		throw new IOException("Connection closed while streaming");
+	}
+
+	private void unregister() {
+		if (queue != null) {
+			Map<Integer, BlockingQueue<Object>> streams = brokerStreams.get(connection);
+			if (streams != null) {
+				streams.remove(streamID);
+			}
+		}
+	}
+
+	private static int readChunk(InputStream source, byte[] chunk) throws IOException {
+		int length = 0;
+		while (length < chunk.length) {
+			int read = source.read(chunk, length, chunk.length - length);
+			if (read < 0) {
+				break;
+			}
+			length += read;
+		}
+		return length;
+	}
+}
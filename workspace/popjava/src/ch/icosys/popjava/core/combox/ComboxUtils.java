@@ -3,6 +3,7 @@ package ch.icosys.popjava.core.combox;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
 import java.util.concurrent.Future;
 
 import javax.net.ServerSocketFactory;
@@ -23,6 +24,10 @@ public class ComboxUtils {
 
 	private static final ServerSocketFactory SS_FACTORY = ServerSocketFactory.getDefault();
 
+	private static final ServerSocketCreator SS_CREATOR = () -> SS_FACTORY.createServerSocket();
+
+	private static final ServerSocketCreator CHANNEL_CREATOR = () -> ServerSocketChannel.open().socket();
+
 	/**
 	 * Try to create a ServerSocket on the specified port.
 	 * 
@@ -40,7 +45,29 @@ public class ComboxUtils {
 		if (op == null) {
 			op = EMPTY;
 		}
-		return createServerSocket(port, op, port == 0, upnp);
+		return createServerSocket(port, op, port == 0, upnp, SS_CREATOR);
+	}
+
+	/**
+	 * Try to create a ServerSocketChannel on the specified port, the channel is
+	 * left in blocking mode.
+	 * 
+	 * @param port
+	 *            if 0 the port will be choose randomly or sequentially from
+	 *            {@link Configuration#allocatePortRange}
+	 * @param op
+	 *            an operation to perform on the server socket before its binding.
+	 *            ex: {@link ServerSocket#setReceiveBufferSize(int) }
+	 * @return A server channel already binded
+	 * @throws IOException
+	 *             If we specify a port but we can't bind the address
+	 */
+	public static ServerSocketChannel createServerSocketChannel(int port, PreOperation op, boolean upnp)
+			throws IOException {
+		if (op == null) {
+			op = EMPTY;
+		}
+		return createServerSocket(port, op, port == 0, upnp, CHANNEL_CREATOR).getChannel();
 	}
 
 	/**
@@ -54,13 +81,15 @@ public class ComboxUtils {
 	 *            ex: {@link ServerSocket#setReceiveBufferSize(int) }
 	 * @param sequential
 	 *            Continue looking for new port if we fail to bind
+	 * @param creator
+	 *            how to create a new unbound server socket
 	 * @return A server already binded
 	 * @throws IOException
 	 *             If we specify a port but we can't bind the address
 	 */
-	private static ServerSocket createServerSocket(int port, PreOperation op, boolean sequential, boolean upnp)
-			throws IOException {
-		ServerSocket server = SS_FACTORY.createServerSocket();
+	private static ServerSocket createServerSocket(int port, PreOperation op, boolean sequential, boolean upnp,
+			ServerSocketCreator creator) throws IOException {
+		ServerSocket server = creator.create();
 		boolean working = false;
 		if (port == 0) {
 			port = Configuration.getInstance().getAllocatePortRange();
@@ -73,7 +102,7 @@ public class ComboxUtils {
 			} catch (IOException ex) {
 				// close and dispose of old server, create new one
 				server.close();
-				server = new ServerSocket();
+				server = creator.create();
 				// propagate the exception if we wanted a specific port
 				if (!sequential) {
 					server.close();
@@ -104,4 +133,8 @@ public class ComboxUtils {
 	public interface PreOperation {
 		void preBind(ServerSocket ss) throws IOException;
 	}
+
+	private interface ServerSocketCreator {
+		ServerSocket create() throws IOException;
+	}
 }
@@ -7,7 +7,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import ch.icosys.popjava.core.broker.Broker;
-import ch.icosys.popjava.core.broker.RequestQueue;
+import ch.icosys.popjava.core.broker.RequestScheduler;
 import ch.icosys.popjava.core.combox.Combox;
 import ch.icosys.popjava.core.combox.ComboxConnection;
 import ch.icosys.popjava.core.combox.ComboxReceiveRequest;
@@ -23,7 +23,7 @@ public abstract class ComboxAcceptSocket<E extends Socket> implements Runnable {
 
 	protected final Broker broker;
 
-	protected final RequestQueue requestQueue;
+	protected final RequestScheduler requestQueue;
 
 	protected final ServerSocket serverSocket;
 
@@ -31,7 +31,7 @@ public abstract class ComboxAcceptSocket<E extends Socket> implements Runnable {
 
 	protected final List<E> concurentConnections = new LinkedList<E>();
 
-	protected ComboxAcceptSocket(Broker broker, RequestQueue requestQueue, ServerSocket serverSocket) {
+	protected ComboxAcceptSocket(Broker broker, RequestScheduler requestQueue, ServerSocket serverSocket) {
 		this.broker = broker;
 		this.requestQueue = requestQueue;
 		this.serverSocket = serverSocket;
@@ -76,7 +76,7 @@ public abstract class ComboxAcceptSocket<E extends Socket> implements Runnable {
 		this.status = status;
 	}
 
-	public static void serveConnection(Broker broker, RequestQueue requestQueue, Combox serverClient,
+	public static void serveConnection(Broker broker, RequestScheduler requestQueue, Combox serverClient,
 			int connectionID) {
 		Runnable runnable = new ComboxReceiveRequest(broker, requestQueue,
 				new ComboxConnection(serverClient, connectionID));
@@ -14,11 +14,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.IntPredicate;
+
 import ch.icosys.popjava.core.base.MessageHeader;
 import ch.icosys.popjava.core.baseobject.AccessPoint;
 import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.buffer.BufferFactory;
+import ch.icosys.popjava.core.buffer.BufferPool;
 import ch.icosys.popjava.core.buffer.POPBuffer;
 import ch.icosys.popjava.core.combox.Combox;
+import ch.icosys.popjava.core.combox.ComboxDemultiplexer;
+import ch.icosys.popjava.core.combox.ComboxDemultiplexer.Frame;
 import ch.icosys.popjava.core.util.LogWriter;
 import ch.icosys.popjava.core.util.SystemUtil;
 
@@ -28,7 +34,14 @@ public abstract class ComboxSocket<T extends Socket> extends Combox<T> {
 
 	protected static final int STREAM_BUFFER_SIZE = BUFFER_LENGTH; // 8kB
 
-	protected final byte[] receivedBuffer = new byte[BUFFER_LENGTH];
+	private final ComboxDemultiplexer demultiplexer = new ComboxDemultiplexer(this::readFrame);
+
+	// only used by the thread reading for the demultiplexer
+	private final byte[] header = new byte[Integer.BYTES];
+
+	private BufferFactory decoderFactory = null;
+
+	private POPBuffer decoder = null;
 
 	protected InputStream inputStream = null;
 
@@ -56,122 +69,92 @@ public abstract class ComboxSocket<T extends Socket> extends Combox<T> {
 
 	@Override
 	public int receive(POPBuffer buffer, int requestId, int connectionID) {
-		
-		int result = 0;
-		try {
-			buffer.resetToReceive();
-			// Receive message length
-			byte[] temp = new byte[4];
-
-			boolean gotPacket = false;
-
-			boolean yieldThread = false;
-			int loops = 0;
-			
-			do {
-				loops++;
-				
-				if (yieldThread) {
-					Thread.yield();
-				}
-				yieldThread = false;
-
-				synchronized (inputStream) {
-					inputStream.mark(12);
-
-					if (peakHeadInteger(temp)) {
-						return -1;
-					}
-
-					int messageLength = buffer.getTranslatedInteger(temp);
-
-					if (messageLength <= 0) {
-						closeInternal();
-						return -1;
-					}
-
-					if (peakHeadInteger(temp)) {
-						return -1;
-					}
-
-					int packetConnectionID = buffer.getTranslatedInteger(temp);
-
-					if (peakHeadInteger(temp)) {
-						return -1;
-					}
+		return receive(buffer, id -> requestId == -1 || id == requestId, connectionID);
+	}
 
-					int requestIdPacket = buffer.getTranslatedInteger(temp);
+	@Override
+	public int receive(POPBuffer buffer, IntPredicate requests, int connectionID) {
+		try {
+			Frame frame = demultiplexer.receive(connectionID, requests);
+			if (frame == null) {
+				return -1;
+			}
 
-					registerCommunication();
+			buffer.receive(frame.getData(), frame.getLength());
 
-					// System.out.println("GOT "+requestIdPacket+"
-					// "+packetConnectionID+" "+messageLength+" on
-					// "+connectionID);
+			return frame.getLength();
+		} catch (Exception e) {
+			if (conf.isDebugCombox()) {
+				LogWriter.writeDebugInfo("[ComboxSocket] Error while receiving data:" + e.getMessage());
+			}
+			closeInternal();
+			return -2;
+		}
+	}
 
-					// HANDLE SPECIAL COMBOX packet
-					// TODO: Make this cleaner.
-					if (packetConnectionID == 0 && requestIdPacket == 2 && requestId != 2) {
-						POPBuffer tempBuffer = getBufferFactory().createBuffer();
-						tempBuffer.resetToReceive();
-						int length = readPacket(tempBuffer, messageLength, requestIdPacket, packetConnectionID);
+	/**
+	 * Read the next message from the stream, messages for the combox itself are
+	 * handled here. Only called by the thread currently reading for the
+	 * demultiplexer.
+	 * 
+	 * @return the message or null if the stream is closed
+	 * @throws IOException
+	 *             if the stream is broken
+	 */
+	private Frame readFrame() throws IOException {
+		while (true) {
+			if (peakHeadInteger(header, 0)) {
+				return null;
+			}
 
-						if (length >= MessageHeader.HEADER_LENGTH) {
-							tempBuffer.extractHeader();
-						}
+			int messageLength = decoder().getTranslatedInteger(header);
 
-						if (tempBuffer.getHeader().getRequestType() == MessageHeader.RESPONSE) {
-							// System.out.println("Got rebind response "
-							// +connectionID+" "+requestId);
-							inputStream.reset();
-							yieldThread = true;
-							continue;
-						} else {
-							handleComboxMessages(tempBuffer);
-						}
+			// check before allocating anything, the header fields must fit
+			if (messageLength < MessageHeader.HEADER_LENGTH || messageLength > conf.getComboxMaxMessageLength()) {
+				if (conf.isDebugCombox()) {
+					LogWriter.writeDebugInfo("[ComboxSocket] invalid message length %d", messageLength);
+				}
+				closeInternal();
+				return null;
+			}
 
-						continue;
-					}
+			byte[] data = BufferPool.getInstance().acquire(messageLength);
+			System.arraycopy(header, 0, data, 0, Integer.BYTES);
+			if (peakHeadInteger(data, Integer.BYTES) || peakHeadInteger(data, 2 * Integer.BYTES)) {
+				return null;
+			}
 
-					if (packetConnectionID != connectionID) {
-						inputStream.reset();
-						yieldThread = true;
-						continue;
-					}
+			int packetConnectionID = translate(data, Integer.BYTES);
+			int requestIdPacket = translate(data, 2 * Integer.BYTES);
 
-					// A requestID of -1 (client or server) indicates that the
-					// requestID should be ignored
-					if (requestId == -1 || requestIdPacket == -1 || requestIdPacket == requestId) {
-						gotPacket = true;
+			registerCommunication();
 
-						result = readPacket(buffer, messageLength, requestIdPacket, packetConnectionID);
-					} else {
-						//System.out.println("RESET got "+requestIdPacket+" instead of "+requestId);
-						inputStream.reset();
-						yieldThread = true;
-					}
+			int offset = 3 * Integer.BYTES;
+			while (offset < messageLength) {
+				int read = inputStream.read(data, offset, messageLength - offset);
+				if (read < 0) {
+					closeInternal();
+					return null;
 				}
-			} while (!gotPacket);
+				offset += read;
+			}
 
-			int headerLength = MessageHeader.HEADER_LENGTH;
-			if (result < headerLength) {
-				if (conf.isDebugCombox()) {
-					String logInfo = String.format(
-							"[ComboxSecureSocket] failed to receive header. receivedLength= %d, Message length %d",
-							result, headerLength);
-					LogWriter.writeDebugInfo(logInfo);
+			// HANDLE SPECIAL COMBOX packet
+			if (packetConnectionID == 0 && requestIdPacket == 2) {
+				POPBuffer tempBuffer = getBufferFactory().createBuffer();
+				tempBuffer.resetToReceive();
+				tempBuffer.put(data, 0, messageLength);
+				tempBuffer.extractHeader();
+
+				// responses are for whoever opened a bidirectional connection
+				if (tempBuffer.getHeader().getRequestType() != MessageHeader.RESPONSE) {
+					BufferPool.getInstance().release(data);
+					dispatchComboxMessages(tempBuffer);
+					continue;
 				}
-				closeInternal();
-			} else {
-				buffer.extractHeader();
-			}
-			
-			return result;
-		} catch (Exception e) {
-			if (conf.isDebugCombox()) {
-				LogWriter.writeDebugInfo("[ComboxSocket] Error while receiving data:" + e.getMessage());
 			}
-			closeInternal();
-			return -2;
+
+			return new Frame(packetConnectionID, requestIdPacket, data, messageLength);
 		}
 	}
 
@@ -180,15 +163,16 @@ public abstract class ComboxSocket<T extends Socket> extends Combox<T> {
 	 * stream.
 	 * 
 	 * @param temp
+	 * @param offset
 	 * @return
 	 * @throws IOException
 	 */
-	private boolean peakHeadInteger(byte[] temp) throws IOException {
+	private boolean peakHeadInteger(byte[] temp, int offset) throws IOException {
 		int read = 0;
 
 		// Get size
-		while (read < temp.length) {
-			int tempRead = inputStream.read(temp, read, temp.length - read);
+		while (read < Integer.BYTES) {
+			int tempRead = inputStream.read(temp, offset + read, Integer.BYTES - read);
 			if (tempRead < 0) {
 				closeInternal();
 				return true;
@@ -199,45 +183,51 @@ public abstract class ComboxSocket<T extends Socket> extends Combox<T> {
 		return false;
 	}
 
-	private int readPacket(POPBuffer buffer, int messageLength, int requestIdPacket, int packetConnectionID)
-			throws IOException {
-		
-		registerCommunication();
-
-		int result = 12;
-		buffer.putInt(messageLength);
-		messageLength = messageLength - 4;
-
-		buffer.putInt(packetConnectionID);
-		messageLength = messageLength - 4;
-
-		buffer.putInt(requestIdPacket);
-		messageLength = messageLength - 4;
-
-		int receivedLength = 0;
-		while (messageLength > 0) {
-			int count = messageLength < BUFFER_LENGTH ? messageLength : BUFFER_LENGTH;
-			receivedLength = inputStream.read(receivedBuffer, 0, count);
-			if (receivedLength > 0) {
-				messageLength -= receivedLength;
-				result += receivedLength;
-				buffer.put(receivedBuffer, 0, receivedLength);
-			} else {
-				break;
-			}
+	private POPBuffer decoder() {
+		BufferFactory factory = getBufferFactory();
+		if (decoderFactory != factory) {
+			decoderFactory = factory;
+			decoder = factory.createBuffer();
 		}
-		
-		return result;
+		return decoder;
+	}
+
+	private int translate(byte[] data, int offset) {
+		System.arraycopy(data, offset, header, 0, Integer.BYTES);
+		return decoder().getTranslatedInteger(header);
 	}
 
 	@Override
 	public int send(POPBuffer buffer) {
+		return write(buffer, true);
+	}
+
+	@Override
+	public int sendBatched(POPBuffer buffer) {
+		return write(buffer, false);
+	}
+
+	@Override
+	public boolean flush() {
+		try {
+			synchronized (outputStream) {
+				outputStream.flush();
+			}
+			return true;
+		} catch (Exception e) {
+			if (conf.isDebugCombox()) {
+				LogWriter.writeDebugInfo(
+						"[ComboxSocket] -Flush:  Error while sending data - " + e.getMessage() + " " + outputStream);
+			}
+			closeInternal();
+			return false;
+		}
+	}
 
-		long start = System.currentTimeMillis();
+	private int write(POPBuffer buffer, boolean flush) {
 		try {
 			buffer.packMessageHeader();
 			final int length = buffer.size();
-			final byte[] dataSend = buffer.array();
 
 			// new Exception().printStackTrace();
 			// System.out.println("SEND ID "+buffer.getHeader().getRequestID()+"
@@ -246,10 +236,14 @@ public abstract class ComboxSocket<T extends Socket> extends Combox<T> {
 
 			// System.out.println("Write "+length+" bytes to socket");
 			synchronized (outputStream) {
-				outputStream.write(dataSend, 0, length);
+				buffer.writeTo(outputStream);
 
-				outputStream.flush();
+				// the stream also sends what was kept by previous batched calls
+				if (flush) {
+					outputStream.flush();
+				}
 			}
+			registerSend();
 
 			return length;
 		} catch (Exception e) {
@@ -271,9 +265,15 @@ public abstract class ComboxSocket<T extends Socket> extends Combox<T> {
 		}
 	}
 
+	@Override
+	protected void connectionClosed(int connectionID) {
+		demultiplexer.discard(connectionID);
+	}
+
 	@Override
 	public void closeInternal() {
 		// new Exception("CLOSING COMBOX SOCKET "+this).printStackTrace();
+		demultiplexer.close();
 		try {
 			if (peerConnection != null && !peerConnection.isClosed()) {
 				/*
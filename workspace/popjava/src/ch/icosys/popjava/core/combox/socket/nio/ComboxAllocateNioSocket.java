@@ -0,0 +1,86 @@
+package ch.icosys.popjava.core.combox.socket.nio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+
+import ch.icosys.popjava.core.combox.ComboxAllocate;
+import ch.icosys.popjava.core.combox.ComboxUtils;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * This class is responsible to wait for the broker of a new object to connect
+ * with the nio protocol
+ */
+public class ComboxAllocateNioSocket extends ComboxAllocate<ComboxNioSocket> {
+
+	protected ServerSocketChannel serverChannel = null;
+
+	/**
+	 * Create a new instance of the ComboxAllocateNioSocket
+	 */
+	public ComboxAllocateNioSocket(boolean enableUPNP) {
+		try {
+			serverChannel = ComboxUtils.createServerSocketChannel(0,
+					ss -> ss.setSoTimeout(Configuration.getInstance().getConnectionTimeout()), enableUPNP);
+		} catch (IOException e) {
+			LogWriter.writeExceptionLog(e);
+		}
+	}
+
+	/**
+	 * Start the socket and wait for a connection
+	 */
+	@Override
+	public void startToAcceptOneConnection() {
+		try {
+			// the socket adaptor honors the timeout, the channel does not
+			Socket peerConnection = serverChannel.socket().accept();
+			combox = new ComboxNioSocket();
+			if (combox.serverAccept(null, peerConnection.getChannel())) {
+				combox.resumeReading();
+			}
+		} catch (IOException e) {
+			LogWriter.writeExceptionLog(e);
+		}
+	}
+
+	/**
+	 * Close the current connection
+	 */
+	@Override
+	public void close(int connectionID) {
+		super.close(connectionID);
+		try {
+			if (serverChannel != null && serverChannel.isOpen()) {
+				serverChannel.close();
+			}
+		} catch (IOException e) {
+		}
+	}
+
+	@Override
+	protected String getProtocol() {
+		return ComboxNioSocketFactory.PROTOCOL;
+	}
+
+	@Override
+	protected String getIP() {
+		InetAddress address = serverChannel.socket().getInetAddress();
+
+		String ip = address.getHostAddress();
+		if (address.isAnyLocalAddress()) {
+			ip = POPSystem.getHostIP().getAddress().getHostAddress();
+		}
+
+		return ip;
+	}
+
+	@Override
+	protected int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+}
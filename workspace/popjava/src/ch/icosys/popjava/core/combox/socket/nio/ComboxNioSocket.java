@@ -0,0 +1,654 @@
+package ch.icosys.popjava.core.combox.socket.nio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import ch.icosys.popjava.core.base.MessageHeader;
+import ch.icosys.popjava.core.baseobject.AccessPoint;
+import ch.icosys.popjava.core.broker.Broker;
+import ch.icosys.popjava.core.buffer.BufferFactory;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+import ch.icosys.popjava.core.combox.Combox;
+import ch.icosys.popjava.core.combox.ComboxConnection;
+import ch.icosys.popjava.core.combox.ComboxDemultiplexer;
+import ch.icosys.popjava.core.combox.ComboxDemultiplexer.Frame;
+import ch.icosys.popjava.core.combox.ComboxFactory;
+import ch.icosys.popjava.core.combox.ComboxReceiveRequest;
+import ch.icosys.popjava.core.combox.socket.ComboxSocket;
+import ch.icosys.popjava.core.combox.socket.nio.ComboxSelectorPool.SelectorThread;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.LogWriter;
+import ch.icosys.popjava.core.util.POPRemoteCaller;
+
+/**
+ * This combox implement the protocol Socket over a non-blocking channel. The
+ * messages are framed by a selector thread shared with other comboxes: requests
+ * for the broker are handed in order to a dispatcher thread, everything else is
+ * kept until a thread asks for it with {@link #receive(POPBuffer, int, int)}.
+ */
+public class ComboxNioSocket extends Combox<SocketChannel> {
+
+	protected static final ComboxFactory MY_FACTORY = new ComboxNioSocketFactory();
+
+	private static final int READ_BUFFER_LENGTH = 1024 * 8;
+
+	// stop reading the connection when that many requests wait for the broker
+	private static final int MAX_PENDING_DISPATCHES = 64;
+
+	private final Map<Integer, ComboxReceiveRequest> servedConnections = new ConcurrentHashMap<>();
+
+	private final ComboxDemultiplexer demultiplexer = new ComboxDemultiplexer(this::resumeReading);
+
+	private final Object handshakeLock = new Object();
+
+	private String receivedNetworkName = null;
+
+	private final Object writeLock = new Object();
+
+	// messages sent with sendBatched, guarded by the write lock
+	private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+
+	// writes straight to the channel, used with the write lock held
+	private final OutputStream channelOutput = new OutputStream() {
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			ComboxNioSocket.this.write(ByteBuffer.wrap(b, off, len));
+		}
+	};
+
+	// requests and combox messages waiting to be handed over, in arrival order
+	private final Queue<Runnable> dispatches = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pendingDispatches = new AtomicInteger();
+
+	private final AtomicBoolean throttled = new AtomicBoolean();
+
+	private volatile Selector writeSelector = null;
+
+	private volatile boolean closed = false;
+
+	private volatile SelectionKey key = null;
+
+	private SelectorThread selectorThread = null;
+
+	// only used by the selector thread
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_LENGTH);
+
+	private final byte[] intBytes = new byte[Integer.BYTES];
+
+	private byte[] frame = null;
+
+	private int framePosition = 0;
+
+	private boolean expectNetworkName = false;
+
+	private boolean handshake = false;
+
+	private boolean paused = false;
+
+	// an internal call is served, the messages after it wait
+	private volatile boolean servingInternal = false;
+
+	private BufferFactory decoderFactory = null;
+
+	private POPBuffer decoder = null;
+
+	/**
+	 * This is used by ServerCombox (server). Create a new combox from a server.
+	 * Call {@link #serverAccept(java.lang.Object) } to let the client connect.
+	 */
+	public ComboxNioSocket() {
+		super();
+	}
+
+	/**
+	 * This is used by Combox (client). Create a combox for a client. Call
+	 * {@link #connectToServer(ch.icosys.popjava.core.baseobject.POPAccessPoint, int) }
+	 * to actually connect the client.
+	 *
+	 * @param networkUUID
+	 *            the id of the network
+	 */
+	public ComboxNioSocket(String networkUUID) {
+		super(networkUUID);
+	}
+
+	@Override
+	protected boolean connectToServer() {
+		available = false;
+
+		List<AccessPoint> aps = ComboxSocket.getSortedAccessPoints(POPSystem.getHostIP(), accessPoint,
+				ComboxNioSocketFactory.PROTOCOL);
+
+		for (int i = 0; i < aps.size() && !available; i++) {
+			AccessPoint ap = aps.get(i);
+			SocketChannel channel = null;
+			try {
+				SocketAddress address = new InetSocketAddress(ap.getHost(), ap.getPort());
+				channel = SocketChannel.open();
+				if (timeOut > 0) {
+					channel.socket().connect(address, timeOut);
+				} else {
+					channel.connect(address);
+				}
+				channel.configureBlocking(false);
+				peerConnection = channel;
+				register();
+				available = true;
+			} catch (IOException e) {
+				available = false;
+				if (channel != null) {
+					try {
+						channel.close();
+					} catch (IOException e1) {
+					}
+				}
+				LogWriter.writeExceptionLog(e);
+			}
+		}
+		return available;
+	}
+
+	@Override
+	protected boolean serverAccept() {
+		try {
+			peerConnection.configureBlocking(false);
+			// the client starts with its network name, then its access point
+			expectNetworkName = true;
+			handshake = true;
+			register();
+			return true;
+		} catch (IOException e) {
+			LogWriter.writeDebugInfo("[ComboxNioSocket] Couldn't register the connection on the server side.");
+			return false;
+		}
+	}
+
+	@Override
+	protected boolean sendNetworkName() {
+		byte[] networkNameUTF8 = getNetworkUUID().getBytes(StandardCharsets.UTF_8);
+
+		ByteBuffer data = ByteBuffer.allocate(Integer.BYTES + networkNameUTF8.length);
+		data.putInt(networkNameUTF8.length);
+		data.put(networkNameUTF8);
+		data.flip();
+
+		try {
+			write(data);
+			return true;
+		} catch (IOException e) {
+			LogWriter.writeDebugInfo("[ComboxNioSocket] Couldn't send network name");
+			LogWriter.writeExceptionLog(e);
+			return false;
+		}
+	}
+
+	@Override
+	protected boolean receiveNetworkName() {
+		long deadline = System.currentTimeMillis() + conf.getConnectionTimeout();
+		synchronized (handshakeLock) {
+			while (receivedNetworkName == null && !closed) {
+				long wait = deadline - System.currentTimeMillis();
+				if (wait <= 0) {
+					break;
+				}
+				try {
+					handshakeLock.wait(wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if (receivedNetworkName == null) {
+				LogWriter.writeDebugInfo("[ComboxNioSocket] Couldn't read network name");
+				return false;
+			}
+			setNetworkUUID(receivedNetworkName);
+			return true;
+		}
+	}
+
+	@Override
+	protected boolean exportConnectionInfo() {
+		remoteCaller = new POPRemoteCaller(peerConnection.socket().getInetAddress(), MY_FACTORY.getComboxName(),
+				getNetworkUUID(), MY_FACTORY.isSecure());
+		return true;
+	}
+
+	@Override
+	protected void serveConnection(Broker broker, int connectionID) {
+		servedConnections.put(connectionID, new ComboxReceiveRequest(broker, broker.getRequestQueue(),
+				new ComboxConnection<>(this, connectionID)));
+	}
+
+	/**
+	 * Read what follows the handshake, call it once the connection is accepted
+	 * and its broker connection is served. Nothing is read while the broker or
+	 * the receivers don't keep up.
+	 */
+	void resumeReading() {
+		selectorThread.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (throttled.get() || servingInternal || demultiplexer.isFull()) {
+					return;
+				}
+				paused = false;
+				if (key != null && key.isValid()) {
+					key.interestOps(SelectionKey.OP_READ);
+					try {
+						// the client may have sent more than the handshake
+						processReadBuffer();
+					} catch (IOException | RuntimeException e) {
+						connectionLost(e);
+					}
+				}
+			}
+		});
+	}
+
+	@Override
+	public int send(POPBuffer buffer) {
+		return send(buffer, true);
+	}
+
+	@Override
+	public int sendBatched(POPBuffer buffer) {
+		return send(buffer, false);
+	}
+
+	@Override
+	public boolean flush() {
+		try {
+			synchronized (writeLock) {
+				writeBatch();
+			}
+			return true;
+		} catch (Exception e) {
+			if (conf.isDebugCombox()) {
+				LogWriter.writeDebugInfo("[ComboxNioSocket] -Flush:  Error while sending data - " + e.getMessage());
+			}
+			closeInternal();
+			return false;
+		}
+	}
+
+	private int send(POPBuffer buffer, boolean flush) {
+		try {
+			buffer.packMessageHeader();
+			final int length = buffer.size();
+			synchronized (writeLock) {
+				if (!flush && batch.size() + length <= READ_BUFFER_LENGTH) {
+					buffer.writeTo(batch);
+					return length;
+				}
+				// keep the order of the messages
+				writeBatch();
+				buffer.writeTo(channelOutput);
+			}
+			registerSend();
+			return length;
+		} catch (Exception e) {
+			if (conf.isDebugCombox()) {
+				LogWriter.writeDebugInfo("[ComboxNioSocket] -Send:  Error while sending data - " + e.getMessage());
+			}
+			closeInternal();
+			return -1;
+		}
+	}
+
+	@Override
+	public int receive(POPBuffer buffer, int requestId, int connectionID) {
+		return receive(buffer, id -> requestId == -1 || id == requestId, connectionID);
+	}
+
+	@Override
+	public int receive(POPBuffer buffer, IntPredicate requests, int connectionID) {
+		Frame received;
+		try {
+			received = demultiplexer.receive(connectionID, requests);
+		} catch (IOException e) {
+			return -1;
+		}
+		if (received == null) {
+			return -1;
+		}
+
+		fillBuffer(buffer, received.getData());
+		return received.getData().length;
+	}
+
+	@Override
+	protected void connectionClosed(int connectionID) {
+		demultiplexer.discard(connectionID);
+	}
+
+	@Override
+	public void closeInternal() {
+		closed = true;
+		if (key != null) {
+			key.cancel();
+		}
+		if (peerConnection != null) {
+			try {
+				peerConnection.close();
+			} catch (IOException e) {
+			}
+		}
+		Selector selector = writeSelector;
+		if (selector != null) {
+			try {
+				selector.close();
+			} catch (IOException e) {
+			}
+		}
+		demultiplexer.close();
+		synchronized (handshakeLock) {
+			handshakeLock.notifyAll();
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (peerConnection != null) {
+			return peerConnection.toString();
+		}
+
+		return "Closed";
+	}
+
+	/**
+	 * Called by the selector thread when data is available on the channel
+	 */
+	void onReadable() {
+		try {
+			int read;
+			if (frame != null && readBuffer.position() == 0) {
+				// nothing buffered, read the rest of the message where it belongs
+				read = peerConnection.read(ByteBuffer.wrap(frame, framePosition, frame.length - framePosition));
+				if (read > 0) {
+					framePosition += read;
+					if (framePosition == frame.length) {
+						frameComplete();
+					}
+				}
+			} else {
+				read = peerConnection.read(readBuffer);
+				if (read > 0) {
+					processReadBuffer();
+				}
+			}
+
+			if (read < 0) {
+				connectionLost(null);
+			}
+		} catch (IOException | RuntimeException e) {
+			connectionLost(e);
+		}
+	}
+
+	private void register() throws IOException {
+		selectorThread = ComboxSelectorPool.getInstance().nextThread();
+		selectorThread.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					key = selectorThread.register(peerConnection, ComboxNioSocket.this);
+				} catch (IOException e) {
+					connectionLost(e);
+				}
+			}
+		});
+	}
+
+	private void processReadBuffer() throws IOException {
+		readBuffer.flip();
+		try {
+			while (!paused && parseNext()) {
+			}
+		} finally {
+			readBuffer.compact();
+		}
+	}
+
+	/**
+	 * Consume the read buffer
+	 *
+	 * @return true if something was consumed and we should continue
+	 * @throws IOException
+	 *             if the peer does not respect the protocol
+	 */
+	private boolean parseNext() throws IOException {
+		if (frame == null) {
+			if (readBuffer.remaining() < Integer.BYTES) {
+				return false;
+			}
+
+			if (expectNetworkName) {
+				int length = readBuffer.getInt(readBuffer.position());
+				if (length < 0 || length > readBuffer.capacity() - Integer.BYTES) {
+					throw new IOException("Invalid network name length " + length);
+				}
+				if (readBuffer.remaining() < Integer.BYTES + length) {
+					return false;
+				}
+				readBuffer.getInt();
+				byte[] networkName = new byte[length];
+				readBuffer.get(networkName);
+				expectNetworkName = false;
+				synchronized (handshakeLock) {
+					receivedNetworkName = new String(networkName, StandardCharsets.UTF_8);
+					handshakeLock.notifyAll();
+				}
+				return true;
+			}
+
+			readBuffer.get(intBytes);
+			int messageLength = decoder().getTranslatedInteger(intBytes);
+			if (messageLength < MessageHeader.HEADER_LENGTH || messageLength > conf.getComboxMaxMessageLength()) {
+				throw new IOException("Invalid message length " + messageLength);
+			}
+			frame = new byte[messageLength];
+			System.arraycopy(intBytes, 0, frame, 0, Integer.BYTES);
+			framePosition = Integer.BYTES;
+		}
+
+		int count = Math.min(readBuffer.remaining(), frame.length - framePosition);
+		readBuffer.get(frame, framePosition, count);
+		framePosition += count;
+		if (framePosition < frame.length) {
+			return false;
+		}
+
+		frameComplete();
+		return true;
+	}
+
+	private void frameComplete() {
+		byte[] data = frame;
+		frame = null;
+		registerCommunication();
+
+		int connectionID = translate(data, 4);
+		int requestID = translate(data, 8);
+
+		if (handshake) {
+			// wait until the connection is bound before reading further
+			handshake = false;
+			paused = true;
+			key.interestOps(0);
+		}
+
+		if (connectionID == 0 && requestID == 2) {
+			POPBuffer buffer = getBufferFactory().createBuffer();
+			fillBuffer(buffer, data);
+			if (buffer.getHeader().getRequestType() != MessageHeader.RESPONSE) {
+				dispatch(() -> handleComboxMessages(buffer));
+				return;
+			}
+		} else {
+			ComboxReceiveRequest receiver = servedConnections.get(connectionID);
+			if (receiver != null) {
+				POPBuffer buffer = getBufferFactory().createBuffer();
+				fillBuffer(buffer, data);
+				if (buffer.getHeader().getMethodId() < Broker.BASIC_CALL_MAX_RANGE) {
+					// an internal call can change the encoding of the next messages
+					paused = true;
+					servingInternal = true;
+					key.interestOps(0);
+					dispatch(() -> {
+						try {
+							receiver.serveRequest(buffer);
+						} finally {
+							servingInternal = false;
+							resumeReading();
+						}
+					});
+				} else {
+					dispatch(() -> receiver.serveRequest(buffer));
+				}
+				return;
+			}
+		}
+
+		// nobody takes the messages, let the peer wait like with a blocking socket
+		if (!demultiplexer.offer(new Frame(connectionID, requestID, data))) {
+			paused = true;
+			key.interestOps(0);
+		}
+	}
+
+	/**
+	 * Hand a message over outside of the selector thread, the messages of a
+	 * combox keep their order. Called by the selector thread.
+	 */
+	private void dispatch(Runnable task) {
+		dispatches.add(task);
+		int pending = pendingDispatches.incrementAndGet();
+		if (pending == 1) {
+			try {
+				ComboxSelectorPool.getInstance().dispatch(this::runDispatches);
+			} catch (IOException e) {
+				connectionLost(e);
+				return;
+			}
+		}
+
+		// the broker doesn't keep up, let the peer wait like with a blocking socket
+		if (pending > MAX_PENDING_DISPATCHES && !paused) {
+			paused = true;
+			key.interestOps(0);
+			throttled.set(true);
+			// the dispatcher may have caught up before seeing the flag
+			if (pendingDispatches.get() <= MAX_PENDING_DISPATCHES / 2 && throttled.compareAndSet(true, false)) {
+				paused = false;
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		}
+	}
+
+	private void runDispatches() {
+		int pending;
+		do {
+			Runnable task = dispatches.poll();
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				LogWriter.writeExceptionLog(e);
+			}
+			pending = pendingDispatches.decrementAndGet();
+			if (pending <= MAX_PENDING_DISPATCHES / 2 && throttled.compareAndSet(true, false)) {
+				resumeReading();
+			}
+		} while (pending > 0);
+	}
+
+	private void connectionLost(Exception e) {
+		if (e != null && conf.isDebugCombox()) {
+			LogWriter.writeDebugInfo("[ComboxNioSocket] Error while receiving data:" + e.getMessage());
+		}
+		closeInternal();
+		for (Integer connectionID : servedConnections.keySet()) {
+			ComboxReceiveRequest receiver = servedConnections.remove(connectionID);
+			if (receiver != null) {
+				receiver.close();
+			}
+		}
+	}
+
+	/**
+	 * Must hold the write lock
+	 */
+	private void writeBatch() throws IOException {
+		if (batch.size() > 0) {
+			write(ByteBuffer.wrap(batch.toByteArray()));
+			batch.reset();
+		}
+	}
+
+	private void write(ByteBuffer data) throws IOException {
+		synchronized (writeLock) {
+			while (data.hasRemaining()) {
+				if (peerConnection.write(data) == 0) {
+					awaitWritable();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The socket buffer is full, wait for the peer to read. Uses its own selector,
+	 * the shared ones only watch for incoming data.
+	 */
+	private void awaitWritable() throws IOException {
+		if (writeSelector == null) {
+			writeSelector = Selector.open();
+			peerConnection.register(writeSelector, SelectionKey.OP_WRITE);
+		}
+		writeSelector.select();
+		writeSelector.selectedKeys().clear();
+		if (closed) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	private void fillBuffer(POPBuffer buffer, byte[] data) {
+		buffer.receive(data);
+	}
+
+	private POPBuffer decoder() {
+		BufferFactory factory = getBufferFactory();
+		if (decoderFactory != factory) {
+			decoderFactory = factory;
+			decoder = factory.createBuffer();
+		}
+		return decoder;
+	}
+
+	private int translate(byte[] data, int offset) {
+		System.arraycopy(data, offset, intBytes, 0, Integer.BYTES);
+		return decoder().getTranslatedInteger(intBytes);
+	}
+}
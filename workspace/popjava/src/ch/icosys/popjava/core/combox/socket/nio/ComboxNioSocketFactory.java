@@ -0,0 +1,67 @@
+package ch.icosys.popjava.core.combox.socket.nio;
+
+import java.io.IOException;
+
+import ch.icosys.popjava.core.baseobject.AccessPoint;
+import ch.icosys.popjava.core.broker.Broker;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+import ch.icosys.popjava.core.combox.Combox;
+import ch.icosys.popjava.core.combox.ComboxAllocate;
+import ch.icosys.popjava.core.combox.ComboxFactory;
+import ch.icosys.popjava.core.combox.ComboxServer;
+import ch.icosys.popjava.core.util.Configuration;
+
+/**
+ * This class is the factory for the non-blocking socket combox, all the
+ * connections of the JVM are read by a few selector threads.
+ */
+public class ComboxNioSocketFactory extends ComboxFactory {
+	/**
+	 * Name of the implemented protocol
+	 */
+	public static final String PROTOCOL = "nio";
+
+	private static final Configuration conf = Configuration.getInstance();
+
+	@Override
+	public String getComboxName() {
+		return PROTOCOL;
+	}
+
+	@Override
+	public Combox<?> createClientCombox(String networkUUID) {
+		return new ComboxNioSocket(networkUUID);
+	}
+
+	@Override
+	public ComboxServer createServerCombox(AccessPoint accessPoint, POPBuffer buffer, Broker broker)
+			throws IOException {
+		return createServerCombox(accessPoint, conf.getConnectionTimeout(), buffer, broker);
+	}
+
+	@Override
+	public ComboxServer createServerCombox(AccessPoint accessPoint, int timeout, POPBuffer buffer, Broker broker)
+			throws IOException {
+		return new ComboxServerNioSocket(accessPoint, timeout, broker);
+	}
+
+	@Override
+	public ComboxAllocate<?> createAllocateCombox(boolean enableUPNP) {
+		return new ComboxAllocateNioSocket(enableUPNP);
+	}
+
+	@Override
+	public boolean isSecure() {
+		return false;
+	}
+
+	/**
+	 * Only used by the objects asking for it, a broker doesn't open one more port
+	 * by default
+	 */
+	@Override
+	public boolean isDefault() {
+		return false;
+	}
+
+}
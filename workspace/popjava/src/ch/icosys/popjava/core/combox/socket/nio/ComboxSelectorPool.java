@@ -0,0 +1,153 @@
+package ch.icosys.popjava.core.combox.socket.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * The threads reading the connections of all the nio comboxes of the JVM. Each
+ * thread owns a selector and the connections are spread between them. What can
+ * block, like handing a request to a full broker queue, runs on the dispatchers
+ * so a selector never stops reading the other connections.
+ */
+final class ComboxSelectorPool {
+
+	private static ComboxSelectorPool instance = null;
+
+	private final SelectorThread[] threads;
+
+	private final AtomicInteger dispatcherIndex = new AtomicInteger();
+
+	// a combox uses at most one dispatcher at a time
+	private final ExecutorService dispatchers = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Combox nio dispatcher " + dispatcherIndex.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicInteger nextThread = new AtomicInteger();
+
+	private ComboxSelectorPool(int size) throws IOException {
+		threads = new SelectorThread[size];
+		for (int i = 0; i < size; i++) {
+			threads[i] = new SelectorThread(i);
+			threads[i].start();
+		}
+	}
+
+	/**
+	 * Get the pool, the threads are started on first use
+	 *
+	 * @return the unique instance of the pool
+	 * @throws IOException
+	 *             if the selectors can't be opened
+	 */
+	static synchronized ComboxSelectorPool getInstance() throws IOException {
+		if (instance == null) {
+			instance = new ComboxSelectorPool(Math.max(1, Configuration.getInstance().getNioSelectorThreads()));
+		}
+		return instance;
+	}
+
+	/**
+	 * Choose the thread which will read a combox
+	 *
+	 * @return the next thread in round robin
+	 */
+	SelectorThread nextThread() {
+		return threads[Math.floorMod(nextThread.getAndIncrement(), threads.length)];
+	}
+
+	/**
+	 * Run a task which may block outside of the selector threads
+	 *
+	 * @param task
+	 *            the task to run
+	 */
+	void dispatch(Runnable task) {
+		dispatchers.execute(task);
+	}
+
+	/**
+	 * A selector and the thread waiting on it. Everything touching the selector
+	 * keys is run on this thread with {@link #execute(Runnable)}.
+	 */
+	static final class SelectorThread extends Thread {
+
+		private final Selector selector;
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private SelectorThread(int index) throws IOException {
+			super("Combox nio selector " + index);
+			setDaemon(true);
+			selector = Selector.open();
+		}
+
+		/**
+		 * Run a task on the selector thread
+		 *
+		 * @param task
+		 *            the task to run
+		 */
+		void execute(Runnable task) {
+			tasks.add(task);
+			selector.wakeup();
+		}
+
+		/**
+		 * Start watching a channel for incoming data, must be called on the selector
+		 * thread
+		 *
+		 * @param channel
+		 *            the non-blocking channel
+		 * @param combox
+		 *            the combox notified when data arrives
+		 * @return the key of the registration
+		 * @throws IOException
+		 *             if the channel is closed
+		 */
+		SelectionKey register(SocketChannel channel, ComboxNioSocket combox) throws IOException {
+			return channel.register(selector, SelectionKey.OP_READ, combox);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				try {
+					selector.select();
+
+					Runnable task;
+					while ((task = tasks.poll()) != null) {
+						try {
+							task.run();
+						} catch (RuntimeException e) {
+							LogWriter.writeExceptionLog(e);
+						}
+					}
+
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						if (key.isValid()) {
+							((ComboxNioSocket) key.attachment()).onReadable();
+						}
+					}
+				} catch (IOException e) {
+					LogWriter.writeExceptionLog(e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package ch.icosys.popjava.core.combox.socket.nio;
+
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import ch.icosys.popjava.core.baseobject.AccessPoint;
+import ch.icosys.popjava.core.broker.Broker;
+import ch.icosys.popjava.core.combox.ComboxServer;
+import ch.icosys.popjava.core.combox.ComboxUtils;
+import ch.icosys.popjava.core.util.LogWriter;
+
+/**
+ * This class is an implementation of the combox with the protocol nio for the
+ * server side. One thread accepts the connections, once accepted they are read
+ * by the shared selector threads.
+ */
+public class ComboxServerNioSocket extends ComboxServer {
+
+	private final int RECEIVE_BUFFER_SIZE = 1024 * 8 * 500;
+
+	protected final ServerSocketChannel serverChannel;
+
+	private final Queue<ComboxNioSocket> connections = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Default constructor. Create a new instance of a nio combox
+	 *
+	 * @param accessPoint
+	 *            Access point of the combox
+	 * @param timeout
+	 *            Connection timeout
+	 * @param broker
+	 *            Broker associated with this combox
+	 * @throws java.io.IOException
+	 *             if any problem occurs
+	 */
+	public ComboxServerNioSocket(AccessPoint accessPoint, int timeout, Broker broker) throws IOException {
+		super(accessPoint, timeout, broker);
+		serverChannel = ComboxUtils.createServerSocketChannel(accessPoint.getPort(),
+				ss -> ss.setReceiveBufferSize(RECEIVE_BUFFER_SIZE), broker.isUPNPEnabled());
+		status = RUNNING;
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptConnections();
+			}
+		}, "Server combox acception thread");
+		thread.start();
+		accessPoint.setProtocol(ComboxNioSocketFactory.PROTOCOL);
+		accessPoint.setPort(serverChannel.socket().getLocalPort());
+	}
+
+	private void acceptConnections() {
+		while (status != EXIT) {
+			try {
+				SocketChannel connection = serverChannel.accept();
+				if (broker != null) {
+					broker.onNewConnection();
+				}
+				ComboxNioSocket serverClient = new ComboxNioSocket();
+
+				if (serverClient.serverAccept(broker, connection)) {
+					serverClient.serveConnection(broker, 1);
+					serverClient.resumeReading();
+					connections.add(serverClient);
+				} else {
+					serverClient.closeInternal();
+				}
+			} catch (IOException e) {
+				LogWriter.writeDebugInfo("[Nio Accept] Error while setting up connection: %s", e.getMessage());
+			}
+		}
+
+		LogWriter.writeDebugInfo("[Nio Accept] Combox Server finished");
+		close();
+	}
+
+	@Override
+	public void close() {
+		status = EXIT;
+		for (ComboxNioSocket connection : connections) {
+			connection.closeInternal();
+		}
+		try {
+			if (serverChannel.isOpen()) {
+				serverChannel.close();
+			}
+		} catch (IOException e) {
+		}
+	}
+}
@@ -2,7 +2,7 @@ package ch.icosys.popjava.core.combox.socket.raw;
 
 import java.net.*;
 import ch.icosys.popjava.core.broker.Broker;
-import ch.icosys.popjava.core.broker.RequestQueue;
+import ch.icosys.popjava.core.broker.RequestScheduler;
 import ch.icosys.popjava.core.combox.socket.ComboxAcceptSocket;
 import ch.icosys.popjava.core.util.LogWriter;
 
@@ -24,7 +24,7 @@ public class ComboxAcceptRawSocket extends ComboxAcceptSocket<Socket> {
 	 * @param socket
 	 *            The associated combox socket
 	 */
-	public ComboxAcceptRawSocket(Broker broker, RequestQueue requestQueue, ServerSocket socket) {
+	public ComboxAcceptRawSocket(Broker broker, RequestScheduler requestQueue, ServerSocket socket) {
 		super(broker, requestQueue, socket);
 	}
 
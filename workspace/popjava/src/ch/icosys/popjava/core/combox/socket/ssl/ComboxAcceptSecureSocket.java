@@ -13,7 +13,7 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
 import ch.icosys.popjava.core.broker.Broker;
-import ch.icosys.popjava.core.broker.RequestQueue;
+import ch.icosys.popjava.core.broker.RequestScheduler;
 import ch.icosys.popjava.core.combox.socket.ComboxAcceptSocket;
 import ch.icosys.popjava.core.util.LogWriter;
 import ch.icosys.popjava.core.util.ssl.SSLUtils;
@@ -38,7 +38,7 @@ public class ComboxAcceptSecureSocket extends ComboxAcceptSocket<SSLSocket> {
 	 * @throws java.io.IOException
 	 *             if any problem occurs
 	 */
-	public ComboxAcceptSecureSocket(Broker broker, RequestQueue requestQueue, ServerSocket serverSocket)
+	public ComboxAcceptSecureSocket(Broker broker, RequestScheduler requestQueue, ServerSocket serverSocket)
 			throws IOException {
 		super(broker, requestQueue, serverSocket);
 
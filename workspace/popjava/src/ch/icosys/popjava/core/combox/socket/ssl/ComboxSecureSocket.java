@@ -4,10 +4,12 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.SocketAddress;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import javax.net.ssl.ExtendedSSLSession;
 import javax.net.ssl.SNIHostName;
 import javax.net.ssl.SNIServerName;
@@ -32,6 +34,10 @@ public class ComboxSecureSocket extends ComboxSocket<SSLSocket> {
 
 	protected static final ComboxFactory MY_FACTORY = new ComboxSecureSocketFactory();
 
+	private static final LongAdder handshakes = new LongAdder();
+
+	private static final LongAdder resumedHandshakes = new LongAdder();
+
 	/**
 	 * This is used by ServerCombox (server). Create a new combox from a server.
 	 * Call {@link #serverAccept(java.lang.Object) } to let the client connect.
@@ -76,17 +82,16 @@ public class ComboxSecureSocket extends ComboxSocket<SSLSocket> {
 					try {
 						// Create an unbound socket
 						SocketAddress sockaddress = new InetSocketAddress(host, port);
-						if (timeOut > 0) {
-							peerConnection = (SSLSocket) factory.createSocket();
-
-							// LogWriter.writeExceptionLog(new Exception());
-							// LogWriter.writeExceptionLog(new Exception("Open
-							// connection to "+host+":"+port+" remote:
-							// "+peerConnection.getLocalPort()));
-						} else {
-							peerConnection = (SSLSocket) factory.createSocket();
+						if (timeOut <= 0) {
 							timeOut = 0;
 						}
+						Socket socket = new Socket();
+						socket.connect(sockaddress);
+
+						// sessions are cached by host and port, the network is part of
+						// the host so a session is only resumed in the same network
+						peerConnection = (SSLSocket) factory.createSocket(socket, getNetworkUUID() + "@" + host, port,
+								true);
 						peerConnection.setUseClientMode(true);
 
 						// setup SNI
@@ -99,9 +104,6 @@ public class ComboxSecureSocket extends ComboxSocket<SSLSocket> {
 						parameters.setServerNames(nets);
 						peerConnection.setSSLParameters(parameters);
 
-						// connect and start handshake
-						peerConnection.connect(sockaddress);
-
 						// setup communication buffers
 						inputStream = new BufferedInputStream(peerConnection.getInputStream());
 						outputStream = new BufferedOutputStream(peerConnection.getOutputStream());
@@ -126,10 +128,30 @@ public class ComboxSecureSocket extends ComboxSocket<SSLSocket> {
 		return available;
 	}
 
+	/**
+	 * @return the number of handshakes made by the clients of this JVM
+	 */
+	public static long getHandshakes() {
+		return handshakes.sum();
+	}
+
+	/**
+	 * @return the number of client handshakes which resumed a previous session
+	 */
+	public static long getResumedHandshakes() {
+		return resumedHandshakes.sum();
+	}
+
 	@Override
 	protected boolean sendNetworkName() {
 		try {
+			long start = System.currentTimeMillis();
 			peerConnection.startHandshake();
+			handshakes.increment();
+			// a resumed session was created by a previous handshake
+			if (peerConnection.getSession().getCreationTime() < start) {
+				resumedHandshakes.increment();
+			}
 			return true;
 		} catch (Exception e) {
 			LogWriter.writeDebugInfo("[ComboxSecureSocket] Client handshake failed. Message: %s", e.getMessage());
@@ -13,10 +13,9 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import javax.net.ssl.TrustManager;
@@ -34,31 +33,35 @@ import ch.icosys.popjava.core.util.ssl.SSLUtils;
  * auto-reload. See
  * https://jcalcote.wordpress.com/2010/06/22/managing-a-dynamic-java-trust-store/
  * 
+ * Only a change of the keystore reloads everything, the temporary certificates
+ * are added to and removed from the {@link TrustIndex} one by one.
+ * 
  * @author John Calcote
  * @author Davide Mazzoleni
  */
 public class POPTrustManager implements X509TrustManager {
 
 	private class TemporaryDirectoryWatcher extends WatchDirectory.WatchMethod {
+		private final Path directory;
+
+		public TemporaryDirectoryWatcher(Path directory) {
+			this.directory = directory;
+		}
+
 		@Override
 		public void create(String file) {
 			if (file.endsWith(".cer")) {
-				reload();
+				loadTemporaryCertificate(index, directory.resolve(file).toFile());
 			}
 		}
 
 		@Override
 		public void delete(String file) {
 			if (file.endsWith(".cer")) {
-				reload();
-			}
-		}
-
-		private void reload() {
-			try {
-				// reload certificates
-				reloadTrustManager();
-			} catch (Exception e) {
+				String fingerprint = index.removeTemporaryCertificate(file);
+				if (fingerprint != null) {
+					SSLUtils.invalidateSSLSessions(Collections.singleton(fingerprint));
+				}
 			}
 		}
 	}
@@ -89,20 +92,12 @@ public class POPTrustManager implements X509TrustManager {
 
 	private final Configuration conf = Configuration.getInstance();
 
-	// certificates store
-	private X509TrustManager trustManager;
+	// certificates store, only the keystore, the temporary certificates are
+	// checked with the index
+	private volatile X509TrustManager trustManager;
 
-	// Map[Fingerprint, Certificate]
-	private final Map<String, Certificate> loadedCertificates = new HashMap<>();
-
-	// Set[Fingerprint]
-	private final Set<String> confidenceCertificates = new HashSet<>();
-
-	// Map[Fingerprint, Network]
-	private final Map<String, String> certificatesNetwork = new HashMap<>();
-
-	// Map[Alias, Certificate]
-	private final Map<String, Certificate> aliasCertificates = new HashMap<>();
+	// every known certificate, replaced when the keystore is reloaded
+	private volatile TrustIndex index = new TrustIndex();
 
 	// reload and add new certificates
 	private WatchDirectory temporaryWatcher;
@@ -115,17 +110,33 @@ public class POPTrustManager implements X509TrustManager {
 
 	@Override
 	public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-		trustManager.checkClientTrusted(chain, authType);
+		if (!isTemporaryTrusted(chain)) {
+			trustManager.checkClientTrusted(chain, authType);
+		}
 	}
 
 	@Override
 	public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-		trustManager.checkServerTrusted(chain, authType);
+		if (!isTemporaryTrusted(chain)) {
+			trustManager.checkServerTrusted(chain, authType);
+		}
 	}
 
 	@Override
 	public X509Certificate[] getAcceptedIssuers() {
-		return trustManager.getAcceptedIssuers();
+		return index.getAcceptedIssuers();
+	}
+
+	/**
+	 * The certificates of the nodes are self-signed, a chain is trusted if its
+	 * certificate is a valid temporary certificate
+	 */
+	private boolean isTemporaryTrusted(X509Certificate[] chain) throws CertificateException {
+		if (chain == null || chain.length == 0 || !index.isTemporary(SSLUtils.certificateFingerprint(chain[0]))) {
+			return false;
+		}
+		chain[0].checkValidity();
+		return true;
 	}
 
 	/**
@@ -136,7 +147,7 @@ public class POPTrustManager implements X509TrustManager {
 	 * @return true if it's a confidence link, false otherwise
 	 */
 	public boolean isConfidenceLink(String fingerprint) {
-		return confidenceCertificates.contains(fingerprint);
+		return index.isConfidenceLink(fingerprint);
 	}
 
 	/**
@@ -147,27 +158,57 @@ public class POPTrustManager implements X509TrustManager {
 	 * @return the certificate or null if unknown
 	 */
 	public String getNetworkFromFingerprint(String fingerprint) {
-		return certificatesNetwork.get(fingerprint);
+		return index.getNetwork(fingerprint);
+	}
+
+	/**
+	 * Add a temporary certificate to the trusted ones, without reloading the
+	 * keystore
+	 * 
+	 * @param fileName
+	 *            the name of the certificate in the temporary directory
+	 * @param cert
+	 *            the certificate
+	 * @return false if the certificate was already known
+	 */
+	public boolean addTemporaryCertificate(String fileName, Certificate cert) {
+		return index.addTemporaryCertificate(fileName, cert);
+	}
+
+	/**
+	 * Load a certificate of the temporary directory in an index
+	 */
+	private void loadTemporaryCertificate(TrustIndex trustIndex, File file) {
+		try {
+			Certificate cert = SSLUtils.certificateFromBytes(Files.readAllBytes(file.toPath()));
+			trustIndex.addTemporaryCertificate(file.getName(), cert);
+		} catch (Exception e) {
+		}
 	}
 
 	/**
-	 * Refresh loadedCertificates after a reload of the keystore or of the temp dir
+	 * Invalidate the SSL sessions of the certificates which were removed or
+	 * changed of network or confidence
 	 */
-	private void saveCertificatesToMemory() {
-		Map<String, Certificate> temp = new HashMap<>();
-		Certificate[] certificates = getAcceptedIssuers();
-		for (Certificate cert : certificates) {
-			temp.put(SSLUtils.certificateFingerprint(cert), cert);
+	private void invalidateChangedSessions(TrustIndex previous, TrustIndex current) {
+		Set<String> changed = new HashSet<>();
+		for (String fingerprint : previous.getFingerprints()) {
+			if (current.getCertificate(fingerprint) == null
+					|| previous.isConfidenceLink(fingerprint) != current.isConfidenceLink(fingerprint)
+					|| !Objects.equals(previous.getNetwork(fingerprint), current.getNetwork(fingerprint))) {
+				changed.add(fingerprint);
+			}
+		}
+		if (!changed.isEmpty()) {
+			LogWriter.writeDebugInfo("[TrustManager] invalidating sessions of %d certificates", changed.size());
+			SSLUtils.invalidateSSLSessions(changed);
 		}
-		// empty and swap
-		loadedCertificates.clear();
-		loadedCertificates.putAll(temp);
 	}
 
 	public final void reloadTrustManager()
 			throws IOException, KeyStoreException, CertificateException, NoSuchAlgorithmException {
 		long start = System.currentTimeMillis();
-		SSLUtils.invalidateSSLSessions();
+		TrustIndex trustIndex = new TrustIndex();
 		// load keystore from specified cert store (or default)
 		KeyStore trustedKS = KeyStore.getInstance(conf.getSSLKeyStoreFormat().name());
 		try (InputStream trustedStore = new FileInputStream(conf.getSSLKeyStoreFile())) {
@@ -176,24 +217,9 @@ public class POPTrustManager implements X509TrustManager {
 		}
 
 		// mark certificate in the keystore as confidence certificates
-		confidenceCertificates.clear();
 		for (Enumeration<String> certAlias = trustedKS.aliases(); certAlias.hasMoreElements();) {
 			String alias = certAlias.nextElement();
-			Certificate cert = trustedKS.getCertificate(alias);
-			String fingerprint = SSLUtils.certificateFingerprint(cert);
-			confidenceCertificates.add(fingerprint);
-
-			// extract network or leave the alias as the fingerprint
-			int atLocation = alias.indexOf('@');
-			if (atLocation >= 0) {
-				String network = alias.substring(atLocation + 1);
-				certificatesNetwork.put(fingerprint, network);
-			} else {
-				certificatesNetwork.put(fingerprint, alias);
-			}
-
-			// save for the alias -> certificate matcher
-			aliasCertificates.put(alias, cert);
+			trustIndex.addConfidenceCertificate(alias, trustedKS.getCertificate(alias));
 		}
 
 		// add temporary certificates
@@ -203,12 +229,7 @@ public class POPTrustManager implements X509TrustManager {
 			if (tempCertDir.exists()) {
 				for (File file : tempCertDir.listFiles()) {
 					if (file.isFile() && file.getName().endsWith(".cer")) {
-						try {
-							Certificate cert = SSLUtils.certificateFromBytes(Files.readAllBytes(file.toPath()));
-							String alias = file.getName().substring(0, file.getName().length() - 4);
-							trustedKS.setCertificateEntry(alias, cert);
-						} catch (Exception e) {
-						}
+						loadTemporaryCertificate(trustIndex, file);
 					}
 				}
 			}
@@ -233,7 +254,8 @@ public class POPTrustManager implements X509TrustManager {
 				}
 
 				if (createWatcher) {
-					temporaryWatcher = new WatchDirectory(tempCertDir.toPath(), new TemporaryDirectoryWatcher(),
+					temporaryWatcher = new WatchDirectory(tempCertDir.toPath(),
+							new TemporaryDirectoryWatcher(tempCertDir.toPath()),
 							StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
 					Thread dirWatcher = new Thread(temporaryWatcher, "TrustStore temporary folder watcher");
 					dirWatcher.setDaemon(true);
@@ -279,8 +301,10 @@ public class POPTrustManager implements X509TrustManager {
 		TrustManager tms[] = tmf.getTrustManagers();
 		for (TrustManager tm : tms) {
 			if (tm instanceof X509TrustManager) {
+				TrustIndex previous = index;
 				trustManager = (X509TrustManager) tm;
-				saveCertificatesToMemory();
+				index = trustIndex;
+				invalidateChangedSessions(previous, trustIndex);
 				return;
 			}
 		}
@@ -296,7 +320,7 @@ public class POPTrustManager implements X509TrustManager {
 	 * @return true is known, false otherwise
 	 */
 	public boolean isCertificateKnown(Certificate cert) {
-		return loadedCertificates.values().contains(cert);
+		return cert.equals(index.getCertificate(SSLUtils.certificateFingerprint(cert)));
 	}
 
 	/**
@@ -307,7 +331,7 @@ public class POPTrustManager implements X509TrustManager {
 	 * @return the certificate or null if unknown
 	 */
 	public Certificate getCertificate(String fingerprint) {
-		return loadedCertificates.get(fingerprint);
+		return index.getCertificate(fingerprint);
 	}
 
 	/**
@@ -319,6 +343,6 @@ public class POPTrustManager implements X509TrustManager {
 	 */
 	public Certificate getCertificateFromAlias(String uuid) {
 		Objects.requireNonNull(uuid);
-		return aliasCertificates.get(uuid.toLowerCase());
+		return index.getCertificateFromAlias(uuid.toLowerCase());
 	}
 }
@@ -0,0 +1,132 @@
+package ch.icosys.popjava.core.combox.socket.ssl;
+
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ch.icosys.popjava.core.util.ssl.SSLUtils;
+
+/**
+ * The certificates known by the trust manager, by fingerprint. The keystore
+ * part is filled once when the index is built, a change of the keystore builds
+ * a new index. The temporary certificates are added and removed in place.
+ */
+final class TrustIndex {
+
+	// Map[Fingerprint, Certificate]
+	private final Map<String, Certificate> certificates = new ConcurrentHashMap<>();
+
+	// Set[Fingerprint]
+	private final Set<String> confidenceCertificates = ConcurrentHashMap.newKeySet();
+
+	// Map[Fingerprint, Network]
+	private final Map<String, String> certificatesNetwork = new ConcurrentHashMap<>();
+
+	// Map[Alias, Certificate]
+	private final Map<String, Certificate> aliasCertificates = new ConcurrentHashMap<>();
+
+	// Map[File name, Fingerprint]
+	private final Map<String, String> temporaryCertificates = new ConcurrentHashMap<>();
+
+	// every certificate, computed again after a change, guarded by this
+	private X509Certificate[] acceptedIssuers;
+
+	/**
+	 * Add a certificate of the keystore
+	 *
+	 * @param alias
+	 *            the alias of the certificate, network@node or the network
+	 * @param cert
+	 *            the certificate
+	 */
+	void addConfidenceCertificate(String alias, Certificate cert) {
+		String fingerprint = SSLUtils.certificateFingerprint(cert);
+		certificates.put(fingerprint, cert);
+		confidenceCertificates.add(fingerprint);
+
+		// extract network or leave the alias as the fingerprint
+		int atLocation = alias.indexOf('@');
+		if (atLocation >= 0) {
+			certificatesNetwork.put(fingerprint, alias.substring(atLocation + 1));
+		} else {
+			certificatesNetwork.put(fingerprint, alias);
+		}
+
+		// save for the alias -> certificate matcher
+		aliasCertificates.put(alias, cert);
+		changed();
+	}
+
+	/**
+	 * Add a temporary certificate
+	 *
+	 * @param fileName
+	 *            the file of the certificate in the temporary directory
+	 * @param cert
+	 *            the certificate
+	 * @return false if the certificate was already known
+	 */
+	boolean addTemporaryCertificate(String fileName, Certificate cert) {
+		String fingerprint = SSLUtils.certificateFingerprint(cert);
+		if (certificates.putIfAbsent(fingerprint, cert) != null) {
+			return false;
+		}
+		temporaryCertificates.put(fileName, fingerprint);
+		changed();
+		return true;
+	}
+
+	/**
+	 * Remove a temporary certificate, the certificates of the keystore stay
+	 *
+	 * @param fileName
+	 *            the file of the certificate in the temporary directory
+	 * @return the fingerprint of the removed certificate or null
+	 */
+	String removeTemporaryCertificate(String fileName) {
+		String fingerprint = temporaryCertificates.remove(fileName);
+		if (fingerprint == null || confidenceCertificates.contains(fingerprint)) {
+			return null;
+		}
+		certificates.remove(fingerprint);
+		changed();
+		return fingerprint;
+	}
+
+	boolean isTemporary(String fingerprint) {
+		return certificates.containsKey(fingerprint) && !confidenceCertificates.contains(fingerprint);
+	}
+
+	boolean isConfidenceLink(String fingerprint) {
+		return confidenceCertificates.contains(fingerprint);
+	}
+
+	Set<String> getFingerprints() {
+		return certificates.keySet();
+	}
+
+	Certificate getCertificate(String fingerprint) {
+		return certificates.get(fingerprint);
+	}
+
+	String getNetwork(String fingerprint) {
+		return certificatesNetwork.get(fingerprint);
+	}
+
+	Certificate getCertificateFromAlias(String alias) {
+		return aliasCertificates.get(alias);
+	}
+
+	synchronized X509Certificate[] getAcceptedIssuers() {
+		if (acceptedIssuers == null) {
+			acceptedIssuers = certificates.values().toArray(new X509Certificate[0]);
+		}
+		return acceptedIssuers.clone();
+	}
+
+	private synchronized void changed() {
+		acceptedIssuers = null;
+	}
+}
@@ -3,6 +3,18 @@ package ch.icosys.popjava.core.interfacebase;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import ch.icosys.popjava.core.PopJava;
 import ch.icosys.popjava.core.annotation.POPObjectDescription;
@@ -24,6 +36,7 @@ import ch.icosys.popjava.core.combox.ComboxAllocate;
 import ch.icosys.popjava.core.combox.ComboxConnection;
 import ch.icosys.popjava.core.combox.ComboxFactory;
 import ch.icosys.popjava.core.combox.ComboxFactoryFinder;
+import ch.icosys.popjava.core.combox.ComboxPool;
 import ch.icosys.popjava.core.dataswaper.POPString;
 import ch.icosys.popjava.core.service.deamon.POPJavaDeamonConnector;
 import ch.icosys.popjava.core.service.jobmanager.POPJavaAppService;
@@ -65,6 +78,34 @@ public class Interface {
 
 	private static final Configuration conf = Configuration.getInstance();
 
+	// collects the responses of the calls answered with a future
+	private static final ExecutorService responseCollectors = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Interface response collector");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// sends the batches of asynchronous calls which are not full in time
+	private static final ScheduledExecutorService batchFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Interface batch flusher");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Object batchLock = new Object();
+
+	private int batchedRequests = 0;
+
+	private ScheduledFuture<?> batchTimeout = null;
+
+	// the calls waiting for their response by request ID, in the order they were sent
+	private final Map<Integer, PendingResponse<?>> pendingResponses = new LinkedHashMap<>();
+
+	private boolean collectingResponses = false;
+
+	// broker already started for the object, allocate only connects to it
+	private POPAccessPoint startedAccessPoint = null;
+
 	/**
 	 * Default Interface constructor
 	 */
@@ -249,6 +290,17 @@ public class Interface {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Use a broker started beforehand, for example with other objects in a
+	 * single request to the job manager, instead of allocating one
+	 * 
+	 * @param accessPoint
+	 *            the access point of the started broker
+	 */
+	public void setStartedAccessPoint(POPAccessPoint accessPoint) {
+		this.startedAccessPoint = accessPoint;
+	}
+
 	/**
 	 * Allocate resource for the associated parallel object
 	 * 
@@ -259,6 +311,11 @@ public class Interface {
 	 *             thrown if any exception occurred during the allocating process
 	 */
 	public boolean allocate(String objectName) throws POPException {
+		if (startedAccessPoint != null) {
+			popAccessPoint = startedAccessPoint;
+			return bind(popAccessPoint);
+		}
+
 
 		// Init the AP array for object contact
 		popAccessPoint = new POPAccessPoint();
@@ -380,10 +437,10 @@ public class Interface {
 
 		// XXX What does this really do?
 		for (int i = 0; i < allocatedAccessPoint.length; i++) {
-			if (allocatedAccessPoint[0].size() >= 1 && (allocatedAccessPoint[0].get(0).getHost().equals("127.0.0.1")
-					|| allocatedAccessPoint[0].get(0).getHost().equals("127.0.1.1"))) {
+			if (allocatedAccessPoint[i].size() >= 1 && (allocatedAccessPoint[i].get(0).getHost().equals("127.0.0.1")
+					|| allocatedAccessPoint[i].get(0).getHost().equals("127.0.1.1"))) {
 
-				allocatedAccessPoint[0].get(0).setHost(remotejobscontact[0].get(0).getHost());
+				allocatedAccessPoint[i].get(0).setHost(remotejobscontact[i].get(0).getHost());
 			}
 		}
 		popAccessPoint.setAccessString(allocatedAccessPoint[0].toString());
@@ -412,6 +469,7 @@ public class Interface {
 			combox.close();
 		}
 
+		combox = null;
 		for (int i = 0; i < accesspoint.size(); i++) {
 			String protocol = accesspoint.get(i).getProtocol();
 			ComboxFactory factory = finder.findFactory(protocol);
@@ -422,7 +480,8 @@ public class Interface {
 					if (networkUUID == null || networkUUID.isEmpty()) {
 						networkUUID = conf.getDefaultNetwork();
 					}
-					combox = new ComboxConnection(factory.createClientCombox(networkUUID), 1);
+					combox = ComboxPool.getInstance().connect(factory, networkUUID, parentBroker, accesspoint,
+							conf.getConnectionTimeout());
 				} catch (Throwable e) {
 					LogWriter.writeExceptionLog(e);
 					continue;
@@ -431,8 +490,7 @@ public class Interface {
 			}
 		}
 
-		if (combox != null
-				&& combox.getCombox().connectToServer(parentBroker, accesspoint, conf.getConnectionTimeout())) {
+		if (combox != null) {
 
 			BindStatus bindStatus = new BindStatus();
 			bindStatus(bindStatus);
@@ -676,7 +734,7 @@ public class Interface {
 		// empty protocol in od, all or default
 		if (nbProtocols == 1 && od.getProtocols()[0].isEmpty()) {
 			ComboxFactoryFinder finder = ComboxFactoryFinder.getInstance();
-			ComboxFactory[] protocolsFactories = finder.getAvailableFactories();
+			ComboxFactory[] protocolsFactories = finder.getDefaultFactories();
 			int protocolsCount = protocolsFactories.length;
 
 			// use default protocol if a port is set in url
@@ -954,6 +1012,10 @@ public class Interface {
 			argvList.add(Broker.UPNP);
 		}
 
+		if (od.getExecutor() != null && !od.getExecutor().isEmpty()) {
+			argvList.add(Broker.EXECUTOR_PREFIX + od.getExecutor());
+		}
+
 		String networkUUID = od.getNetwork();
 		if (networkUUID == null || networkUUID.isEmpty()) {
 			networkUUID = conf.getDefaultNetwork();
@@ -989,6 +1051,8 @@ public class Interface {
 				// add config file, system or local
 				argvList.add(Broker.POPJAVA_CONFIG_PREFIX + conf.getUserConfig().toString());
 			}
+			// the broker only knows the certificates on disk
+			SSLUtils.writeTemporaryCertificates();
 			ret = SystemUtil.runCmd(argvList, od.getDirectory(), od.getHostuser());
 		} else {
 			// String potentialPort =
@@ -1068,6 +1132,60 @@ public class Interface {
 		}
 	}
 
+	/**
+	 * Send the buffer content to the broker-side together with the following
+	 * calls. The batch is sent once it holds enough calls or when its oldest call
+	 * waited long enough, a call sent with {@link #popDispatch(POPBuffer)} also
+	 * sends it. Only for calls without a response.
+	 * 
+	 * @param buffer
+	 *            Buffer to send
+	 * @param batchSize
+	 *            the number of calls in a full batch, 1 sends immediately
+	 * @param batchDelay
+	 *            the maximum time in microseconds a call waits in the batch
+	 */
+	protected void popDispatchBatched(POPBuffer buffer, int batchSize, long batchDelay) {
+		if (batchSize <= 1) {
+			popDispatch(buffer);
+			return;
+		}
+
+		synchronized (batchLock) {
+			int length = combox.sendBatched(buffer);
+			if (length < 0) {
+				throw new POPException(POPErrorCode.POP_COMBOX_NOT_AVAILABLE,
+						"Connection closed remotely while sending");
+			}
+
+			batchedRequests++;
+			if (batchedRequests >= batchSize) {
+				flushBatch();
+			} else if (batchTimeout == null) {
+				batchTimeout = batchFlusher.schedule(() -> {
+					synchronized (batchLock) {
+						flushBatch();
+					}
+				}, batchDelay, TimeUnit.MICROSECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Send the batched calls, must hold the batch lock
+	 */
+	private void flushBatch() {
+		if (batchTimeout != null) {
+			batchTimeout.cancel(false);
+			batchTimeout = null;
+		}
+		ComboxConnection<?> connection = combox;
+		if (batchedRequests > 0 && connection != null) {
+			connection.flush();
+		}
+		batchedRequests = 0;
+	}
+
 	/**
 	 * Receive response from the broker-side
 	 * 
@@ -1079,13 +1197,8 @@ public class Interface {
 	 */
 	protected int popResponse(POPBuffer buffer, int requestId) throws POPException {
 
-		if (combox.receive(buffer, requestId) > 0) {
-
-			MessageHeader messageHeader = buffer.getHeader();
-			if (messageHeader.getRequestType() == MessageHeader.EXCEPTION) {
-				int errorCode = messageHeader.getExceptionCode();
-				POPBuffer.checkAndThrow(errorCode, buffer);
-			}
+		if (receiveResponse(buffer, requestId) > 0) {
+			checkResponse(buffer);
 		} else {
 			throw new POPException(POPErrorCode.POP_COMBOX_NOT_AVAILABLE,
 					"Connection closed remotely while receiving " + combox.getCombox());
@@ -1093,10 +1206,198 @@ public class Interface {
 		return 0;
 	}
 
+	/**
+	 * Throw the exception sent by the broker-side instead of a result
+	 */
+	private static void checkResponse(POPBuffer buffer) throws POPException {
+		MessageHeader messageHeader = buffer.getHeader();
+		if (messageHeader.getRequestType() == MessageHeader.EXCEPTION) {
+			int errorCode = messageHeader.getExceptionCode();
+			POPBuffer.checkAndThrow(errorCode, buffer);
+		}
+	}
+
+	/**
+	 * Wait for a response. On the worker of a fork join broker the pool is told
+	 * the thread blocks, so it can start a spare worker for the other requests.
+	 */
+	private int receiveResponse(POPBuffer buffer, int requestId) {
+		ComboxConnection<?> connection = combox;
+		if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+			return connection.receive(buffer, requestId);
+		}
+
+		int[] received = { -1 };
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+
+				private boolean done = false;
+
+				@Override
+				public boolean block() {
+					received[0] = connection.receive(buffer, requestId);
+					done = true;
+					return true;
+				}
+
+				@Override
+				public boolean isReleasable() {
+					return done;
+				}
+			});
+		} catch (InterruptedException e) {
+			LogWriter.writeDebugInfo("[Interface] Interrupted while waiting for request %d", requestId);
+		}
+		return received[0];
+	}
+
+	/**
+	 * Receive a response from the broker-side without waiting for it, must be
+	 * called before the request is sent. The responses are collected as they
+	 * arrive by a single thread per interface, other calls can be sent in the
+	 * meantime.
+	 * 
+	 * @param requestId
+	 *            the request of the response
+	 * @param reader
+	 *            decode the response, called by the collecting thread
+	 * @return a future completed with the decoded response
+	 */
+	protected <T> CompletableFuture<T> popResponseAsync(int requestId, ResponseReader<T> reader) {
+		PendingResponse<T> pending = new PendingResponse<>(reader);
+		synchronized (pendingResponses) {
+			pendingResponses.put(requestId, pending);
+			if (!collectingResponses) {
+				collectingResponses = true;
+				responseCollectors.execute(this::collectResponses);
+			}
+		}
+		return pending.future;
+	}
+
+	/**
+	 * Stop waiting for a response which won't come
+	 * 
+	 * @param requestId
+	 *            the request which couldn't be sent
+	 * @param cause
+	 *            why the request couldn't be sent
+	 */
+	protected void cancelResponseAsync(int requestId, Throwable cause) {
+		PendingResponse<?> pending;
+		synchronized (pendingResponses) {
+			pending = pendingResponses.remove(requestId);
+		}
+		if (pending != null) {
+			pending.future.completeExceptionally(cause);
+		}
+	}
+
+	private boolean isPendingResponse(int requestId) {
+		synchronized (pendingResponses) {
+			return pendingResponses.containsKey(requestId);
+		}
+	}
+
+	private void collectResponses() {
+		while (true) {
+			synchronized (pendingResponses) {
+				if (pendingResponses.isEmpty()) {
+					collectingResponses = false;
+					return;
+				}
+			}
+
+			// whichever response comes first, the others may take longer
+			ComboxConnection<?> connection = combox;
+			POPBuffer buffer = null;
+			int received = -1;
+			if (connection != null) {
+				buffer = connection.getBufferFactory().createBuffer();
+				try {
+					received = connection.receive(buffer, this::isPendingResponse);
+				} catch (RuntimeException e) {
+					received = -1;
+				}
+			}
+			if (received <= 0) {
+				failPendingResponses(new POPException(POPErrorCode.POP_COMBOX_NOT_AVAILABLE,
+						"Connection closed remotely while receiving"));
+				continue;
+			}
+
+			PendingResponse<?> pending;
+			synchronized (pendingResponses) {
+				pending = pendingResponses.remove(buffer.getHeader().getRequestID());
+				if (pending == null && !pendingResponses.isEmpty()) {
+					// a response without request ID answers the oldest call
+					Iterator<PendingResponse<?>> iterator = pendingResponses.values().iterator();
+					pending = iterator.next();
+					iterator.remove();
+				}
+			}
+			if (pending != null) {
+				pending.complete(buffer);
+			}
+		}
+	}
+
+	private void failPendingResponses(Throwable cause) {
+		List<PendingResponse<?>> failed;
+		synchronized (pendingResponses) {
+			failed = new ArrayList<>(pendingResponses.values());
+			pendingResponses.clear();
+		}
+		for (PendingResponse<?> pending : failed) {
+			pending.future.completeExceptionally(cause);
+		}
+	}
+
+	/**
+	 * Decode a response received from the broker-side
+	 */
+	@FunctionalInterface
+	protected interface ResponseReader<T> {
+
+		/**
+		 * @param buffer
+		 *            the response
+		 * @return the decoded response
+		 * @throws Exception
+		 *             if the response can't be decoded
+		 */
+		T read(POPBuffer buffer) throws Exception;
+	}
+
+	private final class PendingResponse<T> {
+
+		private final ResponseReader<T> reader;
+
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+
+		private PendingResponse(ResponseReader<T> reader) {
+			this.reader = reader;
+		}
+
+		private void complete(POPBuffer buffer) {
+			try {
+				checkResponse(buffer);
+				T value = reader.read(buffer);
+				buffer.release();
+				future.complete(value);
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		}
+	}
+
 	/**
 	 * Close the combox associated with this interface
 	 */
 	public void close() {
+		synchronized (batchLock) {
+			flushBatch();
+		}
 		if (combox != null) {
 			combox.close();
 		}
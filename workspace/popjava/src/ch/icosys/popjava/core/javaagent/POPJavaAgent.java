@@ -4,8 +4,11 @@ import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
 import java.security.ProtectionDomain;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import ch.icosys.popjava.core.PopJava;
 import ch.icosys.popjava.core.annotation.POPClass;
@@ -43,6 +46,12 @@ public final class POPJavaAgent implements ClassFileTransformer {
 	 */
 	private final ClassPool classPool;
 
+	/**
+	 * Pools of the class loaders of code locations, they see the classes of
+	 * their jar and those of the default pool
+	 */
+	private final Map<ClassLoader, ClassPool> loaderPools = Collections.synchronizedMap(new WeakHashMap<>());
+
 	private final Set<String> IGNORED = new HashSet<>();
 
 	/**
@@ -144,6 +153,28 @@ public final class POPJavaAgent implements ClassFileTransformer {
 		}
 	}
 
+	/**
+	 * Add a jar only for the classes of a class loader, the other loaders don't
+	 * see it
+	 * 
+	 * @param loader
+	 *            the class loader of the jar
+	 * @param file
+	 *            the jar
+	 * @throws NotFoundException
+	 *             if the jar can't be read
+	 */
+	public void addJar(ClassLoader loader, String file) throws NotFoundException {
+		ClassPool pool = new ClassPool(classPool);
+		pool.appendClassPath(file);
+		loaderPools.put(loader, pool);
+	}
+
+	private ClassPool getClassPool(ClassLoader loader) {
+		ClassPool pool = loader == null ? null : loaderPools.get(loader);
+		return pool != null ? pool : classPool;
+	}
+
 	@Override
 	public byte[] transform(final ClassLoader loader, final String className, final Class<?> classBeingRedefined,
 			final ProtectionDomain protectionDomain, final byte[] classfileBuffer) {
@@ -158,6 +189,7 @@ public final class POPJavaAgent implements ClassFileTransformer {
 		}
 
 		try {
+			ClassPool classPool = getClassPool(loader);
 			// Create a Javassist CtClass from the byte code
 			synchronized (classPool) {
 				classPool.insertClassPath(new ByteArrayClassPath(dotClassName, classfileBuffer));
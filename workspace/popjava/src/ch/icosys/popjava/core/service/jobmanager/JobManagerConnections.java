@@ -0,0 +1,244 @@
+package ch.icosys.popjava.core.service.jobmanager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.base.POPErrorCode;
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.LogWriter;
+import ch.icosys.popjava.core.util.Tuple;
+
+/**
+ * Connections to other job managers, kept open between the calls instead of
+ * connecting for each of them. A connection is used by a single caller at a
+ * time, at most {@link Configuration#getJobManagerConnectionsPerTarget()} are
+ * open to the same job manager and the callers wait for one to be released.
+ *
+ * A connection unused for a while is checked before being given again, the
+ * ones unused for {@link Configuration#getJobManagerConnectionIdleTimeout()}
+ * are closed by {@link #evictIdle()}.
+ */
+public class JobManagerConnections {
+
+	static final long HEALTH_CHECK_INTERVAL = 5000;
+
+	private final Configuration conf = Configuration.getInstance();
+
+	// guarded by this
+	private final Map<Tuple<String, POPAccessPoint>, Target> targets = new HashMap<>();
+
+	// guarded by this, the target of each connection in use
+	private final Map<POPJavaJobManager, Target> leased = new IdentityHashMap<>();
+
+	private final LongAdder opened = new LongAdder();
+
+	private final LongAdder reused = new LongAdder();
+
+	/**
+	 * Get a connection to a job manager, it must be given back with
+	 * {@link #release(POPJavaJobManager, boolean)}
+	 *
+	 * @param network
+	 *            the network of the job manager
+	 * @param accessPoint
+	 *            the job manager
+	 * @return a connection to the job manager
+	 * @throws POPException
+	 *             if no connection could be made or none was released in time
+	 */
+	public POPJavaJobManager acquire(String network, POPAccessPoint accessPoint) throws POPException {
+		Tuple<String, POPAccessPoint> key = new Tuple<>(network, accessPoint);
+		Target target;
+		Connection idle;
+		synchronized (this) {
+			target = targets.get(key);
+			if (target == null) {
+				target = new Target();
+				targets.put(key, target);
+			}
+			long deadline = System.currentTimeMillis() + conf.getConnectionTimeout();
+			while ((idle = target.idle.pollFirst()) == null && target.used >= conf.getJobManagerConnectionsPerTarget()) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new POPException(POPErrorCode.POP_JOBSERVICE_FAIL,
+							"No connection to " + accessPoint + " was released in time");
+				}
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new POPException(POPErrorCode.POP_JOBSERVICE_FAIL, "Interrupted waiting for " + accessPoint);
+				}
+			}
+			target.used++;
+		}
+
+		POPJavaJobManager jm = null;
+		try {
+			if (idle != null && isHealthy(idle)) {
+				jm = idle.jm;
+				reused.increment();
+			} else {
+				jm = PopJava.connect(null, POPJavaJobManager.class, network, accessPoint);
+				opened.increment();
+			}
+		} finally {
+			synchronized (this) {
+				if (jm == null) {
+					target.used--;
+					notifyAll();
+				} else {
+					leased.put(jm, target);
+				}
+			}
+		}
+		return jm;
+	}
+
+	/**
+	 * Give back a connection
+	 *
+	 * @param jm
+	 *            a connection from {@link #acquire(String, POPAccessPoint)}
+	 * @param healthy
+	 *            false if a call failed, the connection is then closed
+	 */
+	public void release(POPJavaJobManager jm, boolean healthy) {
+		synchronized (this) {
+			Target target = leased.remove(jm);
+			if (target == null) {
+				return;
+			}
+			target.used--;
+			notifyAll();
+			if (healthy) {
+				target.idle.addFirst(new Connection(jm));
+				return;
+			}
+		}
+		close(jm);
+	}
+
+	/**
+	 * Close the connections unused for longer than the idle timeout
+	 */
+	public void evictIdle() {
+		long now = System.currentTimeMillis();
+		List<Connection> expired = new ArrayList<>();
+		synchronized (this) {
+			for (Iterator<Target> targetIterator = targets.values().iterator(); targetIterator.hasNext();) {
+				Target target = targetIterator.next();
+				for (Iterator<Connection> iterator = target.idle.iterator(); iterator.hasNext();) {
+					Connection connection = iterator.next();
+					if (now - connection.since > conf.getJobManagerConnectionIdleTimeout()) {
+						iterator.remove();
+						expired.add(connection);
+					}
+				}
+				if (target.idle.isEmpty() && target.used == 0) {
+					targetIterator.remove();
+				}
+			}
+		}
+		for (Connection connection : expired) {
+			close(connection.jm);
+		}
+	}
+
+	/**
+	 * Close all the unused connections
+	 */
+	public void close() {
+		List<Connection> idle = new ArrayList<>();
+		synchronized (this) {
+			for (Target target : targets.values()) {
+				idle.addAll(target.idle);
+				target.idle.clear();
+			}
+		}
+		for (Connection connection : idle) {
+			close(connection.jm);
+		}
+	}
+
+	/**
+	 * @return the number of connections opened
+	 */
+	public long getOpened() {
+		return opened.sum();
+	}
+
+	/**
+	 * @return the number of times an open connection was given again
+	 */
+	public long getReused() {
+		return reused.sum();
+	}
+
+	/**
+	 * @return the number of open connections not in use
+	 */
+	public synchronized int getIdle() {
+		int count = 0;
+		for (Target target : targets.values()) {
+			count += target.idle.size();
+		}
+		return count;
+	}
+
+	private boolean isHealthy(Connection connection) {
+		if (System.currentTimeMillis() - connection.since < HEALTH_CHECK_INTERVAL) {
+			return true;
+		}
+		try {
+			connection.jm.getNodeId();
+			return true;
+		} catch (Exception e) {
+			LogWriter.writeDebugInfo("[JM] Connection to %s lost: %s", connection.jm.getAccessPoint(),
+					e.getMessage());
+			close(connection.jm);
+			return false;
+		}
+	}
+
+	private static void close(POPJavaJobManager jm) {
+		try {
+			jm.exit();
+		} catch (Exception e) {
+		}
+	}
+
+	/**
+	 * The connections to a job manager
+	 */
+	private static final class Target {
+
+		private final Deque<Connection> idle = new ArrayDeque<>();
+
+		private int used;
+	}
+
+	/**
+	 * An unused connection
+	 */
+	private static final class Connection {
+
+		private final POPJavaJobManager jm;
+
+		private final long since = System.currentTimeMillis();
+
+		private Connection(POPJavaJobManager jm) {
+			this.jm = jm;
+		}
+	}
+}
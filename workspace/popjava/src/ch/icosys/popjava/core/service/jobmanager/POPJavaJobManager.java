@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -57,6 +59,7 @@ import ch.icosys.popjava.core.base.POPException;
 import ch.icosys.popjava.core.baseobject.AccessPoint;
 import ch.icosys.popjava.core.baseobject.ObjectDescription;
 import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.broker.Broker;
 import ch.icosys.popjava.core.codemanager.AppService;
 import ch.icosys.popjava.core.dataswaper.POPMutableFloat;
 import ch.icosys.popjava.core.dataswaper.POPString;
@@ -73,6 +76,7 @@ import ch.icosys.popjava.core.service.jobmanager.network.POPNodeJobManager;
 import ch.icosys.popjava.core.service.jobmanager.network.POPNodeTFC;
 import ch.icosys.popjava.core.service.jobmanager.search.SNExploration;
 import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesListener;
 import ch.icosys.popjava.core.service.jobmanager.search.SNRequest;
 import ch.icosys.popjava.core.service.jobmanager.search.SNResponse;
 import ch.icosys.popjava.core.service.jobmanager.search.SNWayback;
@@ -153,6 +157,12 @@ public class POPJavaJobManager extends POPJobService {
 	private final Map<Tuple<String, POPAccessPoint>, POPJavaJobManager> cachedJobManangers = Collections
 			.synchronizedMap(new HashMap<>());
 
+	/** When the cached job managers were last checked */
+	private final Map<Tuple<String, POPAccessPoint>, Long> cachedJobManagersChecks = new ConcurrentHashMap<>();
+
+	/** Connections to other job managers for reservations and executions */
+	private final JobManagerConnections connections = new JobManagerConnections();
+
 	/**
 	 * Do not call this directly, way too many methods to this so no init was added.
 	 */
@@ -559,10 +569,12 @@ public class POPJavaJobManager extends POPJobService {
 			mutex.lock();
 
 			// if we have an od
-			if (!od.isEmpty())
+			if (!od.isEmpty()) {
+				fitness = available.getFitness(new Resource(od.getPowerReq(), od.getMemoryReq(), od.getBandwidthReq()));
+			}
 
-				// output fitness
-				iofitness.setValue(fitness);
+			// output fitness
+			iofitness.setValue(fitness);
 
 			// new app resource
 			AppResource app = new AppResource();
@@ -692,23 +704,39 @@ public class POPJavaJobManager extends POPJobService {
 
 	/**
 	 * Start object and parallel thread check for resources death and other timed
-	 * tasks.
+	 * tasks. Once the broker exits the connections to other job managers are
+	 * closed.
 	 */
 	@POPAsyncConc(localhost = true)
 	@Override
 	public void start() {
-		while (true) {
-			try {
-				selfRegister();
-				update();
-				cleanup();
-				Thread.sleep(conf.getJobManagerUpdateInterval());
-			} catch (Exception e) {
-				e.printStackTrace();
+		try {
+			while (isRunning()) {
+				try {
+					selfRegister();
+					update();
+					cleanup();
+					Thread.sleep(conf.getJobManagerUpdateInterval());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
 			}
+		} finally {
+			connections.close();
 		}
 	}
 
+	/**
+	 * @return true until the broker of this job manager exits
+	 */
+	private boolean isRunning() {
+		Broker broker = getBroker();
+		return broker == null || broker.getState() == Broker.State.Running;
+	}
+
 	/**
 	 * Query something and return a formatted string
 	 *
@@ -1319,6 +1347,16 @@ public class POPJavaJobManager extends POPJobService {
 		return maxJobs;
 	}
 
+	/**
+	 * The number of reserved and running objects on the JM machine
+	 * 
+	 * @return the current number of jobs
+	 */
+	@POPSyncConc(localhost = true)
+	public int getJobs() {
+		return jobs.size();
+	}
+
 	/**
 	 * Unique ID for this node execution
 	 *
@@ -1402,6 +1440,7 @@ public class POPJavaJobManager extends POPJobService {
 	 */
 	@POPAsyncSeq
 	protected void cleanup() {
+		connections.evictIdle();
 		for (Iterator<AppResource> iterator = cleanupJobs.iterator(); iterator.hasNext();) {
 			AppResource job = iterator.next();
 			Path appDirectory = job.getAppDirectory();
@@ -1489,6 +1528,7 @@ public class POPJavaJobManager extends POPJobService {
 	 */
 	@Override
 	protected void finalize() throws Throwable {
+		connections.close();
 		stayAlive.release(Integer.MAX_VALUE);
 		super.finalize();
 	}
@@ -1624,11 +1664,36 @@ public class POPJavaJobManager extends POPJobService {
 	private final LinkedBlockingDeque<String> SNKnownRequests = new LinkedBlockingDeque<>(
 			conf.getSearchNodeMaxRequests());
 
-	/** Answering nodes for a search request */
-	private final Map<String, SNNodesInfo> SNActualRequets = new HashMap<>();
+	/** Running discoveries with their answering nodes, by request */
+	private final Map<String, SNDiscovery> SNDiscoveries = new ConcurrentHashMap<>();
+
+	/**
+	 * State of a discovery started by this node
+	 */
+	private static final class SNDiscovery {
+
+		private final SNNodesInfo nodes = new SNNodesInfo();
+
+		private final Resource needed;
+
+		private final int wanted;
 
-	/** Semaphores for non-timed requests */
-	private final Map<String, Semaphore> SNRequestSemaphore = new HashMap<>();
+		private final SNNodesListener listener;
+
+		// the first answer ends the discovery, suitable or not
+		private final boolean firstAnswer;
+
+		private final CountDownLatch enough = new CountDownLatch(1);
+
+		private int suitable;
+
+		private SNDiscovery(Resource needed, int wanted, SNNodesListener listener, boolean firstAnswer) {
+			this.needed = needed;
+			this.wanted = wanted;
+			this.listener = listener;
+			this.firstAnswer = firstAnswer;
+		}
+	}
 
 	/**
 	 * Start a discovery in a POP Network
@@ -1642,6 +1707,26 @@ public class POPJavaJobManager extends POPJobService {
 	 */
 	@POPSyncConc(localhost = true)
 	public SNNodesInfo launchDiscovery(@POPParameter(Direction.IN) final SNRequest request, int timeout) {
+		return launchDiscovery(request, timeout, Integer.MAX_VALUE, null);
+	}
+
+	/**
+	 * Start a discovery in a POP Network, which ends early once enough nodes
+	 * with the requested resources answered
+	 * 
+	 * @param request
+	 *            The request generated by {@link POPConnector#createObject}
+	 * @param timeout
+	 *            How much time do we wait at most, in case of 0 the first answer
+	 *            is the one we use
+	 * @param wanted
+	 *            the number of nodes with the requested resources after which we
+	 *            stop waiting
+	 * @param listener
+	 *            receives the nodes as they answer, may be null
+	 * @return All the nodes that answered our request
+	 */
+	public SNNodesInfo launchDiscovery(final SNRequest request, int timeout, int wanted, SNNodesListener listener) {
 		try {
 			LogWriter.writeDebugInfo("[PSN] starting research");
 
@@ -1662,51 +1747,33 @@ public class POPJavaJobManager extends POPJobService {
 				LogWriter.writeDebugInfo("[PSN] LDISCOVERY;TIMEOUT;%d", timeout);
 			}
 
-			// create and add request to local map
-			SNNodesInfo infos = new SNNodesInfo();
-			SNActualRequets.put(request.getUID(), infos);
-
-			// start reasearch until timeout is reached
-			if (timeout > 0) {
-				POPAccessPoint sender = new POPAccessPoint();
-				askResourcesDiscovery(request, sender);
-				Thread.sleep(timeout);
-			} else {// not timeout was set, accept first result
-				// semaphore to wait until resource is discovered
-				Semaphore reqsem = new Semaphore(0);
-				// add it to the map for later async unlocking
-				SNRequestSemaphore.put(request.getUID(), reqsem);
-
-				// start research
-				POPAccessPoint sender = new POPAccessPoint();
-				askResourcesDiscovery(request, sender);
-
-				// start an automatic unlock to avoid an infinite thread waiting
-				Thread SNunlock = new Thread(new Runnable() {
-					@Override
-					public void run() {
-						try {
-							Thread.sleep(conf.getSearchNodeUnlockTimeout());
-							unlockDiscovery(request.getUID());
-						} catch (InterruptedException e) {
-						}
-					}
-				}, "SearchNode auto-unlock timer");
-				SNunlock.setDaemon(true);
-				SNunlock.start();
-
-				// wait to semaphore to let us through
-				reqsem.acquireUninterruptibly();
-
-				// results acquired, remove semaphore from map
-				SNRequestSemaphore.remove(request.getUID());
+			// not timeout was set, accept first result, don't wait forever
+			boolean firstAnswer = timeout <= 0;
+			if (firstAnswer) {
+				wanted = 1;
+				timeout = conf.getSearchNodeUnlockTimeout();
 			}
 
-			// get (again) the SN infos
-			SNNodesInfo results = SNActualRequets.get(request.getUID());
-			// remove request from map
-			SNActualRequets.remove(request.getUID());
+			// create and add request to local map
+			SNDiscovery discovery = new SNDiscovery(request.getResourceNeeded(), wanted, listener, firstAnswer);
+			SNDiscoveries.put(request.getUID(), discovery);
+
+			// start research, wait until enough nodes answered or timeout is
+			// reached
+			POPAccessPoint sender = new POPAccessPoint();
+			askResourcesDiscovery(request, sender);
+			if (discovery.enough.await(timeout, TimeUnit.MILLISECONDS)) {
+				LogWriter.writeDebugInfo("[PSN] LDISCOVERY;ENOUGH;%s", request.getUID());
+			}
 
+			// remove request from map, late answers are ignored
+			SNDiscoveries.remove(request.getUID());
+			SNNodesInfo results = new SNNodesInfo();
+			synchronized (discovery) {
+				for (SNNodesInfo.Node node : discovery.nodes.getNodes()) {
+					results.add(node);
+				}
+			}
 			return results;
 		} catch (Exception e) {
 			LogWriter.writeDebugInfo("[PSN] Exception caught in launchDiscovery: %s", e.getMessage());
@@ -1978,21 +2045,35 @@ public class POPJavaJobManager extends POPJobService {
 		try {
 			// the result node is stored in the SNNodes
 			SNNodesInfo.Node result = response.getResultNode();
-			SNNodesInfo nodes = SNActualRequets.get(response.getUID());
+			SNDiscovery discovery = SNDiscoveries.get(response.getUID());
 			// the list doesn't exists
-			if (nodes == null) {
+			if (discovery == null) {
 				return;
 			}
 			// add the node to the list
-			nodes.add(result);
+			boolean suitable = result.getResources().canHandle(discovery.needed);
+			synchronized (discovery) {
+				discovery.nodes.add(result);
+				if (suitable) {
+					discovery.suitable++;
+				}
+			}
 
 			// save responder certificate
 			if (response.getPublicCertificate().length > 0) {
 				SSLUtils.addCertToTempStore(response.getPublicCertificate());
 			}
 
-			// we unlock the semaphore if it was set
-			unlockDiscovery(response.getUID());
+			if (discovery.listener != null) {
+				discovery.listener.nodeFound(result, suitable);
+			}
+
+			// we unlock the waiting discovery if enough nodes answered
+			synchronized (discovery) {
+				if (discovery.firstAnswer || discovery.suitable >= discovery.wanted) {
+					discovery.enough.countDown();
+				}
+			}
 		} catch (Exception e) {
 			LogWriter.writeDebugInfo("[PSN] Exception caught in callbackResult: %s", e.getMessage());
 			LogWriter.writeExceptionLog(e);
@@ -2015,7 +2096,7 @@ public class POPJavaJobManager extends POPJobService {
 			// we want the call in the network to be between neighbors only
 			// so we go back on the way we came with the response for the source
 			if (!wayback.isLastNode()) {
-				LogWriter.writeDebugInfo("[PSN] REROUTE;%s;DEST;%s", response.getUID(), wayback.toString());
+				LogWriter.writeDebugInfo(() -> String.format("[PSN] REROUTE;%s;DEST;%s", response.getUID(), wayback.toString()));
 				// get next node to contact
 				POPAccessPoint jm = wayback.pop();
 				POPJavaJobManager njm = connectToJobmanager(jm, response.getNetworkUUID());
@@ -2023,14 +2104,14 @@ public class POPJavaJobManager extends POPJobService {
 					// route request through it
 					njm.rerouteResponse(response, wayback);
 				}else {
-					LogWriter.writeDebugInfo("[PSN] Unable to reroute response ;%s;DEST;%s", response.getUID(), wayback.toString());
+					LogWriter.writeDebugInfo(() -> String.format("[PSN] Unable to reroute response ;%s;DEST;%s", response.getUID(), wayback.toString()));
 				}
 			} // is the last node, give the answer to the original JM who
 				// launched the request
 			else {
 
 		        final POPRemoteCaller caller = PopJava.getRemoteCaller();
-				LogWriter.writeDebugInfo("[PSN] REROUTE_ORIGIN;%s;%s", response.getUID(), caller.getRemote().toString());
+				LogWriter.writeDebugInfo(() -> String.format("[PSN] REROUTE_ORIGIN;%s;%s", response.getUID(), caller.getRemote().toString()));
 				callbackResult(response);
 			}
 		} catch (Exception e) {
@@ -2047,11 +2128,10 @@ public class POPJavaJobManager extends POPJobService {
 	 */
 	@POPAsyncConc
 	public void unlockDiscovery(String requid) {
-		// get and remove the semaphore
-		Semaphore sem = SNRequestSemaphore.remove(requid);
-		// release if the semaphore was set
-		if (sem != null) {
-			sem.release();
+		SNDiscovery discovery = SNDiscoveries.get(requid);
+		// release if the discovery is still waiting
+		if (discovery != null) {
+			discovery.enough.countDown();
 			LogWriter.writeDebugInfo("[PSN] UNLOCK SEMAPHORE %s", requid);
 		}
 	}
@@ -2097,9 +2177,27 @@ public class POPJavaJobManager extends POPJobService {
 		return jm;
 	}
 	
+	/**
+	 * The connections to other job managers, shared by the connectors
+	 * 
+	 * @return the connections of this job manager
+	 */
+	public JobManagerConnections getConnections() {
+		return connections;
+	}
+
 	public POPJavaJobManager connectToJobmanager(POPAccessPoint ap, String network) throws InterruptedException {
 		Tuple<String, POPAccessPoint> key = new Tuple<String, POPAccessPoint>(network, ap);
-		
+
+		// recently checked, no need to register again
+		Long checked = cachedJobManagersChecks.get(key);
+		if (checked != null && System.currentTimeMillis() - checked < JobManagerConnections.HEALTH_CHECK_INTERVAL) {
+			POPJavaJobManager jm = cachedJobManangers.get(key);
+			if (jm != null) {
+				return jm;
+			}
+		}
+
 		//Aquire lock for that specific key
 		synchronized (jmConnectionLock) {
 			while (jmConnectionLock.contains(key)) {
@@ -2112,13 +2210,13 @@ public class POPJavaJobManager extends POPJobService {
 		try {
 			//Connect to JM first time if necessary
 			if (!cachedJobManangers.containsKey(key)) {
-				LogWriter.writeDebugInfo("[PSN] JM unknown, connect to " + ap+" "+network+" "+System.currentTimeMillis());
+				LogWriter.writeDebugInfo(() -> "[PSN] JM unknown, connect to " + ap+" "+network+" "+System.currentTimeMillis());
 				POPJavaJobManager jm = connectToJM(ap, network);
 				if(jm != null) {
-					LogWriter.writeDebugInfo("[PSN] Connection open " + ap+" "+network+" "+System.currentTimeMillis());
+					LogWriter.writeDebugInfo(() -> "[PSN] Connection open " + ap+" "+network+" "+System.currentTimeMillis());
 					cachedJobManangers.put(key, jm);
 				}else {
-					LogWriter.writeDebugInfo("[PSN] Connection failed " + ap+" "+network+" "+System.currentTimeMillis());
+					LogWriter.writeDebugInfo(() -> "[PSN] Connection failed " + ap+" "+network+" "+System.currentTimeMillis());
 				}
 			}
 
@@ -2128,16 +2226,18 @@ public class POPJavaJobManager extends POPJobService {
 				try {
 					//Check if the neighbour knows us, this also implicitely tests the connection
 					POPAccessPoint myAP = getAccessPoint();			
-					LogWriter.writeDebugInfo("[PSN] Register self at " + ap+" "+network+" "+System.currentTimeMillis());
+					LogWriter.writeDebugInfo(() -> "[PSN] Register self at " + ap+" "+network+" "+System.currentTimeMillis());
 					jm.registerNeighbourJobmanager(getAccessPoint(), network, this);
+					cachedJobManagersChecks.put(key, System.currentTimeMillis());
 					/*if(!jm.knowsJobManager(network, myAP)) {
 						jm.registerNeighbourJobmanager(getAccessPoint(), network, this);
 					}*/
 				} catch (Exception e) {
-					LogWriter.writeDebugInfo("[PSN] JM not available, reconnect to " + ap+" "+network+" "+System.currentTimeMillis());
+					LogWriter.writeDebugInfo(() -> "[PSN] JM not available, reconnect to " + ap+" "+network+" "+System.currentTimeMillis());
 					
 					//If the connection we have is down, reconnect
 					cachedJobManangers.remove(key);
+					cachedJobManagersChecks.remove(key);
 					jm = connectToJM(ap, network);
 
 					cachedJobManangers.put(key, jm);
@@ -2170,12 +2270,12 @@ public class POPJavaJobManager extends POPJobService {
 	@POPSyncConc
 	public void registerNeighbourJobmanager(POPAccessPoint ap, String network, POPJavaJobManager jm) {
 
-		LogWriter.writeDebugInfo("[PSN] register " + ap+" "+network);
+		LogWriter.writeDebugInfo(() -> "[PSN] register " + ap+" "+network);
 		
 		Tuple<String, POPAccessPoint> key = new Tuple<String, POPAccessPoint>(network, ap);
 
 		if (!cachedJobManangers.containsKey(key)) {
-			LogWriter.writeDebugInfo("[PSN] JM was unknown, keep connection " + ap+" "+network);
+			LogWriter.writeDebugInfo(() -> "[PSN] JM was unknown, keep connection " + ap+" "+network);
 			jm.makePermanent();
 			cachedJobManangers.put(key, jm);
 			
@@ -2188,12 +2288,12 @@ public class POPJavaJobManager extends POPJobService {
 				POPString val = new POPString();
 				current.query("power", val);
 
-				LogWriter.writeDebugInfo("[PSN] JM was known, keep old " + ap+" "+network);
+				LogWriter.writeDebugInfo(() -> "[PSN] JM was known, keep old " + ap+" "+network);
 			} catch (Exception e) {
 				jm.makePermanent();
 				cachedJobManangers.put(key, jm);
 
-				LogWriter.writeDebugInfo("[PSN] Old JM unavailabe, keep new " + ap+" "+network);
+				LogWriter.writeDebugInfo(() -> "[PSN] Old JM unavailabe, keep new " + ap+" "+network);
 			}
 		}
 	}
@@ -100,6 +100,28 @@ public class Resource implements IPOPBase {
 		return canHandle;
 	}
 
+	/**
+	 * How many times this resource can handle another one, limited by the
+	 * scarcest value
+	 *
+	 * @param resource
+	 *            the requested resource
+	 * @return the fitness, 1 if nothing is requested
+	 */
+	public float getFitness(Resource resource) {
+		float fitness = Float.MAX_VALUE;
+		if (resource.flops > 0) {
+			fitness = Math.min(fitness, flops / resource.flops);
+		}
+		if (resource.memory > 0) {
+			fitness = Math.min(fitness, memory / resource.memory);
+		}
+		if (resource.bandwidth > 0) {
+			fitness = Math.min(fitness, bandwidth / resource.bandwidth);
+		}
+		return fitness == Float.MAX_VALUE ? 1f : fitness;
+	}
+
 	public YamlResource toYamlResource() {
 		YamlResource res = new YamlResource();
 		res.setFlops(flops);
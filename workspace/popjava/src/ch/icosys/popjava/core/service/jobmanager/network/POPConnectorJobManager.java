@@ -1,7 +1,14 @@
 package ch.icosys.popjava.core.service.jobmanager.network;
 
 import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import ch.icosys.popjava.core.PopJava;
 import ch.icosys.popjava.core.base.POPErrorCode;
@@ -12,10 +19,20 @@ import ch.icosys.popjava.core.baseobject.POPAccessPoint;
 import ch.icosys.popjava.core.dataswaper.POPMutableFloat;
 import ch.icosys.popjava.core.dataswaper.POPString;
 import ch.icosys.popjava.core.interfacebase.Interface;
+import ch.icosys.popjava.core.service.jobmanager.JobManagerConnections;
 import ch.icosys.popjava.core.service.jobmanager.POPJavaJobManager;
 import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.placement.BestFitPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.FirstPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.LeastLoadedPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.LocalityPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.NodeLoads;
+import ch.icosys.popjava.core.service.jobmanager.placement.PackPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.PlacementStrategy;
+import ch.icosys.popjava.core.service.jobmanager.placement.SpreadPlacement;
 import ch.icosys.popjava.core.service.jobmanager.search.SNExploration;
 import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesListener;
 import ch.icosys.popjava.core.service.jobmanager.search.SNRequest;
 import ch.icosys.popjava.core.service.jobmanager.search.SNResponse;
 import ch.icosys.popjava.core.service.jobmanager.search.SNWayback;
@@ -46,8 +63,18 @@ public class POPConnectorJobManager extends POPConnector implements POPConnector
 
 	static final POPNetworkDescriptor DESCRIPTOR = new POPNetworkDescriptor("jobmanager", new DescriptorMethodImpl());
 
+	// reserves and starts the objects of a creation concurrently
+	private static final ExecutorService creators = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Job manager creation thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private final Configuration conf = Configuration.getInstance();
 
+	// load figures of the nodes which answered the last discoveries
+	private final NodeLoads loads = new NodeLoads(conf.getJobManagerUpdateInterval());
+
 	public POPConnectorJobManager() {
 		super(DESCRIPTOR);
 	}
@@ -103,99 +130,99 @@ public class POPConnectorJobManager extends POPConnector implements POPConnector
 		// TODO get appId from AppService
 		String appId = "", reqId = "";
 
-		// send request
-		SNNodesInfo remoteJobMngs = jobManager.launchDiscovery(request, timeout);
-		POPAccessPoint[] chosenRemoteJobM = new POPAccessPoint[howmany];
+		final int[] resIDs = new int[howmany];
+		final POPAccessPoint[] chosenRemoteJobM = new POPAccessPoint[howmany];
+		final List<Future<?>> reservations = new ArrayList<>(howmany);
+
+		// reserve on the suitable nodes as soon as they answer
+		final PlacementStrategy placement = createPlacement();
+		final boolean[] discovering = { true };
+		final int[] assigned = { 0 };
+		SNNodesListener earlyReservation = (node, suitable) -> {
+			loads.update(node);
+			synchronized (reservations) {
+				if (placement.isEager() && suitable && discovering[0] && assigned[0] < howmany) {
+					final int job = assigned[0]++;
+					reservations.add(creators.submit(() -> reserve(od, appId, reqId, Collections.singletonList(node),
+							job, resIDs, chosenRemoteJobM)));
+				}
+			}
+		};
+
+		// send request, it ends once enough nodes answered
+		int wanted = conf.getSearchNodeQuorum() > 0 ? conf.getSearchNodeQuorum() : howmany;
+		SNNodesInfo remoteJobMngs = jobManager.launchDiscovery(request, timeout, wanted, earlyReservation);
+		synchronized (reservations) {
+			discovering[0] = false;
+		}
 		if (remoteJobMngs.isEmpty()) {
 			throw new POPException(POPErrorCode.ALLOCATION_EXCEPTION,
 					"No answer from the network while looking for resource " + resourceReq);
 		}
+		boolean reserved = awaitAll(reservations);
 
-		int[] resIDs = new int[howmany];
-		// make requests
-		for (int jobIdx = 0, jmIdx = 0, failed = 0; jobIdx < howmany; jobIdx++, jmIdx = (jmIdx + 1)
-				% remoteJobMngs.size()) {
-			// connect to remote JM
-			POPJavaJobManager jm = PopJava.newActiveConnect(null, POPJavaJobManager.class,
-					remoteJobMngs.get(jmIdx).getJobManager());
-			POPMutableFloat fitness = new POPMutableFloat();
-			resIDs[jobIdx] = jm.reserve(od, fitness, appId, reqId);
-
-			// failed requests
+		// the other objects go to the first node accepting them, in the order of
+		// the placement strategy
+		List<Future<?>> lateReservations = new ArrayList<>(howmany);
+		for (int jobIdx = 0; jobIdx < howmany; jobIdx++) {
 			if (resIDs[jobIdx] == 0) {
-				LogWriter.writeDebugInfo("[JM] Usable to reserve on %s", jm.getAccessPoint());
-				// failed creation
-				failed++;
-				jobIdx--;
-
-				jm.exit();
-				if (failed == remoteJobMngs.size()) {
-					// cancel previous registrations on remote jms
-					for (int k = 0; k < jobIdx; k++) {
-						jm = PopJava.connect(null, POPJavaJobManager.class, od.getNetwork(), chosenRemoteJobM[k]);
-						jm.cancelReservation(new int[] { resIDs[k] }, 1);
-						jm.exit();
-					}
-					return 1;
-				}
+				final int job = jobIdx;
+				final List<SNNodesInfo.Node> ranked = placement.rank(remoteJobMngs.getNodes(), resourceReq, loads);
+				loads.placed(ranked.get(0));
+				lateReservations
+						.add(creators.submit(() -> reserve(od, appId, reqId, ranked, job, resIDs, chosenRemoteJobM)));
 			}
-			// successful reservation
-			else {
-				chosenRemoteJobM[jobIdx] = jm.getAccessPoint();
-				jm.exit();
+		}
+		reserved &= awaitAll(lateReservations);
+		for (int i = 0; i < howmany; i++) {
+			reserved &= resIDs[i] != 0;
+		}
+		if (!reserved) {
+			// cancel the registrations on remote jms
+			for (int k = 0; k < howmany; k++) {
+				if (resIDs[k] != 0) {
+					cancelReservation(od, chosenRemoteJobM[k], resIDs[k]);
+				}
 			}
+			return 1;
 		}
 
-		// execute objects
-		int started = 0;
+		// execute objects, their JVMs start at the same time
+		final POPRemoteCaller remote = PopJava.getRemoteCaller();
+		final int[] statuses = new int[howmany];
+		// a job which didn't report its status failed
+		Arrays.fill(statuses, POPErrorCode.POP_JOBSERVICE_FAIL);
+		List<Future<?>> executions = new ArrayList<>(howmany);
 		for (int i = 0; i < howmany; i++) {
-			if (!chosenRemoteJobM[i].isEmpty()) {
-				POPJavaJobManager jm = PopJava.connect(null, POPJavaJobManager.class, od.getNetwork(),
-						chosenRemoteJobM[i]);
-				try {
-					// execution
-					POPString pobjname = new POPString(objname);
-					int[] localRIDs = { resIDs[i] };
-					POPAccessPoint[] localObjContact = { objcontacts[i] };
-					int status = jm.execObj(pobjname, 1, localRIDs, localservice.toString(), localObjContact);
-					// force set return
-					objcontacts[i] = localObjContact[0];
-					started++;
-					// failed, free resources
-					if (status != 0) {
-						started--;
-						LogWriter.writeDebugInfo("[JM] execution failed");
-						jm.cancelReservation(localRIDs, 1);
-						return POPErrorCode.OBJECT_NO_RESOURCE;
-					}
+			final int job = i;
+			executions.add(creators.submit(() -> {
+				statuses[job] = execute(localservice, objname, od, remote, chosenRemoteJobM[job], resIDs[job],
+						objcontacts, job);
+			}));
+		}
+		boolean executed = awaitAll(executions);
 
-					// add certificate to newly created object temporary store
-					POPRemoteCaller remote = PopJava.getRemoteCaller();
-					if (remote != null && remote.isSecure() && !remote.isUsingConfidenceLink()) {
-						POPObject object = PopJava.connect(null, POPObject.class, od.getNetwork(), objcontacts[i]);
-						Certificate cert = SSLUtils.getCertificate(remote.getFingerprint());
-						object.PopRegisterFutureConnectorCertificate(SSLUtils.certificateBytes(cert));
-						object.exit();
-					}
-				}
-				// cancel remote registration
-				catch (Exception e) {
-					jm.cancelReservation(new int[] { resIDs[i] }, 1);
-					return POPErrorCode.POP_JOBSERVICE_FAIL;
-				} finally {
-					jm.exit();
-				}
+		int started = 0;
+		int error = 0;
+		for (int i = 0; i < howmany; i++) {
+			if (statuses[i] == 0) {
+				started++;
+			} else {
+				error = statuses[i];
 			}
 		}
 
 		LogWriter.writeDebugInfo("[JM] Object count=%d, require=%d", started, howmany);
 		// created all objects
-		if (started >= howmany) {
+		if (executed && started >= howmany) {
 			return 0;
 		}
 
 		// failed to start all objects, kill already started objects
-		for (int i = 0; i < started; i++) {
+		for (int i = 0; i < howmany; i++) {
+			if (statuses[i] != 0) {
+				continue;
+			}
 			try {
 				Interface obj = new Interface(null, objcontacts[i]);
 				obj.kill();
@@ -204,7 +231,161 @@ public class POPConnectorJobManager extends POPConnector implements POPConnector
 			}
 		}
 
-		return POPErrorCode.POP_EXEC_FAIL;
+		return error != 0 ? error : POPErrorCode.POP_JOBSERVICE_FAIL;
+	}
+
+	/**
+	 * Cancel a reservation on a remote job manager, failures are only logged
+	 */
+	private void cancelReservation(ObjectDescription od, POPAccessPoint contact, int resID) {
+		JobManagerConnections connections = jobManager.getConnections();
+		try {
+			POPJavaJobManager jm = connections.acquire(od.getNetwork(), contact);
+			boolean healthy = false;
+			try {
+				jm.cancelReservation(new int[] { resID }, 1);
+				healthy = true;
+			} finally {
+				connections.release(jm, healthy);
+			}
+		} catch (RuntimeException e) {
+			LogWriter.writeDebugInfo("[JM] Unable to cancel reservation %d on %s: %s", resID, contact,
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Reserve an object on the first of the given job managers accepting it
+	 */
+	private void reserve(ObjectDescription od, String appId, String reqId, List<SNNodesInfo.Node> nodes, int job,
+			int[] resIDs, POPAccessPoint[] chosenRemoteJobM) {
+		JobManagerConnections connections = jobManager.getConnections();
+		for (int attempt = 0; attempt < nodes.size() && resIDs[job] == 0; attempt++) {
+			SNNodesInfo.Node node = nodes.get(attempt);
+			POPAccessPoint contact = node.getJobManager();
+			try {
+				POPJavaJobManager jm = connections.acquire(od.getNetwork(), contact);
+				boolean healthy = false;
+				try {
+					POPMutableFloat fitness = new POPMutableFloat();
+					resIDs[job] = jm.reserve(od, fitness, appId, reqId);
+					healthy = true;
+					if (resIDs[job] == 0) {
+						LogWriter.writeDebugInfo("[JM] Usable to reserve on %s", contact);
+					} else {
+						chosenRemoteJobM[job] = contact;
+						loads.reserved(node, fitness.getValue());
+					}
+				} finally {
+					connections.release(jm, healthy);
+				}
+			} catch (POPException e) {
+				LogWriter.writeDebugInfo("[JM] Usable to reserve on %s: %s", contact, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Create the placement strategy selected in the configuration, the
+	 * {@link FirstPlacement} is used by default.
+	 * 
+	 * @return a new placement strategy
+	 */
+	private PlacementStrategy createPlacement() {
+		String placement = conf.getJobManagerPlacement();
+		if (BestFitPlacement.NAME.equalsIgnoreCase(placement)) {
+			return new BestFitPlacement();
+		} else if (SpreadPlacement.NAME.equalsIgnoreCase(placement)) {
+			return new SpreadPlacement();
+		} else if (PackPlacement.NAME.equalsIgnoreCase(placement)) {
+			return new PackPlacement();
+		} else if (LeastLoadedPlacement.NAME.equalsIgnoreCase(placement)) {
+			return new LeastLoadedPlacement();
+		} else if (LocalityPlacement.NAME.equalsIgnoreCase(placement)) {
+			return new LocalityPlacement(jobManager.getNodeId(), jobManager.getAccessPoint());
+		}
+		return new FirstPlacement();
+	}
+
+	/**
+	 * Start a reserved object on its job manager
+	 * 
+	 * @return 0 if the object was started, an error code otherwise
+	 */
+	private int execute(POPAccessPoint localservice, String objname, ObjectDescription od, POPRemoteCaller remote,
+			POPAccessPoint jobManager, int resID, POPAccessPoint[] objcontacts, int index) {
+		JobManagerConnections connections = this.jobManager.getConnections();
+		POPJavaJobManager jm;
+		try {
+			jm = connections.acquire(od.getNetwork(), jobManager);
+		} catch (RuntimeException e) {
+			LogWriter.writeDebugInfo("[JM] Unable to reach %s: %s", jobManager, e.getMessage());
+			cancelReservation(od, jobManager, resID);
+			return POPErrorCode.POP_JOBSERVICE_FAIL;
+		}
+		boolean healthy = true;
+		try {
+			// execution
+			POPString pobjname = new POPString(objname);
+			int[] localRIDs = { resID };
+			POPAccessPoint[] localObjContact = { objcontacts[index] };
+			int status = jm.execObj(pobjname, 1, localRIDs, localservice.toString(), localObjContact);
+			// force set return
+			objcontacts[index] = localObjContact[0];
+			// failed, free resources
+			if (status != 0) {
+				LogWriter.writeDebugInfo("[JM] execution failed");
+				try {
+					jm.cancelReservation(localRIDs, 1);
+				} catch (RuntimeException e) {
+					healthy = false;
+					LogWriter.writeDebugInfo("[JM] Unable to cancel reservation %d: %s", resID, e.getMessage());
+				}
+				return POPErrorCode.OBJECT_NO_RESOURCE;
+			}
+
+			// add certificate to newly created object temporary store
+			if (remote != null && remote.isSecure() && !remote.isUsingConfidenceLink()) {
+				POPObject object = PopJava.connect(null, POPObject.class, od.getNetwork(), objcontacts[index]);
+				Certificate cert = SSLUtils.getCertificate(remote.getFingerprint());
+				object.PopRegisterFutureConnectorCertificate(SSLUtils.certificateBytes(cert));
+				object.exit();
+			}
+			return 0;
+		}
+		// cancel remote registration
+		catch (Exception e) {
+			healthy = false;
+			try {
+				jm.cancelReservation(new int[] { resID }, 1);
+			} catch (RuntimeException cancel) {
+				LogWriter.writeDebugInfo("[JM] Unable to cancel reservation %d: %s", resID, cancel.getMessage());
+			}
+			return POPErrorCode.POP_JOBSERVICE_FAIL;
+		} finally {
+			connections.release(jm, healthy);
+		}
+	}
+
+	/**
+	 * Wait for tasks of {@link #creators}
+	 * 
+	 * @return true if none failed
+	 */
+	private static boolean awaitAll(List<Future<?>> tasks) {
+		boolean success = true;
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				LogWriter.writeDebugInfo("[JM] Creation step failed: %s", e.getCause().getMessage());
+				success = false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				success = false;
+			}
+		}
+		return success;
 	}
 
 	@Override
@@ -219,6 +400,8 @@ public class POPConnectorJobManager extends POPConnector implements POPConnector
 			// build response and give it back to the original sender
 			SNNodesInfo.Node nodeinfo = new SNNodesInfo.Node(jobManager.getNodeId(), jobManager.getAccessPoint(),
 					POPSystem.getPlatform(), available);
+			nodeinfo.setValue(NodeLoads.JOBS, String.valueOf(jobManager.getJobs()));
+			nodeinfo.setValue(NodeLoads.MAX_JOBS, String.valueOf(jobManager.getMaxJobs()));
 			SNResponse response = new SNResponse(request.getUID(), request.getNetworkUUID(),
 					request.getExplorationList(), nodeinfo);
 
@@ -0,0 +1,29 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Use the nodes with the highest fitness first, as returned by their last
+ * reservation or computed from their answer.
+ */
+public class BestFitPlacement implements PlacementStrategy {
+
+	public static final String NAME = "bestfit";
+
+	@Override
+	public List<SNNodesInfo.Node> rank(List<SNNodesInfo.Node> nodes, Resource needed, NodeLoads loads) {
+		List<SNNodesInfo.Node> ranked = new ArrayList<>(nodes);
+		ranked.sort(Comparator.comparingDouble((SNNodesInfo.Node node) -> loads.getFitness(node, needed)).reversed());
+		return ranked;
+	}
+
+	@Override
+	public boolean isEager() {
+		return false;
+	}
+}
@@ -0,0 +1,26 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Use the nodes in the order they answered, suitable nodes are used while the
+ * discovery is still running.
+ */
+public class FirstPlacement implements PlacementStrategy {
+
+	public static final String NAME = "first";
+
+	@Override
+	public List<SNNodesInfo.Node> rank(List<SNNodesInfo.Node> nodes, Resource needed, NodeLoads loads) {
+		return new ArrayList<>(nodes);
+	}
+
+	@Override
+	public boolean isEager() {
+		return true;
+	}
+}
@@ -0,0 +1,29 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Use the nodes with the lowest share of their job limit in use first, a
+ * small node receives fewer objects than a large one.
+ */
+public class LeastLoadedPlacement implements PlacementStrategy {
+
+	public static final String NAME = "leastloaded";
+
+	@Override
+	public List<SNNodesInfo.Node> rank(List<SNNodesInfo.Node> nodes, Resource needed, NodeLoads loads) {
+		List<SNNodesInfo.Node> ranked = new ArrayList<>(nodes);
+		ranked.sort(Comparator.comparingDouble(loads::getLoad));
+		return ranked;
+	}
+
+	@Override
+	public boolean isEager() {
+		return false;
+	}
+}
@@ -0,0 +1,58 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Use the node of the caller first, then the nodes on the same host, then the
+ * least loaded ones.
+ */
+public class LocalityPlacement implements PlacementStrategy {
+
+	public static final String NAME = "locality";
+
+	private final String nodeId;
+
+	private final POPAccessPoint jobManager;
+
+	/**
+	 * @param nodeId
+	 *            the node creating the objects
+	 * @param jobManager
+	 *            the job manager of the node creating the objects
+	 */
+	public LocalityPlacement(String nodeId, POPAccessPoint jobManager) {
+		this.nodeId = nodeId;
+		this.jobManager = jobManager;
+	}
+
+	@Override
+	public List<SNNodesInfo.Node> rank(List<SNNodesInfo.Node> nodes, Resource needed, NodeLoads loads) {
+		List<SNNodesInfo.Node> ranked = new ArrayList<>(nodes);
+		ranked.sort(Comparator.comparingInt(this::distance).thenComparingDouble(loads::getLoad));
+		return ranked;
+	}
+
+	@Override
+	public boolean isEager() {
+		return false;
+	}
+
+	private int distance(SNNodesInfo.Node node) {
+		if (nodeId.equals(node.getNodeID())) {
+			return 0;
+		}
+		POPAccessPoint other = node.getJobManager();
+		for (int i = 0; other != null && i < other.size(); i++) {
+			if (jobManager.hasAccessPointIP(other.get(i).getHost())) {
+				return 1;
+			}
+		}
+		return 2;
+	}
+}
@@ -0,0 +1,169 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Recent load figures of the nodes, by node ID. They come from the discovery
+ * answers and are updated with the reservations made since, the figures older
+ * than the expiration are forgotten.
+ */
+public class NodeLoads {
+
+	/** Node value with the number of jobs of the node when it answered */
+	public static final String JOBS = "jobs";
+
+	/** Node value with the maximum number of jobs of the node */
+	public static final String MAX_JOBS = "max_jobs";
+
+	private final long expiration;
+
+	// guarded by this
+	private final Map<String, Load> loads = new HashMap<>();
+
+	/**
+	 * @param expiration
+	 *            how long the figures are kept, in milliseconds
+	 */
+	public NodeLoads(long expiration) {
+		this.expiration = expiration;
+	}
+
+	/**
+	 * Keep the figures of a node answering a discovery
+	 *
+	 * @param node
+	 *            the answer of the node
+	 */
+	public synchronized void update(SNNodesInfo.Node node) {
+		Load load = get(node);
+		load.jobs = parse(node.getValue(JOBS), load.jobs);
+		load.maxJobs = parse(node.getValue(MAX_JOBS), load.maxJobs);
+		load.updated = System.currentTimeMillis();
+	}
+
+	/**
+	 * Count an object placed on a node
+	 *
+	 * @param node
+	 *            the node which will run the object
+	 */
+	public synchronized void placed(SNNodesInfo.Node node) {
+		Load load = get(node);
+		load.jobs++;
+		load.updated = System.currentTimeMillis();
+	}
+
+	/**
+	 * Keep the fitness returned by the reservation on a node
+	 *
+	 * @param node
+	 *            the node where the object was reserved
+	 * @param fitness
+	 *            the fitness returned by the node
+	 */
+	public synchronized void reserved(SNNodesInfo.Node node, float fitness) {
+		Load load = get(node);
+		load.fitness = fitness;
+		load.updated = System.currentTimeMillis();
+	}
+
+	/**
+	 * @param node
+	 *            a node
+	 * @return the number of jobs of the node, 0 if unknown
+	 */
+	public synchronized int getJobs(SNNodesInfo.Node node) {
+		return get(node).jobs;
+	}
+
+	/**
+	 * @param node
+	 *            a node
+	 * @return the share of the job limit of the node in use, 0 if unknown
+	 */
+	public synchronized double getLoad(SNNodesInfo.Node node) {
+		Load load = get(node);
+		if (load.maxJobs <= 0) {
+			return 0;
+		}
+		return (double) load.jobs / load.maxJobs;
+	}
+
+	/**
+	 * The fitness of the node, from its last reservation or computed from its
+	 * answer
+	 *
+	 * @param node
+	 *            a node
+	 * @param needed
+	 *            the resources requested for the object
+	 * @return how many times the node can handle the request
+	 */
+	public synchronized float getFitness(SNNodesInfo.Node node, Resource needed) {
+		Load load = get(node);
+		if (load.fitness >= 0) {
+			return load.fitness;
+		}
+		return node.getResources() == null ? 0 : node.getResources().getFitness(needed);
+	}
+
+	/**
+	 * @return the number of nodes with recent figures
+	 */
+	public synchronized int size() {
+		expire();
+		return loads.size();
+	}
+
+	private Load get(SNNodesInfo.Node node) {
+		expire();
+		Load load = loads.get(node.getNodeID());
+		if (load == null) {
+			load = new Load();
+			load.jobs = parse(node.getValue(JOBS), 0);
+			load.maxJobs = parse(node.getValue(MAX_JOBS), 0);
+			loads.put(node.getNodeID(), load);
+		}
+		return load;
+	}
+
+	private void expire() {
+		long now = System.currentTimeMillis();
+		Iterator<Load> iterator = loads.values().iterator();
+		while (iterator.hasNext()) {
+			if (now - iterator.next().updated > expiration) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private static int parse(String value, int otherwise) {
+		if (value == null) {
+			return otherwise;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return otherwise;
+		}
+	}
+
+	/**
+	 * The figures of a node
+	 */
+	private static final class Load {
+
+		private int jobs;
+
+		private int maxJobs;
+
+		private float fitness = -1;
+
+		private long updated = System.currentTimeMillis();
+	}
+}
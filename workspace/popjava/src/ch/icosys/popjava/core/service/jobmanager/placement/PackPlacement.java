@@ -0,0 +1,31 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Fill the nodes before using the next ones: the busiest nodes still able to
+ * handle the object are used first, the tightest fit breaks ties.
+ */
+public class PackPlacement implements PlacementStrategy {
+
+	public static final String NAME = "pack";
+
+	@Override
+	public List<SNNodesInfo.Node> rank(List<SNNodesInfo.Node> nodes, Resource needed, NodeLoads loads) {
+		List<SNNodesInfo.Node> ranked = new ArrayList<>(nodes);
+		ranked.sort(Comparator.comparing((SNNodesInfo.Node node) -> !node.getResources().canHandle(needed))
+				.thenComparing(Comparator.comparingDouble(loads::getLoad).reversed())
+				.thenComparingDouble(node -> loads.getFitness(node, needed)));
+		return ranked;
+	}
+
+	@Override
+	public boolean isEager() {
+		return false;
+	}
+}
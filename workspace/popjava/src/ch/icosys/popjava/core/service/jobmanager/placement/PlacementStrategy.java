@@ -0,0 +1,33 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.List;
+
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Choose on which of the nodes answering a discovery an object is reserved.
+ * The strategy is selected with
+ * {@link ch.icosys.popjava.core.util.Configuration#getJobManagerPlacement()}.
+ */
+public interface PlacementStrategy {
+
+	/**
+	 * Order the nodes, the object is reserved on the first one accepting it
+	 * 
+	 * @param nodes
+	 *            the nodes which answered the discovery, must not be modified
+	 * @param needed
+	 *            the resources requested for the object
+	 * @param loads
+	 *            the recent load figures of the nodes
+	 * @return the nodes to try, in order
+	 */
+	List<SNNodesInfo.Node> rank(List<SNNodesInfo.Node> nodes, Resource needed, NodeLoads loads);
+
+	/**
+	 * @return true if objects can be reserved on the nodes answering first,
+	 *         before the discovery ended
+	 */
+	boolean isEager();
+}
@@ -0,0 +1,29 @@
+package ch.icosys.popjava.core.service.jobmanager.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+/**
+ * Use the nodes running the fewest objects first, so that each node receives
+ * the same number of objects.
+ */
+public class SpreadPlacement implements PlacementStrategy {
+
+	public static final String NAME = "spread";
+
+	@Override
+	public List<SNNodesInfo.Node> rank(List<SNNodesInfo.Node> nodes, Resource needed, NodeLoads loads) {
+		List<SNNodesInfo.Node> ranked = new ArrayList<>(nodes);
+		ranked.sort(Comparator.comparingInt(loads::getJobs));
+		return ranked;
+	}
+
+	@Override
+	public boolean isEager() {
+		return false;
+	}
+}
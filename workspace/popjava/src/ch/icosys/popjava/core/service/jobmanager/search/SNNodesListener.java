@@ -0,0 +1,17 @@
+package ch.icosys.popjava.core.service.jobmanager.search;
+
+/**
+ * Receives the nodes answering a discovery while it is still running.
+ */
+public interface SNNodesListener {
+
+	/**
+	 * A node answered, called from the thread receiving the answer
+	 * 
+	 * @param node
+	 *            the node and its available resources
+	 * @param suitable
+	 *            the node has the requested resources, not only the minimum
+	 */
+	void nodeFound(SNNodesInfo.Node node, boolean suitable);
+}
@@ -0,0 +1,430 @@
+package ch.icosys.popjava.core.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import ch.icosys.popjava.core.broker.Broker;
+import ch.icosys.popjava.core.combox.ComboxFactoryFinder;
+
+/**
+ * Broker JVMs started in advance, so that creating an object does not wait for
+ * a JVM to start. Once a broker command was run, up to
+ * {@link Configuration#getBrokerPoolSize()} JVMs are started with the same
+ * command but without the object arguments. They load the common classes and
+ * wait on a loopback connection until a creation gives them its arguments,
+ * they then continue as if started with them.
+ *
+ * With {@link Configuration#isBrokerContainer()} a JVM of the pool becomes a
+ * container instead: it keeps the connection and hosts all the following
+ * objects of the same command, each with its own broker.
+ *
+ * Each JVM proves it was started by the pool with a random token. Idle JVMs
+ * are stopped after {@link Configuration#getBrokerPoolIdleTimeout()}.
+ */
+public final class BrokerPool {
+
+	private static final int HANDSHAKE_TIMEOUT = 10000;
+
+	private static final int EXPIRE_INTERVAL = 1000;
+
+	private static BrokerPool instance;
+
+	private final Configuration conf = Configuration.getInstance();
+
+	private final SecureRandom random = new SecureRandom();
+
+	// guarded by this
+	private final Map<String, Deque<WarmBroker>> idle = new HashMap<>();
+
+	// guarded by this, JVMs hosting objects by command
+	private final Map<String, WarmBroker> containers = new HashMap<>();
+
+	// guarded by this, JVMs not connected yet by token
+	private final Map<String, StartingBroker> starting = new HashMap<>();
+
+	private final LongAdder starts = new LongAdder();
+
+	private final LongAdder reuses = new LongAdder();
+
+	private ServerSocket server;
+
+	private Thread acceptor;
+
+	private BrokerPool() {
+	}
+
+	/**
+	 * @return the pool of the JVM
+	 */
+	public static synchronized BrokerPool getInstance() {
+		if (instance == null) {
+			instance = new BrokerPool();
+		}
+		return instance;
+	}
+
+	/**
+	 * Stop the idle JVMs of the pool, if any was started
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.close();
+		}
+	}
+
+	/**
+	 * Run a broker command with a JVM of the pool, or in the container of the
+	 * command. The pool is refilled for this command in any case.
+	 *
+	 * @param argvs
+	 *            the command starting a broker
+	 * @param dir
+	 *            the working directory, may be null
+	 * @return the process now running the broker, null if the command must be
+	 *         started normally
+	 */
+	public Process launch(List<String> argvs, String dir) {
+		int brokerIndex = argvs.indexOf(Broker.class.getName());
+		boolean container = conf.isBrokerContainer();
+		if (conf.getBrokerPoolSize() <= 0 && !container || brokerIndex < 0) {
+			return null;
+		}
+
+		List<String> command = new ArrayList<>(argvs.subList(0, brokerIndex + 1));
+		List<String> arguments = argvs.subList(brokerIndex + 1, argvs.size());
+		String key = (dir == null ? "" : dir) + '\n' + String.join("\n", command);
+
+		Process process = null;
+		WarmBroker warm;
+		while (process == null && (warm = container ? takeContainer(key) : takeIdle(key)) != null) {
+			if (warm.become(arguments, container)) {
+				process = warm.process;
+				reuses.increment();
+			} else if (container) {
+				removeContainer(key, warm);
+			}
+		}
+
+		refill(key, command, dir, container);
+		return process;
+	}
+
+	/**
+	 * @return the number of JVMs started for the pool
+	 */
+	public long getStarts() {
+		return starts.sum();
+	}
+
+	/**
+	 * @return the number of objects created with a JVM of the pool
+	 */
+	public long getReuses() {
+		return reuses.sum();
+	}
+
+	/**
+	 * @return the number of JVMs waiting for an object
+	 */
+	public synchronized int getIdle() {
+		int count = 0;
+		for (Deque<WarmBroker> brokers : idle.values()) {
+			count += brokers.size();
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of container JVMs hosting objects
+	 */
+	public synchronized int getContainers() {
+		return containers.size();
+	}
+
+	private synchronized WarmBroker takeIdle(String key) {
+		Deque<WarmBroker> brokers = idle.get(key);
+		return brokers == null ? null : brokers.pollFirst();
+	}
+
+	private synchronized WarmBroker takeContainer(String key) {
+		WarmBroker container = containers.get(key);
+		if (container == null) {
+			container = takeIdle(key);
+			if (container != null) {
+				containers.put(key, container);
+			}
+		}
+		return container;
+	}
+
+	private synchronized void removeContainer(String key, WarmBroker container) {
+		if (containers.get(key) == container) {
+			containers.remove(key);
+		}
+	}
+
+	private synchronized void refill(String key, List<String> command, String dir, boolean container) {
+		// a single container is enough
+		int size = container ? containers.containsKey(key) ? 0 : 1 : conf.getBrokerPoolSize();
+		int count = 0;
+		Deque<WarmBroker> brokers = idle.get(key);
+		if (brokers != null) {
+			count += brokers.size();
+		}
+		for (StartingBroker broker : starting.values()) {
+			if (broker.key.equals(key)) {
+				count++;
+			}
+		}
+
+		for (; count < size; count++) {
+			try {
+				if (server == null) {
+					open();
+				}
+				byte[] bytes = new byte[16];
+				random.nextBytes(bytes);
+				StringBuilder token = new StringBuilder();
+				for (byte b : bytes) {
+					token.append(String.format("%02x", b));
+				}
+
+				List<String> warmCommand = new ArrayList<>(command);
+				warmCommand.add(Broker.POOL_PREFIX + server.getLocalPort() + ":" + token);
+				Process process = SystemUtil.startProcess(warmCommand, dir);
+				starting.put(token.toString(), new StartingBroker(key, process));
+				starts.increment();
+			} catch (IOException e) {
+				LogWriter.writeDebugInfo("[BrokerPool] Could not start a broker JVM: %s", e.getMessage());
+				return;
+			}
+		}
+	}
+
+	private void open() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		server.setSoTimeout(EXPIRE_INTERVAL);
+		final ServerSocket listening = server;
+		acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (!listening.isClosed()) {
+					try {
+						accept(listening.accept());
+					} catch (SocketTimeoutException e) {
+						expire();
+					} catch (IOException e) {
+						if (!listening.isClosed()) {
+							LogWriter.writeExceptionLog(e);
+						}
+					}
+				}
+			}
+		}, "Broker pool acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	private void accept(Socket socket) {
+		try {
+			socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+			DataInputStream input = new DataInputStream(socket.getInputStream());
+			String token = input.readUTF();
+			synchronized (this) {
+				StartingBroker broker = starting.remove(token);
+				if (broker == null) {
+					LogWriter.writeDebugInfo("[BrokerPool] Rejected a connection with an unknown token");
+					socket.close();
+					return;
+				}
+				Deque<WarmBroker> brokers = idle.get(broker.key);
+				if (brokers == null) {
+					brokers = new ArrayDeque<>();
+					idle.put(broker.key, brokers);
+				}
+				brokers.addLast(new WarmBroker(socket, input, broker.process));
+			}
+		} catch (IOException e) {
+			try {
+				socket.close();
+			} catch (IOException e1) {
+			}
+		}
+	}
+
+	private synchronized void expire() {
+		long now = System.currentTimeMillis();
+		for (Deque<WarmBroker> brokers : idle.values()) {
+			Iterator<WarmBroker> iterator = brokers.iterator();
+			while (iterator.hasNext()) {
+				WarmBroker broker = iterator.next();
+				if (now - broker.since > conf.getBrokerPoolIdleTimeout() || !broker.process.isAlive()) {
+					iterator.remove();
+					broker.close();
+				}
+			}
+		}
+		Iterator<StartingBroker> iterator = starting.values().iterator();
+		while (iterator.hasNext()) {
+			if (!iterator.next().process.isAlive()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private synchronized void close() {
+		if (server != null) {
+			try {
+				server.close();
+			} catch (IOException e) {
+			}
+			server = null;
+		}
+		for (Deque<WarmBroker> brokers : idle.values()) {
+			for (WarmBroker broker : brokers) {
+				broker.close();
+			}
+		}
+		idle.clear();
+		for (WarmBroker container : containers.values()) {
+			container.close();
+		}
+		containers.clear();
+		for (StartingBroker broker : starting.values()) {
+			broker.process.destroy();
+		}
+		starting.clear();
+	}
+
+	/**
+	 * Broker-side of the pool, called by a JVM started by the pool before
+	 * anything else. The common classes are loaded, then the JVM waits for an
+	 * object to create. A container gives each object to the host and waits for
+	 * the next one.
+	 *
+	 * @param address
+	 *            the value of the {@link Broker#POOL_PREFIX} argument
+	 * @param host
+	 *            starts an object in a container, must not block
+	 * @return the arguments of the single object to create, null if the pool
+	 *         closed the connection
+	 */
+	public static String[] awaitArguments(String address, Consumer<String[]> host) {
+		int separator = address.indexOf(':');
+		int port = Integer.parseInt(address.substring(0, separator));
+		String token = address.substring(separator + 1);
+
+		Configuration.getInstance();
+		ComboxFactoryFinder.getInstance();
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+			DataInputStream input = new DataInputStream(socket.getInputStream());
+			output.writeUTF(token);
+			output.flush();
+
+			while (true) {
+				boolean container = input.readBoolean();
+				String[] arguments = new String[input.readInt()];
+				for (int i = 0; i < arguments.length; i++) {
+					arguments[i] = input.readUTF();
+				}
+				if (!container) {
+					output.writeBoolean(true);
+					output.flush();
+					return arguments;
+				}
+				host.accept(arguments);
+				output.writeBoolean(true);
+				output.flush();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A JVM being started
+	 */
+	private static final class StartingBroker {
+
+		private final String key;
+
+		private final Process process;
+
+		private StartingBroker(String key, Process process) {
+			this.key = key;
+			this.process = process;
+		}
+	}
+
+	/**
+	 * A JVM waiting for its arguments
+	 */
+	private static final class WarmBroker {
+
+		private final Socket socket;
+
+		private final DataInputStream input;
+
+		private final Process process;
+
+		private final long since = System.currentTimeMillis();
+
+		private WarmBroker(Socket socket, DataInputStream input, Process process) {
+			this.socket = socket;
+			this.input = input;
+			this.process = process;
+		}
+
+		/**
+		 * Give the object arguments to the JVM
+		 *
+		 * @param container
+		 *            keep the connection to host the next objects
+		 * @return true if the JVM received them
+		 */
+		private synchronized boolean become(List<String> arguments, boolean container) {
+			try {
+				DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+				output.writeBoolean(container);
+				output.writeInt(arguments.size());
+				for (String argument : arguments) {
+					output.writeUTF(argument);
+				}
+				output.flush();
+				boolean received = input.readBoolean();
+				if (!container) {
+					socket.close();
+				}
+				return received;
+			} catch (IOException e) {
+				close();
+				return false;
+			}
+		}
+
+		private void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+			process.destroy();
+		}
+	}
+}
@@ -3,6 +3,9 @@ package ch.icosys.popjava.core.util;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -289,6 +292,39 @@ public class ClassUtil {
 		return null;
 	}
 
+	/**
+	 * Tell if a method answers with a future instead of its value
+	 * 
+	 * @param m
+	 *            the method
+	 * @return true if the method returns a {@link CompletableFuture}
+	 */
+	public static boolean isFutureMethod(Method m) {
+		return CompletableFuture.class.isAssignableFrom(m.getReturnType());
+	}
+
+	/**
+	 * Get the class of the value a future returned by a method is completed
+	 * with
+	 * 
+	 * @param m
+	 *            a method returning a {@link CompletableFuture}
+	 * @return the class of the value, Object if it is not declared
+	 */
+	public static Class<?> getFutureValueType(Method m) {
+		Type type = m.getGenericReturnType();
+		if (type instanceof ParameterizedType) {
+			Type value = ((ParameterizedType) type).getActualTypeArguments()[0];
+			if (value instanceof ParameterizedType) {
+				value = ((ParameterizedType) value).getRawType();
+			}
+			if (value instanceof Class) {
+				return (Class<?>) value;
+			}
+		}
+		return Object.class;
+	}
+
 	/**
 	 * Generate an ID or use the one specified
 	 * 
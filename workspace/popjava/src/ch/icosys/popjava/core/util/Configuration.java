@@ -29,7 +29,7 @@ public final class Configuration {
 	 * Settable parameters for load and store options
 	 */
 	private enum Settable {
-		SYSTEM_JOBMANAGER_CONFIG, DEBUG, DEBUG_COMBOX, RESERVE_TIMEOUT, ALLOC_TIMEOUT, CONNECTION_TIMEOUT, JOBMANAGER_UPDATE_INTERVAL, JOBMANAGER_SELF_REGISTER_INTERVAL, JOBMANAGER_DEFAULT_CONNECTOR, JOBMANAGER_PROTOCOLS, JOBMANAGER_PORTS, JOBMANAGER_EXECUTION_BASE_DIRECTORY, JOBMANAGER_EXECUTION_USER, POP_JAVA_DEAMON_PORT, SEARCH_NODE_UNLOCK_TIMEOUT, SEARCH_NODE_SEARCH_TIMEOUT, SEARCH_NODE_MAX_REQUESTS, SEARCH_NODE_EXPLORATION_QUEUE_SIZE, TFC_SEARCH_TIMEOUT, DEFAULT_ENCODING, SELECTED_ENCODING, DEFAULT_PROTOCOL, DEFAULT_NETWORK, ALLOCATE_PORT_RANGE, PROTOCOLS_WHITELIST, PROTOCOLS_BLACKLIST, ASYNC_CONSTRUCTOR, ACTIVATE_JMX, CONNECT_TO_POPCPP, CONNECT_TO_JAVA_JOBMANAGER, REDIRECT_OUTPUT_TO_ROOT, USE_NATIVE_SSH_IF_POSSIBLE, SSL_PROTOCOL_VERSION, SSL_KEY_STORE_FILE, SSL_KEY_STORE_PASSWORD, SSL_KEY_STORE_PRIVATE_KEY_PASSWORD, SSL_KEY_STORE_FORMAT,
+		SYSTEM_JOBMANAGER_CONFIG, DEBUG, DEBUG_COMBOX, LOG_FORMAT, LOG_FILE_MAX_SIZE, LOG_FILE_ROTATION_INTERVAL, RESERVE_TIMEOUT, ALLOC_TIMEOUT, CONNECTION_TIMEOUT, COMBOX_SHARED_CONNECTIONS, COMBOX_KEEP_ALIVE_INTERVAL, COMBOX_KEEP_ALIVE_TIMEOUT, COMBOX_MAX_MESSAGE_LENGTH, JOBMANAGER_UPDATE_INTERVAL, JOBMANAGER_SELF_REGISTER_INTERVAL, JOBMANAGER_DEFAULT_CONNECTOR, JOBMANAGER_PLACEMENT, JOBMANAGER_CONNECTIONS_PER_TARGET, JOBMANAGER_CONNECTION_IDLE_TIMEOUT, JOBMANAGER_PROTOCOLS, JOBMANAGER_PORTS, JOBMANAGER_EXECUTION_BASE_DIRECTORY, JOBMANAGER_EXECUTION_USER, POP_JAVA_DEAMON_PORT, SEARCH_NODE_UNLOCK_TIMEOUT, SEARCH_NODE_SEARCH_TIMEOUT, SEARCH_NODE_MAX_REQUESTS, SEARCH_NODE_EXPLORATION_QUEUE_SIZE, SEARCH_NODE_QUORUM, TFC_SEARCH_TIMEOUT, DEFAULT_ENCODING, SELECTED_ENCODING, DEFAULT_PROTOCOL, DEFAULT_NETWORK, ALLOCATE_PORT_RANGE, PROTOCOLS_WHITELIST, PROTOCOLS_BLACKLIST, ASYNC_CONSTRUCTOR, ACTIVATE_JMX, CONNECT_TO_POPCPP, CONNECT_TO_JAVA_JOBMANAGER, REDIRECT_OUTPUT_TO_ROOT, USE_NATIVE_SSH_IF_POSSIBLE, SSL_PROTOCOL_VERSION, SSL_SESSION_CACHE_SIZE, SSL_SESSION_TIMEOUT, SSL_KEY_STORE_FILE, SSL_KEY_STORE_PASSWORD, SSL_KEY_STORE_PRIVATE_KEY_PASSWORD, SSL_KEY_STORE_FORMAT, REQUEST_SCHEDULER, BROKER_EXECUTOR, BROKER_EXECUTOR_THREADS, NIO_SELECTOR_THREADS, BUFFER_POOL_SIZE, BUFFER_POOL_LEAK_DETECTION, BULK_TRANSFER_THRESHOLD, STREAM_CHUNK_SIZE, STREAM_WINDOW, STREAM_TIMEOUT, SCHEMA_SERIALIZATION, BROKER_POOL_SIZE, BROKER_POOL_IDLE_TIMEOUT, BROKER_CONTAINER,
 	}
 
 	// instance
@@ -83,18 +83,38 @@ public final class Configuration {
 
 	private boolean debugCombox = false;
 
+	private String logFormat = "text";
+
+	private int logFileMaxSize = 0;
+
+	private int logFileRotationInterval = 0;
+
 	private int reserveTimeout = 60000;
 
 	private int allocTimeout = 30000;
 
 	private int connectionTimeout = 30000;
 
+	private int comboxSharedConnections = 1;
+
+	private int comboxKeepAliveInterval = 30000;
+
+	private int comboxKeepAliveTimeout = 120000;
+
+	private int comboxMaxMessageLength = 1 << 30;
+
 	private int jobManagerUpdateInterval = 10000;
 
 	private int jobManagerSelfRegisterInterval = 43_200_000;
 
 	private String jobManagerDefaultConnector = "jobmanager";
 
+	private String jobManagerPlacement = "first";
+
+	private int jobManagerConnectionsPerTarget = 4;
+
+	private int jobManagerConnectionIdleTimeout = 60000;
+
 	private int searchNodeUnlockTimeout = 10000;
 
 	private int searchNodeSearchTimeout = 0;
@@ -107,6 +127,8 @@ public final class Configuration {
 
 	private int searchNodeExplorationQueueSize = 300;
 
+	private int searchNodeQuorum = 0;
+
 	private String[] jobManagerProtocols = { "socket" };
 
 	private int[] jobManagerPorts = { 2711 };
@@ -143,6 +165,34 @@ public final class Configuration {
 
 	private boolean useNativeSSHifPossible = true;
 
+	private String requestScheduler = "queue";
+
+	private String brokerExecutor = "fixed";
+
+	private int brokerExecutorThreads = 0;
+
+	private int nioSelectorThreads = 2;
+
+	private int bufferPoolSize = 64;
+
+	private boolean bufferPoolLeakDetection = false;
+
+	private int bulkTransferThreshold = 1 << 20;
+
+	private int streamChunkSize = 1 << 16;
+
+	private int streamWindow = 8;
+
+	private int streamTimeout = 60000;
+
+	private boolean schemaSerialization = true;
+
+	private int brokerPoolSize = 0;
+
+	private int brokerPoolIdleTimeout = 60000;
+
+	private boolean brokerContainer = false;
+
 	// all relevant information of the keystore (alias, keyStorePassword,
 	// privateKeyPassword, keyStoreLocation, keyStoreType,
 	// temporaryCertificatesDir)
@@ -153,6 +203,10 @@ public final class Configuration {
 	// NOTE this is waiting for TLSv1.3 to be officialized
 	private String SSLProtocolVersion = "TLSv1.2";
 
+	private int SSLSessionCacheSize = 1000;
+
+	private int SSLSessionTimeout = 3600000;
+
 	/**
 	 * This is a singleton
 	 */
@@ -213,6 +267,27 @@ public final class Configuration {
 		return debugCombox;
 	}
 
+	/**
+	 * @return the format of the log lines, text or json
+	 */
+	public String getLogFormat() {
+		return logFormat;
+	}
+
+	/**
+	 * @return the size in bytes after which a log file is rotated, 0 to not rotate
+	 */
+	public int getLogFileMaxSize() {
+		return logFileMaxSize;
+	}
+
+	/**
+	 * @return the time after which a log file is rotated, 0 to not rotate
+	 */
+	public int getLogFileRotationInterval() {
+		return logFileRotationInterval;
+	}
+
 	/**
 	 * @return how many ms after a job manager will drop a request
 	 */
@@ -234,6 +309,37 @@ public final class Configuration {
 		return connectionTimeout;
 	}
 
+	/**
+	 * @return how many interfaces can share a client combox, 1 to not share them
+	 */
+	public int getComboxSharedConnections() {
+		return comboxSharedConnections;
+	}
+
+	/**
+	 * @return the time without sending after which a client combox sends a ping,
+	 *         0 to not send pings
+	 */
+	public int getComboxKeepAliveInterval() {
+		return comboxKeepAliveInterval;
+	}
+
+	/**
+	 * @return the time without receiving after which a server combox whose
+	 *         client sent pings considers it dead and closes, 0 to keep it open
+	 */
+	public int getComboxKeepAliveTimeout() {
+		return comboxKeepAliveTimeout;
+	}
+
+	/**
+	 * @return the largest message in bytes a combox accepts to receive, a larger
+	 *         one closes the connection
+	 */
+	public int getComboxMaxMessageLength() {
+		return comboxMaxMessageLength;
+	}
+
 	/**
 	 * @return interval in ms for the job manager to refresh itself
 	 */
@@ -258,6 +364,29 @@ public final class Configuration {
 		return jobManagerDefaultConnector;
 	}
 
+	/**
+	 * @return the strategy choosing the nodes where the objects are created
+	 */
+	public String getJobManagerPlacement() {
+		return jobManagerPlacement;
+	}
+
+	/**
+	 * @return how many connections a job manager opens at most to each other job
+	 *         manager
+	 */
+	public int getJobManagerConnectionsPerTarget() {
+		return jobManagerConnectionsPerTarget;
+	}
+
+	/**
+	 * @return after how long an unused connection to another job manager is
+	 *         closed
+	 */
+	public int getJobManagerConnectionIdleTimeout() {
+		return jobManagerConnectionIdleTimeout;
+	}
+
 	/**
 	 * @return where the job manager should execute the object it will create
 	 */
@@ -314,6 +443,14 @@ public final class Configuration {
 		return searchNodeExplorationQueueSize;
 	}
 
+	/**
+	 * @return how many suitable nodes end a research early, 0 for as many as the
+	 *         objects to create
+	 */
+	public int getSearchNodeQuorum() {
+		return searchNodeQuorum;
+	}
+
 	/**
 	 * @return
 	 */
@@ -391,6 +528,111 @@ public final class Configuration {
 		return useNativeSSHifPossible;
 	}
 
+	/**
+	 * @return the request scheduler used by the brokers, "queue" or "lockfree"
+	 */
+	public String getRequestScheduler() {
+		return requestScheduler;
+	}
+
+	/**
+	 * @return the default execution model of the brokers, "fixed", "forkjoin"
+	 *         or "virtual"
+	 */
+	public String getBrokerExecutor() {
+		return brokerExecutor;
+	}
+
+	/**
+	 * @return maximum number of threads serving concurrent requests in a broker,
+	 *         0 to use the executor default
+	 */
+	public int getBrokerExecutorThreads() {
+		return brokerExecutorThreads;
+	}
+
+	/**
+	 * @return number of selector threads shared by all the nio comboxes of the JVM
+	 */
+	public int getNioSelectorThreads() {
+		return nioSelectorThreads;
+	}
+
+	/**
+	 * @return number of buffers of the smallest size kept for reuse, 0 disables
+	 *         the pool
+	 */
+	public int getBufferPoolSize() {
+		return bufferPoolSize;
+	}
+
+	/**
+	 * @return true if the buffers collected without being released are logged
+	 */
+	public boolean isBufferPoolLeakDetection() {
+		return bufferPoolLeakDetection;
+	}
+
+	/**
+	 * @return size in bytes from which primitive arrays are sent straight from
+	 *         the array and received messages are not copied, 0 disables it
+	 */
+	public int getBulkTransferThreshold() {
+		return bulkTransferThreshold;
+	}
+
+	/**
+	 * @return size in bytes of the chunks of a streamed parameter
+	 */
+	public int getStreamChunkSize() {
+		return streamChunkSize;
+	}
+
+	/**
+	 * @return number of chunks of a stream sent before the receiver reads them
+	 */
+	public int getStreamWindow() {
+		return streamWindow;
+	}
+
+	/**
+	 * @return time in milliseconds a broker waits for the other side of a
+	 *         stream before failing it, 0 to wait forever
+	 */
+	public int getStreamTimeout() {
+		return streamTimeout;
+	}
+
+	/**
+	 * @return if serializable objects are encoded field by field instead of
+	 *         with Java serialization when possible
+	 */
+	public boolean isSchemaSerialization() {
+		return schemaSerialization;
+	}
+
+	/**
+	 * @return number of broker JVMs started in advance for each broker command
+	 */
+	public int getBrokerPoolSize() {
+		return brokerPoolSize;
+	}
+
+	/**
+	 * @return milliseconds before an unused broker JVM of the pool is stopped
+	 */
+	public int getBrokerPoolIdleTimeout() {
+		return brokerPoolIdleTimeout;
+	}
+
+	/**
+	 * @return if the objects created with the same command share a container
+	 *         JVM instead of each having its own
+	 */
+	public boolean isBrokerContainer() {
+		return brokerContainer;
+	}
+
 	/**
 	 * @return information on the keystore containing the private keys
 	 */
@@ -405,6 +647,20 @@ public final class Configuration {
 		return SSLProtocolVersion;
 	}
 
+	/**
+	 * @return how many TLS sessions are kept to be resumed, 0 for no limit
+	 */
+	public int getSSLSessionCacheSize() {
+		return SSLSessionCacheSize;
+	}
+
+	/**
+	 * @return how many ms a TLS session can be resumed
+	 */
+	public int getSSLSessionTimeout() {
+		return SSLSessionTimeout;
+	}
+
 	/**
 	 * @return alias for {@link KeyStoreDetails#getKeyStoreFile()}
 	 */
@@ -497,6 +753,21 @@ public final class Configuration {
 		this.debugCombox = debugCombox;
 	}
 
+	public void setLogFormat(String logFormat) {
+		setUserProp(Settable.LOG_FORMAT, logFormat);
+		this.logFormat = logFormat;
+	}
+
+	public void setLogFileMaxSize(int logFileMaxSize) {
+		setUserProp(Settable.LOG_FILE_MAX_SIZE, logFileMaxSize);
+		this.logFileMaxSize = logFileMaxSize;
+	}
+
+	public void setLogFileRotationInterval(int logFileRotationInterval) {
+		setUserProp(Settable.LOG_FILE_ROTATION_INTERVAL, logFileRotationInterval);
+		this.logFileRotationInterval = logFileRotationInterval;
+	}
+
 	public void setReserveTimeout(int reserveTimeout) {
 		setUserProp(Settable.RESERVE_TIMEOUT, reserveTimeout);
 		this.reserveTimeout = reserveTimeout;
@@ -512,6 +783,26 @@ public final class Configuration {
 		this.connectionTimeout = connectionTimeout;
 	}
 
+	public void setComboxSharedConnections(int comboxSharedConnections) {
+		setUserProp(Settable.COMBOX_SHARED_CONNECTIONS, comboxSharedConnections);
+		this.comboxSharedConnections = comboxSharedConnections;
+	}
+
+	public void setComboxKeepAliveInterval(int comboxKeepAliveInterval) {
+		setUserProp(Settable.COMBOX_KEEP_ALIVE_INTERVAL, comboxKeepAliveInterval);
+		this.comboxKeepAliveInterval = comboxKeepAliveInterval;
+	}
+
+	public void setComboxKeepAliveTimeout(int comboxKeepAliveTimeout) {
+		setUserProp(Settable.COMBOX_KEEP_ALIVE_TIMEOUT, comboxKeepAliveTimeout);
+		this.comboxKeepAliveTimeout = comboxKeepAliveTimeout;
+	}
+
+	public void setComboxMaxMessageLength(int comboxMaxMessageLength) {
+		setUserProp(Settable.COMBOX_MAX_MESSAGE_LENGTH, comboxMaxMessageLength);
+		this.comboxMaxMessageLength = comboxMaxMessageLength;
+	}
+
 	public void setJobManagerUpdateInterval(int jobManagerUpdateInterval) {
 		setUserProp(Settable.JOBMANAGER_UPDATE_INTERVAL, jobManagerUpdateInterval);
 		this.jobManagerUpdateInterval = jobManagerUpdateInterval;
@@ -527,6 +818,21 @@ public final class Configuration {
 		this.jobManagerDefaultConnector = jobManagerDefaultConnector;
 	}
 
+	public void setJobManagerPlacement(String jobManagerPlacement) {
+		setUserProp(Settable.JOBMANAGER_PLACEMENT, jobManagerPlacement);
+		this.jobManagerPlacement = jobManagerPlacement;
+	}
+
+	public void setJobManagerConnectionsPerTarget(int jobManagerConnectionsPerTarget) {
+		setUserProp(Settable.JOBMANAGER_CONNECTIONS_PER_TARGET, jobManagerConnectionsPerTarget);
+		this.jobManagerConnectionsPerTarget = jobManagerConnectionsPerTarget;
+	}
+
+	public void setJobManagerConnectionIdleTimeout(int jobManagerConnectionIdleTimeout) {
+		setUserProp(Settable.JOBMANAGER_CONNECTION_IDLE_TIMEOUT, jobManagerConnectionIdleTimeout);
+		this.jobManagerConnectionIdleTimeout = jobManagerConnectionIdleTimeout;
+	}
+
 	public void setJobManagerExecutionBaseDirectory(String jobManagerExecutionBaseDirectory) {
 		setUserProp(Settable.JOBMANAGER_EXECUTION_BASE_DIRECTORY, jobManagerExecutionBaseDirectory);
 		this.jobManagerExecutionBaseDirectory = jobManagerExecutionBaseDirectory;
@@ -562,6 +868,11 @@ public final class Configuration {
 		this.searchNodeExplorationQueueSize = searchNodeExplorationQueueSize;
 	}
 
+	public void setSearchNodeQuorum(int searchNodeQuorum) {
+		setUserProp(Settable.SEARCH_NODE_QUORUM, searchNodeQuorum);
+		this.searchNodeQuorum = searchNodeQuorum;
+	}
+
 	public void setDefaultEncoding(String defaultEncoding) {
 		setUserProp(Settable.DEFAULT_ENCODING, defaultEncoding);
 		this.defaultEncoding = defaultEncoding;
@@ -617,11 +928,91 @@ public final class Configuration {
 		this.useNativeSSHifPossible = useNativeSSHifPossible;
 	}
 
+	public void setRequestScheduler(String requestScheduler) {
+		setUserProp(Settable.REQUEST_SCHEDULER, requestScheduler);
+		this.requestScheduler = requestScheduler;
+	}
+
+	public void setBrokerExecutor(String brokerExecutor) {
+		setUserProp(Settable.BROKER_EXECUTOR, brokerExecutor);
+		this.brokerExecutor = brokerExecutor;
+	}
+
+	public void setBrokerExecutorThreads(int brokerExecutorThreads) {
+		setUserProp(Settable.BROKER_EXECUTOR_THREADS, brokerExecutorThreads);
+		this.brokerExecutorThreads = brokerExecutorThreads;
+	}
+
+	public void setNioSelectorThreads(int nioSelectorThreads) {
+		setUserProp(Settable.NIO_SELECTOR_THREADS, nioSelectorThreads);
+		this.nioSelectorThreads = nioSelectorThreads;
+	}
+
+	public void setBufferPoolSize(int bufferPoolSize) {
+		setUserProp(Settable.BUFFER_POOL_SIZE, bufferPoolSize);
+		this.bufferPoolSize = bufferPoolSize;
+	}
+
+	public void setBufferPoolLeakDetection(boolean bufferPoolLeakDetection) {
+		setUserProp(Settable.BUFFER_POOL_LEAK_DETECTION, bufferPoolLeakDetection);
+		this.bufferPoolLeakDetection = bufferPoolLeakDetection;
+	}
+
+	public void setBulkTransferThreshold(int bulkTransferThreshold) {
+		setUserProp(Settable.BULK_TRANSFER_THRESHOLD, bulkTransferThreshold);
+		this.bulkTransferThreshold = bulkTransferThreshold;
+	}
+
+	public void setStreamChunkSize(int streamChunkSize) {
+		setUserProp(Settable.STREAM_CHUNK_SIZE, streamChunkSize);
+		this.streamChunkSize = streamChunkSize;
+	}
+
+	public void setStreamWindow(int streamWindow) {
+		setUserProp(Settable.STREAM_WINDOW, streamWindow);
+		this.streamWindow = streamWindow;
+	}
+
+	public void setStreamTimeout(int streamTimeout) {
+		setUserProp(Settable.STREAM_TIMEOUT, streamTimeout);
+		this.streamTimeout = streamTimeout;
+	}
+
+	public void setSchemaSerialization(boolean schemaSerialization) {
+		setUserProp(Settable.SCHEMA_SERIALIZATION, schemaSerialization);
+		this.schemaSerialization = schemaSerialization;
+	}
+
+	public void setBrokerPoolSize(int brokerPoolSize) {
+		setUserProp(Settable.BROKER_POOL_SIZE, brokerPoolSize);
+		this.brokerPoolSize = brokerPoolSize;
+	}
+
+	public void setBrokerPoolIdleTimeout(int brokerPoolIdleTimeout) {
+		setUserProp(Settable.BROKER_POOL_IDLE_TIMEOUT, brokerPoolIdleTimeout);
+		this.brokerPoolIdleTimeout = brokerPoolIdleTimeout;
+	}
+
+	public void setBrokerContainer(boolean brokerContainer) {
+		setUserProp(Settable.BROKER_CONTAINER, brokerContainer);
+		this.brokerContainer = brokerContainer;
+	}
+
 	public void setSSLProtocolVersion(String SSLProtocolVersion) {
 		setUserProp(Settable.SSL_PROTOCOL_VERSION, SSLProtocolVersion);
 		this.SSLProtocolVersion = SSLProtocolVersion;
 	}
 
+	public void setSSLSessionCacheSize(int SSLSessionCacheSize) {
+		setUserProp(Settable.SSL_SESSION_CACHE_SIZE, SSLSessionCacheSize);
+		this.SSLSessionCacheSize = SSLSessionCacheSize;
+	}
+
+	public void setSSLSessionTimeout(int SSLSessionTimeout) {
+		setUserProp(Settable.SSL_SESSION_TIMEOUT, SSLSessionTimeout);
+		this.SSLSessionTimeout = SSLSessionTimeout;
+	}
+
 	public void setSSLKeyStoreFile(File file) {
 		setUserProp(Settable.SSL_KEY_STORE_FILE, file);
 		SSLKeyStoreOptions.setKeyStoreFile(file);
@@ -771,6 +1162,15 @@ public final class Configuration {
 					case DEBUG_COMBOX:
 						debugCombox = Boolean.parseBoolean(value);
 						break;
+					case LOG_FORMAT:
+						logFormat = value;
+						break;
+					case LOG_FILE_MAX_SIZE:
+						logFileMaxSize = Integer.parseInt(value);
+						break;
+					case LOG_FILE_ROTATION_INTERVAL:
+						logFileRotationInterval = Integer.parseInt(value);
+						break;
 					case RESERVE_TIMEOUT:
 						reserveTimeout = Integer.parseInt(value);
 						break;
@@ -780,6 +1180,18 @@ public final class Configuration {
 					case CONNECTION_TIMEOUT:
 						connectionTimeout = Integer.parseInt(value);
 						break;
+					case COMBOX_SHARED_CONNECTIONS:
+						comboxSharedConnections = Integer.parseInt(value);
+						break;
+					case COMBOX_KEEP_ALIVE_INTERVAL:
+						comboxKeepAliveInterval = Integer.parseInt(value);
+						break;
+					case COMBOX_KEEP_ALIVE_TIMEOUT:
+						comboxKeepAliveTimeout = Integer.parseInt(value);
+						break;
+					case COMBOX_MAX_MESSAGE_LENGTH:
+						comboxMaxMessageLength = Integer.parseInt(value);
+						break;
 					case JOBMANAGER_UPDATE_INTERVAL:
 						jobManagerUpdateInterval = Integer.parseInt(value);
 						break;
@@ -789,6 +1201,15 @@ public final class Configuration {
 					case JOBMANAGER_DEFAULT_CONNECTOR:
 						jobManagerDefaultConnector = value;
 						break;
+					case JOBMANAGER_PLACEMENT:
+						jobManagerPlacement = value;
+						break;
+					case JOBMANAGER_CONNECTIONS_PER_TARGET:
+						jobManagerConnectionsPerTarget = Integer.parseInt(value);
+						break;
+					case JOBMANAGER_CONNECTION_IDLE_TIMEOUT:
+						jobManagerConnectionIdleTimeout = Integer.parseInt(value);
+						break;
 					case JOBMANAGER_EXECUTION_BASE_DIRECTORY:
 						jobManagerExecutionBaseDirectory = value;
 						break;
@@ -820,6 +1241,9 @@ public final class Configuration {
 					case SEARCH_NODE_EXPLORATION_QUEUE_SIZE:
 						searchNodeExplorationQueueSize = Integer.parseInt(value);
 						break;
+					case SEARCH_NODE_QUORUM:
+						searchNodeQuorum = Integer.parseInt(value);
+						break;
 					case TFC_SEARCH_TIMEOUT:
 						tfcSearchTimeout = Integer.parseInt(value);
 						break;
@@ -864,9 +1288,57 @@ public final class Configuration {
 					case USE_NATIVE_SSH_IF_POSSIBLE:
 						useNativeSSHifPossible = Boolean.parseBoolean(value);
 						break;
+					case REQUEST_SCHEDULER:
+						requestScheduler = value;
+						break;
+					case BROKER_EXECUTOR:
+						brokerExecutor = value;
+						break;
+					case BROKER_EXECUTOR_THREADS:
+						brokerExecutorThreads = Integer.parseInt(value);
+						break;
+					case NIO_SELECTOR_THREADS:
+						nioSelectorThreads = Integer.parseInt(value);
+						break;
+					case BUFFER_POOL_SIZE:
+						bufferPoolSize = Integer.parseInt(value);
+						break;
+					case BUFFER_POOL_LEAK_DETECTION:
+						bufferPoolLeakDetection = Boolean.parseBoolean(value);
+						break;
+					case BULK_TRANSFER_THRESHOLD:
+						bulkTransferThreshold = Integer.parseInt(value);
+						break;
+					case STREAM_CHUNK_SIZE:
+						streamChunkSize = Integer.parseInt(value);
+						break;
+					case STREAM_WINDOW:
+						streamWindow = Integer.parseInt(value);
+						break;
+					case STREAM_TIMEOUT:
+						streamTimeout = Integer.parseInt(value);
+						break;
+					case SCHEMA_SERIALIZATION:
+						schemaSerialization = Boolean.parseBoolean(value);
+						break;
+					case BROKER_POOL_SIZE:
+						brokerPoolSize = Integer.parseInt(value);
+						break;
+					case BROKER_POOL_IDLE_TIMEOUT:
+						brokerPoolIdleTimeout = Integer.parseInt(value);
+						break;
+					case BROKER_CONTAINER:
+						brokerContainer = Boolean.parseBoolean(value);
+						break;
 					case SSL_PROTOCOL_VERSION:
 						SSLProtocolVersion = value;
 						break;
+					case SSL_SESSION_CACHE_SIZE:
+						SSLSessionCacheSize = Integer.parseInt(value);
+						break;
+					case SSL_SESSION_TIMEOUT:
+						SSLSessionTimeout = Integer.parseInt(value);
+						break;
 					case SSL_KEY_STORE_FILE:
 						SSLKeyStoreOptions.setKeyStoreFile(new File(value));
 						break;
@@ -2,15 +2,41 @@ package ch.icosys.popjava.core.util;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 import ch.icosys.popjava.core.system.POPJavaConfiguration;
 
 /**
  * This class is used to write log file
+ * 
+ * The lines are queued without locking and written by a single background
+ * thread, which keeps the log files open and flushes them after each batch. A
+ * log file can be rotated when it reaches {@link Configuration#getLogFileMaxSize()}
+ * or after {@link Configuration#getLogFileRotationInterval()}.
  */
 public class LogWriter {
 
@@ -20,6 +46,18 @@ public class LogWriter {
 
 	private static final Configuration conf = Configuration.getInstance();
 
+	/**
+	 * Lines waiting for the writer, more are dropped from the files but still
+	 * printed on the console
+	 */
+	private static final int QUEUE_CAPACITY = 1 << 16;
+
+	/** Time the writer waits for new lines once the queue is empty */
+	private static final long WRITER_WAIT = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/** Time given to the writer to write the last lines when the JVM exits */
+	private static final long SHUTDOWN_FLUSH_TIMEOUT = 2000;
+
 	/**
 	 * Process identifier
 	 */
@@ -35,6 +73,16 @@ public class LogWriter {
 	 */
 	public static String prefix = "pop-java-";
 
+	private static final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+	private static final AtomicInteger queued = new AtomicInteger();
+
+	private static final LongAdder dropped = new LongAdder();
+
+	private static final Thread writer;
+
+	private static volatile boolean writerWaiting = false;
+
 	static {		
 		String pidTemp = ManagementFactory.getRuntimeMXBean().getName();
 		StringBuilder pidSb = new StringBuilder();
@@ -58,6 +106,13 @@ public class LogWriter {
 		if (!new File(logFolder).mkdirs()) {// Fall back to tmp if all fails
 			logFolder = System.getProperty("java.io.tmpdir");
 		}
+
+		writer = new Thread(new BackgroundWriter(), "LogWriter");
+		writer.setDaemon(true);
+		writer.start();
+
+		// write what is left
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(SHUTDOWN_FLUSH_TIMEOUT), "LogWriter flush"));
 	}
 
 	/**
@@ -69,15 +124,12 @@ public class LogWriter {
 	 *            Path of the log file
 	 */
 	public static void writeLogInfo(String info, String filePath) {
-		info = pid + "-" + (new Date()).toString() + ":" + System.currentTimeMillis() + "-" + info;
-		info += "\r\n";
-		writeLogfile(info, filePath);
-
+		enqueue(new Entry(info, filePath, false, true));
 	}
 
-	public static synchronized void printDebug(String message) {
+	public static void printDebug(String message) {
 		if (conf.isDebug()) {
-			System.out.println(message);
+			enqueue(new Entry(message, null, true, false));
 		}
 	}
 
@@ -87,11 +139,9 @@ public class LogWriter {
 	 * @param info
 	 *            Information to write
 	 */
-	public synchronized static void writeDebugInfo(String info) {
-
+	public static void writeDebugInfo(String info) {
 		if (conf.isDebug()) {
-			System.out.println(info);
-			logInfo(info);
+			enqueue(new Entry(info, debugPath(), true, true));
 		}
 	}
 
@@ -103,21 +153,22 @@ public class LogWriter {
 	 * @param args
 	 *            Arguments for the format
 	 */
-	public synchronized static void writeDebugInfo(String format, Object... args) {
-
+	public static void writeDebugInfo(String format, Object... args) {
 		if (conf.isDebug()) {
-			String formattedInfo = String.format(format, args);
-			System.out.println(formattedInfo);
-			logInfo(formattedInfo);
+			enqueue(new Entry(String.format(format, args), debugPath(), true, true));
 		}
 	}
 
-	private static void logInfo(String info) {
+	/**
+	 * Write a new debug information line in the file, the information is only
+	 * computed if debug is enabled
+	 * 
+	 * @param info
+	 *            Computes the information to write
+	 */
+	public static void writeDebugInfo(Supplier<String> info) {
 		if (conf.isDebug()) {
-			info = pid + "-" + (new Date()).toString() + ":" + System.currentTimeMillis() + "-" + info;
-			info += "\r\n";
-			String path = String.format("%s%s%s.txt", logFolder, File.separator, prefix);
-			writeLogfile(info, path);
+			enqueue(new Entry(info.get(), debugPath(), true, true));
 		}
 	}
 
@@ -131,39 +182,56 @@ public class LogWriter {
 	public static void writeExceptionLog(Throwable e) {
 		if (conf.isDebug()) {
 			e.printStackTrace();
-		}
-		logInfo("Exception " + e.getClass().getName() + " " + e.getMessage());
-		for (StackTraceElement trace : e.getStackTrace()) {
-			logInfo(trace.getClassName() + " " + trace.getLineNumber());
+
+			StringBuilder info = new StringBuilder();
+			info.append("Exception ").append(e.getClass().getName()).append(" ").append(e.getMessage());
+			for (StackTraceElement trace : e.getStackTrace()) {
+				info.append(System.lineSeparator()).append(trace.getClassName()).append(" ")
+						.append(trace.getLineNumber());
+			}
+			enqueue(new Entry(info.toString(), debugPath(), false, true));
 		}
 	}
 
 	/**
-	 * Write new log information into a file
+	 * Write new log information into a file, as it is or as the message of a
+	 * line in the json format
 	 * 
 	 * @param info
 	 *            Information to write
 	 * @param path
 	 *            Path of the file
 	 */
-	public synchronized static void writeLogfile(String info, String path) {
-		path = path.replace(".txt", pid + ".txt");
-		BufferedWriter out = null;
+	public static void writeLogfile(String info, String path) {
+		enqueue(new Entry(info, path, false, false));
+	}
+
+	/**
+	 * Wait until the lines logged before are written
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait in milliseconds
+	 * @return true if the lines were written in time
+	 */
+	public static boolean flush(long timeout) {
+		Entry marker = new Entry(null, null, false, false);
+		marker.written = new CountDownLatch(1);
+		queued.incrementAndGet();
+		queue.offer(marker);
+		LockSupport.unpark(writer);
 		try {
-			out = new BufferedWriter(new FileWriter(path, true));
-			out.write(info);
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			if (out != null) {
-				try {
-					out.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
+			return marker.written.await(timeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
 		}
+	}
 
+	/**
+	 * @return the number of lines dropped because the writer could not keep up
+	 */
+	public static long getDroppedLines() {
+		return dropped.sum();
 	}
 
 	/**
@@ -180,4 +248,280 @@ public class LogWriter {
 		return true;
 	}
 
+	private static String debugPath() {
+		return String.format("%s%s%s.txt", logFolder, File.separator, prefix);
+	}
+
+	private static void enqueue(Entry entry) {
+		if (queued.incrementAndGet() > QUEUE_CAPACITY) {
+			queued.decrementAndGet();
+			if (entry.console) {
+				System.out.println(entry.info);
+			}
+			if (entry.path != null) {
+				dropped.increment();
+			}
+			return;
+		}
+		queue.offer(entry);
+		if (writerWaiting) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/**
+	 * A line to write, with what is known only when it is logged
+	 */
+	private static final class Entry {
+
+		private final long time = System.currentTimeMillis();
+
+		private final String thread = Thread.currentThread().getName();
+
+		private final String info;
+
+		private final String path;
+
+		private final boolean console;
+
+		private final boolean decorate;
+
+		// set for the flush markers
+		private CountDownLatch written;
+
+		private Entry(String info, String path, boolean console, boolean decorate) {
+			this.info = info;
+			this.path = path;
+			this.console = console;
+			this.decorate = decorate;
+		}
+	}
+
+	/**
+	 * An open log file
+	 */
+	private static final class LogFile {
+
+		private final Path path;
+
+		private Writer out;
+
+		private long size;
+
+		private long opened;
+
+		private LogFile(Path path) throws IOException {
+			this.path = path;
+			open();
+		}
+
+		private void open() throws IOException {
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			size = channel.size();
+			opened = System.currentTimeMillis();
+			out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8),
+					1 << 16);
+		}
+
+		private void write(String line, long now) throws IOException {
+			long maxSize = conf.getLogFileMaxSize();
+			long interval = conf.getLogFileRotationInterval();
+			if ((maxSize > 0 && size >= maxSize) || (interval > 0 && now - opened >= interval)) {
+				rotate(now);
+			}
+			out.write(line);
+			size += utf8Length(line);
+		}
+
+		/**
+		 * Size of a line in the file, without encoding it
+		 */
+		private static long utf8Length(String line) {
+			long length = line.length();
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (c >= 0x800) {
+					// surrogate pairs are 4 bytes, 2 per char
+					length += Character.isSurrogate(c) ? 1 : 2;
+				} else if (c >= 0x80) {
+					length++;
+				}
+			}
+			return length;
+		}
+
+		private void rotate(long now) throws IOException {
+			out.close();
+			String name = path.getFileName().toString();
+			String suffix = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(now));
+			Path rotated = path.resolveSibling(name.replace(".txt", "-" + suffix + ".txt"));
+			for (int i = 1; Files.exists(rotated); i++) {
+				rotated = path.resolveSibling(name.replace(".txt", "-" + suffix + "-" + i + ".txt"));
+			}
+			Files.move(path, rotated);
+			open();
+		}
+	}
+
+	/**
+	 * Writes the queued lines, the files are flushed when the queue is empty
+	 */
+	private static final class BackgroundWriter implements Runnable {
+
+		private final Map<String, LogFile> files = new HashMap<>();
+
+		private final SimpleDateFormat dateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+
+		private final StringBuilder line = new StringBuilder();
+
+		private long reportedDrops = 0;
+
+		@Override
+		public void run() {
+			while (true) {
+				Entry entry = queue.poll();
+				if (entry == null) {
+					flushFiles();
+					writerWaiting = true;
+					if (queue.isEmpty()) {
+						LockSupport.parkNanos(WRITER_WAIT);
+					}
+					writerWaiting = false;
+					continue;
+				}
+				queued.decrementAndGet();
+
+				try {
+					if (entry.written != null) {
+						flushFiles();
+						entry.written.countDown();
+					} else {
+						write(entry);
+					}
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		private void write(Entry entry) {
+			if (entry.console) {
+				System.out.println(entry.info);
+			}
+			if (entry.path == null) {
+				return;
+			}
+
+			long drops = dropped.sum();
+			if (drops != reportedDrops) {
+				String info = String.format("[LogWriter] %d lines dropped", drops - reportedDrops);
+				reportedDrops = drops;
+				writeFile(entry.path, format(new Entry(info, entry.path, false, true)), entry.time);
+			}
+
+			// in JSON every line is an object, also those written as they are
+			boolean json = "json".equalsIgnoreCase(conf.getLogFormat());
+			writeFile(entry.path, entry.decorate || json ? format(entry) : entry.info, entry.time);
+		}
+
+		private void writeFile(String path, String text, long now) {
+			String filePath = path.replace(".txt", pid + ".txt");
+			try {
+				LogFile file = files.get(filePath);
+				if (file == null) {
+					file = new LogFile(Paths.get(filePath));
+					files.put(filePath, file);
+				}
+				file.write(text, now);
+			} catch (IOException e) {
+				e.printStackTrace();
+				LogFile file = files.remove(filePath);
+				if (file != null) {
+					close(file);
+				}
+			}
+		}
+
+		private String format(Entry entry) {
+			line.setLength(0);
+			if ("json".equalsIgnoreCase(conf.getLogFormat())) {
+				line.append("{\"time\":").append(entry.time);
+				line.append(",\"pid\":");
+				appendJson(pid);
+				line.append(",\"thread\":");
+				appendJson(entry.thread);
+				line.append(",\"message\":");
+				appendJson(entry.decorate ? entry.info : trimLineEnd(entry.info));
+				line.append("}\n");
+			} else {
+				line.append(pid).append('-').append(dateFormat.format(new Date(entry.time))).append(':')
+						.append(entry.time).append('-').append(entry.info).append("\r\n");
+			}
+			return line.toString();
+		}
+
+		private String trimLineEnd(String value) {
+			int end = value.length();
+			while (end > 0 && (value.charAt(end - 1) == '\n' || value.charAt(end - 1) == '\r')) {
+				end--;
+			}
+			return value.substring(0, end);
+		}
+
+		private void appendJson(String value) {
+			if (value == null) {
+				line.append("null");
+				return;
+			}
+			line.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				switch (c) {
+				case '"':
+					line.append("\\\"");
+					break;
+				case '\\':
+					line.append("\\\\");
+					break;
+				case '\n':
+					line.append("\\n");
+					break;
+				case '\r':
+					line.append("\\r");
+					break;
+				case '\t':
+					line.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						line.append(String.format("\\u%04x", (int) c));
+					} else {
+						line.append(c);
+					}
+				}
+			}
+			line.append('"');
+		}
+
+		private void flushFiles() {
+			for (Iterator<LogFile> iterator = files.values().iterator(); iterator.hasNext();) {
+				LogFile file = iterator.next();
+				try {
+					file.out.flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+					iterator.remove();
+					close(file);
+				}
+			}
+		}
+
+		private void close(LogFile file) {
+			try {
+				file.out.close();
+			} catch (IOException e) {
+			}
+		}
+	}
 }
@@ -46,6 +46,7 @@ public class SystemUtil {
 			}
 		}
 		localJVM.clear();
+		BrokerPool.shutdown();
 	}
 
 	/**
@@ -70,6 +71,46 @@ public class SystemUtil {
 			LogWriter.writeDebugInfo(" %79s", arg);
 		}
 
+		// a JVM started in advance can only run as the current user
+		if (executeAs == null || executeAs.isEmpty()) {
+			Process process = BrokerPool.getInstance().launch(argvs, dir);
+			if (process != null) {
+				processes.add(process);
+				LogWriter.writeDebugInfo("[System] Used a pooled broker after %s ms",
+						System.currentTimeMillis() - startTime);
+				return 0;
+			}
+		}
+
+		try {
+			/*
+			 * String directory = System.getProperty("java.io.tmpdir"); File
+			 * currentDirectory = new File(directory); if (currentDirectory != null) {
+			 * //pb.directory(currentDirectory); }
+			 */
+			Process process = startProcess(argvs, dir);
+			processes.add(process);
+			LogWriter.writeDebugInfo("[System] Started command after %s ms", System.currentTimeMillis() - startTime);
+			return 0;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return -1;
+	}
+
+	/**
+	 * Start a process with the output configured by
+	 * {@link Configuration#isRedirectOutputToRoot()}
+	 * 
+	 * @param argvs
+	 *            the command
+	 * @param dir
+	 *            Working directory, may be null
+	 * @return the started process
+	 * @throws IOException
+	 *             if the process could not be started
+	 */
+	static Process startProcess(List<String> argvs, String dir) throws IOException {
 		ProcessBuilder pb = new ProcessBuilder(argvs);
 		if (dir != null && !dir.isEmpty()) {
 			pb.directory(new File(dir));
@@ -81,24 +122,7 @@ public class SystemUtil {
 			pb.redirectErrorStream(true);
 			pb.redirectOutput(new File("/dev/null"));
 		}
-
-		if (pb != null) {
-			try {
-				/*
-				 * String directory = System.getProperty("java.io.tmpdir"); File
-				 * currentDirectory = new File(directory); if (currentDirectory != null) {
-				 * //pb.directory(currentDirectory); }
-				 */
-				Process process = pb.start();
-				processes.add(process);
-				LogWriter.writeDebugInfo("[System] Started command after %s ms",
-						System.currentTimeMillis() - startTime);
-				return 0;
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-		return -1;
+		return pb.start();
 	}
 
 	/**
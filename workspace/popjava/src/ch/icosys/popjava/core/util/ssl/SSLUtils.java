@@ -28,13 +28,18 @@ import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
@@ -89,6 +94,16 @@ public class SSLUtils {
 	/** A secure random for the whole class */
 	private static final SecureRandom RANDOM = new SecureRandom();
 
+	/** Temporary certificates not written yet, guarded by itself */
+	private static final Map<Path, byte[]> pendingCertificates = new LinkedHashMap<>();
+
+	/** Writes the temporary certificates, one batch at a time */
+	private static final ExecutorService certificateWriter = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Temporary certificates writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	// static initialization of objects
 	static {
 		try {
@@ -190,6 +205,8 @@ public class SSLUtils {
 				}
 				// init ssl context with everything
 				sslContextInstance.init(keyManagers, trustManagers, RANDOM);
+				configureSessions(sslContextInstance.getClientSessionContext());
+				configureSessions(sslContextInstance.getServerSessionContext());
 			} else {
 				trustManager.reloadTrustManager();
 				keyManager.reloadKeyManager();
@@ -211,6 +228,21 @@ public class SSLUtils {
 		invalidateSSLSessions(sslContextInstance.getServerSessionContext());
 	}
 
+	/**
+	 * Invalidate the SSL Sessions established with one of the given certificates,
+	 * the other sessions can still be resumed.
+	 * 
+	 * @param fingerprints
+	 *            the fingerprints of the certificates which changed
+	 */
+	public static void invalidateSSLSessions(Collection<String> fingerprints) {
+		if (sslContextInstance == null || fingerprints.isEmpty()) {
+			return;
+		}
+		invalidateSSLSessions(sslContextInstance.getClientSessionContext(), fingerprints);
+		invalidateSSLSessions(sslContextInstance.getServerSessionContext(), fingerprints);
+	}
+
 	/**
 	 * Given a SessionContext, it invalidate all of its tokens.
 	 * 
@@ -221,10 +253,53 @@ public class SSLUtils {
 		for (Enumeration<byte[]> sessionEnum = context.getIds(); sessionEnum.hasMoreElements();) {
 			byte[] id = sessionEnum.nextElement();
 			SSLSession session = context.getSession(id);
-			session.invalidate();
+			if (session != null) {
+				session.invalidate();
+			}
+		}
+	}
+
+	/**
+	 * Given a SessionContext, it invalidate the tokens of the sessions with a peer
+	 * using one of the certificates.
+	 * 
+	 * @param context
+	 *            the context ssl which need its sessions invalidated
+	 * @param fingerprints
+	 *            the fingerprints of the certificates
+	 */
+	private static void invalidateSSLSessions(SSLSessionContext context, Collection<String> fingerprints) {
+		for (Enumeration<byte[]> sessionEnum = context.getIds(); sessionEnum.hasMoreElements();) {
+			byte[] id = sessionEnum.nextElement();
+			SSLSession session = context.getSession(id);
+			if (session == null) {
+				continue;
+			}
+			try {
+				for (Certificate cert : session.getPeerCertificates()) {
+					if (fingerprints.contains(certificateFingerprint(cert))) {
+						session.invalidate();
+						break;
+					}
+				}
+			} catch (SSLPeerUnverifiedException e) {
+				// no certificate to check
+				session.invalidate();
+			}
 		}
 	}
 
+	/**
+	 * Size the session cache and the lifetime of the sessions as configured
+	 * 
+	 * @param context
+	 *            the client or server sessions
+	 */
+	private static void configureSessions(SSLSessionContext context) {
+		context.setSessionCacheSize(conf.getSSLSessionCacheSize());
+		context.setSessionTimeout(Math.max(1, conf.getSSLSessionTimeout() / 1000));
+	}
+
 	/**
 	 * Forcefully reload the Trust and Key Managers if they exists.
 	 */
@@ -548,13 +623,14 @@ public class SSLUtils {
 	}
 
 	/**
-	 * Add a new certificate to the temporary store
+	 * Add a new certificate to the temporary store, the file is written later by
+	 * another thread
 	 * 
 	 * @param certificate
 	 *            the bytes of the certificate to add
 	 * @param reload
-	 *            if we have to reload the keystore now or let the parallel event do
-	 *            it
+	 *            if the certificate is trusted now or when the directory watcher
+	 *            sees its file
 	 */
 	public static void addCertToTempStore(byte[] certificate, boolean reload) {
 		/*
@@ -576,20 +652,50 @@ public class SSLUtils {
 			String fingerprint = SSLUtils.certificateFingerprint(cert);
 			String outName = fingerprint + ".cer";
 
+			// trust it right away
+			if (reload && !trustManager.addTemporaryCertificate(outName, cert)) {
+				return;
+			}
+
 			// certificates temporary path
 			Path path = conf.getSSLTemporaryCertificateLocation().toPath().resolve(outName);
 			// move to local directory
-			Files.write(path, certificate);
-
-			// handle local reload
-			if (reload) {
-				trustManager.reloadTrustManager();
+			synchronized (pendingCertificates) {
+				if (pendingCertificates.isEmpty()) {
+					certificateWriter.execute(SSLUtils::writeTemporaryCertificates);
+				}
+				pendingCertificates.put(path, certificate);
 			}
 		} catch (Exception ex) {
 			LogWriter.writeDebugInfo("[SSLUtils] failed to save certificate: ", ex.getMessage());
 		}
 	}
 
+	/**
+	 * Write the certificates added to the temporary store which are not on disk
+	 * yet. The other processes of the machine, like the brokers we start, only
+	 * know the certificates on disk.
+	 */
+	public static void writeTemporaryCertificates() {
+		synchronized (certificateWriter) {
+			Map<Path, byte[]> certificates;
+			synchronized (pendingCertificates) {
+				if (pendingCertificates.isEmpty()) {
+					return;
+				}
+				certificates = new LinkedHashMap<>(pendingCertificates);
+				pendingCertificates.clear();
+			}
+			for (Map.Entry<Path, byte[]> entry : certificates.entrySet()) {
+				try {
+					Files.write(entry.getKey(), entry.getValue());
+				} catch (IOException e) {
+					LogWriter.writeDebugInfo("[SSLUtils] failed to save certificate: %s", e.getMessage());
+				}
+			}
+		}
+	}
+
 	/**
 	 * Call {@link #getSSLContext() } and create the two manager if they don't
 	 * exists.
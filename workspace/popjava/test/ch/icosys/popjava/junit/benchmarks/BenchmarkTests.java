@@ -5,9 +5,12 @@ import org.junit.runners.Suite;
 
 import ch.icosys.popjava.junit.benchmarks.methods.TestMethods;
 import ch.icosys.popjava.junit.benchmarks.readerWriter.Benchmark;
+import ch.icosys.popjava.junit.benchmarks.scheduler.RequestSchedulerBenchmark;
+import ch.icosys.popjava.junit.benchmarks.serialization.SerializationBenchmark;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ Benchmark.class, TestMethods.class })
+@Suite.SuiteClasses({ Benchmark.class, TestMethods.class, RequestSchedulerBenchmark.class,
+		SerializationBenchmark.class })
 public class BenchmarkTests {
 
 }
@@ -1,6 +1,7 @@
 package ch.icosys.popjava.junit.benchmarks.methods;
 
 import ch.icosys.popjava.core.annotation.POPClass;
+import ch.icosys.popjava.core.annotation.POPConfig;
 import ch.icosys.popjava.core.annotation.POPObjectDescription;
 import ch.icosys.popjava.core.annotation.POPSyncMutex;
 import ch.icosys.popjava.core.base.POPObject;
@@ -13,6 +14,11 @@ public class POPMethods extends POPObject {
 
 	}
 
+	public POPMethods(@POPConfig(POPConfig.Type.URL) String url,
+			@POPConfig(POPConfig.Type.PROTOCOLS) String[] protocols) {
+
+	}
+
 	@POPSyncMutex
 	public void noParamNoReturn() {
 
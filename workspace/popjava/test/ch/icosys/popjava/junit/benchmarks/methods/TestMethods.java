@@ -16,6 +16,7 @@ import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
 import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
 
 import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.combox.socket.nio.ComboxNioSocketFactory;
 import ch.icosys.popjava.core.system.POPSystem;
 
 @AxisRange(min = 0, max = 1)
@@ -27,6 +28,8 @@ public class TestMethods extends AbstractBenchmark {
 
 	private static POPMethods object;
 
+	private static POPMethods nioObject;
+
 	private static RMIInterface obj;
 
 	private static RMIMethodsObj m;
@@ -41,6 +44,8 @@ public class TestMethods extends AbstractBenchmark {
 	public static void startPOPJava() throws NotBoundException, UnknownHostException, IOException {
 		POPSystem.initialize();
 		object = PopJava.newActive(null, POPMethods.class);
+		nioObject = PopJava.newActive(null, POPMethods.class, "localhost",
+				new String[] { ComboxNioSocketFactory.PROTOCOL });
 
 		m = new RMIMethodsObj();
 		m.publish();
@@ -112,6 +117,41 @@ public class TestMethods extends AbstractBenchmark {
 		// "+(System.currentTimeMillis() - start)+" ms");
 	}
 
+	@Test
+	public void testNioNoParamNoReturn() {
+		for (int i = 0; i < REPETITIONS; i++) {
+			nioObject.noParamNoReturn();
+		}
+	}
+
+	@Test
+	public void testNioNoParamSimple() {
+		for (int i = 0; i < REPETITIONS; i++) {
+			assertEquals(100, nioObject.noParamSimple());
+		}
+	}
+
+	@Test
+	public void testNioNoParamComplex() {
+		for (int i = 0; i < REPETITIONS; i++) {
+			assertEquals(3, nioObject.noParamComplex().length);
+		}
+	}
+
+	@Test
+	public void testNioSimpleParam() {
+		for (int i = 0; i < REPETITIONS; i++) {
+			nioObject.simpleParam(100);
+		}
+	}
+
+	@Test
+	public void testNioComplexParam() {
+		for (int i = 0; i < REPETITIONS; i++) {
+			nioObject.complexParam(COMPLEX_PARAM);
+		}
+	}
+
 	@Test
 	public void testSocketNoParamNoReturn() throws UnknownHostException, IOException, InterruptedException {
 		// long start = System.currentTimeMillis();
@@ -0,0 +1,94 @@
+package ch.icosys.popjava.junit.benchmarks.scheduler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.carrotsearch.junitbenchmarks.AbstractBenchmark;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+
+import ch.icosys.popjava.core.base.Semantic;
+import ch.icosys.popjava.core.broker.LockFreeRequestScheduler;
+import ch.icosys.popjava.core.broker.Request;
+import ch.icosys.popjava.core.broker.RequestQueue;
+import ch.icosys.popjava.core.broker.RequestScheduler;
+
+/**
+ * Compare the request schedulers without any network, producers simulate the
+ * combox threads and a pool serves the requests like the broker does.
+ */
+@AxisRange(min = 0, max = 1)
+@BenchmarkMethodChart(filePrefix = "benchmark-scheduler")
+public class RequestSchedulerBenchmark extends AbstractBenchmark {
+
+	private static final int PRODUCERS = 8;
+
+	private static final int REQUESTS_PER_PRODUCER = 20000;
+
+	@Test
+	public void testRequestQueueConcurrent() throws InterruptedException {
+		run(new RequestQueue(), Semantic.CONCURRENT);
+	}
+
+	@Test
+	public void testLockFreeConcurrent() throws InterruptedException {
+		run(new LockFreeRequestScheduler(), Semantic.CONCURRENT);
+	}
+
+	@Test
+	public void testRequestQueueSequential() throws InterruptedException {
+		run(new RequestQueue(), Semantic.SEQUENCE);
+	}
+
+	@Test
+	public void testLockFreeSequential() throws InterruptedException {
+		run(new LockFreeRequestScheduler(), Semantic.SEQUENCE);
+	}
+
+	private void run(final RequestScheduler scheduler, final int semantics) throws InterruptedException {
+		scheduler.setMaxQueue(Integer.MAX_VALUE);
+		ExecutorService servers = Executors.newFixedThreadPool(PRODUCERS);
+
+		List<Thread> producers = new ArrayList<>();
+		for (int i = 0; i < PRODUCERS; i++) {
+			Thread producer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int r = 0; r < REQUESTS_PER_PRODUCER; r++) {
+						Request request = new Request();
+						request.setSemantics(Semantic.ASYNCHRONOUS | semantics);
+						scheduler.add(request);
+					}
+				}
+			});
+			producers.add(producer);
+			producer.start();
+		}
+
+		int total = PRODUCERS * REQUESTS_PER_PRODUCER;
+		for (int served = 0; served < total; served++) {
+			final Request request = scheduler.pick(1, TimeUnit.SECONDS);
+			servers.execute(new Runnable() {
+				@Override
+				public void run() {
+					request.setStatus(Request.SERVED);
+					scheduler.remove(request);
+				}
+			});
+		}
+
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		servers.shutdown();
+		servers.awaitTermination(10, TimeUnit.SECONDS);
+		assertEquals(0, scheduler.size());
+	}
+}
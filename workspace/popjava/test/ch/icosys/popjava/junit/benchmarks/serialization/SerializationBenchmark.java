@@ -0,0 +1,77 @@
+package ch.icosys.popjava.junit.benchmarks.serialization;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.carrotsearch.junitbenchmarks.AbstractBenchmark;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+
+import ch.icosys.popjava.core.buffer.BufferRaw;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+import ch.icosys.popjava.core.util.Configuration;
+
+/**
+ * Compare the encoding of serializable parameters field by field with Java
+ * serialization, without any network. The size of the messages is printed.
+ */
+@AxisRange(min = 0, max = 1)
+@BenchmarkMethodChart(filePrefix = "benchmark-serialization")
+public class SerializationBenchmark extends AbstractBenchmark {
+
+	private static final int ROUNDS = 20000;
+
+	public static class Point implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private double x;
+
+		private double y;
+
+		private String label;
+
+		private Point next;
+	}
+
+	@AfterClass
+	public static void restore() {
+		Configuration.getInstance().setSchemaSerialization(true);
+	}
+
+	@Test
+	public void testSchemaSerialization() {
+		run(true);
+	}
+
+	@Test
+	public void testJavaSerialization() {
+		run(false);
+	}
+
+	private void run(boolean schema) {
+		Configuration.getInstance().setSchemaSerialization(schema);
+
+		Point point = new Point();
+		point.x = 1.5;
+		point.y = -2.5;
+		point.label = "origin";
+		point.next = new Point();
+		point.next.label = "next";
+
+		int size = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			POPBuffer buffer = new BufferRaw();
+			buffer.putValue(point, Point.class);
+			size = buffer.size();
+			buffer.extractHeader();
+			Point read = (Point) buffer.getValue(Point.class);
+			assertEquals(point.next.label, read.next.label);
+			buffer.release();
+		}
+		System.out.printf("%s serialization: %d bytes per message%n", schema ? "Schema" : "Java", size);
+	}
+}
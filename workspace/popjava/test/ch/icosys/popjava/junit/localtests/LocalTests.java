@@ -9,13 +9,20 @@ import ch.icosys.popjava.junit.localtests.annotations.AnnotationsTest;
 import ch.icosys.popjava.junit.localtests.annotations.POPObjectDefaultMethodTest;
 import ch.icosys.popjava.junit.localtests.arrays.ArraysTest;
 import ch.icosys.popjava.junit.localtests.bidirectional.BiDirectionalTest;
+import ch.icosys.popjava.junit.localtests.batching.BatchingTest;
 import ch.icosys.popjava.junit.localtests.bigData.BigDataTests;
 import ch.icosys.popjava.junit.localtests.callback.CallBackTest;
 import ch.icosys.popjava.junit.localtests.concurrency.TestConcurrency;
+import ch.icosys.popjava.junit.localtests.connectTo.ComboxKeepAliveTest;
+import ch.icosys.popjava.junit.localtests.connectTo.ComboxPoolTest;
+import ch.icosys.popjava.junit.localtests.creation.BrokerPoolTest;
+import ch.icosys.popjava.junit.localtests.creation.BulkCreationTest;
 import ch.icosys.popjava.junit.localtests.creation.NestedPOPCreation;
 import ch.icosys.popjava.junit.localtests.deamontest.DeamonTest;
 import ch.icosys.popjava.junit.localtests.enums.EnumTests;
+import ch.icosys.popjava.junit.localtests.future.FutureTest;
 import ch.icosys.popjava.junit.localtests.integer.IntegerTest;
+import ch.icosys.popjava.junit.localtests.jobmanager.JobManagerConnectionsTest;
 import ch.icosys.popjava.junit.localtests.jobmanager.POPJavaJobManagerConfigurationTest;
 import ch.icosys.popjava.junit.localtests.jobmanager.POPJavaJobManagerLiveConfigurationTest;
 import ch.icosys.popjava.junit.localtests.jvmObject.JVMObjectTest;
@@ -23,12 +30,15 @@ import ch.icosys.popjava.junit.localtests.parameters.ParameterTests;
 import ch.icosys.popjava.junit.localtests.priority.MethodAnnotationPriority;
 import ch.icosys.popjava.junit.localtests.protocols.IncompatibleConnectionsTest;
 import ch.icosys.popjava.junit.localtests.protocols.ProtocolsTests;
+import ch.icosys.popjava.junit.localtests.protocols.SessionResumptionTest;
 import ch.icosys.popjava.junit.localtests.protocols.WhiteBlacklistTest;
 import ch.icosys.popjava.junit.localtests.readerWriter.ReaderWriterTest;
 import ch.icosys.popjava.junit.localtests.referencePassing.ReferenceTest;
 import ch.icosys.popjava.junit.localtests.security.CreateKeyStoreTest;
 import ch.icosys.popjava.junit.localtests.security.MethodAccessTest;
+import ch.icosys.popjava.junit.localtests.security.TemporaryCertificatesTest;
 import ch.icosys.popjava.junit.localtests.serializable.JavaSerializableTest;
+import ch.icosys.popjava.junit.localtests.streams.StreamTest;
 import ch.icosys.popjava.junit.localtests.subclasses.CallFromSubClassTest;
 import ch.icosys.popjava.junit.localtests.subclasses.SubclassingTest;
 
@@ -61,6 +71,16 @@ import ch.icosys.popjava.junit.localtests.subclasses.SubclassingTest;
 	AccountingTest.class, 
 	AccountingAPITest.class, 
 	MethodAnnotationPriority.class, 
-	BiDirectionalTest.class })
+	BiDirectionalTest.class, 
+	FutureTest.class, 
+	BatchingTest.class, 
+	StreamTest.class, 
+	BrokerPoolTest.class, 
+	BulkCreationTest.class, 
+	JobManagerConnectionsTest.class, 
+	ComboxPoolTest.class, 
+	SessionResumptionTest.class, 
+	TemporaryCertificatesTest.class, 
+	ComboxKeepAliveTest.class })
 public class LocalTests {
 }
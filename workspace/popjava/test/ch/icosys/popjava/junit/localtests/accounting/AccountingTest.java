@@ -100,6 +100,8 @@ public class AccountingTest {
 		POPTrackingMethod method = a.getTracked().getCalls().stream().filter(m -> m.getMethod().contains(methodName)).findFirst().get();
 		assertEquals("Iterations don't match", ITERATIONS, method.getTotalCalls());
 		assertTrue("Time used should be positive", method.getTotalTime() >= 0);
+		assertEquals("Every call should be timed", ITERATIONS, method.getExecutionTime().getCount());
+		assertEquals("Every call should wait in the queue", ITERATIONS, method.getQueueTime().getCount());
 	}
 
 	@Test
@@ -0,0 +1,39 @@
+package ch.icosys.popjava.junit.localtests.batching;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.icosys.popjava.core.annotation.POPAsyncSeq;
+import ch.icosys.popjava.core.annotation.POPClass;
+import ch.icosys.popjava.core.annotation.POPObjectDescription;
+import ch.icosys.popjava.core.annotation.POPSyncSeq;
+import ch.icosys.popjava.core.base.POPObject;
+
+@POPClass(asyncBatchSize = 16, asyncBatchDelay = 50000)
+public class BatchedObject extends POPObject {
+
+	private final List<Integer> values = new ArrayList<>();
+
+	@POPObjectDescription(url = "localhost")
+	public BatchedObject() {
+	}
+
+	@POPAsyncSeq
+	public void add(int value) {
+		values.add(value);
+	}
+
+	@POPSyncSeq
+	public int[] getValues() {
+		int[] result = new int[values.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = values.get(i);
+		}
+		return result;
+	}
+
+	@POPSyncSeq
+	public int count() {
+		return values.size();
+	}
+}
@@ -0,0 +1,60 @@
+package ch.icosys.popjava.junit.localtests.batching;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.system.POPSystem;
+
+public class BatchingTest {
+
+	private BatchedObject object;
+
+	@Before
+	public void setUp() {
+		POPSystem.initialize();
+		object = PopJava.newActive(this, BatchedObject.class);
+	}
+
+	@After
+	public void tearDown() {
+		POPSystem.end();
+	}
+
+	@Test
+	public void testOrder() {
+		int[] expected = new int[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = i;
+			object.add(i);
+		}
+
+		// the synchronous call sends the incomplete batch before itself
+		assertArrayEquals(expected, object.getValues());
+	}
+
+	@Test(timeout = 10000)
+	public void testIncompleteBatch() throws InterruptedException {
+		object.add(1);
+		object.add(2);
+
+		// the batch is not full, the delay sends it
+		while (countWithoutFlush() != 2) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, object.count());
+	}
+
+	private int countWithoutFlush() {
+		BatchedObject other = PopJava.newActive(this, BatchedObject.class, object.getAccessPoint());
+		try {
+			return other.count();
+		} finally {
+			PopJava.disconnect(other);
+		}
+	}
+}
@@ -34,4 +34,13 @@ public class BigDataObject extends POPObject {
 	public int arrayTest(@POPParameter(Direction.IN) String string) {
 		return string.length();
 	}
+
+	@POPSyncConc
+	public double[] scale(@POPParameter(Direction.IN) double[] values, double factor) {
+		double[] result = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i] * factor;
+		}
+		return result;
+	}
 }
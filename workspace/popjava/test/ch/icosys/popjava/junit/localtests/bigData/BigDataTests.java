@@ -12,6 +12,26 @@ import ch.icosys.popjava.core.system.POPSystem;
 
 public class BigDataTests {
 
+	@Test
+	public void testBulkDoubleArray() {
+		POPSystem.initialize();
+		BigDataObject test = PopJava.newActive(this, BigDataObject.class);
+
+		// 16MB, sent and received without the intermediate copies
+		double[] values = new double[1 << 21];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+		}
+		double[] scaled = test.scale(values, 2);
+
+		assertEquals(values.length, scaled.length);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(2.0 * i, scaled[i], 0);
+		}
+
+		POPSystem.end();
+	}
+
 	@Test
 	@Ignore
 	public void testBigIntArray() {
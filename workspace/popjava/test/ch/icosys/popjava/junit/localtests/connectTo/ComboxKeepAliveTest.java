@@ -0,0 +1,77 @@
+package ch.icosys.popjava.junit.localtests.connectTo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.combox.ComboxKeepAlive;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.Configuration;
+
+public class ComboxKeepAliveTest {
+
+	private final Configuration conf = Configuration.getInstance();
+
+	private final ComboxKeepAlive keepAlive = ComboxKeepAlive.getInstance();
+
+	@Before
+	public void before() {
+		POPSystem.initialize();
+	}
+
+	@After
+	public void after() {
+		conf.setComboxKeepAliveInterval(30000);
+		conf.setComboxKeepAliveTimeout(120000);
+		conf.setComboxSharedConnections(1);
+		POPSystem.end();
+	}
+
+	@Test(timeout = 60000)
+	public void testIdlePing() throws InterruptedException {
+		conf.setComboxKeepAliveInterval(500);
+		ConnectToObject object = PopJava.newActive(this, ConnectToObject.class, "1234");
+		assertEquals("1234", object.getMessage());
+		assertTrue(keepAlive.getComboxCount() > 0);
+
+		long pings = keepAlive.getPings();
+		Thread.sleep(3000);
+		assertTrue(keepAlive.getPings() > pings);
+		assertEquals("1234", object.getMessage());
+	}
+
+	@Test(timeout = 60000)
+	public void testIdleWithoutPing() throws InterruptedException {
+		// a client which never pings, like a POP-C++ one, is not closed
+		conf.setComboxKeepAliveInterval(0);
+		conf.setComboxKeepAliveTimeout(1000);
+		ConnectToObject object = PopJava.newActive(this, ConnectToObject.class, "1234");
+		assertEquals("1234", object.getMessage());
+
+		long expired = keepAlive.getExpired();
+		Thread.sleep(3000);
+		assertEquals(expired, keepAlive.getExpired());
+		assertEquals("1234", object.getMessage());
+	}
+
+	@Test(timeout = 60000)
+	public void testNoThreadPerCombox() {
+		conf.setComboxSharedConnections(1);
+		ConnectToObject object = PopJava.newActive(this, ConnectToObject.class, "1234");
+		POPAccessPoint ap = PopJava.getAccessPoint(object);
+		for (int i = 0; i < 10; i++) {
+			ConnectToObject other = PopJava.connect(null, ConnectToObject.class, "", ap);
+			assertEquals("1234", other.getMessage());
+		}
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			assertFalse(thread.getName().equals("Keep alive thread"));
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package ch.icosys.popjava.junit.localtests.connectTo;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.combox.ComboxPool;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.Configuration;
+
+public class ComboxPoolTest {
+
+	private final Configuration conf = Configuration.getInstance();
+
+	private final ComboxPool pool = ComboxPool.getInstance();
+
+	@Before
+	public void before() {
+		POPSystem.initialize();
+	}
+
+	@After
+	public void after() {
+		conf.setComboxSharedConnections(1);
+		POPSystem.end();
+	}
+
+	@Test(timeout = 60000)
+	public void testSharedCombox() {
+		conf.setComboxSharedConnections(32);
+		ConnectToObject object = PopJava.newActive(this, ConnectToObject.class, "1234");
+		POPAccessPoint ap = PopJava.getAccessPoint(object);
+
+		long connects = pool.getConnects();
+		long shares = pool.getShares();
+		ConnectToObject first = PopJava.connect(null, ConnectToObject.class, "", ap);
+		ConnectToObject second = PopJava.connect(null, ConnectToObject.class, "", ap);
+		assertEquals(connects, pool.getConnects());
+		assertEquals(shares + 2, pool.getShares());
+		assertEquals("1234", first.getMessage());
+		assertEquals("1234", second.getMessage());
+
+		// closing an interface keeps the combox open for the others
+		PopJava.disconnect(first);
+		assertEquals("1234", second.getMessage());
+		assertEquals("1234", object.getMessage());
+	}
+
+	@Test(timeout = 60000)
+	public void testNotShared() {
+		conf.setComboxSharedConnections(1);
+		ConnectToObject object = PopJava.newActive(this, ConnectToObject.class, "1234");
+		POPAccessPoint ap = PopJava.getAccessPoint(object);
+
+		long connects = pool.getConnects();
+		long shares = pool.getShares();
+		ConnectToObject other = PopJava.connect(null, ConnectToObject.class, "", ap);
+		assertEquals(connects + 1, pool.getConnects());
+		assertEquals(shares, pool.getShares());
+		assertEquals("1234", other.getMessage());
+	}
+}
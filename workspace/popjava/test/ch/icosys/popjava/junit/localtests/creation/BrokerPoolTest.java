@@ -0,0 +1,72 @@
+package ch.icosys.popjava.junit.localtests.creation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.BrokerPool;
+import ch.icosys.popjava.core.util.Configuration;
+
+public class BrokerPoolTest {
+
+	@Before
+	public void before() {
+		Configuration.getInstance().setBrokerPoolSize(2);
+		POPSystem.initialize();
+	}
+
+	@After
+	public void after() {
+		POPSystem.end();
+		Configuration.getInstance().setBrokerPoolSize(0);
+		Configuration.getInstance().setBrokerContainer(false);
+	}
+
+	@Test(timeout = 120000)
+	public void testPooledCreation() throws InterruptedException {
+		BrokerPool pool = BrokerPool.getInstance();
+		long reuses = pool.getReuses();
+
+		// started normally, fills the pool
+		PooledObject first = PopJava.newActive(this, PooledObject.class, 1);
+		assertEquals(1, first.getValue());
+
+		while (pool.getIdle() < 2) {
+			Thread.sleep(100);
+		}
+
+		PooledObject second = PopJava.newActive(this, PooledObject.class, 2);
+		PooledObject third = PopJava.newActive(this, PooledObject.class, 3);
+		assertEquals(2, second.getValue());
+		assertEquals(3, third.getValue());
+		assertNotEquals(second.getJVM(), third.getJVM());
+		assertTrue(pool.getReuses() >= reuses + 2);
+	}
+
+	@Test(timeout = 120000)
+	public void testContainer() throws InterruptedException {
+		Configuration.getInstance().setBrokerContainer(true);
+		BrokerPool pool = BrokerPool.getInstance();
+
+		PooledObject first = PopJava.newActive(this, PooledObject.class, 1);
+		assertEquals(1, first.getValue());
+
+		// the first object may already be hosted
+		while (pool.getIdle() + pool.getContainers() < 1) {
+			Thread.sleep(100);
+		}
+
+		PooledObject second = PopJava.newActive(this, PooledObject.class, 2);
+		PooledObject third = PopJava.newActive(this, PooledObject.class, 3);
+		assertEquals(2, second.getValue());
+		assertEquals(3, third.getValue());
+		assertEquals(second.getJVM(), third.getJVM());
+		assertTrue(pool.getContainers() > 0);
+	}
+}
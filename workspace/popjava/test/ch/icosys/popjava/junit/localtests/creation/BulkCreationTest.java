@@ -0,0 +1,39 @@
+package ch.icosys.popjava.junit.localtests.creation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.system.POPSystem;
+
+public class BulkCreationTest {
+
+	@Before
+	public void before() {
+		POPSystem.initialize();
+	}
+
+	@After
+	public void after() {
+		POPSystem.end();
+	}
+
+	@Test(timeout = 120000)
+	public void testNewActiveArray() {
+		PooledObject[] objects = PopJava.newActiveArray(PooledObject.class, 4, null, 7);
+		assertEquals(4, objects.length);
+
+		Set<String> jvms = new HashSet<>();
+		for (PooledObject object : objects) {
+			assertEquals(7, object.getValue());
+			jvms.add(object.getJVM());
+		}
+		assertEquals(4, jvms.size());
+	}
+}
@@ -0,0 +1,30 @@
+package ch.icosys.popjava.junit.localtests.creation;
+
+import java.lang.management.ManagementFactory;
+
+import ch.icosys.popjava.core.annotation.POPClass;
+import ch.icosys.popjava.core.annotation.POPSyncSeq;
+import ch.icosys.popjava.core.base.POPObject;
+
+@POPClass
+public class PooledObject extends POPObject {
+
+	private int value;
+
+	public PooledObject() {
+	}
+
+	public PooledObject(int value) {
+		this.value = value;
+	}
+
+	@POPSyncSeq
+	public int getValue() {
+		return value;
+	}
+
+	@POPSyncSeq
+	public String getJVM() {
+		return ManagementFactory.getRuntimeMXBean().getName();
+	}
+}
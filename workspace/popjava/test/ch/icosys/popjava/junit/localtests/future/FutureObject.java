@@ -0,0 +1,53 @@
+package ch.icosys.popjava.junit.localtests.future;
+
+import java.util.concurrent.CompletableFuture;
+
+import ch.icosys.popjava.core.annotation.POPClass;
+import ch.icosys.popjava.core.annotation.POPObjectDescription;
+import ch.icosys.popjava.core.annotation.POPParameter;
+import ch.icosys.popjava.core.annotation.POPParameter.Direction;
+import ch.icosys.popjava.core.annotation.POPSyncConc;
+import ch.icosys.popjava.core.annotation.POPSyncSeq;
+import ch.icosys.popjava.core.base.POPObject;
+
+@POPClass
+public class FutureObject extends POPObject {
+
+	private int counter = 0;
+
+	@POPObjectDescription(url = "localhost")
+	public FutureObject() {
+	}
+
+	@POPSyncConc
+	public CompletableFuture<Integer> square(int sleep, int value) throws InterruptedException {
+		Thread.sleep(sleep);
+		return CompletableFuture.completedFuture(value * value);
+	}
+
+	@POPSyncSeq
+	public CompletableFuture<Void> increment() {
+		counter++;
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@POPSyncSeq
+	public int getCounter() {
+		return counter;
+	}
+
+	@POPSyncConc
+	public CompletableFuture<String> fill(@POPParameter(Direction.INOUT) int[] values) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+		}
+		return CompletableFuture.supplyAsync(() -> "filled");
+	}
+
+	@POPSyncConc
+	public CompletableFuture<Integer> fail() {
+		CompletableFuture<Integer> future = new CompletableFuture<>();
+		future.completeExceptionally(new IllegalStateException("failed on purpose"));
+		return future;
+	}
+}
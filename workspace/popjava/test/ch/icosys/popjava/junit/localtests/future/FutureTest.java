@@ -0,0 +1,93 @@
+package ch.icosys.popjava.junit.localtests.future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.system.POPSystem;
+
+public class FutureTest {
+
+	private FutureObject object;
+
+	@Before
+	public void setUp() {
+		POPSystem.initialize();
+		object = PopJava.newActive(this, FutureObject.class);
+	}
+
+	@After
+	public void tearDown() {
+		POPSystem.end();
+	}
+
+	@Test(timeout = 30000)
+	public void testManyInFlight() throws Exception {
+		long start = System.currentTimeMillis();
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			futures.add(object.square(500, i));
+		}
+
+		for (int i = 0; i < futures.size(); i++) {
+			assertEquals(i * i, (int) futures.get(i).get());
+		}
+
+		// the calls were not made one after the other
+		assertTrue(System.currentTimeMillis() - start < 100 * 500);
+	}
+
+	@Test(timeout = 30000)
+	public void testOutOfOrder() throws Exception {
+		CompletableFuture<Integer> slow = object.square(5000, 3);
+		CompletableFuture<Integer> fast = object.square(0, 2);
+
+		// the fast response doesn't wait behind the slow one
+		assertEquals(4, (int) fast.get(3, TimeUnit.SECONDS));
+		assertTrue(!slow.isDone());
+		assertEquals(9, (int) slow.get());
+	}
+
+	@Test(timeout = 30000)
+	public void testSequential() throws Exception {
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(object.increment());
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+		assertEquals(10, object.getCounter());
+	}
+
+	@Test(timeout = 30000)
+	public void testOutputParameter() throws Exception {
+		int[] values = new int[5];
+		assertEquals("filled", object.fill(values).get());
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, values);
+	}
+
+	@Test(timeout = 30000)
+	public void testException() throws Exception {
+		try {
+			object.fail().get();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof POPException);
+			// the object is still usable
+			assertEquals(4, (int) object.square(0, 2).get());
+			return;
+		}
+		throw new AssertionError("The future should have failed");
+	}
+}
@@ -0,0 +1,88 @@
+package ch.icosys.popjava.junit.localtests.jobmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.service.jobmanager.JobManagerConnections;
+import ch.icosys.popjava.core.service.jobmanager.POPJavaJobManager;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.Configuration;
+
+public class JobManagerConnectionsTest {
+
+	@Rule
+	public TemporaryFolder tf = new TemporaryFolder();
+
+	private final Configuration conf = Configuration.getInstance();
+
+	private final int connectionTimeout = conf.getConnectionTimeout();
+
+	@Before
+	public void before() {
+		POPSystem.initialize();
+	}
+
+	@After
+	public void after() {
+		conf.setConnectionTimeout(connectionTimeout);
+		conf.setJobManagerConnectionsPerTarget(4);
+		conf.setJobManagerConnectionIdleTimeout(60000);
+		POPSystem.end();
+	}
+
+	@Test(timeout = 120000)
+	public void testConnections() throws IOException {
+		POPJavaJobManager jm = PopJava.newActive(null, POPJavaJobManager.class, "localhost",
+				new String[] { "socket" }, tf.newFile().getAbsolutePath());
+		POPAccessPoint ap = PopJava.getAccessPoint(jm);
+		String nodeId = jm.getNodeId();
+
+		JobManagerConnections connections = new JobManagerConnections();
+
+		// a released connection is given again
+		POPJavaJobManager first = connections.acquire("", ap);
+		assertEquals(nodeId, first.getNodeId());
+		connections.release(first, true);
+		POPJavaJobManager second = connections.acquire("", ap);
+		assertSame(first, second);
+		assertEquals(nodeId, second.getNodeId());
+		assertEquals(1, connections.getOpened());
+		assertEquals(1, connections.getReused());
+
+		// no more connections than the limit
+		conf.setJobManagerConnectionsPerTarget(1);
+		conf.setConnectionTimeout(200);
+		try {
+			connections.acquire("", ap);
+			fail("the limit was not respected");
+		} catch (POPException e) {
+		}
+
+		// a failed connection is closed
+		connections.release(second, false);
+		assertEquals(0, connections.getIdle());
+		POPJavaJobManager third = connections.acquire("", ap);
+		assertNotSame(second, third);
+		assertEquals(2, connections.getOpened());
+
+		// idle connections expire
+		connections.release(third, true);
+		assertEquals(1, connections.getIdle());
+		conf.setJobManagerConnectionIdleTimeout(-1);
+		connections.evictIdle();
+		assertEquals(0, connections.getIdle());
+	}
+}
@@ -81,6 +81,20 @@ public class ProtocolsTests {
 		a.sync();
 	}
 
+	@Test
+	public void nioProtocol() {
+		A a = PopJava.newActive(this, A.class, "localhost", new String[] { "nio" });
+		System.out.format("AP: %s\n", a.getAccessPoint());
+		a.sync();
+	}
+
+	@Test
+	public void nioAndSocketProtocols() {
+		A a = PopJava.newActive(this, A.class, "localhost", new String[] { "nio", "socket" });
+		System.out.format("AP: %s\n", a.getAccessPoint());
+		a.sync();
+	}
+
 	@Test(expected = Exception.class)
 	public void errorDoublePort() {
 		A a = PopJava.newActive(this, A.class, "localhost:9020", new String[] { "socket:9040" });
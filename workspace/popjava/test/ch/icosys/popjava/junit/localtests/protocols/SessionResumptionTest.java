@@ -0,0 +1,86 @@
+package ch.icosys.popjava.junit.localtests.protocols;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.combox.socket.ssl.ComboxSecureSocket;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.Util;
+import ch.icosys.popjava.core.util.ssl.KeyPairDetails;
+import ch.icosys.popjava.core.util.ssl.KeyStoreDetails;
+import ch.icosys.popjava.core.util.ssl.SSLUtils;
+
+public class SessionResumptionTest {
+
+	public static final String NETWORK = "myTest";
+
+	static File keystore;
+
+	static File userConfig;
+
+	private final Configuration conf = Configuration.getInstance();
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		userConfig = File.createTempFile("popjunit", ".properties");
+		keystore = new File(String.format("popjunit-%s.jks", Util.generateUUID()));
+		KeyPairDetails keyDetails = new KeyPairDetails(NETWORK);
+		KeyStoreDetails ksDetails = new KeyStoreDetails("storepass", "keypass", keystore);
+
+		Configuration conf = Configuration.getInstance();
+		SSLUtils.generateKeyStore(ksDetails, keyDetails);
+		conf.setSSLKeyStoreOptions(ksDetails);
+		conf.setDefaultNetwork(NETWORK);
+		SSLUtils.reloadPOPManagers();
+		conf.setUserConfig(userConfig);
+
+		conf.store();
+	}
+
+	@AfterClass
+	public static void cleanup() {
+		userConfig.deleteOnExit();
+		keystore.deleteOnExit();
+		Configuration.getInstance().setUserConfig(null);
+		Configuration.getInstance().setDefaultNetwork("");
+	}
+
+	@Before
+	public void before() {
+		POPSystem.initialize();
+	}
+
+	@After
+	public void after() {
+		conf.setComboxSharedConnections(1);
+		POPSystem.end();
+	}
+
+	@Test(timeout = 60000)
+	public void testResumedSession() {
+		// every interface makes its own connection
+		conf.setComboxSharedConnections(1);
+		A ssl = PopJava.newActive(this, A.class, "localhost", new String[] { "ssl" });
+		POPAccessPoint ap = ssl.getAccessPoint();
+
+		long handshakes = ComboxSecureSocket.getHandshakes();
+		long resumed = ComboxSecureSocket.getResumedHandshakes();
+		A first = PopJava.connect(null, A.class, NETWORK, ap);
+		first.sync();
+		A second = PopJava.connect(null, A.class, NETWORK, ap);
+		second.sync();
+
+		assertTrue(ComboxSecureSocket.getHandshakes() >= handshakes + 2);
+		assertTrue(ComboxSecureSocket.getResumedHandshakes() >= resumed + 1);
+	}
+}
@@ -0,0 +1,72 @@
+package ch.icosys.popjava.junit.localtests.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.security.cert.Certificate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.ssl.KeyPairDetails;
+import ch.icosys.popjava.core.util.ssl.KeyStoreDetails;
+import ch.icosys.popjava.core.util.ssl.SSLUtils;
+
+public class TemporaryCertificatesTest {
+
+	@Rule
+	public TemporaryFolder testDir = new TemporaryFolder();
+
+	private final Configuration conf = Configuration.getInstance();
+
+	private File previousDirectory;
+
+	private File temporaryDirectory;
+
+	@Before
+	public void before() throws Exception {
+		File keyStore = testDir.newFile();
+		temporaryDirectory = testDir.newFolder();
+		KeyStoreDetails ksDetails = new KeyStoreDetails("storepass", "keypass", keyStore);
+		SSLUtils.generateKeyStore(ksDetails, new KeyPairDetails("myself"));
+
+		previousDirectory = conf.getSSLTemporaryCertificateLocation();
+		conf.setSSLKeyStoreOptions(ksDetails);
+		conf.setSSLTemporaryCertificateDirectory(temporaryDirectory);
+		SSLUtils.reloadPOPManagers();
+	}
+
+	@After
+	public void after() {
+		conf.setSSLTemporaryCertificateDirectory(previousDirectory);
+		SSLUtils.reloadPOPManagers();
+	}
+
+	@Test(timeout = 30000)
+	public void testAddAndRemove() throws Exception {
+		Certificate cert = SSLUtils.ensureKeyPairGeneration(new KeyPairDetails("other")).getCertificate();
+		String fingerprint = SSLUtils.certificateFingerprint(cert);
+
+		// trusted before being written
+		SSLUtils.addCertToTempStore(SSLUtils.certificateBytes(cert));
+		assertTrue(SSLUtils.isCertificateKnown(cert));
+		assertEquals(cert, SSLUtils.getCertificate(fingerprint));
+		assertFalse(SSLUtils.isConfidenceLink(fingerprint));
+
+		SSLUtils.writeTemporaryCertificates();
+		File file = new File(temporaryDirectory, fingerprint + ".cer");
+		assertTrue(file.exists());
+
+		// the directory watcher forgets the deleted certificates
+		Files.delete(file.toPath());
+		while (SSLUtils.isCertificateKnown(cert)) {
+			Thread.sleep(100);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package ch.icosys.popjava.junit.localtests.streams;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import ch.icosys.popjava.core.annotation.POPClass;
+import ch.icosys.popjava.core.annotation.POPObjectDescription;
+import ch.icosys.popjava.core.annotation.POPSyncConc;
+import ch.icosys.popjava.core.base.POPInputStream;
+import ch.icosys.popjava.core.base.POPObject;
+
+@POPClass
+public class StreamObject extends POPObject {
+
+	@POPObjectDescription(url = "localhost")
+	public StreamObject() {
+	}
+
+	/**
+	 * @return the number of bytes read, -1 if they don't follow the pattern or
+	 *         the stream failed
+	 */
+	@POPSyncConc
+	public long check(POPInputStream data) {
+		long count = 0;
+		byte[] read = new byte[10000];
+		try {
+			int length;
+			while ((length = data.read(read)) >= 0) {
+				for (int i = 0; i < length; i++) {
+					if (read[i] != (byte) (count + i)) {
+						return -1;
+					}
+				}
+				count += length;
+			}
+		} catch (IOException e) {
+			return -1;
+		}
+		return count;
+	}
+
+	@POPSyncConc
+	public int readFirst(POPInputStream data) {
+		try {
+			return data.read();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	@POPSyncConc
+	public POPInputStream generate(long size) {
+		return new POPInputStream(new Pattern(size, -1));
+	}
+
+	@POPSyncConc
+	public int ping(int value) {
+		return value;
+	}
+
+	/**
+	 * Bytes following their position, without keeping them
+	 */
+	public static class Pattern extends InputStream {
+
+		private final long size;
+
+		private final long failAt;
+
+		private long position;
+
+		private boolean closed;
+
+		public Pattern(long size, long failAt) {
+			this.size = size;
+			this.failAt = failAt;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (failAt >= 0 && position >= failAt) {
+				throw new IOException("Failing on purpose");
+			}
+			if (position >= size) {
+				return -1;
+			}
+			return (int) (position++ & 0xff);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (position >= size) {
+				return -1;
+			}
+			int length = (int) Math.min(len, size - position);
+			for (int i = 0; i < length; i++) {
+				b[off + i] = (byte) read();
+			}
+			return length;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		public long getPosition() {
+			return position;
+		}
+
+		public boolean isClosed() {
+			return closed;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package ch.icosys.popjava.junit.localtests.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PopJava;
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.base.POPInputStream;
+import ch.icosys.popjava.core.system.POPSystem;
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.junit.localtests.streams.StreamObject.Pattern;
+
+public class StreamTest {
+
+	private StreamObject object;
+
+	@Before
+	public void setUp() {
+		POPSystem.initialize();
+		object = PopJava.newActive(this, StreamObject.class);
+	}
+
+	@After
+	public void tearDown() {
+		POPSystem.end();
+	}
+
+	@Test(timeout = 60000)
+	public void testParameter() {
+		// many times the window, never all in memory
+		long size = 100L * Configuration.getInstance().getStreamChunkSize() + 123;
+		Pattern source = new Pattern(size, -1);
+		assertEquals(size, object.check(new POPInputStream(source)));
+		assertTrue(source.isClosed());
+
+		assertEquals(0, object.check(new POPInputStream(new Pattern(0, -1))));
+	}
+
+	@Test(timeout = 60000)
+	public void testPartialRead() {
+		long size = 100L * Configuration.getInstance().getStreamChunkSize();
+		Pattern source = new Pattern(size, -1);
+		assertEquals(0, object.readFirst(new POPInputStream(source)));
+
+		// stopped after the window
+		assertTrue(source.getPosition() < size);
+		assertTrue(source.isClosed());
+		assertEquals(42, object.ping(42));
+	}
+
+	@Test(timeout = 60000)
+	public void testReturned() throws IOException {
+		long size = 50L * Configuration.getInstance().getStreamChunkSize() + 7;
+		try (POPInputStream stream = object.generate(size)) {
+			long count = 0;
+			int value;
+			byte[] read = new byte[4096];
+			while ((value = stream.read(read)) >= 0) {
+				for (int i = 0; i < value; i++) {
+					assertEquals((byte) (count + i), read[i]);
+				}
+				count += value;
+			}
+			assertEquals(size, count);
+		}
+
+		// closed early
+		POPInputStream stream = object.generate(size);
+		assertEquals(0, stream.read());
+		stream.close();
+		assertEquals(42, object.ping(42));
+	}
+
+	@Test(timeout = 60000, expected = POPException.class)
+	public void testFailingSource() {
+		try {
+			object.check(new POPInputStream(new Pattern(1000000, 500000)));
+		} finally {
+			assertEquals(42, object.ping(42));
+		}
+	}
+}
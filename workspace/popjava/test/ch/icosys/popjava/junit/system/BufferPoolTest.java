@@ -0,0 +1,74 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.buffer.BufferPool;
+import ch.icosys.popjava.core.buffer.BufferRaw;
+
+public class BufferPoolTest {
+
+	@Test
+	public void testReuse() {
+		BufferPool pool = new BufferPool(8, false);
+		byte[] array = pool.acquire(100);
+		assertEquals(BufferRaw.BUFFER_LENGTH, array.length);
+		pool.release(array);
+		assertSame(array, pool.acquire(BufferRaw.BUFFER_LENGTH));
+		assertEquals(1, pool.getAllocations());
+		assertEquals(1, pool.getReuses());
+		assertEquals(1, pool.getReleases());
+	}
+
+	@Test
+	public void testSizeClasses() {
+		BufferPool pool = new BufferPool(8, false);
+		byte[] array = pool.acquire(BufferRaw.BUFFER_LENGTH + 1);
+		assertEquals(BufferRaw.BUFFER_LENGTH * 2, array.length);
+		pool.release(array);
+		assertNotSame(array, pool.acquire(BufferRaw.BUFFER_LENGTH));
+		assertSame(array, pool.acquire(BufferRaw.BUFFER_LENGTH * 2));
+
+		// too big or not from the pool, never kept
+		byte[] huge = pool.acquire(BufferRaw.BUFFER_LENGTH << 12);
+		assertEquals(BufferRaw.BUFFER_LENGTH << 12, huge.length);
+		pool.release(huge);
+		pool.release(new byte[100]);
+		assertEquals(1, pool.getReleases());
+	}
+
+	@Test
+	public void testDisabled() {
+		BufferPool pool = new BufferPool(0, false);
+		byte[] array = pool.acquire(10);
+		pool.release(array);
+		assertNotSame(array, pool.acquire(10));
+		assertEquals(2, pool.getAllocations());
+		assertEquals(0, pool.getReuses());
+	}
+
+	@Test
+	public void testReleasedBuffer() {
+		BufferRaw buffer = new BufferRaw();
+		for (int i = 0; i < BufferRaw.BUFFER_LENGTH; i++) {
+			buffer.putInt(i);
+		}
+		buffer.release();
+		// releasing twice does nothing
+		buffer.release();
+
+		long reuses = BufferPool.getInstance().getReuses();
+		BufferRaw other = new BufferRaw();
+		other.putString("pooled");
+		other.putInt(42);
+		other.extractHeader();
+		assertEquals("pooled", other.getString());
+		assertEquals(42, other.getInt());
+		assertTrue(BufferPool.getInstance().getReuses() > reuses);
+		other.release();
+	}
+}
@@ -0,0 +1,127 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.PJProxyFactory;
+import ch.icosys.popjava.core.annotation.POPAsyncSeq;
+import ch.icosys.popjava.core.annotation.POPClass;
+import ch.icosys.popjava.core.annotation.POPParameter;
+import ch.icosys.popjava.core.annotation.POPParameter.Direction;
+import ch.icosys.popjava.core.annotation.POPSyncConc;
+import ch.icosys.popjava.core.base.MethodInfo;
+import ch.icosys.popjava.core.base.POPClassDescriptor;
+import ch.icosys.popjava.core.base.POPObject;
+import ch.icosys.popjava.core.base.Semantic;
+import ch.icosys.popjava.core.util.ClassUtil;
+import ch.icosys.popjava.junit.annotations.semantics.SemanticObject;
+
+public class ClassDescriptorTest {
+
+	@POPClass
+	public static class Flagged extends POPObject {
+
+		public Flagged() {
+		}
+
+		@POPSyncConc
+		public void call(@POPParameter(Direction.IN) int[] in, @POPParameter(Direction.OUT) int[] out, int[] both,
+				@POPParameter(Direction.IGNORE) int[] ignored, Flagged object) {
+		}
+
+		@POPAsyncSeq(localhost = true)
+		public void local() {
+		}
+	}
+
+	@POPClass
+	public static class Identified extends POPObject {
+
+		public Identified() {
+			setClassId(1500);
+			initializePOPObject();
+		}
+	}
+
+	@Test
+	public void testSharedDescriptor() throws NoSuchMethodException {
+		SemanticObject first = new SemanticObject();
+		SemanticObject second = new SemanticObject();
+		assertNotNull(first.getClassDescriptor());
+		assertSame(first.getClassDescriptor(), second.getClassDescriptor());
+
+		Method method = SemanticObject.class.getMethod("testSyncConc");
+		assertEquals(first.getMethodInfo(method), second.getMethodInfo(method));
+		assertEquals(method, second.getMethodByInfo(first.getMethodInfo(method)));
+	}
+
+	@Test
+	public void testOwnSemantic() throws NoSuchMethodException {
+		SemanticObject modified = new SemanticObject();
+		SemanticObject other = new SemanticObject();
+		Method method = SemanticObject.class.getMethod("testSyncConc");
+
+		// the object works on its own copy of the maps
+		modified.addSemantic(SemanticObject.class, "testSyncConc", Semantic.ASYNCHRONOUS | Semantic.SEQUENCE,
+				new Class<?>[0]);
+		assertEquals(Semantic.ASYNCHRONOUS | Semantic.SEQUENCE, modified.getSemantic(method));
+		assertEquals(Semantic.SYNCHRONOUS | Semantic.CONCURRENT, other.getSemantic(method));
+		assertEquals(Semantic.SYNCHRONOUS | Semantic.CONCURRENT, new SemanticObject().getSemantic(method));
+	}
+
+	@Test
+	public void testOwnClassId() throws NoSuchMethodException {
+		Identified object = new Identified();
+		Constructor<?> constructor = Identified.class.getConstructor();
+		assertEquals(1500, object.getMethodInfo(constructor).getClassId());
+		assertSame(object.getClassDescriptor(), POPClassDescriptor.get(Identified.class, 1500));
+		assertNotSame(object.getClassDescriptor(),
+				POPClassDescriptor.get(Identified.class, ClassUtil.classId(Identified.class)));
+		assertSame(object.getClassDescriptor(), new Identified().getClassDescriptor());
+	}
+
+	@Test
+	public void testMethodIndex() throws NoSuchMethodException {
+		Flagged object = new Flagged();
+		POPClassDescriptor descriptor = object.getClassDescriptor();
+		Method call = Flagged.class.getMethod("call", int[].class, int[].class, int[].class, int[].class,
+				Flagged.class);
+		MethodInfo info = object.getMethodInfo(call);
+
+		int index = descriptor.indexOf(info.getClassId(), info.getMethodId());
+		assertEquals(index, descriptor.indexOf(call));
+		assertEquals(index, object.getMethodIndex(info.getClassId(), info.getMethodId()));
+		assertEquals(call, descriptor.getMethod(index));
+		assertEquals(-1, descriptor.indexOf(info.getClassId(), info.getMethodId() + 1));
+		assertEquals(Semantic.SYNCHRONOUS | Semantic.CONCURRENT, descriptor.getLocalSemantics(index));
+
+		int[] flags = descriptor.getParameterFlags(index);
+		assertEquals(POPClassDescriptor.PARAMETER_IN | POPClassDescriptor.PARAMETER_DIRECTED, flags[0]);
+		assertEquals(POPClassDescriptor.PARAMETER_OUT | POPClassDescriptor.PARAMETER_DIRECTED, flags[1]);
+		assertEquals(POPClassDescriptor.PARAMETER_IN | POPClassDescriptor.PARAMETER_OUT, flags[2]);
+		assertEquals(POPClassDescriptor.PARAMETER_DIRECTED, flags[3]);
+		// parallel objects are only sent back with an explicit direction
+		assertFalse(POPClassDescriptor.isOutput(flags[4], object));
+		assertTrue(POPClassDescriptor.isOutput(flags[2], new int[0]));
+
+		Method local = Flagged.class.getMethod("local");
+		assertEquals(Semantic.ASYNCHRONOUS | Semantic.SEQUENCE | Semantic.LOCALHOST,
+				descriptor.getLocalSemantics(descriptor.indexOf(local)));
+	}
+
+	@Test
+	public void testProxyClass() {
+		Class<?> proxyClass = new PJProxyFactory(SemanticObject.class).getProxyClass();
+		assertSame(proxyClass, new PJProxyFactory(SemanticObject.class).getProxyClass());
+		assertEquals(SemanticObject.class, proxyClass.getSuperclass());
+	}
+}
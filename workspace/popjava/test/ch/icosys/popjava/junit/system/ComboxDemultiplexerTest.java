@@ -0,0 +1,150 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.combox.ComboxDemultiplexer;
+import ch.icosys.popjava.core.combox.ComboxDemultiplexer.Frame;
+
+public class ComboxDemultiplexerTest {
+
+	private static final Frame END = new Frame(0, 0, new byte[0]);
+
+	@Test
+	public void testPendingFrames() throws IOException {
+		ComboxDemultiplexer demultiplexer = new ComboxDemultiplexer(() -> {
+		});
+		Frame first = new Frame(1, 10, new byte[0]);
+		Frame second = new Frame(1, 11, new byte[0]);
+		demultiplexer.deliver(first);
+		demultiplexer.deliver(second);
+
+		assertSame(second, demultiplexer.receive(1, 11));
+		assertSame(first, demultiplexer.receive(1, -1));
+		demultiplexer.close();
+		assertNull(demultiplexer.receive(1, 12));
+	}
+
+	@Test
+	public void testDiscardedFrames() throws IOException {
+		AtomicInteger drained = new AtomicInteger();
+		ComboxDemultiplexer demultiplexer = new ComboxDemultiplexer(drained::incrementAndGet);
+		assertTrue(demultiplexer.offer(new Frame(1, 10, new byte[0])));
+		assertTrue(demultiplexer.offer(new Frame(2, 10, new byte[0])));
+		demultiplexer.discard(1);
+		assertEquals(1, demultiplexer.getPendingCount());
+
+		// the messages are all kept, the connection should stop being read
+		for (int i = 0; i < ComboxDemultiplexer.MAX_PENDING_FRAMES - 2; i++) {
+			assertTrue(demultiplexer.offer(new Frame(3, i, new byte[0])));
+		}
+		assertFalse(demultiplexer.offer(new Frame(3, -2, new byte[0])));
+		assertEquals(ComboxDemultiplexer.MAX_PENDING_FRAMES, demultiplexer.getPendingCount());
+		assertTrue(demultiplexer.isFull());
+
+		for (int i = 0; i < ComboxDemultiplexer.MAX_PENDING_FRAMES / 2; i++) {
+			assertEquals(0, drained.get());
+			assertEquals(i, demultiplexer.receive(3, i).getRequestID());
+		}
+		assertEquals(1, drained.get());
+		assertFalse(demultiplexer.isFull());
+
+		demultiplexer.close();
+		// no message was lost
+		assertNotNull(demultiplexer.receive(2, 10));
+		assertNotNull(demultiplexer.receive(3, -2));
+		assertNull(demultiplexer.receive(1, 10));
+	}
+
+	@Test(timeout = 20000)
+	public void testReaderWaitsForRoom() throws Exception {
+		final BlockingQueue<Frame> stream = new LinkedBlockingQueue<>();
+		final ComboxDemultiplexer demultiplexer = new ComboxDemultiplexer(() -> {
+			try {
+				Frame frame = stream.take();
+				return frame == END ? null : frame;
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		});
+		for (int i = 0; i <= ComboxDemultiplexer.MAX_PENDING_FRAMES; i++) {
+			stream.put(new Frame(3, i, new byte[0]));
+		}
+		Frame mine = new Frame(1, 1, new byte[0]);
+		stream.put(mine);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Frame> reader = executor.submit(() -> demultiplexer.receive(1, 1));
+			while (demultiplexer.getPendingCount() < ComboxDemultiplexer.MAX_PENDING_FRAMES) {
+				Thread.sleep(10);
+			}
+			// the reader holds the next message instead of dropping one
+			Thread.sleep(200);
+			assertFalse(reader.isDone());
+			assertEquals(1, stream.size());
+
+			for (int i = 0; i <= ComboxDemultiplexer.MAX_PENDING_FRAMES; i++) {
+				assertEquals(i, demultiplexer.receive(3, i).getRequestID());
+			}
+			assertSame(mine, reader.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testOutOfOrderResponses() throws Exception {
+		final BlockingQueue<Frame> stream = new ArrayBlockingQueue<>(10);
+		final ComboxDemultiplexer demultiplexer = new ComboxDemultiplexer(() -> {
+			try {
+				Frame frame = stream.take();
+				return frame == END ? null : frame;
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Future<Frame> first = executor.submit(() -> demultiplexer.receive(1, 1));
+			Future<Frame> second = executor.submit(() -> demultiplexer.receive(1, 2));
+			Future<Frame> other = executor.submit(() -> demultiplexer.receive(2, 1));
+
+			Frame otherFrame = new Frame(2, 1, new byte[0]);
+			Frame secondFrame = new Frame(1, 2, new byte[0]);
+			Frame firstFrame = new Frame(1, 1, new byte[0]);
+			// whoever reads has to hand the messages to the others
+			stream.put(otherFrame);
+			stream.put(secondFrame);
+			stream.put(firstFrame);
+
+			assertSame(firstFrame, first.get(5, TimeUnit.SECONDS));
+			assertSame(secondFrame, second.get(5, TimeUnit.SECONDS));
+			assertSame(otherFrame, other.get(5, TimeUnit.SECONDS));
+
+			Future<Frame> closed = executor.submit(() -> demultiplexer.receive(1, 3));
+			stream.put(END);
+			assertNull(closed.get(5, TimeUnit.SECONDS));
+			assertEquals(0, stream.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.icosys.popjava.core.util.Configuration;
+import ch.icosys.popjava.core.util.LogWriter;
+
+public class LogWriterTest {
+
+	@Rule
+	public TemporaryFolder testDir = new TemporaryFolder();
+
+	private final Configuration conf = Configuration.getInstance();
+
+	@After
+	public void after() {
+		conf.setLogFormat("text");
+		conf.setLogFileMaxSize(0);
+	}
+
+	@Test
+	public void testTextLines() throws Exception {
+		File dir = testDir.newFolder();
+		for (int i = 0; i < 100; i++) {
+			LogWriter.writeLogInfo("line " + i, new File(dir, "log.txt").getPath());
+		}
+		assertTrue(LogWriter.flush(10000));
+
+		File[] files = dir.listFiles();
+		assertEquals(1, files.length);
+		List<String> lines = Files.readAllLines(files[0].toPath(), StandardCharsets.UTF_8);
+		assertEquals(100, lines.size());
+		assertTrue(lines.get(0).endsWith("-line 0"));
+		assertTrue(lines.get(99).endsWith("-line 99"));
+	}
+
+	@Test
+	public void testJsonLines() throws Exception {
+		conf.setLogFormat("json");
+		File dir = testDir.newFolder();
+		LogWriter.writeLogInfo("a \"quoted\"\nmessage", new File(dir, "log.txt").getPath());
+		assertTrue(LogWriter.flush(10000));
+
+		File[] files = dir.listFiles();
+		assertEquals(1, files.length);
+		List<String> lines = Files.readAllLines(files[0].toPath(), StandardCharsets.UTF_8);
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).startsWith("{\"time\":"));
+		assertTrue(lines.get(0).endsWith(",\"message\":\"a \\\"quoted\\\"\\nmessage\"}"));
+	}
+
+	@Test
+	public void testJsonRawLines() throws Exception {
+		conf.setLogFormat("json");
+		File dir = testDir.newFolder();
+		LogWriter.writeLogfile("raw line\n", new File(dir, "log.txt").getPath());
+		assertTrue(LogWriter.flush(10000));
+
+		List<String> lines = Files.readAllLines(dir.listFiles()[0].toPath(), StandardCharsets.UTF_8);
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).startsWith("{\"time\":"));
+		assertTrue(lines.get(0).endsWith(",\"message\":\"raw line\"}"));
+	}
+
+	@Test
+	public void testSizeRotationInBytes() throws Exception {
+		conf.setLogFileMaxSize(250);
+		File dir = testDir.newFolder();
+		StringBuilder accents = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			accents.append('\u00e9');
+		}
+		for (int i = 0; i < 5; i++) {
+			LogWriter.writeLogInfo(accents.toString(), new File(dir, "log.txt").getPath());
+		}
+		assertTrue(LogWriter.flush(10000));
+
+		// 200 bytes each but 100 chars, a file holds a single line
+		File[] files = dir.listFiles();
+		assertEquals(5, files.length);
+		for (File file : files) {
+			assertTrue(file.length() < 400);
+		}
+	}
+
+	@Test
+	public void testSizeRotation() throws Exception {
+		conf.setLogFileMaxSize(200);
+		File dir = testDir.newFolder();
+		for (int i = 0; i < 20; i++) {
+			LogWriter.writeLogInfo("line " + i, new File(dir, "log.txt").getPath());
+		}
+		assertTrue(LogWriter.flush(10000));
+
+		File[] files = dir.listFiles();
+		assertTrue(files.length > 1);
+		int lines = 0;
+		for (File file : files) {
+			assertTrue(file.length() < 300);
+			lines += Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size();
+		}
+		assertEquals(20, lines);
+	}
+}
@@ -0,0 +1,117 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.Serializable;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.annotation.POPParameter;
+import ch.icosys.popjava.core.annotation.POPParameter.Direction;
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.buffer.BufferRaw;
+import ch.icosys.popjava.core.buffer.BufferXDR;
+import ch.icosys.popjava.core.buffer.MethodStub;
+import ch.icosys.popjava.core.buffer.MethodStubGenerator;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+
+public class MethodStubTest {
+
+	public static class Target {
+
+		private String last;
+
+		public String concat(String text, int number, long big, double real, boolean flag, char letter) {
+			last = text + number + big + real + flag + letter;
+			return last;
+		}
+
+		public void store(short value, float decimal, byte other) {
+			last = "" + value + decimal + other;
+		}
+
+		public int[] range(int length) {
+			int[] values = new int[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = i;
+			}
+			return values;
+		}
+
+		public String nothing() {
+			return null;
+		}
+
+		public void inout(int[] values) {
+		}
+
+		public void out(@POPParameter(Direction.OUT) int value) {
+		}
+
+		public Serializable object() {
+			return null;
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Throwable {
+		testRoundTrip(new BufferRaw());
+		testRoundTrip(new BufferXDR());
+	}
+
+	@Test
+	public void testVoidAndArray() throws Throwable {
+		Target target = new Target();
+		MethodStub store = MethodStubGenerator.getStub(Target.class.getMethod("store", short.class, float.class,
+				byte.class));
+		POPBuffer request = new BufferRaw();
+		store.putArguments(request, new Object[] { (short) 1, 2.5f, (byte) 3 });
+		request.extractHeader();
+		store.invoke(target, request, null);
+		assertEquals("12.53", target.last);
+
+		MethodStub range = MethodStubGenerator.getStub(Target.class.getMethod("range", int.class));
+		request = new BufferRaw();
+		range.putArguments(request, new Object[] { 4 });
+		request.extractHeader();
+		POPBuffer response = new BufferRaw();
+		range.invoke(target, request, response);
+		response.extractHeader();
+		assertArrayEquals(new int[] { 0, 1, 2, 3 }, (int[]) range.getResult(response));
+	}
+
+	@Test(expected = POPException.class)
+	public void testNullString() throws Throwable {
+		MethodStub nothing = MethodStubGenerator.getStub(Target.class.getMethod("nothing"));
+		nothing.invoke(new Target(), new BufferRaw(), new BufferRaw());
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+		// these need the reflective path
+		assertNull(MethodStubGenerator.getStub(Target.class.getMethod("inout", int[].class)));
+		assertNull(MethodStubGenerator.getStub(Target.class.getMethod("out", int.class)));
+		assertNull(MethodStubGenerator.getStub(Target.class.getMethod("object")));
+		assertNull(MethodStubGenerator.getStub(Object.class.getMethod("toString")));
+	}
+
+	private void testRoundTrip(POPBuffer request) throws Throwable {
+		Target target = new Target();
+		MethodStub stub = MethodStubGenerator.getStub(Target.class.getMethod("concat", String.class, int.class,
+				long.class, double.class, boolean.class, char.class));
+		assertNotNull(stub);
+
+		stub.putArguments(request, new Object[] { "a", 1, 2L, 3.0, true, 'z' });
+		request.extractHeader();
+
+		POPBuffer response = request instanceof BufferRaw ? new BufferRaw() : new BufferXDR();
+		stub.invoke(target, request, response);
+		response.extractHeader();
+
+		assertEquals("a123.0truez", target.last);
+		assertEquals("a123.0truez", stub.getResult(response));
+	}
+}
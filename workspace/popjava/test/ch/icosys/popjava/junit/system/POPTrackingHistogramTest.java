@@ -0,0 +1,72 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.baseobject.POPTrackingHistogram;
+import ch.icosys.popjava.core.buffer.BufferRaw;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+
+public class POPTrackingHistogramTest {
+
+	private static void assertClose(long expected, long actual) {
+		assertTrue(expected + " expected, got " + actual, Math.abs(actual - expected) <= expected / 16);
+	}
+
+	@Test
+	public void testEmpty() {
+		POPTrackingHistogram histogram = new POPTrackingHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getP50());
+		assertEquals(0, histogram.getMean());
+	}
+
+	@Test
+	public void testPercentiles() {
+		POPTrackingHistogram histogram = new POPTrackingHistogram();
+		for (long i = 1; i <= 100_000; i++) {
+			histogram.record(i * 1000);
+		}
+		histogram.record(-1);
+
+		assertEquals(100_000, histogram.getCount());
+		assertEquals(100_000_000, histogram.getMax());
+		assertClose(50_000_000, histogram.getP50());
+		assertClose(99_000_000, histogram.getP99());
+		assertClose(99_900_000, histogram.getP999());
+		assertEquals(histogram.getMax(), histogram.getPercentile(1));
+	}
+
+	@Test
+	public void testSmallAndHugeValues() {
+		POPTrackingHistogram histogram = new POPTrackingHistogram();
+		histogram.record(3);
+		assertEquals(3, histogram.getP50());
+		histogram.record(1L << 50);
+		assertEquals(1L << 50, histogram.getMax());
+		assertEquals(1L << 50, histogram.getPercentile(1));
+		assertEquals(2, histogram.getCount());
+	}
+
+	@Test
+	public void testSerialization() {
+		POPTrackingHistogram histogram = new POPTrackingHistogram();
+		for (long i = 1; i <= 1000; i++) {
+			histogram.record(i * i);
+		}
+
+		POPBuffer buffer = new BufferRaw();
+		histogram.serialize(buffer);
+		buffer.extractHeader();
+		POPTrackingHistogram read = new POPTrackingHistogram();
+		read.deserialize(buffer);
+
+		assertEquals(histogram.getCount(), read.getCount());
+		assertEquals(histogram.getTotal(), read.getTotal());
+		assertEquals(histogram.getMax(), read.getMax());
+		assertEquals(histogram.getP50(), read.getP50());
+		assertEquals(histogram.getP999(), read.getP999());
+	}
+}
@@ -0,0 +1,123 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.baseobject.POPAccessPoint;
+import ch.icosys.popjava.core.service.jobmanager.Resource;
+import ch.icosys.popjava.core.service.jobmanager.placement.BestFitPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.LeastLoadedPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.LocalityPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.NodeLoads;
+import ch.icosys.popjava.core.service.jobmanager.placement.PackPlacement;
+import ch.icosys.popjava.core.service.jobmanager.placement.PlacementStrategy;
+import ch.icosys.popjava.core.service.jobmanager.placement.SpreadPlacement;
+import ch.icosys.popjava.core.service.jobmanager.search.SNNodesInfo;
+
+public class PlacementTest {
+
+	private static final Resource NEEDED = new Resource(10, 100, 0);
+
+	// a small node, lightly used
+	private final SNNodesInfo.Node small = node("small", "10.0.0.1", new Resource(20, 200, 0), 1, 4);
+
+	// a large node, with more objects
+	private final SNNodesInfo.Node large = node("large", "10.0.0.2", new Resource(100, 1000, 0), 8, 64);
+
+	// a node too busy for the object
+	private final SNNodesInfo.Node busy = node("busy", "10.0.0.3", new Resource(5, 1000, 0), 3, 4);
+
+	private final List<SNNodesInfo.Node> nodes = Arrays.asList(small, large, busy);
+
+	private static SNNodesInfo.Node node(String id, String host, Resource available, int jobs, int maxJobs) {
+		SNNodesInfo.Node node = new SNNodesInfo.Node(id, new POPAccessPoint("socket://" + host + ":2711"), "linux",
+				available);
+		node.setValue(NodeLoads.JOBS, String.valueOf(jobs));
+		node.setValue(NodeLoads.MAX_JOBS, String.valueOf(maxJobs));
+		return node;
+	}
+
+	private NodeLoads loads() {
+		NodeLoads loads = new NodeLoads(60000);
+		for (SNNodesInfo.Node node : nodes) {
+			loads.update(node);
+		}
+		return loads;
+	}
+
+	private List<SNNodesInfo.Node> rank(PlacementStrategy placement, NodeLoads loads) {
+		return placement.rank(nodes, NEEDED, loads);
+	}
+
+	@Test
+	public void testFitness() {
+		assertEquals(2f, small.getResources().getFitness(NEEDED), 0);
+		assertEquals(0.5f, busy.getResources().getFitness(NEEDED), 0);
+		assertEquals(1f, small.getResources().getFitness(new Resource()), 0);
+	}
+
+	@Test
+	public void testBestFit() {
+		NodeLoads loads = loads();
+		assertEquals(Arrays.asList(large, small, busy), rank(new BestFitPlacement(), loads));
+
+		// the fitness returned by a reservation is preferred
+		loads.reserved(small, 50);
+		assertEquals(Arrays.asList(small, large, busy), rank(new BestFitPlacement(), loads));
+	}
+
+	@Test
+	public void testSpread() {
+		NodeLoads loads = loads();
+		assertEquals(Arrays.asList(small, busy, large), rank(new SpreadPlacement(), loads));
+
+		loads.placed(small);
+		loads.placed(small);
+		loads.placed(small);
+		assertEquals(Arrays.asList(busy, small, large), rank(new SpreadPlacement(), loads));
+	}
+
+	@Test
+	public void testPack() {
+		NodeLoads loads = loads();
+		assertEquals(Arrays.asList(small, large, busy), rank(new PackPlacement(), loads));
+	}
+
+	@Test
+	public void testLeastLoaded() {
+		NodeLoads loads = loads();
+		assertEquals(Arrays.asList(large, small, busy), rank(new LeastLoadedPlacement(), loads));
+
+		// objects placed since the answers count
+		for (int i = 0; i < 24; i++) {
+			loads.placed(large);
+		}
+		assertEquals(Arrays.asList(small, large, busy), rank(new LeastLoadedPlacement(), loads));
+	}
+
+	@Test
+	public void testLocality() {
+		NodeLoads loads = loads();
+		SNNodesInfo.Node neighbour = node("neighbour", "10.0.0.3", new Resource(100, 1000, 0), 0, 4);
+		List<SNNodesInfo.Node> all = new ArrayList<>(nodes);
+		all.add(neighbour);
+
+		PlacementStrategy placement = new LocalityPlacement("busy", new POPAccessPoint("socket://10.0.0.3:2711"));
+		assertEquals(Arrays.asList(busy, neighbour, large, small), placement.rank(all, NEEDED, loads));
+	}
+
+	@Test
+	public void testExpiration() throws InterruptedException {
+		NodeLoads loads = new NodeLoads(50);
+		loads.placed(small);
+		assertEquals(2, loads.getJobs(small));
+		Thread.sleep(100);
+		assertEquals(0, loads.size());
+		assertEquals(1, loads.getJobs(small));
+	}
+}
@@ -3,11 +3,15 @@ package ch.icosys.popjava.junit.system;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Random;
 
 import org.junit.Test;
 
+import ch.icosys.popjava.core.buffer.BufferPool;
 import ch.icosys.popjava.core.buffer.BufferRaw;
+import ch.icosys.popjava.core.util.Configuration;
 
 public class RawBufferTest {
 
@@ -45,6 +49,73 @@ public class RawBufferTest {
 		}
 	}
 
+	@Test
+	public void testBulkArrays() throws IOException {
+		Configuration conf = Configuration.getInstance();
+		int threshold = conf.getBulkTransferThreshold();
+		double[] doubles = new double[10000];
+		int[] ints = new int[30000];
+		byte[] bytes = new byte[20001];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = i;
+			doubles[i % doubles.length] = i / 3.0;
+			bytes[i % bytes.length] = (byte) i;
+		}
+
+		try {
+			conf.setBulkTransferThreshold(0);
+			byte[] copied = bulkMessage(doubles, ints, bytes);
+
+			conf.setBulkTransferThreshold(1024);
+			byte[] streamed = bulkMessage(doubles, ints, bytes);
+			assertArrayEquals(copied, streamed);
+
+			BufferRaw buffer = new BufferRaw();
+			buffer.receive(streamed);
+			assertEquals(streamed.length, buffer.size());
+			assertArrayEquals(doubles, buffer.getDoubleArray(buffer.getInt()), 0);
+			assertEquals("between", buffer.getString());
+			assertArrayEquals(ints, buffer.getIntArray(buffer.getInt()));
+			assertArrayEquals(bytes, buffer.getByteArray(buffer.getInt()));
+			assertEquals(42, buffer.getInt());
+
+			// the same message read in a larger pooled array
+			byte[] pooled = BufferPool.getInstance().acquire(streamed.length);
+			System.arraycopy(streamed, 0, pooled, 0, streamed.length);
+			buffer = new BufferRaw();
+			buffer.receive(pooled, streamed.length);
+			assertEquals(streamed.length, buffer.size());
+			assertArrayEquals(doubles, buffer.getDoubleArray(buffer.getInt()), 0);
+			assertEquals("between", buffer.getString());
+
+			// read back the arrays kept by reference
+			buffer = new BufferRaw();
+			buffer.putIntArray(ints);
+			buffer.putInt(7);
+			buffer.extractHeader();
+			assertArrayEquals(ints, buffer.getIntArray(buffer.getInt()));
+			assertEquals(7, buffer.getInt());
+		} finally {
+			conf.setBulkTransferThreshold(threshold);
+		}
+	}
+
+	private static byte[] bulkMessage(double[] doubles, int[] ints, byte[] bytes) throws IOException {
+		BufferRaw buffer = new BufferRaw();
+		buffer.putDoubleArray(doubles);
+		buffer.putString("between");
+		buffer.putIntArray(ints);
+		buffer.putByteArray(bytes);
+		buffer.putInt(42);
+		buffer.packMessageHeader();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		buffer.writeTo(output);
+		assertEquals(buffer.size(), output.size());
+		buffer.release();
+		return output.toByteArray();
+	}
+
 	private static String getRandomString(int min, int max) {
 		int length = min + new Random().nextInt(max - min);
 
@@ -0,0 +1,86 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.annotation.ExecutorType;
+import ch.icosys.popjava.core.baseobject.ObjectDescription;
+import ch.icosys.popjava.core.broker.RequestExecutor;
+import ch.icosys.popjava.core.buffer.BufferRaw;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+
+public class RequestExecutorTest {
+
+	@Test
+	public void testFixed() throws InterruptedException {
+		testExecutor(new RequestExecutor(ExecutorType.Fixed, 2));
+	}
+
+	@Test
+	public void testForkJoin() throws InterruptedException {
+		testExecutor(new RequestExecutor(ExecutorType.ForkJoin, 2));
+	}
+
+	@Test
+	public void testVirtual() throws InterruptedException {
+		RequestExecutor executor = new RequestExecutor(ExecutorType.Virtual, 0);
+		if (RequestExecutor.isVirtualThreadAvailable()) {
+			assertEquals(ExecutorType.Virtual, executor.getType());
+		} else {
+			assertEquals(ExecutorType.Fixed, executor.getType());
+		}
+		testExecutor(executor);
+	}
+
+	@Test
+	public void testFromName() {
+		assertEquals(ExecutorType.ForkJoin, ExecutorType.fromName("FORKJOIN"));
+		assertEquals(ExecutorType.Default, ExecutorType.fromName("unknown"));
+		assertEquals(ExecutorType.Default, ExecutorType.fromName(null));
+	}
+
+	@Test
+	public void testObjectDescriptionExecutor() {
+		ObjectDescription od = new ObjectDescription();
+		od.setExecutor(ExecutorType.ForkJoin.toString());
+		POPBuffer buffer = new BufferRaw();
+		od.serialize(buffer);
+		buffer.extractHeader();
+
+		ObjectDescription read = new ObjectDescription();
+		read.deserialize(buffer);
+		assertEquals("forkjoin", read.getExecutor());
+	}
+
+	private void testExecutor(RequestExecutor executor) throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(2);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(2);
+		Runnable request = new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+				}
+				done.countDown();
+			}
+		};
+
+		executor.executeConcurrent(request);
+		executor.executeSequential(request);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(2, executor.getActiveWorkers());
+		assertEquals(0, executor.getQueueDepth());
+
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,146 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.base.Semantic;
+import ch.icosys.popjava.core.broker.LockFreeRequestScheduler;
+import ch.icosys.popjava.core.broker.Request;
+import ch.icosys.popjava.core.broker.RequestQueue;
+import ch.icosys.popjava.core.broker.RequestScheduler;
+
+public class RequestSchedulerTest {
+
+	private static final int TIMEOUT = 50;
+
+	@Test
+	public void testSequentialOrder() {
+		testSequentialOrder(new RequestQueue());
+		testSequentialOrder(new LockFreeRequestScheduler());
+	}
+
+	@Test
+	public void testConcurrent() {
+		testConcurrent(new RequestQueue());
+		testConcurrent(new LockFreeRequestScheduler());
+	}
+
+	@Test
+	public void testMutexBarrier() {
+		testMutexBarrier(new RequestQueue());
+		testMutexBarrier(new LockFreeRequestScheduler());
+	}
+
+	@Test
+	public void testClearWithServedRequests() {
+		RequestScheduler scheduler = new LockFreeRequestScheduler();
+		Request served = request(Semantic.CONCURRENT);
+		scheduler.add(served);
+		assertSame(served, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		scheduler.add(request(Semantic.CONCURRENT));
+		scheduler.add(request(Semantic.SEQUENCE));
+
+		scheduler.clear();
+		assertNull(scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		// the request being served still counts until it's removed
+		assertEquals(1, scheduler.size());
+		scheduler.remove(served);
+		assertEquals(0, scheduler.size());
+	}
+
+	@Test(timeout = 5000)
+	public void testInterruptedPick() {
+		RequestScheduler scheduler = new LockFreeRequestScheduler();
+		Thread.currentThread().interrupt();
+		assertNull(scheduler.pick(60, TimeUnit.SECONDS));
+		// the caller still sees the interrupt
+		assertTrue(Thread.interrupted());
+	}
+
+	@Test(timeout = 10000)
+	public void testCapacity() throws InterruptedException {
+		RequestScheduler scheduler = new LockFreeRequestScheduler();
+		scheduler.setMaxQueue(4);
+		List<Thread> producers = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Thread producer = new Thread(() -> scheduler.add(request(Semantic.CONCURRENT)));
+			producer.start();
+			producers.add(producer);
+		}
+		Thread.sleep(200);
+		assertEquals(4, scheduler.size());
+
+		for (int i = 0; i < 8; i++) {
+			Request request = scheduler.pick(1000, TimeUnit.MILLISECONDS);
+			scheduler.remove(request);
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		assertEquals(0, scheduler.size());
+	}
+
+	private void testSequentialOrder(RequestScheduler scheduler) {
+		Request first = request(Semantic.SEQUENCE);
+		Request second = request(Semantic.SEQUENCE);
+		scheduler.add(first);
+		scheduler.add(second);
+
+		assertSame(first, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		// the second can't start before the first is done
+		assertNull(scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		scheduler.remove(first);
+		assertSame(second, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		scheduler.remove(second);
+		assertEquals(0, scheduler.size());
+	}
+
+	private void testConcurrent(RequestScheduler scheduler) {
+		Request first = request(Semantic.CONCURRENT);
+		Request second = request(Semantic.CONCURRENT);
+		scheduler.add(first);
+		scheduler.add(second);
+
+		assertSame(first, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertSame(second, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertEquals(2, scheduler.size());
+		scheduler.remove(second);
+		scheduler.remove(first);
+		assertEquals(0, scheduler.size());
+	}
+
+	private void testMutexBarrier(RequestScheduler scheduler) {
+		Request before = request(Semantic.CONCURRENT);
+		Request mutex = request(Semantic.MUTEX);
+		Request after = request(Semantic.CONCURRENT);
+		scheduler.add(before);
+		scheduler.add(mutex);
+		scheduler.add(after);
+
+		assertSame(before, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		// the mutex waits for the previous request
+		assertNull(scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		scheduler.remove(before);
+		assertSame(mutex, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		// following requests wait for the mutex
+		assertNull(scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		scheduler.remove(mutex);
+		assertSame(after, scheduler.pick(TIMEOUT, TimeUnit.MILLISECONDS));
+		scheduler.remove(after);
+		assertEquals(0, scheduler.size());
+	}
+
+	private static Request request(int semantics) {
+		Request request = new Request();
+		request.setSemantics(Semantic.SYNCHRONOUS | semantics);
+		return request;
+	}
+}
@@ -0,0 +1,211 @@
+package ch.icosys.popjava.junit.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ch.icosys.popjava.core.annotation.Encoding;
+import ch.icosys.popjava.core.base.POPException;
+import ch.icosys.popjava.core.buffer.BufferRaw;
+import ch.icosys.popjava.core.buffer.BufferXDR;
+import ch.icosys.popjava.core.buffer.POPBuffer;
+import ch.icosys.popjava.core.buffer.SchemaSerializer;
+import ch.icosys.popjava.core.util.Configuration;
+
+public class SchemaSerializerTest {
+
+	public static class Base implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		protected long id;
+
+		protected String name;
+	}
+
+	public static class Values extends Base {
+		private static final long serialVersionUID = 1L;
+
+		private int i;
+
+		private byte b;
+
+		private char c;
+
+		private short s;
+
+		private float f;
+
+		private double d;
+
+		private boolean flag;
+
+		private Integer boxed;
+
+		private Encoding encoding;
+
+		private int[] ints;
+
+		private double[] doubles;
+
+		private transient String ignored;
+
+		private Values next;
+
+		private Serializable any;
+
+		private List<String> list;
+	}
+
+	public static class Custom implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private int value;
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			out.defaultWriteObject();
+		}
+	}
+
+	public static class Point implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private static int created = 0;
+
+		private int x;
+
+		public Point(int x) {
+			this.x = x;
+			created++;
+		}
+	}
+
+	private static Values values() {
+		Values v = new Values();
+		v.id = Long.MAX_VALUE;
+		v.name = "name";
+		v.i = -42;
+		v.b = -7;
+		v.c = 'x';
+		v.s = 1234;
+		v.f = 1.5f;
+		v.d = Math.PI;
+		v.flag = true;
+		v.boxed = 99;
+		v.encoding = Encoding.XDR;
+		v.ints = new int[] { 1, 2, 3 };
+		v.ignored = "ignored";
+		v.list = new ArrayList<>();
+		v.list.add("a");
+		return v;
+	}
+
+	private static Object roundTrip(POPBuffer buffer, Object value, Class<?> declared) {
+		buffer.putValue(value, declared);
+		buffer.extractHeader();
+		return buffer.getValue(declared);
+	}
+
+	@Test
+	public void testEligibility() {
+		assertTrue(SchemaSerializer.hasSchema(Values.class));
+		assertFalse(SchemaSerializer.hasSchema(Custom.class));
+		assertFalse(SchemaSerializer.hasSchema(ArrayList.class));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		for (POPBuffer buffer : new POPBuffer[] { new BufferRaw(), new BufferXDR() }) {
+			Values v = values();
+			Values read = (Values) roundTrip(buffer, v, Values.class);
+
+			assertEquals(v.id, read.id);
+			assertEquals(v.name, read.name);
+			assertEquals(v.i, read.i);
+			assertEquals(v.b, read.b);
+			assertEquals(v.c, read.c);
+			assertEquals(v.s, read.s);
+			assertEquals(v.f, read.f, 0);
+			assertEquals(v.d, read.d, 0);
+			assertEquals(v.flag, read.flag);
+			assertEquals(v.boxed, read.boxed);
+			assertEquals(v.encoding, read.encoding);
+			assertArrayEquals(v.ints, read.ints);
+			assertNull(read.doubles);
+			assertNull(read.ignored);
+			assertNull(read.next);
+			assertEquals(v.list, read.list);
+		}
+	}
+
+	@Test
+	public void testReferences() {
+		Values first = values();
+		Values second = values();
+		first.next = second;
+		second.next = first;
+		first.any = second;
+
+		Values read = (Values) roundTrip(new BufferRaw(), first, Values.class);
+
+		assertSame(read, read.next.next);
+		assertSame(read.next, read.any);
+	}
+
+	@Test
+	public void testSubclass() {
+		Base read = (Base) roundTrip(new BufferRaw(), values(), Base.class);
+
+		assertTrue(read instanceof Values);
+		assertEquals(-42, ((Values) read).i);
+	}
+
+	@Test
+	public void testConstructorNotCalled() {
+		assertTrue(SchemaSerializer.hasSchema(Point.class));
+		Point point = new Point(3);
+		int created = Point.created;
+
+		// as Java serialization, only the constructor of Object is called
+		assertEquals(3, ((Point) roundTrip(new BufferRaw(), point, Point.class)).x);
+		assertEquals(created, Point.created);
+	}
+
+	@Test(expected = POPException.class)
+	public void testOtherClassVersion() {
+		POPBuffer buffer = new BufferRaw();
+		buffer.putInt(SchemaSerializer.SCHEMA_MARKER);
+		// an object of the declared class, with the fingerprint of another layout
+		buffer.putInt(1);
+		buffer.putLong(42);
+		buffer.putInt(7);
+		buffer.extractHeader();
+
+		buffer.getValue(Values.class);
+	}
+
+	@Test
+	public void testJavaSerialization() {
+		Custom custom = new Custom();
+		custom.value = 5;
+		assertEquals(5, ((Custom) roundTrip(new BufferRaw(), custom, Custom.class)).value);
+
+		Configuration conf = Configuration.getInstance();
+		conf.setSchemaSerialization(false);
+		try {
+			assertEquals(-42, ((Values) roundTrip(new BufferRaw(), values(), Values.class)).i);
+		} finally {
+			conf.setSchemaSerialization(true);
+		}
+	}
+}
@@ -8,6 +8,16 @@ import org.junit.runners.Suite;
 	POPSystemTest.class, 
 	RawBufferTest.class, 
 	ConstructorTests.class, 
-	ComboxTests.class })
+	ComboxTests.class, 
+	RequestSchedulerTest.class, 
+	RequestExecutorTest.class, 
+	ComboxDemultiplexerTest.class, 
+	MethodStubTest.class, 
+	BufferPoolTest.class, 
+	SchemaSerializerTest.class, 
+	PlacementTest.class, 
+	ClassDescriptorTest.class, 
+	LogWriterTest.class, 
+	POPTrackingHistogramTest.class })
 public class SystemTests {
 }